@@ -0,0 +1,43 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.spargel.java;
+
+import java.io.Serializable;
+
+/**
+ * A function that combines two messages sent to the same vertex into one message. If a message combiner is set on a
+ * {@link VertexCentricIteration}, the messages are combined on the sending side before they are shipped to the
+ * target vertices, and the {@link VertexUpdateFunction} receives at most one message per vertex and superstep.
+ * <p>
+ * Combining is only correct, if the vertex update function is insensitive to how the messages are grouped, i.e. if
+ * the combine operation is associative and commutative, such as a sum (PageRank) or a minimum (shortest paths,
+ * connected components).
+ * 
+ * <Message> The message type.
+ */
+public abstract class MessageCombiner<Message> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Combines two messages that are sent to the same vertex. The method may return one of its arguments, possibly
+	 * after modifying it.
+	 * 
+	 * @param message1 The first message.
+	 * @param message2 The second message.
+	 * @return The message that replaces both messages.
+	 * 
+	 * @throws Exception The computation may throw exceptions, which causes the superstep to fail.
+	 */
+	public abstract Message combine(Message message1, Message message2) throws Exception;
+}
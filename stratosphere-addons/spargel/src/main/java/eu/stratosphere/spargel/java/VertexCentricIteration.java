@@ -24,6 +24,7 @@ import eu.stratosphere.api.common.aggregators.Aggregator;
 import eu.stratosphere.api.java.DataSet;
 import eu.stratosphere.api.java.DeltaIteration;
 import eu.stratosphere.api.java.functions.CoGroupFunction;
+import eu.stratosphere.api.java.functions.ReduceFunction;
 import eu.stratosphere.api.java.operators.CoGroupOperator;
 import eu.stratosphere.api.java.operators.CustomUnaryOperation;
 import eu.stratosphere.api.java.tuple.Tuple2;
@@ -31,6 +32,7 @@ import eu.stratosphere.api.java.tuple.Tuple3;
 import eu.stratosphere.api.java.typeutils.ResultTypeQueryable;
 import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
 import eu.stratosphere.api.java.typeutils.TypeExtractor;
+import eu.stratosphere.compiler.PactCompiler;
 import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.types.TypeInformation;
 import eu.stratosphere.util.Collector;
@@ -54,6 +56,9 @@ import eu.stratosphere.util.Collector;
  *   <li>The {@link MessagingFunction} takes the new vertex state and sends messages along the outgoing
  *   edges of the vertex. The outgoing edges may optionally have an associated value, such as a weight.</li>
  * </ul>
+ * Optionally, a {@link MessageCombiner} combines all messages to the same vertex before they are shipped.
+ * Also optionally, the edges are kept in an index in memory (see {@link #setCachedEdgeIndex(boolean)}),
+ * such that each superstep only looks up the outgoing edges of the vertices that changed.
  * <p>
  * Vertex-centric graph iterations are instantiated by the
  * {@link #withPlainEdges(DataSet, VertexUpdateFunction, MessagingFunction, int)} method, or the
@@ -86,6 +91,10 @@ public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, Ver
 	
 	private final TypeInformation<Message> messageType;
 	
+	private MessageCombiner<Message> messageCombiner;
+	
+	private boolean cachedEdgeIndex;
+	
 	private DataSet<Tuple2<VertexKey, VertexValue>> initialVertices;
 	
 	private String name;
@@ -191,6 +200,51 @@ public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, Ver
 		this.bcVarsUpdate.add(new Tuple2<String, DataSet<?>>(name, data));
 	}
 	
+	/**
+	 * Sets a combiner for the messages. The messages sent to the same vertex are combined before they are shipped
+	 * to the vertex, and once more after they were received, such that the {@link VertexUpdateFunction} sees at
+	 * most one message per vertex and superstep.
+	 * 
+	 * @param combiner The message combiner, or null, to ship all messages individually.
+	 */
+	public void setMessageCombiner(MessageCombiner<Message> combiner) {
+		this.messageCombiner = combiner;
+	}
+	
+	/**
+	 * Gets the message combiner of this vertex-centric iteration.
+	 * 
+	 * @return The message combiner, or null, if none is set.
+	 */
+	public MessageCombiner<Message> getMessageCombiner() {
+		return this.messageCombiner;
+	}
+	
+	/**
+	 * Sets whether the edges are kept in a hash index in memory across all supersteps. By default, the messaging
+	 * function co-groups the edges with the changed vertices in every superstep, which touches all edges of the
+	 * graph in each superstep. With the cached index, the edges are indexed by their source vertex once, and every
+	 * superstep looks up only the outgoing edges of the vertices that changed in the previous superstep. That pays
+	 * off when only few vertices change per superstep. The edges of each parallel partition must fit into the
+	 * memory of the messaging function.
+	 * 
+	 * @param cachedEdgeIndex True, to keep the edges in an index in memory, false to co-group them in every superstep.
+	 */
+	public void setCachedEdgeIndex(boolean cachedEdgeIndex) {
+		this.cachedEdgeIndex = cachedEdgeIndex;
+	}
+	
+	/**
+	 * Checks whether the edges are kept in a hash index in memory across all supersteps.
+	 * 
+	 * @return True, if the edges are kept in an index in memory, false otherwise.
+	 * 
+	 * @see #setCachedEdgeIndex(boolean)
+	 */
+	public boolean isCachedEdgeIndex() {
+		return this.cachedEdgeIndex;
+	}
+	
 	/**
 	 * Sets the name for the vertex-centric iteration. The name is displayed in logs and messages.
 	 * 
@@ -307,11 +361,27 @@ public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, Ver
 			messages = messages.withBroadcastSet(e.f1, e.f0);
 		}
 		
+		// let the messaging function keep the edges in a hash table and probe it with the changed vertices
+		if (this.cachedEdgeIndex) {
+			Configuration hints = new Configuration();
+			hints.setString(PactCompiler.HINT_LOCAL_STRATEGY, PactCompiler.HINT_LOCAL_STRATEGY_HASH_BUILD_FIRST_CACHED);
+			messages = messages.withParameters(hints);
+		}
+		
+		// combine the messages per target vertex. the reduce is combinable, so the messages are
+		// combined before they are shipped to the vertices. the target vertex key is preserved, so
+		// the combined messages need not be shipped again for the update function
+		DataSet<Tuple2<VertexKey, Message>> incomingMessages = messages;
+		if (this.messageCombiner != null) {
+			MessageCombinerUdf<VertexKey, Message> combinerUdf = new MessageCombinerUdf<VertexKey, Message>(this.messageCombiner);
+			incomingMessages = messages.groupBy(0).reduce(combinerUdf).name("Message Combiner").withConstantSet("0");
+		}
+		
 		VertexUpdateUdf<VertexKey, VertexValue, Message> updateUdf = new VertexUpdateUdf<VertexKey, VertexValue, Message>(updateFunction, vertexTypes);
 		
 		// build the update function (co group)
 		CoGroupOperator<?, ?, Tuple2<VertexKey, VertexValue>> updates =
-				messages.coGroup(iteration.getSolutionSet()).where(0).equalTo(0).with(updateUdf);
+				incomingMessages.coGroup(iteration.getSolutionSet()).where(0).equalTo(0).with(updateUdf);
 		
 		// configure coGroup update function with name and broadcast variables
 		updates = updates.name("Vertex State Updates");
@@ -558,4 +628,28 @@ public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, Ver
 			return this.resultType;
 		}
 	}
+	
+	/*
+	 * UDF that combines two messages to the same vertex with the message combiner.
+	 */
+	private static final class MessageCombinerUdf<VertexKey extends Comparable<VertexKey>, Message> 
+		extends ReduceFunction<Tuple2<VertexKey, Message>>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final MessageCombiner<Message> combiner;
+		
+		
+		private MessageCombinerUdf(MessageCombiner<Message> combiner) {
+			this.combiner = combiner;
+		}
+
+		@Override
+		public Tuple2<VertexKey, Message> reduce(Tuple2<VertexKey, Message> message1, Tuple2<VertexKey, Message> message2)
+			throws Exception
+		{
+			message1.f1 = combiner.combine(message1.f1, message2.f1);
+			return message1;
+		}
+	}
 }
@@ -18,6 +18,7 @@ import eu.stratosphere.api.java.functions.FlatMapFunction;
 import eu.stratosphere.api.java.functions.MapFunction;
 import eu.stratosphere.api.java.tuple.Tuple2;
 import eu.stratosphere.api.java.tuple.Tuple3;
+import eu.stratosphere.spargel.java.MessageCombiner;
 import eu.stratosphere.spargel.java.MessageIterator;
 import eu.stratosphere.spargel.java.MessagingFunction;
 import eu.stratosphere.spargel.java.OutgoingEdge;
@@ -60,9 +61,13 @@ public class SpargelPageRank {
 									}
 								});
 		
-		DataSet<Tuple2<Long, Double>> result = intialRanks.runOperation(
-			VertexCentricIteration.withValuedEdges(edgesWithProbability,
-						new VertexRankUpdater(numVertices, BETA), new RankMessenger(), 20));
+		VertexCentricIteration<Long, Double, Double, Double> iteration = VertexCentricIteration.withValuedEdges(
+						edgesWithProbability, new VertexRankUpdater(numVertices, BETA), new RankMessenger(), 20);
+		
+		// the partial ranks sent to a vertex are summed up, so they can be pre-aggregated before shipping
+		iteration.setMessageCombiner(new RankCombiner());
+		
+		DataSet<Tuple2<Long, Double>> result = intialRanks.runOperation(iteration);
 		
 		result.print();
 		env.execute("Spargel PageRank");
@@ -108,4 +113,15 @@ public class SpargelPageRank {
 			}
 		}
 	}
+	
+	/**
+	 * Sums up the partial ranks that are sent to the same vertex.
+	 */
+	public static final class RankCombiner extends MessageCombiner<Double> {
+		
+		@Override
+		public Double combine(Double partialRank1, Double partialRank2) {
+			return partialRank1 + partialRank2;
+		}
+	}
 }
@@ -16,6 +16,7 @@
 package eu.stratosphere.spargel.java;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -29,9 +30,11 @@ import eu.stratosphere.api.java.tuple.Tuple2;
 import eu.stratosphere.compiler.plan.DualInputPlanNode;
 import eu.stratosphere.compiler.plan.OptimizedPlan;
 import eu.stratosphere.compiler.plan.PlanNode;
+import eu.stratosphere.compiler.plan.SingleInputPlanNode;
 import eu.stratosphere.compiler.plan.SinkPlanNode;
 import eu.stratosphere.compiler.plan.WorksetIterationPlanNode;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
 import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
 import eu.stratosphere.spargel.java.examples.SpargelConnectedComponents.CCMessager;
 import eu.stratosphere.spargel.java.examples.SpargelConnectedComponents.CCUpdater;
@@ -176,4 +179,124 @@ public class SpargelCompilerTest extends CompilerTestBase {
 			fail(e.getMessage());
 		}
 	}
+	
+	@Test
+	public void testSpargelCompilerWithMessageCombiner() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+			// compose test program
+			{
+				DataSet<Long> vertexIds = env.generateSequence(1, 2);
+				
+				@SuppressWarnings("unchecked")
+				DataSet<Tuple2<Long, Long>> edges = env.fromElements(new Tuple2<Long, Long>(1L, 2L));
+				
+				DataSet<Tuple2<Long, Long>> initialVertices = vertexIds.map(new IdAssigner());
+				
+				VertexCentricIteration<Long, Long, Long, ?> vcIter = VertexCentricIteration.withPlainEdges(edges, new CCUpdater(), new CCMessager(), 100);
+				vcIter.setMessageCombiner(new MessageCombiner<Long>() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					public Long combine(Long message1, Long message2) {
+						return Math.min(message1, message2);
+					}
+				});
+				
+				DataSet<Tuple2<Long, Long>> result = initialVertices.runOperation(vcIter);
+				
+				result.print();
+			}
+			
+			Plan p = env.createProgramPlan("Spargel Connected Components");
+			OptimizedPlan op = compileNoStats(p);
+			
+			// check the iteration
+			SinkPlanNode sink = op.getDataSinks().iterator().next();
+			WorksetIterationPlanNode iteration = (WorksetIterationPlanNode) sink.getInput().getSource();
+			
+			// check the solution set join and the delta
+			PlanNode ssDelta = iteration.getSolutionSetDeltaPlanNode();
+			assertTrue(ssDelta instanceof DualInputPlanNode); // this is only true if the update functions preserves the partitioning
+			
+			// the messages arrive at the solution set join grouped by the reducer, which needs no further shipping
+			DualInputPlanNode ssJoin = (DualInputPlanNode) ssDelta;
+			assertEquals(ShipStrategyType.FORWARD, ssJoin.getInput1().getShipStrategy());
+			
+			SingleInputPlanNode reducer = (SingleInputPlanNode) ssJoin.getInput1().getSource();
+			assertEquals(DriverStrategy.SORTED_REDUCE, reducer.getDriverStrategy());
+			assertEquals(ShipStrategyType.PARTITION_HASH, reducer.getInput().getShipStrategy());
+			assertEquals(new FieldList(0), reducer.getInput().getShipStrategyKeys());
+			
+			// the messages are combined before they are shipped
+			SingleInputPlanNode combiner = (SingleInputPlanNode) reducer.getInput().getSource();
+			assertEquals(DriverStrategy.SORTED_PARTIAL_REDUCE, combiner.getDriverStrategy());
+			assertEquals(ShipStrategyType.FORWARD, combiner.getInput().getShipStrategy());
+			
+			// the combiner consumes the output of the messaging function
+			DualInputPlanNode edgeJoin = (DualInputPlanNode) combiner.getInput().getSource();
+			assertEquals(DEFAULT_PARALLELISM, edgeJoin.getDegreeOfParallelism());
+			assertTrue(edgeJoin.getInput1().getTempMode().isCached());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testSpargelCompilerWithCachedEdgeIndex() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+			// compose test program
+			{
+				DataSet<Long> vertexIds = env.generateSequence(1, 2);
+				
+				@SuppressWarnings("unchecked")
+				DataSet<Tuple2<Long, Long>> edges = env.fromElements(new Tuple2<Long, Long>(1L, 2L));
+				
+				DataSet<Tuple2<Long, Long>> initialVertices = vertexIds.map(new IdAssigner());
+				
+				VertexCentricIteration<Long, Long, Long, ?> vcIter = VertexCentricIteration.withPlainEdges(edges, new CCUpdater(), new CCMessager(), 100);
+				vcIter.setCachedEdgeIndex(true);
+				
+				DataSet<Tuple2<Long, Long>> result = initialVertices.runOperation(vcIter);
+				
+				result.print();
+			}
+			
+			Plan p = env.createProgramPlan("Spargel Connected Components");
+			OptimizedPlan op = compileNoStats(p);
+			
+			// check the iteration
+			SinkPlanNode sink = op.getDataSinks().iterator().next();
+			WorksetIterationPlanNode iteration = (WorksetIterationPlanNode) sink.getInput().getSource();
+			
+			PlanNode ssDelta = iteration.getSolutionSetDeltaPlanNode();
+			DualInputPlanNode ssJoin = (DualInputPlanNode) ssDelta;
+			
+			// the messaging function probes the cached edge table with the workset
+			DualInputPlanNode edgeJoin = (DualInputPlanNode) ssJoin.getInput1().getSource();
+			assertEquals(DriverStrategy.CO_GROUP_HASH_BUILD_FIRST_CACHED, edgeJoin.getDriverStrategy());
+			assertEquals(ShipStrategyType.PARTITION_HASH, edgeJoin.getInput1().getShipStrategy());
+			assertEquals(new FieldList(0), edgeJoin.getInput1().getShipStrategyKeys());
+			assertEquals(ShipStrategyType.FORWARD, edgeJoin.getInput2().getShipStrategy());
+			
+			// the edges are held by the hash table, not by an additional cache, and are not sorted
+			assertFalse(edgeJoin.getInput1().getTempMode().isCached());
+			assertEquals(LocalStrategy.NONE, edgeJoin.getInput1().getLocalStrategy());
+			
+			// the workset stays grouped across the supersteps, so it is sorted only outside the loop
+			assertEquals(LocalStrategy.NONE, edgeJoin.getInput2().getLocalStrategy());
+			assertEquals(LocalStrategy.SORT, iteration.getInput2().getLocalStrategy());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
 }
@@ -0,0 +1,138 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.benchmarks.hash;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.typeutils.BasicTypeInfo;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.benchmarks.util.BenchmarkInvokable;
+import eu.stratosphere.benchmarks.util.IntPairIterator;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
+import eu.stratosphere.pact.runtime.hash.CompactingHashTable;
+import eu.stratosphere.pact.runtime.util.SameTypePairComparator;
+
+/**
+ * Measures the lookup-and-update cycle on a {@link CompactingHashTable}, which is how the solution set
+ * of a delta iteration and the hash-based reduce use the table. The table is rebuilt for every
+ * iteration, so the garbage that the updates leave behind does not accumulate across the run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class CompactingHashTableBenchmark {
+
+	private static final int MEMORY_SIZE = 128 * 1024 * 1024;
+
+	private static final int PAGE_SIZE = 32 * 1024;
+
+	@Param({"false", "true"})
+	public boolean offHeap;
+
+	@Param({"1000000"})
+	public int numRecords;
+
+	private DefaultMemoryManager memoryManager;
+
+	private CompactingHashTable<Tuple2<Integer, Integer>> table;
+
+	private CompactingHashTable<Tuple2<Integer, Integer>>.HashTableProber<Tuple2<Integer, Integer>> prober;
+
+	private IntPairIterator initial;
+
+	private IntPairIterator updates;
+
+	private Tuple2<Integer, Integer> update;
+
+	private Tuple2<Integer, Integer> match;
+
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		final TupleTypeInfo<Tuple2<Integer, Integer>> typeInfo =
+			new TupleTypeInfo<Tuple2<Integer, Integer>>(BasicTypeInfo.INT_TYPE_INFO, BasicTypeInfo.INT_TYPE_INFO);
+		final TypeSerializer<Tuple2<Integer, Integer>> serializer = typeInfo.createSerializer();
+		final TypeComparator<Tuple2<Integer, Integer>> comparator =
+			typeInfo.createComparator(new int[] {0}, new boolean[] {true});
+
+		this.memoryManager = new DefaultMemoryManager(MEMORY_SIZE, PAGE_SIZE, this.offHeap);
+		final List<MemorySegment> memory =
+			this.memoryManager.allocatePages(new BenchmarkInvokable(), MEMORY_SIZE / PAGE_SIZE);
+
+		this.table = new CompactingHashTable<Tuple2<Integer, Integer>>(serializer, comparator, memory);
+		this.prober = this.table.getProber(comparator.duplicate(),
+			new SameTypePairComparator<Tuple2<Integer, Integer>>(comparator));
+
+		this.initial = IntPairIterator.uniqueKeys(this.numRecords, 0xb01dL);
+		this.updates = IntPairIterator.random(this.numRecords, this.numRecords, 0xbeefL);
+		this.update = serializer.createInstance();
+		this.match = serializer.createInstance();
+	}
+
+	@Setup(Level.Iteration)
+	public void buildTable() throws Exception {
+		this.initial.reset();
+		this.table.open();
+		this.table.buildTable(this.initial);
+	}
+
+	@TearDown(Level.Iteration)
+	public void closeTable() {
+		this.table.close();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.memoryManager.release(this.table.getFreeMemory());
+		this.memoryManager.shutdown();
+	}
+
+	@Benchmark
+	public int lookupAndUpdate() throws Exception {
+		this.updates.reset();
+
+		int numUpdated = 0;
+		Tuple2<Integer, Integer> next;
+		while ((next = this.updates.next(this.update)) != null) {
+			if (this.prober.getMatchFor(next, this.match)) {
+				this.match.f1 = this.match.f1 + next.f1;
+				this.prober.updateMatch(this.match);
+				numUpdated++;
+			}
+		}
+		return numUpdated;
+	}
+}
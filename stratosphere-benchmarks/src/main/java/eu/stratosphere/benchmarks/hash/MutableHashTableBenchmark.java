@@ -0,0 +1,132 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.benchmarks.hash;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.typeutils.BasicTypeInfo;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.benchmarks.util.BenchmarkInvokable;
+import eu.stratosphere.benchmarks.util.IntPairIterator;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
+import eu.stratosphere.pact.runtime.hash.MutableHashTable;
+import eu.stratosphere.pact.runtime.hash.MutableHashTable.HashBucketIterator;
+import eu.stratosphere.pact.runtime.util.SameTypePairComparator;
+
+/**
+ * Measures building a {@link MutableHashTable} and probing it, as the hybrid hash join does. The build side
+ * has unique keys and the probe side draws its keys from the same range, so every probe record has
+ * exactly one match. The memory is large enough to keep the table completely in memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MutableHashTableBenchmark {
+
+	private static final int MEMORY_SIZE = 64 * 1024 * 1024;
+
+	private static final int PAGE_SIZE = 32 * 1024;
+
+	@Param({"false", "true"})
+	public boolean offHeap;
+
+	@Param({"1000000"})
+	public int numRecords;
+
+	private DefaultMemoryManager memoryManager;
+
+	private IOManager ioManager;
+
+	private MutableHashTable<Tuple2<Integer, Integer>, Tuple2<Integer, Integer>> table;
+
+	private IntPairIterator buildSide;
+
+	private IntPairIterator probeSide;
+
+	private Tuple2<Integer, Integer> reuse;
+
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		final TupleTypeInfo<Tuple2<Integer, Integer>> typeInfo =
+			new TupleTypeInfo<Tuple2<Integer, Integer>>(BasicTypeInfo.INT_TYPE_INFO, BasicTypeInfo.INT_TYPE_INFO);
+		final TypeSerializer<Tuple2<Integer, Integer>> serializer = typeInfo.createSerializer();
+		final TypeComparator<Tuple2<Integer, Integer>> buildComparator =
+			typeInfo.createComparator(new int[] {0}, new boolean[] {true});
+		final TypeComparator<Tuple2<Integer, Integer>> probeComparator = buildComparator.duplicate();
+
+		this.memoryManager = new DefaultMemoryManager(MEMORY_SIZE, PAGE_SIZE, this.offHeap);
+		this.ioManager = new IOManager();
+		final List<MemorySegment> memory =
+			this.memoryManager.allocatePages(new BenchmarkInvokable(), MEMORY_SIZE / PAGE_SIZE);
+
+		this.table = new MutableHashTable<Tuple2<Integer, Integer>, Tuple2<Integer, Integer>>(
+			serializer, serializer, buildComparator, probeComparator,
+			new SameTypePairComparator<Tuple2<Integer, Integer>>(buildComparator), memory, this.ioManager);
+
+		this.buildSide = IntPairIterator.uniqueKeys(this.numRecords, 0xb01dL);
+		this.probeSide = IntPairIterator.random(this.numRecords, this.numRecords, 0xbeefL);
+		this.reuse = serializer.createInstance();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.table.close();
+		this.memoryManager.release(this.table.getFreedMemory());
+		this.memoryManager.shutdown();
+		this.ioManager.shutdown();
+	}
+
+	@Benchmark
+	public long buildAndProbe() throws Exception {
+		this.buildSide.reset();
+		this.probeSide.reset();
+
+		long sum = 0;
+		this.table.open(this.buildSide, this.probeSide);
+		while (this.table.nextRecord()) {
+			final HashBucketIterator<Tuple2<Integer, Integer>, Tuple2<Integer, Integer>> matches =
+				this.table.getBuildSideIterator();
+			Tuple2<Integer, Integer> match;
+			while ((match = matches.next(this.reuse)) != null) {
+				sum += match.f1;
+			}
+		}
+		this.table.close();
+		return sum;
+	}
+}
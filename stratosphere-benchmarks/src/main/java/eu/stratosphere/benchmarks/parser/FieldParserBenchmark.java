@@ -0,0 +1,139 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.benchmarks.parser;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.stratosphere.types.parser.AsciiStringParser;
+import eu.stratosphere.types.parser.DecimalTextDoubleParser;
+import eu.stratosphere.types.parser.DecimalTextIntParser;
+import eu.stratosphere.types.parser.DecimalTextLongParser;
+import eu.stratosphere.types.parser.DoubleParser;
+import eu.stratosphere.types.parser.FieldParser;
+import eu.stratosphere.types.parser.IntParser;
+import eu.stratosphere.types.parser.LongParser;
+import eu.stratosphere.types.parser.VarLengthStringParser;
+
+/**
+ * Measures splitting delimited text into lines and parsing the fields of each line, the way the CSV input
+ * formats do it. The lines have an int, a long, a double and a string field. The parsers are either the
+ * ones of the Java API (producing boxed primitives and strings) or the ones of the Record API
+ * (producing mutable values).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FieldParserBenchmark {
+
+	private static final int NUM_LINES = 100000;
+
+	private static final char FIELD_DELIMITER = '|';
+
+	private static final byte LINE_DELIMITER = '\n';
+
+	private static final long SEED = 97652436586326573L;
+
+	@Param({"java", "record"})
+	public String api;
+
+	private byte[] data;
+
+	private FieldParser<Object>[] parsers;
+
+	private Object[] holders;
+
+
+	@Setup(Level.Trial)
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		final Random rnd = new Random(SEED);
+		final StringBuilder bld = new StringBuilder();
+		for (int i = 0; i < NUM_LINES; i++) {
+			bld.append(rnd.nextInt()).append(FIELD_DELIMITER);
+			bld.append(rnd.nextLong()).append(FIELD_DELIMITER);
+			bld.append(rnd.nextDouble() * 1000).append(FIELD_DELIMITER);
+			final int len = 4 + rnd.nextInt(28);
+			for (int k = 0; k < len; k++) {
+				bld.append((char) ('a' + rnd.nextInt(26)));
+			}
+			bld.append((char) LINE_DELIMITER);
+		}
+		this.data = bld.toString().getBytes();
+
+		if ("java".equals(this.api)) {
+			this.parsers = new FieldParser[] { new IntParser(), new LongParser(), new DoubleParser(), new AsciiStringParser() };
+		} else if ("record".equals(this.api)) {
+			this.parsers = new FieldParser[] { new DecimalTextIntParser(), new DecimalTextLongParser(),
+				new DecimalTextDoubleParser(), new VarLengthStringParser() };
+		} else {
+			throw new IllegalArgumentException("Unknown API: " + this.api);
+		}
+
+		this.holders = new Object[this.parsers.length];
+		for (int i = 0; i < this.parsers.length; i++) {
+			this.holders[i] = this.parsers[i].createValue();
+		}
+	}
+
+	/**
+	 * Parses all lines. The throughput is reported in batches of {@value #NUM_LINES} lines.
+	 */
+	@Benchmark
+	public int parseLines() {
+		final byte[] bytes = this.data;
+		final FieldParser<Object>[] parsers = this.parsers;
+		final Object[] holders = this.holders;
+
+		int numLines = 0;
+		int lineStart = 0;
+		while (lineStart < bytes.length) {
+			// find the end of the line, as the delimited input format does
+			int lineEnd = lineStart;
+			while (bytes[lineEnd] != LINE_DELIMITER) {
+				lineEnd++;
+			}
+
+			int pos = lineStart;
+			for (int i = 0; i < parsers.length; i++) {
+				pos = parsers[i].parseField(bytes, pos, lineEnd, FIELD_DELIMITER, holders[i]);
+				if (pos < 0) {
+					throw new IllegalStateException("Could not parse field " + i + " of line " + numLines + ": " +
+						parsers[i].getErrorState());
+				}
+				holders[i] = parsers[i].getLastResult();
+			}
+
+			lineStart = lineEnd + 1;
+			numLines++;
+		}
+		return numLines;
+	}
+}
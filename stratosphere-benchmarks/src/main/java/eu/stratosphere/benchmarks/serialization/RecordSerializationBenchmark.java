@@ -0,0 +1,139 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.benchmarks.serialization;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.runtime.io.Buffer;
+import eu.stratosphere.runtime.io.serialization.AdaptiveSpanningRecordDeserializer;
+import eu.stratosphere.runtime.io.serialization.RecordDeserializer;
+import eu.stratosphere.runtime.io.serialization.RecordDeserializer.DeserializationResult;
+import eu.stratosphere.runtime.io.serialization.RecordSerializer;
+import eu.stratosphere.runtime.io.serialization.RecordSerializer.SerializationResult;
+import eu.stratosphere.runtime.io.serialization.SpanningRecordSerializer;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.Record;
+import eu.stratosphere.types.StringValue;
+
+/**
+ * Measures the round trip of records through the {@link SpanningRecordSerializer} and the
+ * {@link AdaptiveSpanningRecordDeserializer}, the way records travel through a network channel.
+ * Every buffer that the serializer fills is handed to the deserializer right away, so records that
+ * span buffers are part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RecordSerializationBenchmark {
+
+	private static final int NUM_RECORDS = 100000;
+
+	private static final long SEED = 97652436586326573L;
+
+	@Param({"false", "true"})
+	public boolean offHeap;
+
+	@Param({"32768"})
+	public int bufferSize;
+
+	private MemorySegment segment;
+
+	private Record[] records;
+
+	private final RecordSerializer<Record> serializer = new SpanningRecordSerializer<Record>();
+
+	private final RecordDeserializer<Record> deserializer = new AdaptiveSpanningRecordDeserializer<Record>();
+
+	private final Record target = new Record();
+
+
+	@Setup(Level.Trial)
+	public void setup() {
+		this.segment = this.offHeap ?
+			new MemorySegment(ByteBuffer.allocateDirect(this.bufferSize)) :
+			new MemorySegment(new byte[this.bufferSize]);
+
+		final Random rnd = new Random(SEED);
+		this.records = new Record[NUM_RECORDS];
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			final char[] chars = new char[8 + rnd.nextInt(56)];
+			for (int k = 0; k < chars.length; k++) {
+				chars[k] = (char) ('a' + rnd.nextInt(26));
+			}
+			this.records[i] = new Record(new IntValue(rnd.nextInt()), new StringValue(new String(chars)));
+		}
+	}
+
+	/**
+	 * Serializes all records and deserializes them again. The throughput is reported in batches of
+	 * {@value #NUM_RECORDS} records.
+	 */
+	@Benchmark
+	public int roundTrip() throws IOException {
+		int numDeserialized = 0;
+
+		this.serializer.setNextBuffer(new Buffer(this.segment, this.bufferSize, null));
+		for (Record record : this.records) {
+			SerializationResult result = this.serializer.addRecord(record);
+			while (result.isFullBuffer()) {
+				final Buffer full = this.serializer.getCurrentBuffer();
+				numDeserialized += deserialize(full.getMemorySegment(), full.size());
+				result = this.serializer.setNextBuffer(new Buffer(this.segment, this.bufferSize, null));
+			}
+		}
+
+		final Buffer last = this.serializer.getCurrentBuffer();
+		numDeserialized += deserialize(last.getMemorySegment(), last.size());
+		this.serializer.clear();
+
+		if (numDeserialized != NUM_RECORDS) {
+			throw new IllegalStateException("Deserialized " + numDeserialized + " records instead of " + NUM_RECORDS + ".");
+		}
+		return numDeserialized;
+	}
+
+	private int deserialize(MemorySegment memory, int numBytes) throws IOException {
+		int num = 0;
+		this.deserializer.setNextMemorySegment(memory, numBytes);
+		DeserializationResult result;
+		do {
+			result = this.deserializer.getNextRecord(this.target);
+			if (result.isFullRecord()) {
+				num++;
+			}
+		}
+		while (!result.isBufferConsumed());
+		return num;
+	}
+}
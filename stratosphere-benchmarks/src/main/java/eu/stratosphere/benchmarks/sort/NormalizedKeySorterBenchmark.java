@@ -0,0 +1,133 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.benchmarks.sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.typeutils.BasicTypeInfo;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.benchmarks.util.BenchmarkInvokable;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
+import eu.stratosphere.pact.runtime.sort.NormalizedKeySorter;
+import eu.stratosphere.pact.runtime.sort.QuickSort;
+
+/**
+ * Measures sorting a full {@link NormalizedKeySorter} with the {@link QuickSort}. The records are
+ * (int, string) tuples, sorted on the int field, so that the comparisons are resolved by the
+ * normalized keys. The sort buffer is refilled before each invocation, because sorting sorted data
+ * is a different workload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class NormalizedKeySorterBenchmark {
+
+	private static final int MEMORY_SIZE = 64 * 1024 * 1024;
+
+	private static final int PAGE_SIZE = 32 * 1024;
+
+	private static final long SEED = 649180756312423613L;
+
+	@Param({"false", "true"})
+	public boolean offHeap;
+
+	private DefaultMemoryManager memoryManager;
+
+	private NormalizedKeySorter<Tuple2<Integer, String>> sorter;
+
+	private Tuple2<Integer, String>[] records;
+
+	private final QuickSort quickSort = new QuickSort();
+
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		final TupleTypeInfo<Tuple2<Integer, String>> typeInfo =
+			new TupleTypeInfo<Tuple2<Integer, String>>(BasicTypeInfo.INT_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO);
+		final TypeSerializer<Tuple2<Integer, String>> serializer = typeInfo.createSerializer();
+		final TypeComparator<Tuple2<Integer, String>> comparator =
+			typeInfo.createComparator(new int[] {0}, new boolean[] {true});
+
+		this.memoryManager = new DefaultMemoryManager(MEMORY_SIZE, PAGE_SIZE, this.offHeap);
+		final List<MemorySegment> memory =
+			this.memoryManager.allocatePages(new BenchmarkInvokable(), MEMORY_SIZE / PAGE_SIZE);
+		this.sorter = new NormalizedKeySorter<Tuple2<Integer, String>>(serializer, comparator, memory);
+
+		// generate as many records as fit into the sort buffer
+		final Random rnd = new Random(SEED);
+		final ArrayList<Tuple2<Integer, String>> generated = new ArrayList<Tuple2<Integer, String>>();
+		while (true) {
+			final Tuple2<Integer, String> next = new Tuple2<Integer, String>(rnd.nextInt(), randomString(rnd));
+			if (!this.sorter.write(next)) {
+				break;
+			}
+			generated.add(next);
+		}
+		@SuppressWarnings("unchecked")
+		final Tuple2<Integer, String>[] asArray = generated.toArray(new Tuple2[generated.size()]);
+		this.records = asArray;
+	}
+
+	@Setup(Level.Invocation)
+	public void fillSorter() throws Exception {
+		this.sorter.reset();
+		for (Tuple2<Integer, String> record : this.records) {
+			this.sorter.write(record);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		this.memoryManager.release(this.sorter.dispose());
+		this.memoryManager.shutdown();
+	}
+
+	@Benchmark
+	public int sort() {
+		this.quickSort.sort(this.sorter);
+		return this.sorter.size();
+	}
+
+	private static String randomString(Random rnd) {
+		final char[] chars = new char[8 + rnd.nextInt(24)];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) ('a' + rnd.nextInt(26));
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,179 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.benchmarks.typeutils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.java.tuple.Tuple3;
+import eu.stratosphere.api.java.typeutils.BasicTypeInfo;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.api.java.typeutils.runtime.TupleComparator;
+import eu.stratosphere.api.java.typeutils.runtime.TupleSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.pact.runtime.io.RandomAccessInputView;
+import eu.stratosphere.pact.runtime.io.RandomAccessOutputView;
+
+/**
+ * Measures the {@link TupleSerializer} and the {@link TupleComparator} on (int, long, string) tuples with
+ * a composite key on the int and the string field. All times are reported per record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TupleSerializerBenchmark {
+
+	private static final int NUM_RECORDS = 10000;
+
+	private static final int NUM_SEGMENTS = 64;
+
+	private static final int SEGMENT_SIZE = 32 * 1024;
+
+	private static final long SEED = 649180756312423613L;
+
+	@Param({"false", "true"})
+	public boolean offHeap;
+
+	private TupleSerializer<Tuple3<Integer, Long, String>> serializer;
+
+	private TypeComparator<Tuple3<Integer, Long, String>> comparator;
+
+	private Tuple3<Integer, Long, String>[] records;
+
+	private Tuple3<Integer, Long, String> reuse;
+
+	private RandomAccessOutputView outView;
+
+	private RandomAccessInputView inView;
+
+	private MemorySegment keyTarget;
+
+	private int normalizedKeyLen;
+
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		final TupleTypeInfo<Tuple3<Integer, Long, String>> typeInfo = new TupleTypeInfo<Tuple3<Integer, Long, String>>(
+			BasicTypeInfo.INT_TYPE_INFO, BasicTypeInfo.LONG_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO);
+		this.serializer = typeInfo.createSerializer();
+		this.comparator = typeInfo.createComparator(new int[] {0, 2}, new boolean[] {true, true});
+		this.reuse = this.serializer.createInstance();
+
+		// a small key domain, so that the comparisons need to look at the second key field
+		final Random rnd = new Random(SEED);
+		@SuppressWarnings("unchecked")
+		final Tuple3<Integer, Long, String>[] generated = new Tuple3[NUM_RECORDS];
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			final char[] chars = new char[8 + rnd.nextInt(24)];
+			for (int k = 0; k < chars.length; k++) {
+				chars[k] = (char) ('a' + rnd.nextInt(26));
+			}
+			generated[i] = new Tuple3<Integer, Long, String>(rnd.nextInt(100), rnd.nextLong(), new String(chars));
+		}
+		this.records = generated;
+
+		final MemorySegment[] segments = new MemorySegment[NUM_SEGMENTS];
+		final ArrayList<MemorySegment> segmentList = new ArrayList<MemorySegment>(NUM_SEGMENTS);
+		for (int i = 0; i < NUM_SEGMENTS; i++) {
+			segments[i] = allocate(SEGMENT_SIZE);
+			segmentList.add(segments[i]);
+		}
+		this.outView = new RandomAccessOutputView(segments, SEGMENT_SIZE);
+		this.inView = new RandomAccessInputView(segmentList, SEGMENT_SIZE);
+
+		// write the records once, for the deserialization benchmark
+		serialize();
+
+		this.normalizedKeyLen = Math.min(this.comparator.getNormalizeKeyLen(), 16);
+		this.keyTarget = allocate(NUM_RECORDS * this.normalizedKeyLen);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_RECORDS)
+	public void serialize() throws IOException {
+		this.outView.setWritePosition(0);
+		for (Tuple3<Integer, Long, String> record : this.records) {
+			this.serializer.serialize(record, this.outView);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_RECORDS)
+	public long deserialize() throws IOException {
+		this.inView.setReadPosition(0);
+		long sum = 0;
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			this.reuse = this.serializer.deserialize(this.reuse, this.inView);
+			sum += this.reuse.f1;
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_RECORDS)
+	public int compare() {
+		final Tuple3<Integer, Long, String>[] records = this.records;
+		int sum = 0;
+		for (int i = 1; i < records.length; i++) {
+			sum += this.comparator.compare(records[i - 1], records[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_RECORDS)
+	public int hash() {
+		int sum = 0;
+		for (Tuple3<Integer, Long, String> record : this.records) {
+			sum += this.comparator.hash(record);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NUM_RECORDS)
+	public void putNormalizedKey() {
+		final int len = this.normalizedKeyLen;
+		int offset = 0;
+		for (Tuple3<Integer, Long, String> record : this.records) {
+			this.comparator.putNormalizedKey(record, this.keyTarget, offset, len);
+			offset += len;
+		}
+	}
+
+	private MemorySegment allocate(int size) {
+		return this.offHeap ? new MemorySegment(ByteBuffer.allocateDirect(size)) : new MemorySegment(new byte[size]);
+	}
+}
@@ -0,0 +1,95 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.benchmarks.util;
+
+import java.util.Random;
+
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * An iterator over a fixed set of integer pairs. The pairs are generated once, so that the iterator can be
+ * reset and replayed without measuring the cost of the random number generation.
+ */
+public final class IntPairIterator implements MutableObjectIterator<Tuple2<Integer, Integer>> {
+
+	private final int[] keys;
+
+	private final int[] values;
+
+	private int position;
+
+
+	private IntPairIterator(int[] keys, int[] values) {
+		this.keys = keys;
+		this.values = values;
+	}
+
+	/**
+	 * Creates an iterator over the given number of pairs, whose keys are drawn uniformly from
+	 * <code>[0, numKeys)</code>.
+	 */
+	public static IntPairIterator random(int numRecords, int numKeys, long seed) {
+		final Random rnd = new Random(seed);
+		final int[] keys = new int[numRecords];
+		final int[] values = new int[numRecords];
+		for (int i = 0; i < numRecords; i++) {
+			keys[i] = rnd.nextInt(numKeys);
+			values[i] = rnd.nextInt();
+		}
+		return new IntPairIterator(keys, values);
+	}
+
+	/**
+	 * Creates an iterator over the given number of pairs with unique keys <code>0</code> to
+	 * <code>numRecords - 1</code> in random order.
+	 */
+	public static IntPairIterator uniqueKeys(int numRecords, long seed) {
+		final Random rnd = new Random(seed);
+		final int[] keys = new int[numRecords];
+		final int[] values = new int[numRecords];
+		for (int i = 0; i < numRecords; i++) {
+			keys[i] = i;
+			values[i] = rnd.nextInt();
+		}
+		// Fisher-Yates shuffle of the keys
+		for (int i = numRecords - 1; i > 0; i--) {
+			final int pos = rnd.nextInt(i + 1);
+			final int tmp = keys[pos];
+			keys[pos] = keys[i];
+			keys[i] = tmp;
+		}
+		return new IntPairIterator(keys, values);
+	}
+
+	@Override
+	public Tuple2<Integer, Integer> next(Tuple2<Integer, Integer> reuse) {
+		if (this.position < this.keys.length) {
+			reuse.f0 = this.keys[this.position];
+			reuse.f1 = this.values[this.position];
+			this.position++;
+			return reuse;
+		} else {
+			return null;
+		}
+	}
+
+	public void reset() {
+		this.position = 0;
+	}
+
+	public int size() {
+		return this.keys.length;
+	}
+}
@@ -31,6 +31,7 @@ import eu.stratosphere.compiler.dag.DataSinkNode;
 import eu.stratosphere.compiler.plan.OptimizedPlan;
 import eu.stratosphere.compiler.plandump.PlanJSONDumpGenerator;
 import eu.stratosphere.compiler.plantranslate.NepheleJobGraphGenerator;
+import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.client.JobClient;
 import eu.stratosphere.nephele.jobgraph.JobGraph;
 import eu.stratosphere.util.LogUtils;
@@ -215,7 +216,7 @@ public class LocalExecutor extends PlanExecutor {
 				PactCompiler pc = new PactCompiler(new DataStatistics());
 				OptimizedPlan op = pc.compile(plan);
 				
-				NepheleJobGraphGenerator jgg = new NepheleJobGraphGenerator();
+				NepheleJobGraphGenerator jgg = new NepheleJobGraphGenerator(GlobalConfiguration.getConfiguration());
 				JobGraph jobGraph = jgg.compileJobGraph(op);
 				
 				JobClient jobClient = this.nephele.getJobClient(jobGraph);
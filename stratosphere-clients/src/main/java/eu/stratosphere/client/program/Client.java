@@ -192,7 +192,7 @@ public class Client {
 	}
 	
 	private JobGraph getJobGraph(OptimizedPlan optPlan, List<File> jarFiles) {
-		NepheleJobGraphGenerator gen = new NepheleJobGraphGenerator();
+		NepheleJobGraphGenerator gen = new NepheleJobGraphGenerator(this.configuration);
 		JobGraph job = gen.compileJobGraph(optPlan);
 		
 		for (File jar : jarFiles) {
@@ -97,6 +97,7 @@ import eu.stratosphere.nephele.net.NetUtils;
 import eu.stratosphere.nephele.protocols.ExtendedManagementProtocol;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
 import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 import eu.stratosphere.util.InstantiationUtil;
 import eu.stratosphere.util.Visitor;
 
@@ -214,6 +215,14 @@ public class PactCompiler {
 	 */
 	public static final String HINT_LOCAL_STRATEGY_COMBINING_SORT = "LOCAL_STRATEGY_COMBINING_SORT";
 	
+	/**
+	 * Value for the local strategy compiler hint that enforces a <b>hash based</b> local strategy.
+	 * For example, a <i>Reduce</i> operator will aggregate the data in a hash table, rather than sorting it.
+	 * 
+	 * @see #HINT_LOCAL_STRATEGY
+	 */
+	public static final String HINT_LOCAL_STRATEGY_HASH = "LOCAL_STRATEGY_HASH";
+	
 	/**
 	 * Value for the local strategy compiler hint that enforces a <b>sort merge based</b> local strategy on both
 	 * inputs with subsequent merging of inputs. 
@@ -274,6 +283,15 @@ public class PactCompiler {
 	 * @see #HINT_LOCAL_STRATEGY
 	 */
 	public static final String HINT_LOCAL_STRATEGY_HASH_BUILD_SECOND = "LOCAL_STRATEGY_HASH_BUILD_SECOND";
+	
+	/**
+	 * Value for the local strategy compiler hint that enforces a <b>cached hash based</b> local strategy inside
+	 * iterations. A <i>CoGroup</i> operator whose first input is static builds a hash table over the <b>first</b>
+	 * input once, keeps it across all supersteps, and probes it with the second input in each superstep.
+	 * 
+	 * @see #HINT_LOCAL_STRATEGY
+	 */
+	public static final String HINT_LOCAL_STRATEGY_HASH_BUILD_FIRST_CACHED = "LOCAL_STRATEGY_HASH_BUILD_FIRST_CACHED";
 
 	/**
 	 * Value for the local strategy compiler hint that chooses the outer side of the <b>nested-loop</b> local strategy.
@@ -318,6 +336,17 @@ public class PactCompiler {
 	 * @see #HINT_LOCAL_STRATEGY
 	 */
 	public static final String HINT_LOCAL_STRATEGY_NESTEDLOOP_BLOCKED_OUTER_SECOND = "LOCAL_STRATEGY_NESTEDLOOP_BLOCKED_OUTER_SECOND";
+
+	/**
+	 * Compiler hint key for the compression of the operator's input channels. This String is a key to the operator's
+	 * stub parameters. The corresponding value is the name of a {@link CompressionCodec} that the channels use to
+	 * compress the buffers they ship over the network. Channels that do not ship data (forward channels) are
+	 * never compressed.
+	 * <p>
+	 * If the hint is not set, the codec configured under {@link ConfigConstants#COMPILER_NETWORK_COMPRESSION_KEY}
+	 * is used.
+	 */
+	public static final String HINT_NETWORK_COMPRESSION = "NETWORK_COMPRESSION";
 	
 	/**
 	 * The log handle that is used by the compiler to log messages.
@@ -359,6 +388,11 @@ public class PactCompiler {
 	 */
 	private int maxIntraNodeParallelism;
 
+	/**
+	 * The codec with which the shipping channels compress their buffers, if the target operator has no hint.
+	 */
+	private CompressionCodec defaultCompressionCodec;
+
 	// ------------------------------------------------------------------------
 	// Constructor & Setup
 	// ------------------------------------------------------------------------
@@ -462,6 +496,16 @@ public class PactCompiler {
 		}
 		this.maxIntraNodeParallelism = maxInNodePar;
 
+		// determine the default compression of the network channels
+		final String codec = config.getString(ConfigConstants.COMPILER_NETWORK_COMPRESSION_KEY,
+			ConfigConstants.DEFAULT_COMPILER_NETWORK_COMPRESSION);
+		try {
+			this.defaultCompressionCodec = CompressionCodec.valueOf(codec.toUpperCase());
+		} catch (IllegalArgumentException iaex) {
+			LOG.error("Invalid network compression codec: " + codec + ". Ignoring parameter.");
+			this.defaultCompressionCodec = CompressionCodec.NONE;
+		}
+
 		// assign the connection to the job-manager
 		if (jobManagerConnection != null) {
 			this.jobManagerAddress = jobManagerConnection;
@@ -523,6 +567,17 @@ public class PactCompiler {
 		}
 	}
 	
+	public CompressionCodec getDefaultCompressionCodec() {
+		return defaultCompressionCodec;
+	}
+	
+	public void setDefaultCompressionCodec(CompressionCodec defaultCompressionCodec) {
+		if (defaultCompressionCodec == null) {
+			throw new IllegalArgumentException();
+		}
+		this.defaultCompressionCodec = defaultCompressionCodec;
+	}
+	
 	// ------------------------------------------------------------------------
 	//                               Compilation
 	// ------------------------------------------------------------------------
@@ -733,7 +788,7 @@ public class PactCompiler {
 		dp.resolveDeadlocks(bestPlanSinks);
 
 		// finalize the plan
-		OptimizedPlan plan = new PlanFinalizer().createFinalPlan(bestPlanSinks, program.getJobName(), program, memoryPerInstance);
+		OptimizedPlan plan = new PlanFinalizer(this.defaultCompressionCodec).createFinalPlan(bestPlanSinks, program.getJobName(), program, memoryPerInstance);
 		plan.setInstanceTypeName(instanceName);
 		
 		// swap the binary unions for n-ary unions. this changes no strategies or memory consumers whatsoever, so
@@ -1222,7 +1277,8 @@ public class PactCompiler {
 	
 	/**
 	 * Utility class that traverses a plan to collect all nodes and add them to the OptimizedPlan.
-	 * Besides collecting all nodes, this traversal assigns the memory to the nodes.
+	 * Besides collecting all nodes, this traversal assigns the memory to the nodes and the compression
+	 * codecs to the channels.
 	 */
 	private static final class PlanFinalizer implements Visitor<PlanNode> {
 		
@@ -1237,11 +1293,16 @@ public class PactCompiler {
 		private long memoryPerInstance; // the amount of memory per instance
 		
 		private int memoryConsumerWeights; // a counter of all memory consumers
+		
+		private final CompressionCodec defaultCompressionCodec; // the codec for channels without a hint
 
 		/**
 		 * Creates a new plan finalizer.
+		 * 
+		 * @param defaultCompressionCodec The codec for the shipping channels whose target has no compression hint.
 		 */
-		private PlanFinalizer() {
+		private PlanFinalizer(CompressionCodec defaultCompressionCodec) {
+			this.defaultCompressionCodec = defaultCompressionCodec;
 			this.allNodes = new HashSet<PlanNode>();
 			this.sources = new ArrayList<SourcePlanNode>();
 			this.sinks = new ArrayList<SinkPlanNode>();
@@ -1304,12 +1365,44 @@ public class PactCompiler {
 									c + " (" + mib * node.getDegreeOfParallelism() + " MiBytes total.)"); 
 							}
 						}
+						if (c.isRangePartitionedBySample()) {
+							// the partitioner holds back the data until the boundaries are sampled
+							final PlanNode source = c.getSource();
+							final long mem = memoryPerInstanceAndWeight / source.getSubtasksPerInstance();
+							c.setMemoryGlobalStrategy(mem);
+							if (LOG.isDebugEnabled()) {
+								final long mib = mem >> 20;
+								LOG.debug("Assigned " + mib + " MiBytes memory to each instance of the range partitioner for " + 
+									c + " (" + mib * source.getDegreeOfParallelism() + " MiBytes total.)"); 
+							}
+						}
 					}
 				}
 			}
 			return new OptimizedPlan(this.sources, this.sinks, this.allNodes, jobName, originalPlan);
 		}
 
+		private CompressionCodec getCompressionCodec(PlanNode node) {
+			final String hint = node.getPactContract() == null ? null :
+				node.getPactContract().getParameters().getString(HINT_NETWORK_COMPRESSION, null);
+			if (hint == null) {
+				return this.defaultCompressionCodec;
+			}
+			try {
+				return CompressionCodec.valueOf(hint.toUpperCase());
+			} catch (IllegalArgumentException iaex) {
+				throw new CompilerException("Invalid network compression hint for operator '" +
+					node.getPactContract().getName() + "': " + hint);
+			}
+		}
+		
+		private void assignCompressionCodec(Channel channel, CompressionCodec codec) {
+			// only channels that ship data over the network may profit from compression
+			final ShipStrategyType ship = channel.getShipStrategy();
+			channel.setCompressionCodec(ship == ShipStrategyType.FORWARD || ship == ShipStrategyType.NONE ?
+				CompressionCodec.NONE : codec);
+		}
+
 		@Override
 		public boolean preVisit(PlanNode visitable) {
 			// if we come here again, prevent a further descend
@@ -1362,15 +1455,18 @@ public class PactCompiler {
 			
 			// double-connect the connections. previously, only parents knew their children, because
 			// one child candidate could have been referenced by multiple parents.
+			final CompressionCodec codec = getCompressionCodec(visitable);
 			for (Iterator<Channel> iter = visitable.getInputs(); iter.hasNext();) {
 				final Channel conn = iter.next();
 				conn.setTarget(visitable);
 				conn.getSource().addOutgoingChannel(conn);
+				assignCompressionCodec(conn, codec);
 			}
 			
 			for (Channel c : visitable.getBroadcastInputs()) {
 				c.setTarget(visitable);
 				c.getSource().addOutgoingChannel(c);
+				assignCompressionCodec(c, codec);
 			}
 
 			// count the memory consumption
@@ -1383,6 +1479,9 @@ public class PactCompiler {
 				if (c.getTempMode() != TempMode.NONE) {
 					this.memoryConsumerWeights++;
 				}
+				if (c.isRangePartitionedBySample()) {
+					this.memoryConsumerWeights++;
+				}
 			}
 			for (Channel c : visitable.getBroadcastInputs()) {
 				if (c.getLocalStrategy().dams()) {
@@ -171,6 +171,9 @@ public abstract class CostEstimator {
 		case SORTED_GROUP_COMBINE:
 			// partial grouping is always local and main memory resident. we should add a relative cpu cost at some point
 		
+		case HASHED_REDUCE:
+			// the hash-based reduce is only used when a hint requests it, so its costs are never compared
+		
 		case UNION:
 			// pipelined local union is for free
 			
@@ -179,6 +182,7 @@ public abstract class CostEstimator {
 			addLocalMergeCost(firstInput, secondInput, availableMemory, driverCosts);
 			break;
 		case HYBRIDHASH_BUILD_FIRST:
+		case CO_GROUP_HASH_BUILD_FIRST_CACHED:
 			addHybridHashCosts(firstInput, secondInput, availableMemory, driverCosts);
 			break;
 		case HYBRIDHASH_BUILD_SECOND:
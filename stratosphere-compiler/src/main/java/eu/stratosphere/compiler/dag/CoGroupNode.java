@@ -18,11 +18,15 @@ import java.util.List;
 
 import eu.stratosphere.api.common.operators.Ordering;
 import eu.stratosphere.api.common.operators.base.CoGroupOperatorBase;
+import eu.stratosphere.compiler.CompilerException;
 import eu.stratosphere.compiler.DataStatistics;
+import eu.stratosphere.compiler.PactCompiler;
 import eu.stratosphere.compiler.operators.CoGroupDescriptor;
+import eu.stratosphere.compiler.operators.CoGroupHashBuildFirstCachedDescriptor;
 import eu.stratosphere.compiler.operators.CoGroupWithSolutionSetFirstDescriptor;
 import eu.stratosphere.compiler.operators.CoGroupWithSolutionSetSecondDescriptor;
 import eu.stratosphere.compiler.operators.OperatorDescriptorDual;
+import eu.stratosphere.configuration.Configuration;
 
 /**
  * The Optimizer representation of a <i>CoGroup</i> operator.
@@ -66,8 +70,19 @@ public class CoGroupNode extends TwoInputNode {
 			groupOrder2 = null;
 		}
 		
+		// see if an internal hint dictates the strategy to use
+		Configuration conf = cgc.getParameters();
+		String localStrategy = conf.getString(PactCompiler.HINT_LOCAL_STRATEGY, null);
+		
 		List<OperatorDescriptorDual> l = new ArrayList<OperatorDescriptorDual>(1);
-		l.add(new CoGroupDescriptor(this.keys1, this.keys2, groupOrder1, groupOrder2));
+		if (PactCompiler.HINT_LOCAL_STRATEGY_HASH_BUILD_FIRST_CACHED.equals(localStrategy)) {
+			if (groupOrder1 != null || groupOrder2 != null) {
+				throw new CompilerException("The cached hash strategy does not support group orders for CoGroup contract.");
+			}
+			l.add(new CoGroupHashBuildFirstCachedDescriptor(this.keys1, this.keys2));
+		} else {
+			l.add(new CoGroupDescriptor(this.keys1, this.keys2, groupOrder1, groupOrder2));
+		}
 		return l;
 	}
 	
@@ -17,10 +17,14 @@ import java.util.Collections;
 import java.util.List;
 
 import eu.stratosphere.api.common.operators.base.ReduceOperatorBase;
+import eu.stratosphere.compiler.CompilerException;
 import eu.stratosphere.compiler.DataStatistics;
+import eu.stratosphere.compiler.PactCompiler;
 import eu.stratosphere.compiler.operators.AllReduceProperties;
+import eu.stratosphere.compiler.operators.HashReduceProperties;
 import eu.stratosphere.compiler.operators.OperatorDescriptorSingle;
 import eu.stratosphere.compiler.operators.ReduceProperties;
+import eu.stratosphere.configuration.Configuration;
 
 /**
  * The Optimizer representation of a <i>Reduce</i> operator.
@@ -58,11 +62,31 @@ public class ReduceNode extends SingleInputNode {
 	
 	@Override
 	protected List<OperatorDescriptorSingle> getPossibleProperties() {
-		OperatorDescriptorSingle props = this.keys == null ?
-			new AllReduceProperties() :
-			new ReduceProperties(this.keys);
+		if (this.keys == null) {
+			return Collections.<OperatorDescriptorSingle>singletonList(new AllReduceProperties());
+		}
 		
-			return Collections.singletonList(props);
+		// see if an internal hint dictates the strategy to use
+		final Configuration conf = getPactContract().getParameters();
+		final String localStrategy = conf.getString(PactCompiler.HINT_LOCAL_STRATEGY, null);
+		
+		if (localStrategy != null) {
+			final OperatorDescriptorSingle fixedDriverStrat;
+			if (PactCompiler.HINT_LOCAL_STRATEGY_SORT.equals(localStrategy) ||
+				PactCompiler.HINT_LOCAL_STRATEGY_COMBINING_SORT.equals(localStrategy))
+			{
+				fixedDriverStrat = new ReduceProperties(this.keys);
+			} else if (PactCompiler.HINT_LOCAL_STRATEGY_HASH.equals(localStrategy)) {
+				fixedDriverStrat = new HashReduceProperties(this.keys);
+			} else {
+				throw new CompilerException("Invalid local strategy hint for reduce contract: " + localStrategy);
+			}
+			return Collections.singletonList(fixedDriverStrat);
+		} else {
+			// the hash strategy is only used when requested by the hint. without estimates of the number of
+			// distinct keys, the costs cannot tell when the aggregates fit into the hash table
+			return Collections.<OperatorDescriptorSingle>singletonList(new ReduceProperties(this.keys));
+		}
 	}
 	
 	// --------------------------------------------------------------------------------------------
@@ -0,0 +1,81 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.compiler.operators;
+
+import java.util.Collections;
+import java.util.List;
+
+import eu.stratosphere.api.common.operators.util.FieldList;
+import eu.stratosphere.compiler.CompilerException;
+import eu.stratosphere.compiler.dag.TempMode;
+import eu.stratosphere.compiler.dag.TwoInputNode;
+import eu.stratosphere.compiler.dataproperties.LocalProperties;
+import eu.stratosphere.compiler.dataproperties.RequestedLocalProperties;
+import eu.stratosphere.compiler.plan.Channel;
+import eu.stratosphere.compiler.plan.DualInputPlanNode;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+
+/**
+ * Describes a CoGroup inside an iteration that keeps its static first input in a hash table across all
+ * supersteps and probes it with the second input, which changes in every superstep.
+ */
+public class CoGroupHashBuildFirstCachedDescriptor extends CoGroupDescriptor {
+	
+	public CoGroupHashBuildFirstCachedDescriptor(FieldList keys1, FieldList keys2) {
+		super(keys1, keys2);
+	}
+	
+	@Override
+	public DriverStrategy getStrategy() {
+		return DriverStrategy.CO_GROUP_HASH_BUILD_FIRST_CACHED;
+	}
+	
+	@Override
+	protected List<LocalPropertiesPair> createPossibleLocalProperties() {
+		// the hash table groups the first input, the second input must arrive grouped
+		return Collections.singletonList(new LocalPropertiesPair(
+			new RequestedLocalProperties(), new RequestedLocalProperties(this.keys2)));
+	}
+	
+	@Override
+	public boolean areCoFulfilled(RequestedLocalProperties requested1, RequestedLocalProperties requested2,
+			LocalProperties produced1, LocalProperties produced2)
+	{
+		return true;
+	}
+
+	@Override
+	public DualInputPlanNode instantiate(Channel in1, Channel in2, TwoInputNode node) {
+		if (in1.isOnDynamicPath() || !in2.isOnDynamicPath()) {
+			throw new CompilerException("The cached hash strategy for the CoGroup '" + node.getPactContract().getName() +
+				"' requires an iteration in which the first input is static and the second input is dynamic.");
+		}
+		
+		// the driver holds the first input in its hash table, so there is no need to cache it as well
+		final TempMode tm = in1.getTempMode();
+		if (tm == TempMode.CACHED) {
+			in1.setTempMode(TempMode.NONE);
+		} else if (tm == TempMode.CACHING_PIPELINE_BREAKER) {
+			in1.setTempMode(TempMode.PIPELINE_BREAKER);
+		}
+		
+		return new DualInputPlanNode(node, "CoGroup ("+node.getPactContract().getName()+")", in1, in2,
+			DriverStrategy.CO_GROUP_HASH_BUILD_FIRST_CACHED, this.keys1, this.keys2);
+	}
+	
+	@Override
+	public LocalProperties computeLocalProperties(LocalProperties in1, LocalProperties in2) {
+		return new LocalProperties();
+	}
+}
@@ -26,6 +26,7 @@ import eu.stratosphere.compiler.plandump.DumpableConnection;
 import eu.stratosphere.compiler.util.Utils;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
 import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 
 /**
  * 
@@ -70,6 +71,8 @@ public class Channel implements EstimateProvider, Cloneable, DumpableConnection<
 	
 	private int replicationFactor = 1;
 	
+	private CompressionCodec compressionCodec = CompressionCodec.NONE;
+	
 	// --------------------------------------------------------------------------------------------
 	
 	public Channel(PlanNode sourceNode) {
@@ -132,6 +135,24 @@ public class Channel implements EstimateProvider, Cloneable, DumpableConnection<
 		return this.shipStrategy;
 	}
 	
+	/**
+	 * Gets the codec with which this channel compresses the buffers it ships over the network.
+	 *
+	 * @return The compression codec.
+	 */
+	public CompressionCodec getCompressionCodec() {
+		return this.compressionCodec;
+	}
+	
+	/**
+	 * Sets the codec with which this channel compresses the buffers it ships over the network.
+	 *
+	 * @param compressionCodec The compression codec.
+	 */
+	public void setCompressionCodec(CompressionCodec compressionCodec) {
+		this.compressionCodec = compressionCodec;
+	}
+	
 	public FieldList getShipStrategyKeys() {
 		return this.shipKeys;
 	}
@@ -175,6 +196,16 @@ public class Channel implements EstimateProvider, Cloneable, DumpableConnection<
 		return this.dataDistribution;
 	}
 	
+	/**
+	 * Checks whether this channel range partitions the data without a given data distribution. The boundaries
+	 * of the partitions are then determined at runtime, from a sample of the data.
+	 * 
+	 * @return True, if the channel range partitions by sampled boundaries, false otherwise.
+	 */
+	public boolean isRangePartitionedBySample() {
+		return this.shipStrategy == ShipStrategyType.PARTITION_RANGE && this.dataDistribution == null;
+	}
+	
 	public TempMode getTempMode() {
 		return this.tempMode;
 	}
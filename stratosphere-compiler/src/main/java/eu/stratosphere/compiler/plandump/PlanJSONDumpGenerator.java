@@ -50,6 +50,7 @@ import eu.stratosphere.compiler.plan.WorksetIterationPlanNode;
 import eu.stratosphere.compiler.util.Utils;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
 import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 
 /**
  * 
@@ -370,6 +371,10 @@ public class PlanJSONDumpGenerator {
 							String tempMode = channel.getTempMode().toString();
 							writer.print(", \"temp_mode\": \"" + tempMode + "\"");
 						}
+						
+						if (channel.getCompressionCodec() != CompressionCodec.NONE) {
+							writer.print(", \"compression\": \"" + channel.getCompressionCodec() + "\"");
+						}
 					}
 					
 					writer.print('}');
@@ -425,6 +430,14 @@ public class PlanJSONDumpGenerator {
 			case SORTED_PARTIAL_REDUCE:
 				locString = "Sorted Combine/Reduce";
 				break;
+				
+			case HASHED_REDUCE:
+				locString = "Hashed Reduce";
+				break;
+				
+			case HASHED_PARTIAL_REDUCE:
+				locString = "Hashed Combine/Reduce";
+				break;
 
 			case SORTED_GROUP_REDUCE:
 				locString = "Sorted Group Reduce";
@@ -461,6 +474,9 @@ public class PlanJSONDumpGenerator {
 			case CO_GROUP:
 				locString = "Co-Group";
 				break;
+			case CO_GROUP_HASH_BUILD_FIRST_CACHED:
+				locString = "Co-Group on Cached Hash Table (build: " + child1name + ")";
+				break;
 
 			default:
 				throw new CompilerException("Unknown local strategy '" + p.getDriverStrategy().name()
@@ -31,7 +31,7 @@ import eu.stratosphere.api.common.aggregators.ConvergenceCriterion;
 import eu.stratosphere.api.common.aggregators.LongSumAggregator;
 import eu.stratosphere.api.common.cache.DistributedCache;
 import eu.stratosphere.api.common.cache.DistributedCache.DistributedCacheEntry;
-import eu.stratosphere.api.common.distributions.DataDistribution;
+import eu.stratosphere.api.common.typeutils.TypeComparatorFactory;
 import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
 import eu.stratosphere.compiler.CompilerException;
 import eu.stratosphere.compiler.dag.TempMode;
@@ -55,6 +55,7 @@ import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.jobgraph.DistributionPattern;
 import eu.stratosphere.runtime.io.channels.ChannelType;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.jobgraph.AbstractJobOutputVertex;
 import eu.stratosphere.nephele.jobgraph.AbstractJobVertex;
 import eu.stratosphere.nephele.jobgraph.JobGraph;
@@ -84,6 +85,7 @@ import eu.stratosphere.pact.runtime.task.RegularPactTask;
 import eu.stratosphere.pact.runtime.task.chaining.ChainedDriver;
 import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
 import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.pact.runtime.task.util.WeightedSampleSerializerFactory;
 import eu.stratosphere.util.Visitor;
 
 /**
@@ -101,6 +103,12 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 	
 	private static final boolean mergeIterationAuxTasks = GlobalConfiguration.getBoolean(MERGE_ITERATION_AUX_TASKS_KEY, true);
 	
+	public static final String RANGE_PARTITION_SAMPLES_KEY = "compiler.range-partition.samples-per-partition";
+	
+	private static final int rangePartitionSamples = GlobalConfiguration.getInteger(RANGE_PARTITION_SAMPLES_KEY, 1000);
+	
+	private static final String RANGE_BOUNDARIES_BROADCAST_NAME = "range-boundaries";
+	
 	private static final Log LOG = LogFactory.getLog(NepheleJobGraphGenerator.class);
 	
 	private static final TaskInChain ALREADY_VISITED_PLACEHOLDER = new TaskInChain(null, null, null);
@@ -125,6 +133,10 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 	
 	private final float defaultSortSpillingThreshold;
 	
+	private final int defaultSortThreads;
+	
+	private final boolean shareBroadcastVariables;
+	
 	private int iterationIdEnumerator = 1;
 	
 	private IterationPlanNode currentIteration;	// hack: as long as no nesting is possible, remember the enclosing iteration
@@ -137,6 +149,8 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 	public NepheleJobGraphGenerator() {
 		this.defaultMaxFan = ConfigConstants.DEFAULT_SPILLING_MAX_FAN;
 		this.defaultSortSpillingThreshold = ConfigConstants.DEFAULT_SORT_SPILLING_THRESHOLD;
+		this.defaultSortThreads = ConfigConstants.DEFAULT_SORT_THREADS;
+		this.shareBroadcastVariables = ConfigConstants.DEFAULT_SHARE_BROADCAST_VARIABLES;
 	}
 	
 	public NepheleJobGraphGenerator(Configuration config) {
@@ -144,6 +158,10 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 				ConfigConstants.DEFAULT_SPILLING_MAX_FAN);
 		this.defaultSortSpillingThreshold = config.getFloat(ConfigConstants.DEFAULT_SORT_SPILLING_THRESHOLD_KEY,
 			ConfigConstants.DEFAULT_SORT_SPILLING_THRESHOLD);
+		this.defaultSortThreads = Math.max(1, config.getInteger(ConfigConstants.DEFAULT_SORT_THREADS_KEY,
+			ConfigConstants.DEFAULT_SORT_THREADS));
+		this.shareBroadcastVariables = config.getBoolean(ConfigConstants.SHARE_BROADCAST_VARIABLES_KEY,
+			ConfigConstants.DEFAULT_SHARE_BROADCAST_VARIABLES);
 	}
 
 	/**
@@ -555,6 +573,11 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 				targetVertexConfig.setBroadcastInputSerializer(broadcastInput.getSerializer(), broadcastInputIndex);
 				broadcastInputIndex += broadcastInputIndexDelta;
 			}
+			
+			// if configured, the subtasks on the same instance share the broadcast variables
+			if (this.shareBroadcastVariables && broadcastInputIndex > 0) {
+				targetVertexConfig.setBroadcastVariablesSharingId(targetVertex.getID().toString());
+			}
 		} catch (Exception e) {
 			throw new CompilerException(
 				"An error occurred while translating the optimized plan to a nephele JobGraph: " + e.getMessage(), e);
@@ -1008,6 +1031,7 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 			config.setMemoryInput(inputNum, c.getMemoryLocalStrategy());
 			config.setFilehandlesInput(inputNum, this.defaultMaxFan);
 			config.setSpillingThresholdInput(inputNum, this.defaultSortSpillingThreshold);
+			config.setNumSortThreadsInput(inputNum, this.defaultSortThreads);
 		}
 	}
 
@@ -1035,6 +1059,14 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 			final AbstractJobVertex targetVertex, final TaskConfig targetConfig, boolean isBroadcast)
 	throws JobGraphDefinitionException, CompilerException
 	{
+		if (channel.isRangePartitionedBySample()) {
+			if (isBroadcast) {
+				throw new CompilerException("Bug: Range partitioning on a broadcast variable channel.");
+			}
+			return connectWithSampledRangePartitioning(channel, inputNumber, sourceVertex, sourceConfig,
+				targetVertex, targetConfig);
+		}
+		
 		// ------------ connect the vertices to the job graph --------------
 		final ChannelType channelType;
 		final DistributionPattern distributionPattern;
@@ -1056,7 +1088,7 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 				throw new RuntimeException("Unknown runtime ship strategy: " + channel.getShipStrategy());
 		}
 		
-		sourceVertex.connectTo(targetVertex, channelType, distributionPattern);
+		sourceVertex.connectTo(targetVertex, channelType, channel.getCompressionCodec(), distributionPattern);
 
 		// -------------- configure the source task's ship strategy strategies in task config --------------
 		final int outputIndex = sourceConfig.getNumOutputs();
@@ -1069,14 +1101,8 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 		}
 		
 		if (channel.getShipStrategy() == ShipStrategyType.PARTITION_RANGE) {
-			
-			final DataDistribution dataDistribution = channel.getDataDistribution();
-			if(dataDistribution != null) {
-				sourceConfig.setOutputDataDistribution(dataDistribution, outputIndex);
-			} else {
-				throw new RuntimeException("Range partitioning requires data distribution");
-				// TODO: inject code and configuration for automatic histogram generation
-			}
+			// range partitioning without a data distribution is connected through a sampler, see above
+			sourceConfig.setOutputDataDistribution(channel.getDataDistribution(), outputIndex);
 		}
 //		if (targetContract instanceof GenericDataSink) {
 //			final DataDistribution distri = ((GenericDataSink) targetContract).getDataDistribution();
@@ -1094,6 +1120,119 @@ public class NepheleJobGraphGenerator implements Visitor<PlanNode> {
 		return distributionPattern;
 	}
 	
+	/**
+	 * Connects the vertices of a channel that range partitions its data without a given data distribution. The
+	 * boundaries of the partitions are determined at runtime: A sampler next to each source task draws a sample
+	 * of the source task's data, a single task picks the boundaries from the union of the samples and broadcasts
+	 * them to a partitioner next to each source task. The partitioner materializes the data until it has received
+	 * the boundaries and then range partitions the data among the target tasks.
+	 */
+	private DistributionPattern connectWithSampledRangePartitioning(Channel channel, int inputNumber,
+			final AbstractJobVertex sourceVertex, final TaskConfig sourceConfig,
+			final AbstractJobVertex targetVertex, final TaskConfig targetConfig)
+	throws JobGraphDefinitionException, CompilerException
+	{
+		if (channel.isOnDynamicPath()) {
+			throw new CompilerException("Range partitioning without a data distribution is currently not supported " +
+					"within iterations.");
+		}
+		// the inputs of a union or a binary operator would each sample their own, different boundaries
+		final PlanNode target = channel.getTarget();
+		if (!(target instanceof SingleInputPlanNode || target instanceof SinkPlanNode)) {
+			throw new CompilerException("Range partitioning without a data distribution is currently only supported " +
+					"for the input of single-input operators and data sinks.");
+		}
+		if (channel.getMemoryGlobalStrategy() <= 0) {
+			throw new CompilerException("Bug: No memory has been assigned to the range partitioner.");
+		}
+		
+		final TypeSerializerFactory<?> serializer = channel.getSerializer();
+		final TypeComparatorFactory<?> comparator = channel.getShipStrategyComparator();
+		final CompressionCodec codec = channel.getCompressionCodec();
+		final String name = channel.getSource().getNodeName();
+		final int sourceDop = sourceVertex.getNumberOfSubtasks();
+		final int targetDop = targetVertex.getNumberOfSubtasks();
+		
+		// the sampler draws a sample of equal size from each source task and weights it by the number of
+		// records the source task produced, which the boundaries task needs to combine the samples
+		final TypeSerializerFactory<?> sampleSerializer = createSampleSerializer(serializer);
+		
+		final JobTaskVertex sampler = new JobTaskVertex("Sample(" + name + ")", this.jobGraph);
+		sampler.setTaskClass(RegularPactTask.class);
+		sampler.setNumberOfSubtasks(sourceDop);
+		sampler.setNumberOfSubtasksPerInstance(sourceVertex.getNumberOfSubtasksPerInstance());
+		this.auxVertices.add(sampler);
+		
+		final TaskConfig samplerConfig = new TaskConfig(sampler.getConfiguration());
+		samplerConfig.setDriver(DriverStrategy.SAMPLE.getDriverClass());
+		samplerConfig.setDriverStrategy(DriverStrategy.SAMPLE);
+		samplerConfig.setSampleSize((rangePartitionSamples * targetDop + sourceDop - 1) / sourceDop);
+		samplerConfig.addInputToGroup(0);
+		samplerConfig.setInputSerializer(serializer, 0);
+		samplerConfig.addOutputShipStrategy(ShipStrategyType.PARTITION_RANDOM);
+		samplerConfig.setOutputSerializer(sampleSerializer);
+		
+		// a single task picks the boundaries from all samples
+		final JobTaskVertex boundaries = new JobTaskVertex("RangeBoundaries(" + name + ")", this.jobGraph);
+		boundaries.setTaskClass(RegularPactTask.class);
+		boundaries.setNumberOfSubtasks(1);
+		this.auxVertices.add(boundaries);
+		
+		final TaskConfig boundariesConfig = new TaskConfig(boundaries.getConfiguration());
+		boundariesConfig.setDriver(DriverStrategy.RANGE_BOUNDARIES.getDriverClass());
+		boundariesConfig.setDriverStrategy(DriverStrategy.RANGE_BOUNDARIES);
+		boundariesConfig.setDriverComparator(comparator, 0);
+		boundariesConfig.setNumberOfRangePartitions(targetDop);
+		boundariesConfig.addInputToGroup(0);
+		boundariesConfig.setInputSerializer(sampleSerializer, 0);
+		boundariesConfig.addOutputShipStrategy(ShipStrategyType.BROADCAST);
+		boundariesConfig.setOutputSerializer(serializer);
+		
+		// the partitioner holds back the data until it has received the boundaries
+		final JobTaskVertex partitioner = new JobTaskVertex("RangePartition(" + name + ")", this.jobGraph);
+		partitioner.setTaskClass(RegularPactTask.class);
+		partitioner.setNumberOfSubtasks(sourceDop);
+		partitioner.setNumberOfSubtasksPerInstance(sourceVertex.getNumberOfSubtasksPerInstance());
+		this.auxVertices.add(partitioner);
+		
+		final TaskConfig partitionerConfig = new TaskConfig(partitioner.getConfiguration());
+		partitionerConfig.setDriver(DriverStrategy.UNARY_NO_OP.getDriverClass());
+		partitionerConfig.setDriverStrategy(DriverStrategy.UNARY_NO_OP);
+		partitionerConfig.addInputToGroup(0);
+		partitionerConfig.setInputSerializer(serializer, 0);
+		partitionerConfig.setInputAsynchronouslyMaterialized(0, true);
+		partitionerConfig.setInputMaterializationMemory(0, channel.getMemoryGlobalStrategy());
+		partitionerConfig.addBroadcastInputToGroup(0);
+		partitionerConfig.setBroadcastInputName(RANGE_BOUNDARIES_BROADCAST_NAME, 0);
+		partitionerConfig.setBroadcastInputSerializer(serializer, 0);
+		partitionerConfig.addOutputShipStrategy(ShipStrategyType.PARTITION_RANGE);
+		partitionerConfig.setOutputSerializer(serializer);
+		partitionerConfig.setOutputComparator(comparator, 0);
+		partitionerConfig.setOutputRangeBoundariesName(RANGE_BOUNDARIES_BROADCAST_NAME, 0);
+		
+		// the source forwards its data to both the sampler and the partitioner
+		sourceVertex.connectTo(sampler, ChannelType.NETWORK, codec, DistributionPattern.POINTWISE);
+		if (sourceConfig.getNumOutputs() == 0) {
+			sourceConfig.setOutputSerializer(serializer);
+		}
+		sourceConfig.addOutputShipStrategy(ShipStrategyType.FORWARD);
+		sourceVertex.connectTo(partitioner, ChannelType.NETWORK, codec, DistributionPattern.POINTWISE);
+		sourceConfig.addOutputShipStrategy(ShipStrategyType.FORWARD);
+		
+		// the partitioner's data input must be connected before its broadcast input
+		sampler.connectTo(boundaries, ChannelType.NETWORK, codec, DistributionPattern.BIPARTITE);
+		boundaries.connectTo(partitioner, ChannelType.NETWORK, codec, DistributionPattern.BIPARTITE);
+		partitioner.connectTo(targetVertex, ChannelType.NETWORK, codec, DistributionPattern.BIPARTITE);
+		
+		// ---------------- configure the receiver -------------------
+		targetConfig.addInputToGroup(inputNumber);
+		return DistributionPattern.BIPARTITE;
+	}
+	
+	private static <T> TypeSerializerFactory<?> createSampleSerializer(TypeSerializerFactory<T> recordSerializer) {
+		return new WeightedSampleSerializerFactory<T>(recordSerializer);
+	}
+	
 	private void addLocalInfoFromChannelToConfig(Channel channel, TaskConfig config, int inputNum, boolean isBroadcastChannel) {
 		// serializer
 		if (isBroadcastChannel) {
@@ -0,0 +1,154 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.ExecutionEnvironment;
+import eu.stratosphere.api.java.functions.MapFunction;
+import eu.stratosphere.api.java.record.operators.FileDataSink;
+import eu.stratosphere.api.java.record.operators.FileDataSource;
+import eu.stratosphere.api.java.record.operators.ReduceOperator;
+import eu.stratosphere.compiler.plan.OptimizedPlan;
+import eu.stratosphere.compiler.plantranslate.NepheleJobGraphGenerator;
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
+import eu.stratosphere.nephele.jobgraph.JobTaskVertex;
+import eu.stratosphere.pact.compiler.util.DummyInputFormat;
+import eu.stratosphere.pact.compiler.util.DummyOutputFormat;
+import eu.stratosphere.pact.compiler.util.IdentityReduce;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.types.IntValue;
+
+/**
+ * Tests that the job graph generator passes the configured runtime settings to the task configurations.
+ */
+@SuppressWarnings("serial")
+public class JobGraphGeneratorTest extends CompilerTestBase {
+
+	@Test
+	public void testDefaultSortThreads() {
+		try {
+			JobGraph jobGraph = new NepheleJobGraphGenerator().compileJobGraph(compileSortingPlan());
+			
+			TaskConfig reduceConfig = getTaskConfig(jobGraph, DriverStrategy.SORTED_GROUP_REDUCE);
+			assertEquals(ConfigConstants.DEFAULT_SORT_THREADS, reduceConfig.getNumSortThreadsInput(0));
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testConfiguredSortThreads() {
+		try {
+			Configuration config = new Configuration();
+			config.setInteger(ConfigConstants.DEFAULT_SORT_THREADS_KEY, 3);
+			
+			JobGraph jobGraph = new NepheleJobGraphGenerator(config).compileJobGraph(compileSortingPlan());
+			
+			TaskConfig reduceConfig = getTaskConfig(jobGraph, DriverStrategy.SORTED_GROUP_REDUCE);
+			assertEquals(3, reduceConfig.getNumSortThreadsInput(0));
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testBroadcastVariablesAreNotSharedByDefault() {
+		try {
+			JobGraph jobGraph = new NepheleJobGraphGenerator().compileJobGraph(compileBroadcastPlan());
+			
+			TaskConfig mapConfig = getTaskConfig(jobGraph, DriverStrategy.MAP);
+			assertEquals(1, mapConfig.getNumBroadcastInputs());
+			assertNull(mapConfig.getBroadcastVariablesSharingId());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testSharedBroadcastVariables() {
+		try {
+			Configuration config = new Configuration();
+			config.setBoolean(ConfigConstants.SHARE_BROADCAST_VARIABLES_KEY, true);
+			
+			JobGraph jobGraph = new NepheleJobGraphGenerator(config).compileJobGraph(compileBroadcastPlan());
+			
+			TaskConfig mapConfig = getTaskConfig(jobGraph, DriverStrategy.MAP);
+			assertEquals(1, mapConfig.getNumBroadcastInputs());
+			assertNotNull(mapConfig.getBroadcastVariablesSharingId());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	private OptimizedPlan compileSortingPlan() {
+		FileDataSource source = new FileDataSource(new DummyInputFormat(), IN_FILE, "Source");
+		ReduceOperator reduce = ReduceOperator.builder(new IdentityReduce()).keyField(IntValue.class, 0).name("Reduce").input(source).build();
+		FileDataSink sink = new FileDataSink(new DummyOutputFormat(), OUT_FILE, "Sink");
+		sink.setInput(reduce);
+		
+		Plan plan = new Plan(sink, "Sort Threads Test");
+		plan.setDefaultParallelism(DEFAULT_PARALLELISM);
+		return compileNoStats(plan);
+	}
+	
+	private OptimizedPlan compileBroadcastPlan() {
+		ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+		env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+		
+		DataSet<Long> broadcastSet = env.fromElements(1L, 2L);
+		env.generateSequence(1, 100)
+			.map(new MapFunction<Long, Long>() {
+				@Override
+				public Long map(Long value) {
+					return value;
+				}
+			})
+			.withBroadcastSet(broadcastSet, "bc")
+			.print();
+		
+		return compileNoStats(env.createProgramPlan());
+	}
+	
+	private static TaskConfig getTaskConfig(JobGraph jobGraph, DriverStrategy strategy) {
+		for (Iterator<JobTaskVertex> vertices = jobGraph.getTaskVertices(); vertices.hasNext();) {
+			TaskConfig config = new TaskConfig(vertices.next().getConfiguration());
+			if (config.getDriverStrategy() == strategy) {
+				return config;
+			}
+		}
+		fail("No task vertex runs the driver strategy " + strategy);
+		return null;
+	}
+}
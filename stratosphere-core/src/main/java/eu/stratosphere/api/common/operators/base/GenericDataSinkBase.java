@@ -203,12 +203,13 @@ public class GenericDataSinkBase<IN> extends Operator<Nothing> {
 	
 	/**
 	 * Sets the sink to partition the records into ranges over the given ordering.
+	 * The bucket boundaries are determined at runtime from a sample of the data.
 	 * 
 	 * @param partitionOrdering The record ordering over which to partition in ranges.
 	 */
 	public void setRangePartitioned(Ordering partitionOrdering) {
-		throw new UnsupportedOperationException(
-			"Range partitioning is currently only supported with a user supplied data distribution.");
+		this.partitionOrdering = partitionOrdering;
+		this.distribution = null;
 	}
 	
 	/**
@@ -69,6 +69,18 @@ public final class ConfigConstants {
 	 */
 	public static final String TASK_MANAGER_TMP_DIR_KEY = "taskmanager.tmp.dirs";
 
+	/**
+	 * The config parameter defining the codec with which the task manager compresses spilled intermediate
+	 * data, such as sorted runs and hash table partitions. Valid values are <tt>NONE</tt> and <tt>LZ4</tt>.
+	 */
+	public static final String TASK_MANAGER_TMP_COMPRESSION_KEY = "taskmanager.tmp.compression-codec";
+
+	/**
+	 * The config parameter defining the number of reader threads and of writer threads the task manager
+	 * uses per directory for temporary files.
+	 */
+	public static final String TASK_MANAGER_TMP_IO_THREADS_KEY = "taskmanager.tmp.io-threads";
+
 	/**
 	 * The config parameter defining the amount of memory to be allocated by the task manager's
 	 * memory manager (in megabytes). If not set, a relative fraction will be allocated, as defined
@@ -85,6 +97,20 @@ public final class ConfigConstants {
 	 * The key for the config parameter defining whether the memory manager allocates memory lazy.
 	 */
 	public static final String TASK_MANAGER_MEMORY_LAZY_ALLOCATION_KEY = "taskmanager.memory.lazyalloc";
+
+	/**
+	 * The key for the config parameter defining the time (in milliseconds) without any memory request, after
+	 * which a lazily allocating memory manager gives back the memory of released pages. A non-positive value
+	 * keeps the memory of released pages forever.
+	 */
+	public static final String TASK_MANAGER_MEMORY_IDLE_TIMEOUT_KEY = "taskmanager.memory.lazyalloc.idle-timeout";
+
+	/**
+	 * The key for the config parameter defining whether the memory manager backs its pages by off-heap
+	 * (direct) memory, rather than by byte arrays on the heap. When enabled, the memory size should be
+	 * configured explicitly and the JVM's maximum direct memory size must be large enough to hold it.
+	 */
+	public static final String TASK_MANAGER_MEMORY_OFF_HEAP_KEY = "taskmanager.memory.off-heap";
 	
 	
 	/**
@@ -98,6 +124,21 @@ public final class ConfigConstants {
 	 */
 	public static final String TASK_MANAGER_NETWORK_BUFFER_SIZE_KEY = "taskmanager.network.bufferSizeInBytes";
 
+	/**
+	 * The config parameter defining the maximum time (in milliseconds) that a partially filled network buffer
+	 * waits before it is sent. A value of zero disables the timeout, such that buffers are only sent when they
+	 * are full or when the task flushes its output. The timeout only applies to channels with credit-based flow
+	 * control (see {@link #TASK_MANAGER_NET_CREDITS_PER_CHANNEL_KEY}), because only their senders can tell whether
+	 * the receiver has room for a buffer.
+	 */
+	public static final String TASK_MANAGER_NETWORK_BUFFER_TIMEOUT_KEY = "taskmanager.network.bufferTimeout";
+
+	/**
+	 * The config parameter defining the maximum number of input splits that a data source task requests from the
+	 * job manager at once. The job manager may return fewer splits, to keep the splits balanced among the tasks.
+	 */
+	public static final String TASK_MANAGER_INPUT_SPLIT_BATCH_SIZE_KEY = "taskmanager.inputSplits.batchSize";
+
 	/**
 	 * The number of incoming network IO threads (e.g. incoming connection threads used in NettyConnectionManager
 	 * for the ServerBootstrap.)
@@ -119,6 +160,26 @@ public final class ConfigConstants {
 	 * The high water mark used in NettyConnectionManager for the Bootstrap.
 	 */
 	public static final String TASK_MANAGER_NET_NETTY_HIGH_WATER_MARK = "taskmanager.net.nettyHighWaterMark";
+
+	/**
+	 * The transport used in NettyConnectionManager, either "nio" or "epoll". With "epoll", the network buffers are
+	 * allocated off-heap and written to the sockets without copying them. The native epoll transport is only
+	 * available on Linux. If it cannot be loaded, NettyConnectionManager falls back to the NIO transport.
+	 */
+	public static final String TASK_MANAGER_NET_TRANSPORT_KEY = "taskmanager.net.transport";
+
+	/**
+	 * The maximum number of credits an input channel grants to its output channel. Every credit stands for a buffer
+	 * the receiver has reserved, and senders only transmit buffers they hold credits for. If set to 0, network
+	 * channels are not flow controlled by credits.
+	 */
+	public static final String TASK_MANAGER_NET_CREDITS_PER_CHANNEL_KEY = "taskmanager.net.creditsPerChannel";
+
+	/**
+	 * The key for the config parameter indicating whether credit-based network output channels spill the buffers their
+	 * receivers have not granted credits for to disk, instead of blocking the producing task.
+	 */
+	public static final String TASK_MANAGER_NET_SPILLING_KEY = "taskmanager.net.spilling";
 	
 	/**
 	 * Parameter for the interval in which the RaskManager sends the periodic heart beat messages
@@ -139,6 +200,18 @@ public final class ConfigConstants {
 	 */
 	public static final String DEFAULT_SORT_SPILLING_THRESHOLD_KEY = "taskmanager.runtime.sort-spilling-threshold";
 	
+	/**
+	 * Key for the default number of threads with which a sorter sorts its buffers concurrently.
+	 */
+	public static final String DEFAULT_SORT_THREADS_KEY = "taskmanager.runtime.sort-threads";
+	
+	/**
+	 * Key for the flag whether the subtasks on a task manager share one materialized copy of each broadcast
+	 * variable. The elements of shared broadcast variables are read by several subtasks concurrently and must
+	 * not be modified by the user functions.
+	 */
+	public static final String SHARE_BROADCAST_VARIABLES_KEY = "taskmanager.runtime.share-broadcast-variables";
+	
 	/**
 	 * The config parameter defining the timeout for filesystem stream opening.
 	 * A value of 0 indicates infinite waiting.
@@ -203,6 +276,12 @@ public final class ConfigConstants {
 	 * The maximum length of a single sampled record before the sampling is aborted.
 	 */
 	public static final String DELIMITED_FORMAT_MAX_SAMPLE_LENGTH_KEY = "compiler.delimited-informat.max-sample-len";
+
+	/**
+	 * The codec with which the channels that ship data over the network compress their buffers, if no other
+	 * codec is specified for the receiving operator. Possible values are <code>NONE</code> and <code>LZ4</code>.
+	 */
+	public static final String COMPILER_NETWORK_COMPRESSION_KEY = "compiler.network.compression-codec";
 	
 	
 	// ------------------------- JobManager Web Frontend ----------------------
@@ -314,6 +393,16 @@ public final class ConfigConstants {
 	 */
 	public static final String DEFAULT_TASK_MANAGER_TMP_PATH = System.getProperty("java.io.tmpdir");
 	
+	/**
+	 * The default codec for spilled intermediate data: no compression.
+	 */
+	public static final String DEFAULT_TASK_MANAGER_TMP_COMPRESSION = "NONE";
+	
+	/**
+	 * The default number of I/O threads per directory for temporary files.
+	 */
+	public static final int DEFAULT_TASK_MANAGER_TMP_IO_THREADS = 1;
+	
 	/**
 	 * The default fraction of the free memory allocated by the task manager's memory manager.
 	 */
@@ -324,6 +413,17 @@ public final class ConfigConstants {
 	 */
 	public static final boolean DEFAULT_TASK_MANAGER_MEMORY_LAZY_ALLOCATION = false;
 
+	/**
+	 * The default time without memory requests after which a lazily allocating memory manager gives
+	 * back the memory of released pages (60 seconds).
+	 */
+	public static final long DEFAULT_TASK_MANAGER_MEMORY_IDLE_TIMEOUT = 60000;
+
+	/**
+	 * The default setting for the memory manager off-heap memory feature.
+	 */
+	public static final boolean DEFAULT_TASK_MANAGER_MEMORY_OFF_HEAP = false;
+
 	/**
 	 * Default number of buffers used in the network stack.
 	 */
@@ -334,6 +434,16 @@ public final class ConfigConstants {
 	 */
 	public static final int DEFAULT_TASK_MANAGER_NETWORK_BUFFER_SIZE = 32768;
 
+	/**
+	 * Default timeout of partially filled network buffers. Zero means buffers are never flushed on a timeout.
+	 */
+	public static final long DEFAULT_TASK_MANAGER_NETWORK_BUFFER_TIMEOUT = 0;
+
+	/**
+	 * Default maximum number of input splits that a data source task requests from the job manager at once.
+	 */
+	public static final int DEFAULT_TASK_MANAGER_INPUT_SPLIT_BATCH_SIZE = 8;
+
 	/**
 	 * Default number of incoming network IO threads (e.g. number of incoming connection threads used in
 	 * NettyConnectionManager for the ServerBootstrap). If set to -1, a reasonable default depending on the number of
@@ -360,6 +470,21 @@ public final class ConfigConstants {
 	 */
 	public static final int DEFAULT_TASK_MANAGER_NET_NETTY_HIGH_WATER_MARK = -1;
 
+	/**
+	 * Default transport used in NettyConnectionManager.
+	 */
+	public static final String DEFAULT_TASK_MANAGER_NET_TRANSPORT = "nio";
+
+	/**
+	 * Default maximum number of credits per network input channel.
+	 */
+	public static final int DEFAULT_TASK_MANAGER_NET_CREDITS_PER_CHANNEL = 2;
+
+	/**
+	 * Default setting for spilling network output channels (disabled).
+	 */
+	public static final boolean DEFAULT_TASK_MANAGER_NET_SPILLING = false;
+
 	/**
 	 * The default interval for TaskManager heart beats (2000 msecs).
 	 */
@@ -380,6 +505,16 @@ public final class ConfigConstants {
 	 */
 	public static final float DEFAULT_SORT_SPILLING_THRESHOLD = 0.8f;
 	
+	/**
+	 * The default number of threads with which a sorter sorts its buffers.
+	 */
+	public static final int DEFAULT_SORT_THREADS = 1;
+	
+	/**
+	 * The default for sharing broadcast variables among the subtasks on a task manager: off.
+	 */
+	public static final boolean DEFAULT_SHARE_BROADCAST_VARIABLES = false;
+	
 	/**
 	 * The default timeout for filesystem stream opening: infinite (means max long milliseconds).
 	 */
@@ -415,6 +550,11 @@ public final class ConfigConstants {
 	 * The default maximum sample length before sampling is aborted (2 MiBytes).
 	 */
 	public static final int DEFAULT_DELIMITED_FORMAT_MAX_SAMPLE_LEN = 2 * 1024 * 1024;
+
+	/**
+	 * The default codec for the compression of network channels (no compression).
+	 */
+	public static final String DEFAULT_COMPILER_NETWORK_COMPRESSION = "NONE";
 	
 	
 	// ------------------------- JobManager Web Frontend ----------------------
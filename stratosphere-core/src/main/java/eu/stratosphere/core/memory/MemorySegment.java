@@ -21,8 +21,15 @@ import java.nio.ByteOrder;
 
 /**
  * This class represents a piece of memory allocated from the memory manager. The segment is backed
- * by a byte array and features random put and get methods for the basic types that are stored in a byte-wise
- * fashion in the memory.
+ * either by a byte array on the heap, or by off-heap memory owned by a direct {@link ByteBuffer}. It
+ * features random put and get methods for the basic types that are stored in a byte-wise fashion in the memory.
+ * 
+ * <p>
+ * 
+ * Both kinds of memory are accessed through the same code paths: Every access goes through the "unsafe"
+ * methods, using the byte array as the base object and the array base offset as the address for heap
+ * segments, and a null base object with the absolute memory address for off-heap segments. That way, the class
+ * stays monomorphic and the sorters, hash tables, and I/O paths work on off-heap memory without copying.
  * 
  * <p>
  * 
@@ -68,10 +75,29 @@ public class MemorySegment {
 	private static final boolean CHECKED = true;
 	
 	/**
-	 * The array in which the data is stored.
+	 * The array in which the data is stored, if the segment is backed by heap memory.
+	 * Null for segments backed by off-heap memory.
 	 */
 	protected byte[] memory;
 	
+	/**
+	 * The direct byte buffer that owns the memory, if the segment is backed by off-heap memory.
+	 * Null for heap segments. Holding the reference keeps the memory from being reclaimed.
+	 */
+	protected ByteBuffer offHeapBuffer;
+	
+	/**
+	 * The address of the first byte of the segment. For heap segments, this is the offset relative
+	 * to the array object, for off-heap segments, this is the absolute memory address.
+	 */
+	protected long address;
+	
+	/**
+	 * The size of the segment in bytes. Set to zero when the segment is freed, such that all
+	 * subsequent checked accesses fail, rather than touching memory that has been handed on.
+	 */
+	protected int size;
+	
 	/**
 	 * Wrapper for I/O requests.
 	 */
@@ -88,6 +114,26 @@ public class MemorySegment {
 	 */
 	public MemorySegment(byte[] memory) {
 		this.memory = memory;
+		this.address = BASE_OFFSET;
+		this.size = memory.length;
+	}
+	
+	/**
+	 * Creates a new memory segment that represents the off-heap memory of the given direct byte buffer.
+	 * The segment spans the buffer's entire capacity, regardless of its position and limit.
+	 * 
+	 * @param buffer The direct byte buffer that owns the memory.
+	 * 
+	 * @throws IllegalArgumentException Thrown, if the given buffer is not a direct byte buffer.
+	 */
+	public MemorySegment(ByteBuffer buffer) {
+		if (buffer == null || !buffer.isDirect()) {
+			throw new IllegalArgumentException("The buffer to back an off-heap memory segment must be a direct byte buffer.");
+		}
+		
+		this.offHeapBuffer = buffer;
+		this.address = MemoryUtils.getAddress(buffer);
+		this.size = buffer.capacity();
 	}
 
 	// -------------------------------------------------------------------------
@@ -101,22 +147,33 @@ public class MemorySegment {
 	 * @return True, if the segment has been freed, false otherwise.
 	 */
 	public final boolean isFreed() {
-		return this.memory == null;
+		return this.memory == null && this.offHeapBuffer == null;
 	}
 
 	public final void free() {
 		this.wrapper = null;
 		this.memory = null;
+		this.offHeapBuffer = null;
+		this.size = 0;
+	}
+	
+	/**
+	 * Checks whether this memory segment is backed by off-heap memory, rather than by a byte array.
+	 * 
+	 * @return True, if the segment is backed by off-heap memory, false otherwise.
+	 */
+	public final boolean isOffHeap() {
+		return this.offHeapBuffer != null;
 	}
 	
 	/**
 	 * Gets the size of the memory segment, in bytes. Because segments
-	 * are backed by arrays, they cannot be larger than two GiBytes.
+	 * are addressed by integer positions, they cannot be larger than two GiBytes.
 	 * 
 	 * @return The size in bytes.
 	 */
 	public final int size() {
-		return this.memory.length;
+		return this.size;
 	}
 
 	/**
@@ -130,18 +187,22 @@ public class MemorySegment {
 	 *                                   or if the offset plus the length is larger than the segment size.
 	 */
 	public ByteBuffer wrap(int offset, int length) {
-		if (offset > this.memory.length || offset > this.memory.length - length) {
+		if (offset < 0 || offset > this.size || offset > this.size - length) {
 			throw new IndexOutOfBoundsException();
 		}
 		
 		if (this.wrapper == null) {
-			this.wrapper = ByteBuffer.wrap(this.memory, offset, length);
-		}
-		else {
-			this.wrapper.position(offset);
-			this.wrapper.limit(offset + length);
+			if (this.offHeapBuffer == null) {
+				this.wrapper = ByteBuffer.wrap(this.memory, offset, length);
+				return this.wrapper;
+			} else {
+				this.wrapper = this.offHeapBuffer.duplicate();
+			}
 		}
 		
+		// set the limit first, such that the new position is always within the limit
+		this.wrapper.limit(offset + length);
+		this.wrapper.position(offset);
 		return this.wrapper;
 	}
 
@@ -169,8 +230,13 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger or equal to the size of
 	 *                                   the memory segment.
 	 */
+	@SuppressWarnings("restriction")
 	public final byte get(int index) {
-		return this.memory[index];
+		if (index >= 0 && index < this.size) {
+			return UNSAFE.getByte(this.memory, this.address + index);
+		} else {
+			throw new IndexOutOfBoundsException();
+		}
 	}
 
 	/**
@@ -182,8 +248,13 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger or equal to the size of
 	 *                                   the memory segment.
 	 */
+	@SuppressWarnings("restriction")
 	public final void put(int index, byte b) {
-		this.memory[index] = b;
+		if (index >= 0 && index < this.size) {
+			UNSAFE.putByte(this.memory, this.address + index, b);
+		} else {
+			throw new IndexOutOfBoundsException();
+		}
 	}
 
 	/**
@@ -228,9 +299,20 @@ public class MemorySegment {
 	 *                                   bytes exceed the amount of memory between the index and the memory
 	 *                                   segment's end.
 	 */
+	@SuppressWarnings("restriction")
 	public final void get(int index, byte[] dst, int offset, int length) {
-		// system arraycopy does the boundary checks anyways, no need to check extra
-		System.arraycopy(this.memory, index, dst, offset, length);
+		if (this.memory != null) {
+			// system arraycopy does the boundary checks anyways, no need to check extra
+			System.arraycopy(this.memory, index, dst, offset, length);
+		}
+		else {
+			if (index < 0 || length < 0 || index > this.size - length ||
+					offset < 0 || offset > dst.length - length)
+			{
+				throw new IndexOutOfBoundsException();
+			}
+			UNSAFE.copyMemory(null, this.address + index, dst, BASE_OFFSET + offset, length);
+		}
 	}
 
 	/**
@@ -247,9 +329,20 @@ public class MemorySegment {
 	 *                                   portion to copy exceed the amount of memory between the index and the memory
 	 *                                   segment's end.
 	 */
+	@SuppressWarnings("restriction")
 	public final void put(int index, byte[] src, int offset, int length) {
-		// system arraycopy does the boundary checks anyways, no need to check extra
-		System.arraycopy(src, offset, this.memory, index, length);
+		if (this.memory != null) {
+			// system arraycopy does the boundary checks anyways, no need to check extra
+			System.arraycopy(src, offset, this.memory, index, length);
+		}
+		else {
+			if (index < 0 || length < 0 || index > this.size - length ||
+					offset < 0 || offset > src.length - length)
+			{
+				throw new IndexOutOfBoundsException();
+			}
+			UNSAFE.copyMemory(src, BASE_OFFSET + offset, null, this.address + index, length);
+		}
 	}
 
 	/**
@@ -263,7 +356,7 @@ public class MemorySegment {
 	 *                                   size minus 1.
 	 */
 	public final boolean getBoolean(int index) {
-		return this.memory[index] != 0;
+		return get(index) != 0;
 	}
 
 	/**
@@ -277,7 +370,7 @@ public class MemorySegment {
 	 *                                   size minus 1.
 	 */
 	public final void putBoolean(int index, boolean value) {
-		this.memory[index] = (byte) (value ? 1 : 0);
+		put(index, (byte) (value ? 1 : 0));
 	}
 
 	/**
@@ -290,9 +383,14 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger then the segment
 	 *                                   size minus 2.
 	 */
+	@SuppressWarnings("restriction")
 	public final char getChar(int index) {
-		return (char) ( ((this.memory[index    ] & 0xff) << 8) | 
-						(this.memory[index + 1] & 0xff) );
+		if (index >= 0 && index <= this.size - 2) {
+			final char value = UNSAFE.getChar(this.memory, this.address + index);
+			return LITTLE_ENDIAN ? Character.reverseBytes(value) : value;
+		} else {
+			throw new IndexOutOfBoundsException();
+		}
 	}
 
 	/**
@@ -305,9 +403,13 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger then the segment
 	 *                                   size minus 2.
 	 */
+	@SuppressWarnings("restriction")
 	public final void putChar(int index, char value) {
-		this.memory[index    ] = (byte) (value >> 8);
-		this.memory[index + 1] = (byte) value;
+		if (index >= 0 && index <= this.size - 2) {
+			UNSAFE.putChar(this.memory, this.address + index, LITTLE_ENDIAN ? Character.reverseBytes(value) : value);
+		} else {
+			throw new IndexOutOfBoundsException();
+		}
 	}
 
 	/**
@@ -320,10 +422,14 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger then the segment
 	 *                                   size minus 2.
 	 */
+	@SuppressWarnings("restriction")
 	public final short getShort(int index) {
-		return (short) (
-				((this.memory[index    ] & 0xff) << 8) |
-				((this.memory[index + 1] & 0xff)) );
+		if (index >= 0 && index <= this.size - 2) {
+			final short value = UNSAFE.getShort(this.memory, this.address + index);
+			return LITTLE_ENDIAN ? Short.reverseBytes(value) : value;
+		} else {
+			throw new IndexOutOfBoundsException();
+		}
 	}
 
 	/**
@@ -336,9 +442,13 @@ public class MemorySegment {
 	 * @throws IndexOutOfBoundsException Thrown, if the index is negative, or larger then the segment
 	 *                                   size minus 2.
 	 */
+	@SuppressWarnings("restriction")
 	public final void putShort(int index, short value) {
-		this.memory[index    ] = (byte) (value >> 8);
-		this.memory[index + 1] = (byte) value;
+		if (index >= 0 && index <= this.size - 2) {
+			UNSAFE.putShort(this.memory, this.address + index, LITTLE_ENDIAN ? Short.reverseBytes(value) : value);
+		} else {
+			throw new IndexOutOfBoundsException();
+		}
 	}
 	
 	/**
@@ -358,13 +468,13 @@ public class MemorySegment {
 	@SuppressWarnings("restriction")
 	public final int getInt(int index) {
 		if (CHECKED) {
-			if (index >= 0 && index <= this.memory.length - 4) {
-				return UNSAFE.getInt(this.memory, BASE_OFFSET + index);
+			if (index >= 0 && index <= this.size - 4) {
+				return UNSAFE.getInt(this.memory, this.address + index);
 			} else {
 				throw new IndexOutOfBoundsException();
 			}
 		} else {
-			return UNSAFE.getInt(this.memory, BASE_OFFSET + index);
+			return UNSAFE.getInt(this.memory, this.address + index);
 		}
 	}
 	
@@ -429,13 +539,13 @@ public class MemorySegment {
 	@SuppressWarnings("restriction")
 	public final void putInt(int index, int value) {
 		if (CHECKED) {
-			if (index >= 0 && index <= this.memory.length - 4) {
-				UNSAFE.putInt(this.memory, BASE_OFFSET + index, value);
+			if (index >= 0 && index <= this.size - 4) {
+				UNSAFE.putInt(this.memory, this.address + index, value);
 			} else {
 				throw new IndexOutOfBoundsException();
 			}
 		} else {
-			UNSAFE.putInt(this.memory, BASE_OFFSET + index, value);
+			UNSAFE.putInt(this.memory, this.address + index, value);
 		}
 	}
 	
@@ -500,13 +610,13 @@ public class MemorySegment {
 	@SuppressWarnings("restriction")
 	public final long getLong(int index) {
 		if (CHECKED) {
-			if (index >= 0 && index <= this.memory.length - 8) {
-				return UNSAFE.getLong(this.memory, BASE_OFFSET + index);
+			if (index >= 0 && index <= this.size - 8) {
+				return UNSAFE.getLong(this.memory, this.address + index);
 			} else {
 				throw new IndexOutOfBoundsException();
 			}
 		} else {
-			return UNSAFE.getLong(this.memory, BASE_OFFSET + index);
+			return UNSAFE.getLong(this.memory, this.address + index);
 		}
 	}
 	
@@ -571,13 +681,13 @@ public class MemorySegment {
 	@SuppressWarnings("restriction")
 	public final void putLong(int index, long value) {
 		if (CHECKED) {
-			if (index >= 0 && index <= this.memory.length - 8) {
-				UNSAFE.putLong(this.memory, BASE_OFFSET + index, value);
+			if (index >= 0 && index <= this.size - 8) {
+				UNSAFE.putLong(this.memory, this.address + index, value);
 			} else {
 				throw new IndexOutOfBoundsException();
 			}
 		} else {
-			UNSAFE.putLong(this.memory, BASE_OFFSET + index, value);
+			UNSAFE.putLong(this.memory, this.address + index, value);
 		}
 	}
 	
@@ -856,7 +966,19 @@ public class MemorySegment {
 	 * @throws IOException Thrown, if the DataOutput encountered a problem upon writing.
 	 */
 	public final void get(DataOutput out, int offset, int length) throws IOException {
-		out.write(this.memory, offset, length);
+		if (this.memory != null) {
+			out.write(this.memory, offset, length);
+		}
+		else {
+			final byte[] chunk = new byte[Math.min(length, COPY_CHUNK_SIZE)];
+			while (length > 0) {
+				final int toCopy = Math.min(length, chunk.length);
+				get(offset, chunk, 0, toCopy);
+				out.write(chunk, 0, toCopy);
+				offset += toCopy;
+				length -= toCopy;
+			}
+		}
 	}
 
 	/**
@@ -871,7 +993,19 @@ public class MemorySegment {
 	 *                     such as an End-Of-File.
 	 */
 	public final void put(DataInput in, int offset, int length) throws IOException {
-		in.readFully(this.memory, offset, length);
+		if (this.memory != null) {
+			in.readFully(this.memory, offset, length);
+		}
+		else {
+			final byte[] chunk = new byte[Math.min(length, COPY_CHUNK_SIZE)];
+			while (length > 0) {
+				final int toCopy = Math.min(length, chunk.length);
+				in.readFully(chunk, 0, toCopy);
+				put(offset, chunk, 0, toCopy);
+				offset += toCopy;
+				length -= toCopy;
+			}
+		}
 	}
 	
 	/**
@@ -890,8 +1024,17 @@ public class MemorySegment {
 	 *           not have enough space for the bytes.
 	 */
 	public final void get(int offset, ByteBuffer target, int numBytes) {
-		// ByteBuffer performs the boundy checks
-		target.put(this.memory, offset, numBytes);
+		if (this.memory != null) {
+			// ByteBuffer performs the boundy checks
+			target.put(this.memory, offset, numBytes);
+		}
+		else {
+			// the duplicate performs the boundary checks
+			final ByteBuffer source = this.offHeapBuffer.duplicate();
+			source.limit(offset + numBytes);
+			source.position(offset);
+			target.put(source);
+		}
 	}
 	
 	/**
@@ -912,8 +1055,25 @@ public class MemorySegment {
 	 *           not have enough space for the bytes (counting from offset).
 	 */
 	public final void put(int offset, ByteBuffer source, int numBytes) {
-		// ByteBuffer performs the boundy checks
-		source.get(this.memory, offset, numBytes);
+		if (this.memory != null) {
+			// ByteBuffer performs the boundy checks
+			source.get(this.memory, offset, numBytes);
+		}
+		else {
+			if (numBytes > source.remaining()) {
+				throw new java.nio.BufferUnderflowException();
+			}
+			
+			// the duplicate performs the boundary checks
+			final ByteBuffer target = this.offHeapBuffer.duplicate();
+			target.limit(offset + numBytes);
+			target.position(offset);
+			
+			final int sourceLimit = source.limit();
+			source.limit(source.position() + numBytes);
+			target.put(source);
+			source.limit(sourceLimit);
+		}
 	}
 	
 	/**
@@ -930,9 +1090,20 @@ public class MemorySegment {
 	 *           contain the given number of bytes (starting from offset), or the target segment does
 	 *           not have enough space for the bytes (counting from targetOffset).
 	 */
+	@SuppressWarnings("restriction")
 	public final void copyTo(int offset, MemorySegment target, int targetOffset, int numBytes) {
-		// system arraycopy does the boundary checks anyways, no need to check extra
-		System.arraycopy(this.memory, offset, target.memory, targetOffset, numBytes);
+		if (this.memory != null && target.memory != null) {
+			// system arraycopy does the boundary checks anyways, no need to check extra
+			System.arraycopy(this.memory, offset, target.memory, targetOffset, numBytes);
+		}
+		else {
+			if (offset < 0 || numBytes < 0 || offset > this.size - numBytes ||
+					targetOffset < 0 || targetOffset > target.size - numBytes)
+			{
+				throw new IndexOutOfBoundsException();
+			}
+			UNSAFE.copyMemory(this.memory, this.address + offset, target.memory, target.address + targetOffset, numBytes);
+		}
 	}
 	
 	// -------------------------------------------------------------------------
@@ -944,15 +1115,25 @@ public class MemorySegment {
 		final byte[] b2 = seg2.memory;
 		
 		int val = 0;
-		for (int pos = 0; pos < len && (val = (b1[offset1 + pos] & 0xff) - (b2[offset2 + pos] & 0xff)) == 0; pos++);
+		if (b1 != null && b2 != null) {
+			for (int pos = 0; pos < len && (val = (b1[offset1 + pos] & 0xff) - (b2[offset2 + pos] & 0xff)) == 0; pos++);
+		} else {
+			for (int pos = 0; pos < len && (val = (seg1.get(offset1 + pos) & 0xff) - (seg2.get(offset2 + pos) & 0xff)) == 0; pos++);
+		}
 		return val;
 	}
 	
 	public static final void swapBytes(MemorySegment seg1, MemorySegment seg2, byte[] tempBuffer, int offset1, int offset2, int len) {
-		// system arraycopy does the boundary checks anyways, no need to check extra
-		System.arraycopy(seg1.memory, offset1, tempBuffer, 0, len);
-		System.arraycopy(seg2.memory, offset2, seg1.memory, offset1, len);
-		System.arraycopy(tempBuffer, 0, seg2.memory, offset2, len);
+		if (seg1.memory != null && seg2.memory != null) {
+			// system arraycopy does the boundary checks anyways, no need to check extra
+			System.arraycopy(seg1.memory, offset1, tempBuffer, 0, len);
+			System.arraycopy(seg2.memory, offset2, seg1.memory, offset1, len);
+			System.arraycopy(tempBuffer, 0, seg2.memory, offset2, len);
+		} else {
+			seg1.get(offset1, tempBuffer, 0, len);
+			seg2.copyTo(offset2, seg1, offset1, len);
+			seg2.put(offset2, tempBuffer, 0, len);
+		}
 	}
 	
 	// --------------------------------------------------------------------------------------------
@@ -966,4 +1147,9 @@ public class MemorySegment {
 	private static final long BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
 	
 	private static final boolean LITTLE_ENDIAN = (MemoryUtils.NATIVE_BYTE_ORDER == ByteOrder.LITTLE_ENDIAN);
+	
+	/**
+	 * The size of the chunks in which off-heap memory is moved from and to streams.
+	 */
+	private static final int COPY_CHUNK_SIZE = 4096;
 }
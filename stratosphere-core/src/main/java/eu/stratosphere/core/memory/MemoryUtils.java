@@ -13,6 +13,8 @@
 package eu.stratosphere.core.memory;
 
 import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 /**
@@ -31,6 +33,28 @@ public class MemoryUtils {
 	 */
 	public static final ByteOrder NATIVE_BYTE_ORDER = getByteOrder();
 	
+	/**
+	 * The offset of the field in {@link Buffer} that holds the address of a direct buffer's memory.
+	 */
+	@SuppressWarnings("restriction")
+	private static final long BUFFER_ADDRESS_FIELD_OFFSET = getAddressFieldOffset();
+	
+	/**
+	 * Gets the address of the off-heap memory that backs the given direct byte buffer.
+	 * 
+	 * @param buffer The direct byte buffer.
+	 * @return The address of the buffer's first byte.
+	 * 
+	 * @throws IllegalArgumentException Thrown, if the buffer is not a direct byte buffer.
+	 */
+	@SuppressWarnings("restriction")
+	public static long getAddress(ByteBuffer buffer) {
+		if (!buffer.isDirect()) {
+			throw new IllegalArgumentException("The buffer is not a direct byte buffer.");
+		}
+		return UNSAFE.getLong(buffer, BUFFER_ADDRESS_FIELD_OFFSET);
+	}
+	
 	
 	@SuppressWarnings("restriction")
 	private static sun.misc.Unsafe getUnsafe() {
@@ -49,6 +73,17 @@ public class MemoryUtils {
 		}
 	}
 	
+	@SuppressWarnings("restriction")
+	private static long getAddressFieldOffset() {
+		try {
+			return UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+		} catch (NoSuchFieldException e) {
+			throw new RuntimeException("The address field of the direct buffers was not found.");
+		} catch (SecurityException e) {
+			throw new RuntimeException("Could not access the address field of the direct buffers.", e);
+		}
+	}
+	
 	@SuppressWarnings("restriction")
 	private static ByteOrder getByteOrder() {
 		final byte[] bytes = new byte[8];
@@ -16,6 +16,7 @@ package eu.stratosphere.api.java;
 
 import org.apache.commons.lang3.Validate;
 
+import eu.stratosphere.api.common.InvalidProgramException;
 import eu.stratosphere.api.common.io.FileOutputFormat;
 import eu.stratosphere.api.common.io.OutputFormat;
 import eu.stratosphere.api.java.aggregation.Aggregations;
@@ -36,6 +37,7 @@ import eu.stratosphere.api.java.operators.CrossOperator;
 import eu.stratosphere.api.java.operators.CrossOperator.DefaultCross;
 import eu.stratosphere.api.java.operators.CustomUnaryOperation;
 import eu.stratosphere.api.java.operators.DataSink;
+import eu.stratosphere.api.java.operators.DistinctOperator;
 import eu.stratosphere.api.java.operators.FilterOperator;
 import eu.stratosphere.api.java.operators.FlatMapOperator;
 import eu.stratosphere.api.java.operators.Grouping;
@@ -268,13 +270,61 @@ public abstract class DataSet<T> {
 	//  distinct
 	// --------------------------------------------------------------------------------------------
 	
-//	public <K extends Comparable<K>> DistinctOperator<T> distinct(KeySelector<T, K> keyExtractor) {
-//		return new DistinctOperator<T>(this, new Keys.SelectorFunctionKeys<T, K>(keyExtractor, getType()));
-//	}
+	/**
+	 * Returns a distinct set of a {@link DataSet} using a {@link KeySelector} function.
+	 * The KeySelector function is called for each element of the DataSet and extracts a single key value
+	 *   on which the decision is made if two elements are distinct or not. Of all elements with the same key,
+	 *   one is kept.
+	 * 
+	 * @param keyExtractor The KeySelector function which extracts the key values from the DataSet on which the
+	 *                     distinction of the DataSet is decided.
+	 * @return A DistinctOperator that represents the distinct DataSet.
+	 * 
+	 * @see KeySelector
+	 * @see DistinctOperator
+	 */
+	public <K extends Comparable<K>> DistinctOperator<T> distinct(KeySelector<T, K> keyExtractor) {
+		return new DistinctOperator<T>(this, new Keys.SelectorFunctionKeys<T, K>(keyExtractor, getType()));
+	}
 	
-//	public DistinctOperator<T> distinct(int... fields) {
-//		return new DistinctOperator<T>(this, new Keys.FieldPositionKeys<T>(fields, getType(), true));
-//	}
+	/**
+	 * Returns a distinct set of a {@link DataSet} using all of its elements as keys.
+	 * Tuples are compared on all their fields, all other types are compared on their whole value.
+	 * Of all equal elements, one is kept.
+	 * <p>
+	 * <b>Note: The elements of non-Tuple DataSets must be of a type that can be used as a key.</b>
+	 * 
+	 * @return A DistinctOperator that represents the distinct DataSet.
+	 * 
+	 * @see DistinctOperator
+	 */
+	public DistinctOperator<T> distinct() {
+		if (getType().isTupleType()) {
+			return new DistinctOperator<T>(this, new Keys.FieldPositionKeys<T>(null, getType(), true));
+		}
+		
+		if (!getType().isKeyType()) {
+			throw new InvalidProgramException("The type " + getType() + " cannot be used as a key, so its elements cannot be made distinct.");
+		}
+		return new DistinctOperator<T>(this, new Keys.SelectorFunctionKeys<T, T>(getType(), new DistinctOperator.ElementAsKeySelector<T>()));
+	}
+	
+	/**
+	 * Returns a distinct set of a {@link Tuple} {@link DataSet} using field position keys.
+	 * The field position keys specify the fields of Tuples on which the decision is made if two Tuples are
+	 *   distinct or not. If no fields are given, all fields are used. Of all Tuples with equal keys, one is kept.
+	 * <p>
+	 * <b>Note: Field position keys can only be specified for Tuple DataSets.</b>
+	 * 
+	 * @param fields One or more field positions on which the distinction of the DataSet is decided.
+	 * @return A DistinctOperator that represents the distinct DataSet.
+	 * 
+	 * @see Tuple
+	 * @see DistinctOperator
+	 */
+	public DistinctOperator<T> distinct(int... fields) {
+		return new DistinctOperator<T>(this, new Keys.FieldPositionKeys<T>(fields, getType(), true));
+	}
 	
 	// --------------------------------------------------------------------------------------------
 	//  Grouping
@@ -14,18 +14,26 @@
  **********************************************************************************************************************/
 package eu.stratosphere.api.java.operators;
 
+import eu.stratosphere.api.common.functions.GenericReduce;
 import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.common.operators.UnaryOperatorInformation;
+import eu.stratosphere.api.common.operators.base.ReduceOperatorBase;
 import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.functions.KeySelector;
+import eu.stratosphere.api.java.functions.ReduceFunction;
 
 /**
  * This operator represents the application of a "distinct" function on a data set, and the
  * result data set produced by the function.
+ * <p>
+ * The distinct is translated into a Reduce that keeps one element of each group of elements with
+ * equal keys. The duplicates are removed with the sort-based Reduce strategy, and a combiner
+ * pre-removes duplicates before the data is shipped.
  * 
  * @param <T> The type of the data set made distinct by the operator.
  */
 public class DistinctOperator<T> extends SingleInputOperator<T, T, DistinctOperator<T>> {
 	
-	@SuppressWarnings("unused")
 	private final Keys<T> keys;
 	
 	public DistinctOperator(DataSet<T> input, Keys<T> keys) {
@@ -39,7 +47,64 @@ public class DistinctOperator<T> extends SingleInputOperator<T, T, DistinctOpera
 	}
 
 	@Override
-	protected eu.stratosphere.api.common.operators.SingleInputOperator<T, T, ?> translateToDataFlow(Operator<T> input) {
-		throw new UnsupportedOperationException("NOT IMPLEMENTED");
+	protected eu.stratosphere.api.common.operators.SingleInputOperator<?, T, ?> translateToDataFlow(Operator<T> input) {
+		
+		final ReduceFunction<T> function = new DistinctFunction<T>();
+		String name = getName() != null ? getName() : "Distinct";
+		
+		if (this.keys instanceof Keys.SelectorFunctionKeys) {
+			
+			// distinct with key selector function
+			@SuppressWarnings("unchecked")
+			Keys.SelectorFunctionKeys<T, ?> selectorKeys = (Keys.SelectorFunctionKeys<T, ?>) this.keys;
+			
+			return ReduceOperator.translateSelectorFunctionReducer(selectorKeys, function, getInputType(), name, input, this.getParallelism());
+		}
+		else if (this.keys instanceof Keys.FieldPositionKeys) {
+			
+			// distinct with field positions
+			int[] logicalKeyPositions = this.keys.computeLogicalKeyPositions();
+			UnaryOperatorInformation<T, T> operatorInfo = new UnaryOperatorInformation<T, T>(getInputType(), getInputType());
+			ReduceOperatorBase<T, GenericReduce<T>> po =
+					new ReduceOperatorBase<T, GenericReduce<T>>(function, operatorInfo, logicalKeyPositions, name);
+			
+			// set input
+			po.setInput(input);
+			// set dop
+			po.setDegreeOfParallelism(this.getParallelism());
+			
+			return po;
+		}
+		else {
+			throw new UnsupportedOperationException("Unrecognized key type.");
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Reduce function that keeps the first of two elements with equal keys.
+	 */
+	public static final class DistinctFunction<T> extends ReduceFunction<T> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public T reduce(T value1, T value2) {
+			return value1;
+		}
+	}
+	
+	/**
+	 * Key selector that uses the whole element as its key. Used to make data sets of non-tuple types distinct.
+	 */
+	public static final class ElementAsKeySelector<T> extends KeySelector<T, T> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public T getKey(T value) {
+			return value;
+		}
 	}
 }
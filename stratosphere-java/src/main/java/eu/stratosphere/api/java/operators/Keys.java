@@ -122,6 +122,14 @@ public abstract class Keys<T> {
 			this.keyExtractor = keyExtractor;
 			this.keyType = TypeExtractor.getKeySelectorTypes(keyExtractor, type);
 		}
+		
+		/**
+		 * Creates the keys for a key selector whose key type is given rather than extracted from the selector.
+		 */
+		public SelectorFunctionKeys(TypeInformation<K> keyType, KeySelector<T, K> keyExtractor) {
+			this.keyExtractor = keyExtractor;
+			this.keyType = keyType;
+		}
 
 		public TypeInformation<K> getKeyType() {
 			return keyType;
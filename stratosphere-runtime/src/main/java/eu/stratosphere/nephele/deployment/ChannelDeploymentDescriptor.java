@@ -19,6 +19,7 @@ import java.io.IOException;
 
 import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.runtime.io.channels.ChannelID;
+import eu.stratosphere.runtime.io.network.ConnectionInfoLookupResponse;
 
 /**
  * A channel deployment descriptor contains all the information necessary to deploy either an input or an output channel
@@ -39,6 +40,11 @@ public final class ChannelDeploymentDescriptor implements IOReadableWritable {
 	 */
 	private final ChannelID inputChannelID;
 
+	/**
+	 * The location of the connected channel, <code>null</code> if it was unknown at deployment time.
+	 */
+	private ConnectionInfoLookupResponse connectedChannelLocation;
+
 	/**
 	 * Constructs a new channel deployment descriptor.
 	 * 
@@ -61,6 +67,24 @@ public final class ChannelDeploymentDescriptor implements IOReadableWritable {
 		this.inputChannelID = inputChannelID;
 	}
 
+	/**
+	 * Constructs a new channel deployment descriptor, which also ships the location of the connected channel.
+	 * 
+	 * @param outputChannelID
+	 *        the ID of the output channel
+	 * @param inputChannelID
+	 *        the ID of the input channel
+	 * @param connectedChannelLocation
+	 *        the location of the channel the deployed channel is connected to or <code>null</code> if it is unknown
+	 */
+	public ChannelDeploymentDescriptor(final ChannelID outputChannelID, final ChannelID inputChannelID,
+			final ConnectionInfoLookupResponse connectedChannelLocation) {
+
+		this(outputChannelID, inputChannelID);
+
+		this.connectedChannelLocation = connectedChannelLocation;
+	}
+
 	/**
 	 * Default constructor for serialization/deserialization.
 	 */
@@ -76,6 +100,13 @@ public final class ChannelDeploymentDescriptor implements IOReadableWritable {
 
 		this.outputChannelID.write(out);
 		this.inputChannelID.write(out);
+
+		if (this.connectedChannelLocation != null) {
+			out.writeBoolean(true);
+			this.connectedChannelLocation.write(out);
+		} else {
+			out.writeBoolean(false);
+		}
 	}
 
 
@@ -84,6 +115,13 @@ public final class ChannelDeploymentDescriptor implements IOReadableWritable {
 
 		this.outputChannelID.read(in);
 		this.inputChannelID.read(in);
+
+		if (in.readBoolean()) {
+			this.connectedChannelLocation = new ConnectionInfoLookupResponse();
+			this.connectedChannelLocation.read(in);
+		} else {
+			this.connectedChannelLocation = null;
+		}
 	}
 
 	/**
@@ -105,4 +143,15 @@ public final class ChannelDeploymentDescriptor implements IOReadableWritable {
 
 		return this.inputChannelID;
 	}
+
+	/**
+	 * Returns the location of the channel the deployed channel is connected to. The task manager uses it to send
+	 * envelopes to the connected channel without asking the job manager.
+	 * 
+	 * @return the location of the connected channel or <code>null</code> if it was unknown at deployment time
+	 */
+	public ConnectionInfoLookupResponse getConnectedChannelLocation() {
+
+		return this.connectedChannelLocation;
+	}
 }
@@ -23,6 +23,7 @@ import java.util.List;
 import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.runtime.io.gates.GateID;
 import eu.stratosphere.runtime.io.channels.ChannelType;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.util.EnumUtils;
 
 /**
@@ -44,6 +45,11 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 	 */
 	private ChannelType channelType;
 
+	/**
+	 * The codec with which the gate compresses the buffers it ships over the network.
+	 */
+	private CompressionCodec compressionCodec;
+
 	/**
 	 * The list of channel deployment descriptors attached to this gate.
 	 */
@@ -56,14 +62,30 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 	 *        the ID of the gate
 	 * @param channelType
 	 *        the channel type of the gate
-	 * @param compressionLevel
-	 *        the compression level of the gate
 	 * @param channels
 	 *        the list of channel deployment descriptors attached to this gate
 	 */
 	public GateDeploymentDescriptor(final GateID gateID, final ChannelType channelType,
 			List<ChannelDeploymentDescriptor> channels) {
 
+		this(gateID, channelType, CompressionCodec.NONE, channels);
+	}
+
+	/**
+	 * Constructs a new gate deployment descriptor
+	 * 
+	 * @param gateID
+	 *        the ID of the gate
+	 * @param channelType
+	 *        the channel type of the gate
+	 * @param compressionCodec
+	 *        the codec with which the gate compresses the buffers it ships over the network
+	 * @param channels
+	 *        the list of channel deployment descriptors attached to this gate
+	 */
+	public GateDeploymentDescriptor(final GateID gateID, final ChannelType channelType,
+			final CompressionCodec compressionCodec, List<ChannelDeploymentDescriptor> channels) {
+
 		if (gateID == null) {
 			throw new IllegalArgumentException("Argument gateID must no be null");
 		}
@@ -72,12 +94,17 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 			throw new IllegalArgumentException("Argument channelType must no be null");
 		}
 
+		if (compressionCodec == null) {
+			throw new IllegalArgumentException("Argument compressionCodec must no be null");
+		}
+
 		if (channels == null) {
 			throw new IllegalArgumentException("Argument channels must no be null");
 		}
 
 		this.gateID = gateID;
 		this.channelType = channelType;
+		this.compressionCodec = compressionCodec;
 		this.channels = channels;
 	}
 
@@ -88,6 +115,7 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 
 		this.gateID = new GateID();
 		this.channelType = null;
+		this.compressionCodec = null;
 		this.channels = new ArrayList<ChannelDeploymentDescriptor>();
 	}
 
@@ -97,6 +125,7 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 
 		this.gateID.write(out);
 		EnumUtils.writeEnum(out, channelType);
+		EnumUtils.writeEnum(out, this.compressionCodec);
 		out.writeInt(this.channels.size());
 		final Iterator<ChannelDeploymentDescriptor> it = this.channels.iterator();
 		while (it.hasNext()) {
@@ -110,6 +139,7 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 
 		this.gateID.read(in);
 		this.channelType = EnumUtils.readEnum(in, ChannelType.class);
+		this.compressionCodec = EnumUtils.readEnum(in, CompressionCodec.class);
 		final int nocdd = in.readInt();
 		for (int i = 0; i < nocdd; ++i) {
 			final ChannelDeploymentDescriptor cdd = new ChannelDeploymentDescriptor();
@@ -138,6 +168,16 @@ public final class GateDeploymentDescriptor implements IOReadableWritable {
 		return this.channelType;
 	}
 
+	/**
+	 * Returns the codec with which the gate compresses the buffers it ships over the network.
+	 * 
+	 * @return the compression codec of the gate
+	 */
+	public CompressionCodec getCompressionCodec() {
+
+		return this.compressionCodec;
+	}
+
 	/**
 	 * Returns the number of channel deployment descriptors attached to this gate descriptor.
 	 * 
@@ -22,6 +22,8 @@ import eu.stratosphere.nephele.protocols.AccumulatorProtocol;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.template.InputSplitProvider;
+import eu.stratosphere.pact.runtime.broadcast.BroadcastVariableManager;
+import eu.stratosphere.runtime.io.api.OutputFlusher;
 import eu.stratosphere.runtime.io.channels.ChannelID;
 import eu.stratosphere.runtime.io.gates.GateID;
 import eu.stratosphere.runtime.io.gates.InputGate;
@@ -223,5 +225,22 @@ public interface Environment {
 	 */
 	BufferProvider getOutputBufferProvider();
 
+	/**
+	 * Returns the flusher that sends partially filled output buffers when the buffer timeout expires.
+	 *
+	 * @return the output flusher of the task manager, or <code>null</code>, if buffers are only sent when they are
+	 *         full or explicitly flushed
+	 * @see eu.stratosphere.runtime.io.api.RecordWriter
+	 */
+	OutputFlusher getOutputFlusher();
+
+	/**
+	 * Returns the manager of the broadcast variables that are shared by the tasks running on the same task manager.
+	 *
+	 * @return the broadcast variable manager of the task manager, or <code>null</code>, if broadcast variables are
+	 *         not shared
+	 */
+	BroadcastVariableManager getBroadcastVariableManager();
+
 	Map<String, FutureTask<Path>> getCopyTask();
 }
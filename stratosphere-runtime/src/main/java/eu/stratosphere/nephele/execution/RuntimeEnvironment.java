@@ -25,6 +25,8 @@ import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.nephele.template.InputSplitProvider;
 import eu.stratosphere.runtime.io.Buffer;
+import eu.stratosphere.pact.runtime.broadcast.BroadcastVariableManager;
+import eu.stratosphere.runtime.io.api.OutputFlusher;
 import eu.stratosphere.runtime.io.channels.ChannelID;
 import eu.stratosphere.runtime.io.channels.OutputChannel;
 import eu.stratosphere.runtime.io.gates.GateID;
@@ -159,6 +161,16 @@ public class RuntimeEnvironment implements Environment, BufferProvider, LocalBuf
 
 	private LocalBufferPool outputBufferPool;
 
+	/**
+	 * The flusher for partially filled output buffers, <code>null</code> if there is no buffer timeout.
+	 */
+	private final OutputFlusher outputFlusher;
+
+	/**
+	 * The manager of the broadcast variables shared by the tasks of the task manager, <code>null</code> if not shared.
+	 */
+	private final BroadcastVariableManager broadcastVariableManager;
+
 	private Map<String,FutureTask<Path>> cacheCopyTasks = new HashMap<String, FutureTask<Path>>();
 
 	/**
@@ -186,6 +198,8 @@ public class RuntimeEnvironment implements Environment, BufferProvider, LocalBuf
 		this.memoryManager = null;
 		this.ioManager = null;
 		this.inputSplitProvider = null;
+		this.outputFlusher = null;
+		this.broadcastVariableManager = null;
 
 		this.invokable = this.invokableClass.newInstance();
 		this.invokable.setEnvironment(this);
@@ -199,11 +213,14 @@ public class RuntimeEnvironment implements Environment, BufferProvider, LocalBuf
 	 * @param memoryManager      the task manager's memory manager component
 	 * @param ioManager          the task manager's I/O manager component
 	 * @param inputSplitProvider the input split provider for this environment
+	 * @param outputFlusher      the task manager's output flusher, or <code>null</code> if there is no buffer timeout
+	 * @param broadcastVariableManager the task manager's broadcast variable manager
 	 * @throws Exception thrown if an error occurs while instantiating the invokable class
 	 */
 	public RuntimeEnvironment(final TaskDeploymentDescriptor tdd,
 							final MemoryManager memoryManager, final IOManager ioManager,
-							final InputSplitProvider inputSplitProvider,
+							final InputSplitProvider inputSplitProvider, final OutputFlusher outputFlusher,
+							final BroadcastVariableManager broadcastVariableManager,
 							AccumulatorProtocol accumulatorProtocolProxy, Map<String, FutureTask<Path>> cpTasks) throws Exception {
 
 		this.jobID = tdd.getJobID();
@@ -216,6 +233,8 @@ public class RuntimeEnvironment implements Environment, BufferProvider, LocalBuf
 		this.memoryManager = memoryManager;
 		this.ioManager = ioManager;
 		this.inputSplitProvider = inputSplitProvider;
+		this.outputFlusher = outputFlusher;
+		this.broadcastVariableManager = broadcastVariableManager;
 		this.accumulatorProtocolProxy = accumulatorProtocolProxy;
 		this.cacheCopyTasks = cpTasks;
 
@@ -728,6 +747,16 @@ public class RuntimeEnvironment implements Environment, BufferProvider, LocalBuf
 		return this;
 	}
 
+	@Override
+	public OutputFlusher getOutputFlusher() {
+		return this.outputFlusher;
+	}
+
+	@Override
+	public BroadcastVariableManager getBroadcastVariableManager() {
+		return this.broadcastVariableManager;
+	}
+
 	// -----------------------------------------------------------------------------------------------------------------
 	//                                            BufferProvider methods
 	// -----------------------------------------------------------------------------------------------------------------
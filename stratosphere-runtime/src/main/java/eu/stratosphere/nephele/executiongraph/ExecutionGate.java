@@ -18,6 +18,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import eu.stratosphere.runtime.io.gates.GateID;
 import eu.stratosphere.runtime.io.channels.ChannelType;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 
 /**
  * Objects of this class represent either an {@link InputGate} or {@link OutputGate} within an {@link ExecutionGraph},
@@ -83,6 +84,11 @@ public final class ExecutionGate {
 		return this.groupEdge.getChannelType();
 	}
 
+	public CompressionCodec getCompressionCodec() {
+
+		return this.groupEdge.getCompressionCodec();
+	}
+
 	ExecutionGroupEdge getGroupEdge() {
 
 		return this.groupEdge;
@@ -44,6 +44,7 @@ import eu.stratosphere.nephele.jobgraph.DistributionPattern;
 import eu.stratosphere.runtime.io.gates.GateID;
 import eu.stratosphere.runtime.io.channels.ChannelID;
 import eu.stratosphere.runtime.io.channels.ChannelType;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.jobgraph.AbstractJobInputVertex;
 import eu.stratosphere.nephele.jobgraph.AbstractJobVertex;
 import eu.stratosphere.nephele.jobgraph.JobEdge;
@@ -425,11 +426,13 @@ public class ExecutionGraph implements ExecutionListener {
 					channelType = ChannelType.NETWORK;
 				}
 
+				final CompressionCodec compressionCodec = edge.getCompressionCodec() != null ?
+					edge.getCompressionCodec() : CompressionCodec.NONE;
 				final DistributionPattern distributionPattern = edge.getDistributionPattern();
 
 				// Connect the corresponding group vertices and copy the user settings from the job edge
 				final ExecutionGroupEdge groupEdge = sgv.wireTo(tgv, edge.getIndexOfInputGate(), i, channelType,
-					userDefinedChannelType,distributionPattern);
+					userDefinedChannelType, compressionCodec, distributionPattern);
 
 				final ExecutionGate outputGate = new ExecutionGate(new GateID(), sev, groupEdge, false);
 				sev.insertOutputGate(i, outputGate);
@@ -14,6 +14,7 @@
 package eu.stratosphere.nephele.executiongraph;
 
 import eu.stratosphere.runtime.io.channels.ChannelType;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.jobgraph.DistributionPattern;
 
 /**
@@ -34,6 +35,11 @@ public class ExecutionGroupEdge {
 	 */
 	private volatile ChannelType channelType;
 
+	/**
+	 * The codec with which the channels of this edge compress the buffers they ship over the network.
+	 */
+	private final CompressionCodec compressionCodec;
+
 	/**
 	 * The edge's connection ID. The connection ID determines to which physical TCP connection channels represented by
 	 * this edge will be mapped in case the edge's channel type is NETWORK.
@@ -80,17 +86,21 @@ public class ExecutionGroupEdge {
 	 *        the channel type for the edge
 	 * @param userDefinedChannelType
 	 *        <code>true</code> if the channel type has been specified by the user, <code>false</code> otherwise
+	 * @param compressionCodec
+	 *        the compression codec for the edge
 	 * @param distributionPattern
 	 *        the distribution pattern to create the wiring
 	 */
 	public ExecutionGroupEdge(final ExecutionGroupVertex sourceVertex, final int indexOfOutputGate,
 			final ExecutionGroupVertex targetVertex, final int indexOfInputGate, final ChannelType channelType,
-			final boolean userDefinedChannelType, final DistributionPattern distributionPattern) {
+			final boolean userDefinedChannelType, final CompressionCodec compressionCodec,
+			final DistributionPattern distributionPattern) {
 		this.sourceVertex = sourceVertex;
 		this.indexOfOutputGate = indexOfOutputGate;
 		this.channelType = channelType;
 		this.indexOfInputGate = indexOfInputGate;
 		this.userDefinedChannelType = userDefinedChannelType;
+		this.compressionCodec = compressionCodec;
 		this.targetVertex = targetVertex;
 		this.distributionPattern = distributionPattern;
 	}
@@ -121,6 +131,15 @@ public class ExecutionGroupEdge {
 		this.channelType = newChannelType;
 	}
 
+	/**
+	 * Returns the compression codec assigned to this edge.
+	 * 
+	 * @return the compression codec assigned to this edge
+	 */
+	public CompressionCodec getCompressionCodec() {
+		return this.compressionCodec;
+	}
+
 	/**
 	 * Returns the group vertex connected to this edge.
 	 * 
@@ -22,6 +22,7 @@ import eu.stratosphere.nephele.instance.InstanceType;
 import eu.stratosphere.nephele.jobgraph.JobVertexID;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.runtime.io.channels.ChannelType;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.jobgraph.DistributionPattern;
 
 import java.util.ArrayList;
@@ -376,19 +377,15 @@ public final class ExecutionGroupVertex {
 	 *        the channel type to be used for this edge
 	 * @param userDefinedChannelType
 	 *        <code>true</code> if the channel type is user defined, <code>false</code> otherwise
-	 * @param compressionLevel
-	 *        the compression level to be used for this edge
-	 * @param userDefinedCompressionLevel
-	 *        <code>true</code> if the compression level is user defined, <code>false</code> otherwise
+	 * @param compressionCodec
+	 *        the compression codec to be used for this edge
 	 * @param distributionPattern
 	 *        the distribution pattern to create the wiring between the group members
-	 * @param isBroadcast
-	 *        indicates that the edge is part of broadcast group
 	 * @return the created edge.
 	 */
 	ExecutionGroupEdge wireTo(final ExecutionGroupVertex groupVertex, final int indexOfInputGate,
 			final int indexOfOutputGate, final ChannelType channelType, final boolean userDefinedChannelType,
-			final DistributionPattern distributionPattern) throws GraphConversionException {
+			final CompressionCodec compressionCodec, final DistributionPattern distributionPattern) throws GraphConversionException {
 
 		try {
 			final ExecutionGroupEdge previousEdge = this.forwardLinks.get(indexOfOutputGate);
@@ -401,7 +398,7 @@ public final class ExecutionGroupVertex {
 		}
 
 		final ExecutionGroupEdge edge = new ExecutionGroupEdge(this, indexOfOutputGate, groupVertex, indexOfInputGate,
-			channelType, userDefinedChannelType, distributionPattern);
+			channelType, userDefinedChannelType, compressionCodec, distributionPattern);
 
 		this.forwardLinks.add(edge);
 
@@ -14,6 +14,7 @@
 package eu.stratosphere.nephele.executiongraph;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -36,6 +37,12 @@ import eu.stratosphere.nephele.execution.ExecutionState;
 import eu.stratosphere.nephele.execution.ExecutionStateTransition;
 import eu.stratosphere.nephele.instance.AllocatedResource;
 import eu.stratosphere.nephele.instance.AllocationID;
+import eu.stratosphere.nephele.instance.AbstractInstance;
+import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
+import eu.stratosphere.runtime.io.channels.ChannelID;
+import eu.stratosphere.runtime.io.channels.ChannelType;
+import eu.stratosphere.runtime.io.network.ConnectionInfoLookupResponse;
+import eu.stratosphere.runtime.io.network.RemoteReceiver;
 import eu.stratosphere.runtime.io.gates.GateID;
 import eu.stratosphere.nephele.taskmanager.AbstractTaskResult;
 import eu.stratosphere.nephele.taskmanager.AbstractTaskResult.ReturnCode;
@@ -965,10 +972,12 @@ public final class ExecutionVertex {
 			for (int j = 0; j < numberOfOutputChannels; ++j) {
 
 				final ExecutionEdge ee = eg.getEdge(j);
-				cdd.add(new ChannelDeploymentDescriptor(ee.getOutputChannelID(), ee.getInputChannelID()));
+				final ConnectionInfoLookupResponse receiver = locateConnectedChannel(eg, ee.getInputGate().getVertex(),
+					ee.getInputChannelID(), ee.getConnectionID());
+				cdd.add(new ChannelDeploymentDescriptor(ee.getOutputChannelID(), ee.getInputChannelID(), receiver));
 			}
 
-			ogd.add(new GateDeploymentDescriptor(eg.getGateID(), eg.getChannelType(), cdd));
+			ogd.add(new GateDeploymentDescriptor(eg.getGateID(), eg.getChannelType(), eg.getCompressionCodec(), cdd));
 		}
 
 		final SerializableArrayList<GateDeploymentDescriptor> igd = new SerializableArrayList<GateDeploymentDescriptor>(
@@ -982,10 +991,12 @@ public final class ExecutionVertex {
 			for (int j = 0; j < numberOfInputChannels; ++j) {
 
 				final ExecutionEdge ee = eg.getEdge(j);
-				cdd.add(new ChannelDeploymentDescriptor(ee.getOutputChannelID(), ee.getInputChannelID()));
+				final ConnectionInfoLookupResponse sender = locateConnectedChannel(eg, ee.getOutputGate().getVertex(),
+					ee.getOutputChannelID(), ee.getConnectionID());
+				cdd.add(new ChannelDeploymentDescriptor(ee.getOutputChannelID(), ee.getInputChannelID(), sender));
 			}
 
-			igd.add(new GateDeploymentDescriptor(eg.getGateID(), eg.getChannelType(), cdd));
+			igd.add(new GateDeploymentDescriptor(eg.getGateID(), eg.getChannelType(), eg.getCompressionCodec(), cdd));
 		}
 
 		final TaskDeploymentDescriptor tdd = new TaskDeploymentDescriptor(this.executionGraph.getJobID(),
@@ -996,4 +1007,46 @@ public final class ExecutionVertex {
 
 		return tdd;
 	}
+
+	/**
+	 * Returns the location of the given connected channel of a network gate, if its vertex is already running.
+	 * Shipping it with the deployment descriptor saves the task manager a lookup at the job manager. Receivers, which
+	 * are not running yet, are still resolved by a lookup, because it triggers their deployment.
+	 * 
+	 * @param gate
+	 *        the gate of this vertex
+	 * @param connectedVertex
+	 *        the vertex of the connected channel
+	 * @param connectedChannelID
+	 *        the ID of the connected channel
+	 * @param connectionID
+	 *        the ID of the network connection to use for the channel
+	 * @return the location of the connected channel or <code>null</code> if it is not known yet
+	 */
+	private ConnectionInfoLookupResponse locateConnectedChannel(final ExecutionGate gate,
+			final ExecutionVertex connectedVertex, final ChannelID connectedChannelID, final int connectionID) {
+
+		if (gate.getChannelType() != ChannelType.NETWORK) {
+			return null;
+		}
+
+		final ExecutionState connectedState = connectedVertex.getExecutionState();
+		if (connectedState != ExecutionState.RUNNING && connectedState != ExecutionState.FINISHING) {
+			return null;
+		}
+
+		final AbstractInstance connectedInstance = connectedVertex.getAllocatedResource().getInstance();
+		final AbstractInstance instance = getAllocatedResource().getInstance();
+		if (connectedInstance == null || instance == null) {
+			return null;
+		}
+
+		final InstanceConnectionInfo ici = connectedInstance.getInstanceConnectionInfo();
+		if (ici.equals(instance.getInstanceConnectionInfo())) {
+			return ConnectionInfoLookupResponse.createReceiverFoundAndReady(connectedChannelID);
+		}
+
+		final InetSocketAddress isa = new InetSocketAddress(ici.address(), ici.dataPort());
+		return ConnectionInfoLookupResponse.createReceiverFoundAndReady(new RemoteReceiver(isa, connectionID));
+	}
 }
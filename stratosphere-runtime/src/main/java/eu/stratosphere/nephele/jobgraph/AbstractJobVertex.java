@@ -24,6 +24,7 @@ import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.core.io.StringRecord;
 import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
 import eu.stratosphere.runtime.io.channels.ChannelType;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.nephele.util.EnumUtils;
 import eu.stratosphere.util.StringUtils;
@@ -150,8 +151,6 @@ public abstract class AbstractJobVertex implements IOReadableWritable {
 	 *        the vertex this vertex should connect to
 	 * @param channelType
 	 *        the channel type the two vertices should be connected by at runtime
-	 * @param compressionLevel
-	 *        the compression level the corresponding channel should have at runtime
 	 * @throws JobGraphDefinitionException
 	 *         thrown if the given vertex cannot be connected to <code>vertex</code> in the requested manner
 	 */
@@ -166,8 +165,6 @@ public abstract class AbstractJobVertex implements IOReadableWritable {
 	 *        the vertex this vertex should connect to
 	 * @param channelType
 	 *        the channel type the two vertices should be connected by at runtime
-	 * @param compressionLevel
-	 *        the compression level the corresponding channel should have at runtime
 	 * @throws JobGraphDefinitionException
 	 *         thrown if the given vertex cannot be connected to <code>vertex</code> in the requested manner
 	 */
@@ -184,8 +181,6 @@ public abstract class AbstractJobVertex implements IOReadableWritable {
 	 *        the vertex this vertex should connect to
 	 * @param channelType
 	 *        the channel type the two vertices should be connected by at runtime
-	 * @param compressionLevel
-	 *        the compression level the corresponding channel should have at runtime
 	 * @param indexOfOutputGate
 	 *        index of the producing task's output gate to be used, <code>-1</code> will determine the next free index
 	 *        number
@@ -198,6 +193,53 @@ public abstract class AbstractJobVertex implements IOReadableWritable {
 	public void connectTo(final AbstractJobVertex vertex, final ChannelType channelType, int indexOfOutputGate, int indexOfInputGate,
 			DistributionPattern distributionPattern)
 			throws JobGraphDefinitionException {
+		this.connectTo(vertex, channelType, CompressionCodec.NONE, indexOfOutputGate, indexOfInputGate, distributionPattern);
+	}
+
+	/**
+	 * Connects the job vertex to the specified job vertex.
+	 * 
+	 * @param vertex
+	 *        the vertex this vertex should connect to
+	 * @param channelType
+	 *        the channel type the two vertices should be connected by at runtime
+	 * @param compressionCodec
+	 *        the codec the corresponding channel should compress its network buffers with at runtime
+	 * @param distributionPattern
+	 *        the distribution pattern between the subtasks of the two vertices
+	 * @throws JobGraphDefinitionException
+	 *         thrown if the given vertex cannot be connected to <code>vertex</code> in the requested manner
+	 */
+	public void connectTo(final AbstractJobVertex vertex, final ChannelType channelType,
+			final CompressionCodec compressionCodec, final DistributionPattern distributionPattern)
+			throws JobGraphDefinitionException {
+		this.connectTo(vertex, channelType, compressionCodec, -1, -1, distributionPattern);
+	}
+
+	/**
+	 * Connects the job vertex to the specified job vertex.
+	 * 
+	 * @param vertex
+	 *        the vertex this vertex should connect to
+	 * @param channelType
+	 *        the channel type the two vertices should be connected by at runtime
+	 * @param compressionCodec
+	 *        the codec the corresponding channel should compress its network buffers with at runtime
+	 * @param indexOfOutputGate
+	 *        index of the producing task's output gate to be used, <code>-1</code> will determine the next free index
+	 *        number
+	 * @param indexOfInputGate
+	 *        index of the consuming task's input gate to be used, <code>-1</code> will determine the next free index
+	 *        number
+	 * @param distributionPattern
+	 *        the distribution pattern between the subtasks of the two vertices
+	 * @throws JobGraphDefinitionException
+	 *         thrown if the given vertex cannot be connected to <code>vertex</code> in the requested manner
+	 */
+	public void connectTo(final AbstractJobVertex vertex, final ChannelType channelType,
+			final CompressionCodec compressionCodec, int indexOfOutputGate, int indexOfInputGate,
+			DistributionPattern distributionPattern)
+			throws JobGraphDefinitionException {
 
 		if (vertex == null) {
 			throw new JobGraphDefinitionException("Target vertex is null!");
@@ -227,9 +269,9 @@ public abstract class AbstractJobVertex implements IOReadableWritable {
 		}
 
 		// Add new edge
-		this.forwardEdges.set(indexOfOutputGate, new JobEdge(vertex, channelType, indexOfInputGate,
+		this.forwardEdges.set(indexOfOutputGate, new JobEdge(vertex, channelType, compressionCodec, indexOfInputGate,
 			distributionPattern));
-		vertex.connectBacklink(this, channelType, indexOfOutputGate, indexOfInputGate,
+		vertex.connectBacklink(this, channelType, compressionCodec, indexOfOutputGate, indexOfInputGate,
 			distributionPattern);
 	}
 
@@ -274,15 +316,15 @@ public abstract class AbstractJobVertex implements IOReadableWritable {
 	 *        the job vertex to connect to
 	 * @param channelType
 	 *        the channel type the two vertices should be connected by at runtime
-	 * @param compressionLevel
-	 *        the compression level the corresponding channel should have at runtime
+	 * @param compressionCodec
+	 *        the codec the corresponding channel should compress its network buffers with at runtime
 	 * @param indexOfOutputGate
 	 *        index of the producing task's output gate to be used
 	 * @param indexOfInputGate
 	 *        index of the consuming task's input gate to be used
 	 */
 	private void connectBacklink(final AbstractJobVertex vertex, final ChannelType channelType,
-			final int indexOfOutputGate, final int indexOfInputGate,
+			final CompressionCodec compressionCodec, final int indexOfOutputGate, final int indexOfInputGate,
 			DistributionPattern distributionPattern) {
 
 		// Make sure the array is big enough
@@ -290,7 +332,7 @@ public abstract class AbstractJobVertex implements IOReadableWritable {
 			this.backwardEdges.add(null);
 		}
 
-		this.backwardEdges.set(indexOfInputGate, new JobEdge(vertex, channelType, indexOfOutputGate,
+		this.backwardEdges.set(indexOfInputGate, new JobEdge(vertex, channelType, compressionCodec, indexOfOutputGate,
 			distributionPattern));
 	}
 
@@ -455,11 +497,12 @@ public abstract class AbstractJobVertex implements IOReadableWritable {
 				}
 
 				final ChannelType channelType = EnumUtils.readEnum(in, ChannelType.class);
+				final CompressionCodec compressionCodec = EnumUtils.readEnum(in, CompressionCodec.class);
 				final DistributionPattern distributionPattern = EnumUtils.readEnum(in, DistributionPattern.class);
 				final int indexOfInputGate = in.readInt();
 
 				try {
-					this.connectTo(jv, channelType, i, indexOfInputGate, distributionPattern);
+					this.connectTo(jv, channelType, compressionCodec, i, indexOfInputGate, distributionPattern);
 				} catch (JobGraphDefinitionException e) {
 					throw new IOException(StringUtils.stringifyException(e));
 				}
@@ -525,6 +568,7 @@ public abstract class AbstractJobVertex implements IOReadableWritable {
 				out.writeBoolean(true);
 				edge.getConnectedVertex().getID().write(out);
 				EnumUtils.writeEnum(out, edge.getChannelType());
+				EnumUtils.writeEnum(out, edge.getCompressionCodec());
 				EnumUtils.writeEnum(out, edge.getDistributionPattern());
 				out.writeInt(edge.getIndexOfInputGate());
 			}
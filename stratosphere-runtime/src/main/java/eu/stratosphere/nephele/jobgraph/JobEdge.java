@@ -14,10 +14,11 @@
 package eu.stratosphere.nephele.jobgraph;
 
 import eu.stratosphere.runtime.io.channels.ChannelType;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 
 /**
  * Objects of this class represent edges in the user's job graph.
- * The edges can be annotated by a specific channel and compression level.
+ * The edges can be annotated by a specific channel type and compression codec.
  * 
  */
 public class JobEdge {
@@ -27,6 +28,11 @@ public class JobEdge {
 	 */
 	private final ChannelType channelType;
 
+	/**
+	 * The codec with which the resulting channel compresses the buffers it ships over the network.
+	 */
+	private final CompressionCodec compressionCodec;
+
 	/**
 	 * The vertex connected to this edge.
 	 */
@@ -49,15 +55,32 @@ public class JobEdge {
 	 *        the vertex this edge should connect to
 	 * @param channelType
 	 *        the channel type this edge should be translated to at runtime
-	 * @param compressionLevel
-	 *        the compression level the corresponding channel should have at runtime
 	 * @param indexOfInputGate
 	 *        index of the consuming task's input gate that this edge connects to
 	 */
 	public JobEdge(final AbstractJobVertex connectedVertex, final ChannelType channelType,
 			final int indexOfInputGate, final DistributionPattern distributionPattern) {
+		this(connectedVertex, channelType, CompressionCodec.NONE, indexOfInputGate, distributionPattern);
+	}
+
+	/**
+	 * Constructs a new job edge.
+	 * 
+	 * @param connectedVertex
+	 *        the vertex this edge should connect to
+	 * @param channelType
+	 *        the channel type this edge should be translated to at runtime
+	 * @param compressionCodec
+	 *        the codec the corresponding channel should compress its network buffers with at runtime
+	 * @param indexOfInputGate
+	 *        index of the consuming task's input gate that this edge connects to
+	 */
+	public JobEdge(final AbstractJobVertex connectedVertex, final ChannelType channelType,
+			final CompressionCodec compressionCodec, final int indexOfInputGate,
+			final DistributionPattern distributionPattern) {
 		this.connectedVertex = connectedVertex;
 		this.channelType = channelType;
+		this.compressionCodec = compressionCodec;
 		this.indexOfInputGate = indexOfInputGate;
 		this.distributionPattern = distributionPattern;
 	}
@@ -71,6 +94,15 @@ public class JobEdge {
 		return this.channelType;
 	}
 
+	/**
+	 * Returns the compression codec assigned to this edge.
+	 * 
+	 * @return the compression codec assigned to this edge
+	 */
+	public CompressionCodec getCompressionCodec() {
+		return this.compressionCodec;
+	}
+
 	/**
 	 * Returns the vertex this edge is connected to.
 	 * 
@@ -20,6 +20,7 @@ import java.io.InputStream;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -739,6 +740,71 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 			return ConnectionInfoLookupResponse.createJobIsAborting();
 		}
 
+		final List<ExecutionVertex> verticesToBeDeployed = new ArrayList<ExecutionVertex>(1);
+		final ConnectionInfoLookupResponse response = lookupConnectionInfo(caller, eg, sourceChannelID,
+			verticesToBeDeployed);
+
+		deployReceivers(eg, verticesToBeDeployed);
+
+		return response;
+	}
+
+	@Override
+	public List<ConnectionInfoLookupResponse> lookupConnectionInfos(InstanceConnectionInfo caller, JobID jobID,
+			List<ChannelID> sourceChannelIDs) {
+
+		final List<ConnectionInfoLookupResponse> responses = new SerializableArrayList<ConnectionInfoLookupResponse>(
+			sourceChannelIDs.size());
+
+		final ExecutionGraph eg = this.scheduler.getExecutionGraphByID(jobID);
+		if (eg == null) {
+			LOG.error("Cannot find execution graph to job ID " + jobID);
+			for (int i = 0; i < sourceChannelIDs.size(); i++) {
+				responses.add(ConnectionInfoLookupResponse.createReceiverNotFound());
+			}
+			return responses;
+		}
+
+		final InternalJobStatus jobStatus = eg.getJobStatus();
+		if (jobStatus == InternalJobStatus.FAILING || jobStatus == InternalJobStatus.CANCELING) {
+			for (int i = 0; i < sourceChannelIDs.size(); i++) {
+				responses.add(ConnectionInfoLookupResponse.createJobIsAborting());
+			}
+			return responses;
+		}
+
+		// the receivers which are not running yet are deployed together, grouped by their instances
+		final List<ExecutionVertex> verticesToBeDeployed = new ArrayList<ExecutionVertex>();
+		for (ChannelID sourceChannelID : sourceChannelIDs) {
+			responses.add(lookupConnectionInfo(caller, eg, sourceChannelID, verticesToBeDeployed));
+		}
+
+		deployReceivers(eg, verticesToBeDeployed);
+
+		return responses;
+	}
+
+	private void deployReceivers(final ExecutionGraph eg, final List<ExecutionVertex> verticesToBeDeployed) {
+		if (verticesToBeDeployed.isEmpty()) {
+			return;
+		}
+
+		final Runnable command = new Runnable() {
+			@Override
+			public void run() {
+				scheduler.deployAssignedVertices(verticesToBeDeployed);
+			}
+		};
+		eg.executeCommand(command);
+	}
+
+	/**
+	 * Resolves the receiver of the given channel. Receivers, which are assigned to an instance but not deployed yet,
+	 * are added to the given list in order to be deployed by the caller.
+	 */
+	private ConnectionInfoLookupResponse lookupConnectionInfo(InstanceConnectionInfo caller, ExecutionGraph eg,
+			ChannelID sourceChannelID, List<ExecutionVertex> verticesToBeDeployed) {
+
 		final ExecutionEdge edge = eg.getEdgeByID(sourceChannelID);
 		if (edge == null) {
 			LOG.error("Cannot find execution edge associated with ID " + sourceChannelID);
@@ -791,14 +857,9 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 		// check whether the task needs to be deployed
 		if (executionState != ExecutionState.RUNNING && executionState != ExecutionState.FINISHING && executionState != ExecutionState.FINISHED) {
 
+			// the scheduler skips vertices, which have been added more than once
 			if (executionState == ExecutionState.ASSIGNED) {
-				final Runnable command = new Runnable() {
-					@Override
-					public void run() {
-						scheduler.deployAssignedVertices(targetVertex);
-					}
-				};
-				eg.executeCommand(command);
+				verticesToBeDeployed.add(targetVertex);
 			}
 
 			// LOG.info("Created receiverNotReady for " + targetVertex + " in state " + executionState + " 3");
@@ -1142,8 +1203,8 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 
 
 	@Override
-	public InputSplitWrapper requestNextInputSplit(final JobID jobID, final ExecutionVertexID vertexID,
-			final IntegerRecord sequenceNumber) throws IOException {
+	public InputSplitWrapper requestNextInputSplits(final JobID jobID, final ExecutionVertexID vertexID,
+			final IntegerRecord sequenceNumber, final IntegerRecord maxNumberOfSplits) throws IOException {
 
 		final ExecutionGraph graph = this.scheduler.getExecutionGraphByID(jobID);
 		if (graph == null) {
@@ -1157,7 +1218,8 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 			return null;
 		}
 
-		return new InputSplitWrapper(jobID, this.inputSplitManager.getNextInputSplit(vertex, sequenceNumber.getValue()));
+		return new InputSplitWrapper(jobID, this.inputSplitManager.getNextInputSplits(vertex, sequenceNumber.getValue(),
+			maxNumberOfSplits.getValue()));
 	}
 	
 	/**
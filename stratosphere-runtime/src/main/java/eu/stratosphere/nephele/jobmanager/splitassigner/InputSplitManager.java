@@ -13,8 +13,10 @@
 
 package eu.stratosphere.nephele.jobmanager.splitassigner;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -57,6 +59,11 @@ public final class InputSplitManager {
 	 */
 	private static final String INPUT_SPLIT_CONFIG_KEY_PREFIX = "inputsplit.assigner.";
 
+	/**
+	 * The inverse of the maximum fraction of a vertex's average share of the splits that is assigned in one batch.
+	 */
+	private static final int MAX_BATCH_FRACTION = 4;
+
 	/**
 	 * A cache which stores the mapping of group vertices to assigner objects for fast retrieval during the job
 	 * execution.
@@ -160,6 +167,40 @@ public final class InputSplitManager {
 		this.inputSplitTracker.unregisterJob(executionGraph);
 	}
 
+	/**
+	 * Returns a batch of input splits the input split manager has chosen for the given vertex to consume. The splits
+	 * are logged under consecutive sequence numbers, starting with the given one. To keep the splits balanced among
+	 * the vertices of a group, a batch contains at most a fraction of the splits that a vertex consumes on average.
+	 * 
+	 * @param vertex
+	 *        the vertex for which the next input splits are to be determined
+	 * @param sequenceNumber
+	 *        the sequence number of the first split in the batch
+	 * @param maxNumberOfSplits
+	 *        the maximum number of splits the vertex requests
+	 * @return the next input splits to consume, an empty list if the vertex shall consume no more input splits
+	 */
+	public List<InputSplit> getNextInputSplits(final ExecutionVertex vertex, final int sequenceNumber,
+			final int maxNumberOfSplits) {
+
+		final ExecutionGroupVertex groupVertex = vertex.getGroupVertex();
+		final InputSplit[] inputSplits = groupVertex.getInputSplits();
+		final int numSplitsPerVertex = inputSplits == null ? 0 :
+			inputSplits.length / Math.max(1, groupVertex.getCurrentNumberOfGroupMembers());
+		final int batchSize = Math.max(1, Math.min(maxNumberOfSplits, numSplitsPerVertex / MAX_BATCH_FRACTION));
+
+		final List<InputSplit> batch = new ArrayList<InputSplit>(batchSize);
+		for (int i = 0; i < batchSize; i++) {
+			final InputSplit nextInputSplit = getNextInputSplit(vertex, sequenceNumber + i);
+			if (nextInputSplit == null) {
+				break;
+			}
+			batch.add(nextInputSplit);
+		}
+
+		return batch;
+	}
+
 	/**
 	 * Returns the next input split the input split manager (or the responsible {@link InputSplitAssigner} to be more
 	 * precise) has chosen for the given vertex to consume.
@@ -16,6 +16,9 @@ package eu.stratosphere.nephele.jobmanager.splitassigner;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.core.io.InputSplit;
@@ -25,8 +28,8 @@ import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.util.StringUtils;
 
 /**
- * An input split wrapper object wraps an input split for RPC calls. In particular, the input split wrapper ensures that
- * the right class loader is used to instantiate the wrapped input split object.
+ * An input split wrapper object wraps one or more input splits for RPC calls. In particular, the input split wrapper
+ * ensures that the right class loader is used to instantiate the wrapped input split objects.
  * 
  */
 public final class InputSplitWrapper implements IOReadableWritable {
@@ -37,9 +40,9 @@ public final class InputSplitWrapper implements IOReadableWritable {
 	private JobID jobID;
 
 	/**
-	 * The wrapped input split.
+	 * The wrapped input splits.
 	 */
-	private InputSplit inputSplit = null;
+	private List<InputSplit> inputSplits;
 
 	/**
 	 * Constructs a new input split wrapper.
@@ -56,7 +59,28 @@ public final class InputSplitWrapper implements IOReadableWritable {
 		}
 
 		this.jobID = jobID;
-		this.inputSplit = inputSplit;
+		this.inputSplits = inputSplit == null ? Collections.<InputSplit>emptyList() : Collections.singletonList(inputSplit);
+	}
+
+	/**
+	 * Constructs a new input split wrapper for a batch of input splits.
+	 * 
+	 * @param jobID
+	 *        the ID of the job the input splits belong to
+	 * @param inputSplits
+	 *        the input splits to be wrapped
+	 */
+	public InputSplitWrapper(final JobID jobID, final List<InputSplit> inputSplits) {
+
+		if (jobID == null) {
+			throw new IllegalArgumentException("Argument jobID must not be null");
+		}
+		if (inputSplits == null) {
+			throw new IllegalArgumentException("Argument inputSplits must not be null");
+		}
+
+		this.jobID = jobID;
+		this.inputSplits = inputSplits;
 	}
 
 	/**
@@ -64,6 +88,7 @@ public final class InputSplitWrapper implements IOReadableWritable {
 	 */
 	public InputSplitWrapper() {
 		this.jobID = new JobID();
+		this.inputSplits = Collections.emptyList();
 	}
 
 
@@ -73,17 +98,14 @@ public final class InputSplitWrapper implements IOReadableWritable {
 		// Write the job ID
 		this.jobID.write(out);
 
-		if (this.inputSplit == null) {
-			out.writeBoolean(false);
-		} else {
-
-			out.writeBoolean(true);
+		out.writeInt(this.inputSplits.size());
+		for (InputSplit inputSplit : this.inputSplits) {
 
 			// Write the name of the class
-			StringRecord.writeString(out, this.inputSplit.getClass().getName());
+			StringRecord.writeString(out, inputSplit.getClass().getName());
 
 			// Write out the input split itself
-			this.inputSplit.write(out);
+			inputSplit.write(out);
 		}
 	}
 
@@ -95,13 +117,20 @@ public final class InputSplitWrapper implements IOReadableWritable {
 		// Read the job ID
 		this.jobID.read(in);
 
-		if (in.readBoolean()) {
+		final int numInputSplits = in.readInt();
+		if (numInputSplits == 0) {
+			this.inputSplits = Collections.emptyList();
+			return;
+		}
+
+		// Find class loader for this job
+		final ClassLoader cl = LibraryCacheManager.getClassLoader(this.jobID);
+		if (cl == null) {
+			throw new IOException("Cannot find class loader for job " + this.jobID);
+		}
 
-			// Find class loader for this job
-			final ClassLoader cl = LibraryCacheManager.getClassLoader(this.jobID);
-			if (cl == null) {
-				throw new IOException("Cannot find class loader for job " + this.jobID);
-			}
+		this.inputSplits = new ArrayList<InputSplit>(numInputSplits);
+		for (int i = 0; i < numInputSplits; i++) {
 
 			// Read the name of the class
 			final String className = StringRecord.readString(in);
@@ -114,8 +143,9 @@ public final class InputSplitWrapper implements IOReadableWritable {
 				throw new IOException(StringUtils.stringifyException(e));
 			}
 
+			final InputSplit inputSplit;
 			try {
-				this.inputSplit = splitClass.newInstance();
+				inputSplit = splitClass.newInstance();
 			} catch (InstantiationException e) {
 				throw new IOException(StringUtils.stringifyException(e));
 			} catch (IllegalAccessException e) {
@@ -123,9 +153,8 @@ public final class InputSplitWrapper implements IOReadableWritable {
 			}
 
 			// Read the input split itself
-			this.inputSplit.read(in);
-		} else {
-			this.inputSplit = null;
+			inputSplit.read(in);
+			this.inputSplits.add(inputSplit);
 		}
 	}
 
@@ -137,6 +166,17 @@ public final class InputSplitWrapper implements IOReadableWritable {
 	 */
 	public InputSplit getInputSplit() {
 
-		return this.inputSplit;
+		return this.inputSplits.isEmpty() ? null : this.inputSplits.get(0);
+	}
+
+	/**
+	 * Returns the wrapped input splits. The list is empty in case no more input splits shall be consumed by the
+	 * requesting task.
+	 * 
+	 * @return the wrapped input splits
+	 */
+	public List<InputSplit> getInputSplits() {
+
+		return this.inputSplits;
 	}
 }
@@ -29,19 +29,22 @@ import eu.stratosphere.nephele.types.IntegerRecord;
 public interface InputSplitProviderProtocol extends VersionedProtocol {
 
 	/**
-	 * Requests the next split to be consumed by the task with the given execution vertex ID.
+	 * Requests the next splits to be consumed by the task with the given execution vertex ID. The job manager may
+	 * return fewer splits than requested, in order to balance the splits among the tasks.
 	 * 
 	 * @param jobID
-	 *        the ID of the job the task to retrieve the next input split for belongs to
+	 *        the ID of the job the task to retrieve the next input splits for belongs to
 	 * @param vertexID
-	 *        the ID of the task to retrieve the next input split for
+	 *        the ID of the task to retrieve the next input splits for
 	 * @param sequenceNumber
-	 *        a sequence number, starting at 0 and increased by the task on each request
-	 * @return a wrapper containing the next input split. The wrapped input split may also be <code>null</code> in case
-	 *         no more input splits shall be consumed by the task with the given execution vertex ID
+	 *        a sequence number, starting at 0 and increased by the task by the number of splits it received
+	 * @param maxNumberOfSplits
+	 *        the maximum number of splits to return
+	 * @return a wrapper containing the next input splits. The wrapper contains no input splits in case no more input
+	 *         splits shall be consumed by the task with the given execution vertex ID
 	 * @throws IOException
-	 *         thrown if an I/O error occurs while retrieving the new input split
+	 *         thrown if an I/O error occurs while retrieving the new input splits
 	 */
-	InputSplitWrapper requestNextInputSplit(JobID jobID, ExecutionVertexID vertexID, IntegerRecord sequenceNumber)
-			throws IOException;
+	InputSplitWrapper requestNextInputSplits(JobID jobID, ExecutionVertexID vertexID, IntegerRecord sequenceNumber,
+			IntegerRecord maxNumberOfSplits) throws IOException;
 }
@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 
 
 /**
@@ -59,6 +60,11 @@ public abstract class BlockChannelAccess<R extends IORequest, C extends Collecti
 	 * Flag marking this channel as closed;
 	 */
 	protected volatile boolean closed;
+	
+	/**
+	 * The compression of the blocks, or null, if the blocks are written verbatim.
+	 */
+	protected final BlockCompression compression;
 
 	// --------------------------------------------------------------------------------------------
 	
@@ -77,6 +83,27 @@ public abstract class BlockChannelAccess<R extends IORequest, C extends Collecti
 	protected BlockChannelAccess(Channel.ID channelID, RequestQueue<R> requestQueue,
 			C returnQueue, boolean writeEnabled)
 	throws IOException
+	{
+		this(channelID, requestQueue, returnQueue, writeEnabled, CompressionCodec.NONE);
+	}
+	
+	/**
+	 * Creates a new channel access to the path indicated by the given ID. The channel accepts buffers to be
+	 * read/written and hands them to the asynchronous I/O thread. After being processed, the buffers 
+	 * are returned by adding the to the given queue. The blocks are compressed with the given codec.
+	 * 
+	 * @param channelID The id describing the path of the file that the channel accessed.
+	 * @param requestQueue The queue that this channel hands its IO requests to.
+	 * @param returnQueue The queue to which the segments are added after their buffer was written.
+	 * @param writeEnabled Flag describing whether the channel should be opened in read/write mode, rather
+	 *                     than in read-only mode.
+	 * @param codec The codec to compress the blocks with. With {@link CompressionCodec#NONE}, the blocks are
+	 *              written verbatim.
+	 * @throws IOException Thrown, if the channel could no be opened.
+	 */
+	protected BlockChannelAccess(Channel.ID channelID, RequestQueue<R> requestQueue,
+			C returnQueue, boolean writeEnabled, CompressionCodec codec)
+	throws IOException
 	{
 		super(channelID, requestQueue, writeEnabled);
 		
@@ -85,6 +112,7 @@ public abstract class BlockChannelAccess<R extends IORequest, C extends Collecti
 		}
 		
 		this.returnBuffers = returnQueue;
+		this.compression = codec == null || codec == CompressionCodec.NONE ? null : new BlockCompression(codec);
 	}
 	
 	// --------------------------------------------------------------------------------------------
@@ -100,6 +128,17 @@ public abstract class BlockChannelAccess<R extends IORequest, C extends Collecti
 	}
 	
 
+	/**
+	 * Checks whether the blocks of this channel are compressed. Compressed channels can only be read
+	 * sequentially, by a channel that uses the same codec.
+	 * 
+	 * @return True, if the blocks are compressed, false otherwise.
+	 */
+	public boolean isCompressed()
+	{
+		return this.compression != null;
+	}
+
 	@Override
 	public boolean isClosed()
 	{
@@ -211,8 +250,12 @@ final class SegmentReadRequest implements ReadRequest
 		final FileChannel c = this.channel.fileChannel;
 		if (c.size() - c.position() > 0) {
 			try {
-				final ByteBuffer wrapper = this.segment.wrap(0, this.segment.size());
-				this.channel.fileChannel.read(wrapper);
+				if (this.channel.compression != null) {
+					this.channel.compression.readBlock(c, this.segment);
+				} else {
+					final ByteBuffer wrapper = this.segment.wrap(0, this.segment.size());
+					this.channel.fileChannel.read(wrapper);
+				}
 			} catch (NullPointerException npex) {
 				// the memory has been cleared asynchronouosly through task failing or canceling
 				// ignore the request, since the result cannot be read
@@ -250,7 +293,11 @@ final class SegmentWriteRequest implements WriteRequest
 	public void write() throws IOException
 	{
 		try {
-			this.channel.fileChannel.write(this.segment.wrap(0, this.segment.size()));
+			if (this.channel.compression != null) {
+				this.channel.compression.writeBlock(this.channel.fileChannel, this.segment);
+			} else {
+				this.channel.fileChannel.write(this.segment.wrap(0, this.segment.size()));
+			}
 		} catch (NullPointerException npex) {
 			// the memory has been cleared asynchronouosly through task failing or canceling
 			// ignore the request, since there is nothing to write.
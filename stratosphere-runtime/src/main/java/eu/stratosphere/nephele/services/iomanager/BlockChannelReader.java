@@ -18,6 +18,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 
 
 /**
@@ -52,7 +53,24 @@ public class BlockChannelReader extends BlockChannelAccess<ReadRequest, LinkedBl
 	throws IOException
 	{
 		super(channelID, requestQueue, returnSegments, false);
-	}	
+	}
+	
+	/**
+	 * Creates a new block channel reader for the given channel that decompresses the blocks with the given codec.
+	 *  
+	 * @param channelID The ID of the channel to read.
+	 * @param requestQueue The request queue of the asynchronous reader thread, to which the I/O requests
+	 *                     are added.
+	 * @param returnSegments The return queue, to which the full Memory Segments are added.
+	 * @param codec The codec with which the blocks were compressed.
+	 * @throws IOException Thrown, if the underlying file channel could not be opened.
+	 */
+	protected BlockChannelReader(Channel.ID channelID, RequestQueue<ReadRequest> requestQueue,
+			LinkedBlockingQueue<MemorySegment> returnSegments, int numRequestsToBundle, CompressionCodec codec)
+	throws IOException
+	{
+		super(channelID, requestQueue, returnSegments, false, codec);
+	}
 
 	/**
 	 * Issues a read request, which will asynchronously fill the given segment with the next block in the
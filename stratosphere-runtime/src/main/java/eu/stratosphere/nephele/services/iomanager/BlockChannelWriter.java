@@ -19,6 +19,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 
 
 /**
@@ -53,6 +54,23 @@ public class BlockChannelWriter extends BlockChannelAccess<WriteRequest, LinkedB
 	{
 		super(channelID, requestQueue, returnSegments, true);
 	}
+	
+	/**
+	 * Creates a new block channel writer for the given channel that compresses the blocks with the given codec.
+	 *  
+	 * @param channelID The ID of the channel to write to.
+	 * @param requestQueue The request queue of the asynchronous writer thread, to which the I/O requests
+	 *                     are added.
+	 * @param returnSegments The return queue, to which the processed Memory Segments are added.
+	 * @param codec The codec to compress the blocks with.
+	 * @throws IOException Thrown, if the underlying file channel could not be opened exclusively.
+	 */
+	protected BlockChannelWriter(Channel.ID channelID, RequestQueue<WriteRequest> requestQueue,
+			LinkedBlockingQueue<MemorySegment> returnSegments, int numRequestsToBundle, CompressionCodec codec)
+	throws IOException
+	{
+		super(channelID, requestQueue, returnSegments, true, codec);
+	}
 
 	/**
 	 * Issues a asynchronous write request to the writer.
@@ -0,0 +1,166 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.iomanager;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.runtime.io.compression.BlockCompressor;
+import eu.stratosphere.runtime.io.compression.BlockDecompressor;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
+
+/**
+ * Compresses the blocks of a block channel on their way to the file, and decompresses them on their way back.
+ * Each block is stored with a header that holds its stored length and its uncompressed length. Blocks that do
+ * not become smaller by the compression are stored as they are.
+ * <p>
+ * Because compressed blocks have a variable length, a compressed channel can only be read sequentially, from its
+ * beginning. The compression keeps scratch space and is used only by the I/O thread that serves the requests of
+ * its channel.
+ */
+final class BlockCompression
+{
+	/**
+	 * The length of the header in front of each block: the stored length and the uncompressed length.
+	 */
+	static final int HEADER_LENGTH = 8;
+	
+	private final CompressionCodec codec;
+	
+	private final ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+	
+	private BlockCompressor compressor;
+	
+	private BlockDecompressor decompressor;
+	
+	private byte[] uncompressed = new byte[0];
+	
+	private byte[] compressed = new byte[0];
+	
+	
+	BlockCompression(CompressionCodec codec)
+	{
+		if (codec == null || codec == CompressionCodec.NONE) {
+			throw new IllegalArgumentException("Block compression requires a compressing codec.");
+		}
+		this.codec = codec;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Compresses the contents of the segment and writes them to the file channel.
+	 * 
+	 * @param channel The file channel to write to.
+	 * @param segment The segment whose contents to write.
+	 * @throws IOException Thrown, if the writing failed.
+	 */
+	void writeBlock(FileChannel channel, MemorySegment segment) throws IOException
+	{
+		if (this.compressor == null) {
+			this.compressor = this.codec.createCompressor();
+		}
+		
+		final int size = segment.size();
+		ensureCapacity(size, this.compressor.getMaxCompressedSize(size));
+		segment.get(0, this.uncompressed, 0, size);
+		
+		final int compressedSize = this.compressor.compress(this.uncompressed, 0, size, this.compressed, 0);
+		final boolean useCompressed = compressedSize < size;
+		final int storedSize = useCompressed ? compressedSize : size;
+		
+		this.header.clear();
+		this.header.putInt(storedSize);
+		this.header.putInt(size);
+		this.header.flip();
+		writeFully(channel, this.header);
+		writeFully(channel, ByteBuffer.wrap(useCompressed ? this.compressed : this.uncompressed, 0, storedSize));
+	}
+	
+	/**
+	 * Reads the next block from the file channel and decompresses it into the segment. If the channel holds no
+	 * further block, the segment is left untouched.
+	 * 
+	 * @param channel The file channel to read from.
+	 * @param segment The segment to read the block into.
+	 * @throws IOException Thrown, if the reading failed or the block is corrupt.
+	 */
+	void readBlock(FileChannel channel, MemorySegment segment) throws IOException
+	{
+		if (channel.size() - channel.position() <= 0) {
+			return;
+		}
+		
+		this.header.clear();
+		readFully(channel, this.header);
+		this.header.flip();
+		final int storedSize = this.header.getInt();
+		final int size = this.header.getInt();
+		
+		if (size > segment.size() || storedSize < 0 || storedSize > size) {
+			throw new IOException("Corrupt compressed block: " + storedSize + " stored bytes for " + size +
+				" bytes in a segment of " + segment.size() + " bytes.");
+		}
+		
+		if (storedSize == size) {
+			readFully(channel, segment.wrap(0, size));
+			return;
+		}
+		
+		if (this.decompressor == null) {
+			this.decompressor = this.codec.createDecompressor();
+		}
+		ensureCapacity(size, storedSize);
+		readFully(channel, ByteBuffer.wrap(this.compressed, 0, storedSize));
+		
+		final int decompressedSize = this.decompressor.decompress(this.compressed, 0, storedSize,
+			this.uncompressed, 0, size);
+		if (decompressedSize != size) {
+			throw new IOException("Corrupt compressed block: decompressed to " + decompressedSize +
+				" bytes instead of " + size + " bytes.");
+		}
+		segment.put(0, this.uncompressed, 0, size);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private void ensureCapacity(int uncompressedSize, int compressedSize)
+	{
+		if (this.uncompressed.length < uncompressedSize) {
+			this.uncompressed = new byte[uncompressedSize];
+		}
+		if (this.compressed.length < compressedSize) {
+			this.compressed = new byte[compressedSize];
+		}
+	}
+	
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+	
+	private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException("The compressed block is truncated.");
+			}
+		}
+	}
+}
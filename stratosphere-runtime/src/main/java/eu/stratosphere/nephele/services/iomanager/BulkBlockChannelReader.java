@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 
 
 /**
@@ -32,7 +33,14 @@ public class BulkBlockChannelReader extends BlockChannelAccess<ReadRequest, Arra
 			List<MemorySegment> sourceSegments, int numBlocks)
 	throws IOException
 	{
-		super(channelID, requestQueue, new ArrayList<MemorySegment>(numBlocks), false);
+		this(channelID, requestQueue, sourceSegments, numBlocks, CompressionCodec.NONE);
+	}
+	
+	protected BulkBlockChannelReader(Channel.ID channelID, RequestQueue<ReadRequest> requestQueue, 
+			List<MemorySegment> sourceSegments, int numBlocks, CompressionCodec codec)
+	throws IOException
+	{
+		super(channelID, requestQueue, new ArrayList<MemorySegment>(numBlocks), false, codec);
 		
 		// sanity check
 		if (sourceSegments.size() < numBlocks) {
@@ -18,11 +18,13 @@ import java.lang.Thread.UncaughtExceptionHandler;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 
 /**
  * The facade for the provided I/O manager services.
@@ -46,15 +48,32 @@ public final class IOManager implements UncaughtExceptionHandler
 	private final Random random;
 
 	/**
-	 * The writer thread used for asynchronous block oriented channel writing.
+	 * The writer threads used for asynchronous block oriented channel writing, grouped by path.
 	 */
 	private final WriterThread[] writers;
 
 	/**
-	 * The reader threads used for asynchronous block oriented channel reading.
+	 * The reader threads used for asynchronous block oriented channel reading, grouped by path.
 	 */
 	private final ReaderThread[] readers;
 	
+	/**
+	 * The number of reader and writer threads per path.
+	 */
+	private final int numThreadsPerPath;
+	
+	/**
+	 * Counters to spread the channel readers and writers across the threads of a path.
+	 */
+	private final AtomicInteger nextWriterThread = new AtomicInteger();
+	
+	private final AtomicInteger nextReaderThread = new AtomicInteger();
+	
+	/**
+	 * The time when the I/O manager was started, to relate the busy time of its threads to.
+	 */
+	private final long startTime;
+	
 	/**
 	 * The number of the next path to use.
 	 */
@@ -64,6 +83,11 @@ public final class IOManager implements UncaughtExceptionHandler
 	 * A boolean flag indicating whether the close() has already been invoked.
 	 */
 	private volatile boolean isClosed = false;
+	
+	/**
+	 * The codec with which the channels for spilled intermediate data are compressed.
+	 */
+	private final CompressionCodec spillCompression;
 
 	
 	// -------------------------------------------------------------------------
@@ -95,12 +119,50 @@ public final class IOManager implements UncaughtExceptionHandler
 	 */
 	public IOManager(String[] paths)
 	{
+		this(paths, CompressionCodec.NONE);
+	}
+	
+	/**
+	 * Constructs a new IOManager that compresses the channels for spilled intermediate data
+	 * with the given codec.
+	 * 
+	 * @param paths The basic directory paths for files underlying anonymous channels.
+	 * @param spillCompression The codec for the channels created through the spilling methods, for example
+	 *                         {@link #createSpillingBlockChannelWriter(Channel.ID, LinkedBlockingQueue)}.
+	 */
+	public IOManager(String[] paths, CompressionCodec spillCompression)
+	{
+		this(paths, spillCompression, 1);
+	}
+	
+	/**
+	 * Constructs a new IOManager that serves every directory with the given number of reader and writer threads.
+	 * Every channel reader and writer is bound to one of the threads of its directory, so its requests are still
+	 * carried out in order, while the requests of different channels are carried out concurrently. Devices that
+	 * only reach their full bandwidth with several outstanding requests, such as SSDs, benefit from more threads.
+	 * 
+	 * @param paths The basic directory paths for files underlying anonymous channels.
+	 * @param spillCompression The codec for the channels created through the spilling methods.
+	 * @param numThreadsPerPath The number of reader threads and of writer threads per directory.
+	 */
+	public IOManager(String[] paths, CompressionCodec spillCompression, int numThreadsPerPath)
+	{
+		if (spillCompression == null) {
+			throw new NullPointerException();
+		}
+		if (numThreadsPerPath < 1) {
+			throw new IllegalArgumentException("The number of I/O threads per path must be at least one.");
+		}
+		
 		this.paths = paths;
+		this.spillCompression = spillCompression;
+		this.numThreadsPerPath = numThreadsPerPath;
 		this.random = new Random();
 		this.nextPath = 0;
+		this.startTime = System.nanoTime();
 		
-		// start a write worker thread for each directory
-		this.writers = new WriterThread[paths.length];
+		// start the write worker threads for each directory
+		this.writers = new WriterThread[paths.length * numThreadsPerPath];
 		for (int i = 0; i < this.writers.length; i++) {
 			final WriterThread t = new WriterThread();
 			this.writers[i] = t;
@@ -110,8 +172,8 @@ public final class IOManager implements UncaughtExceptionHandler
 			t.start();
 		}
 
-		// start a reader worker thread for each directory
-		this.readers = new ReaderThread[paths.length];
+		// start the reader worker threads for each directory
+		this.readers = new ReaderThread[paths.length * numThreadsPerPath];
 		for (int i = 0; i < this.readers.length; i++) {
 			final ReaderThread t = new ReaderThread();
 			this.readers[i] = t;
@@ -131,6 +193,10 @@ public final class IOManager implements UncaughtExceptionHandler
 	{
 		if (!this.isClosed) {
 			this.isClosed = true;
+			
+			if (LOG.isInfoEnabled()) {
+				logStatistics();
+			}
 
 			// close writing and reading threads with best effort and log problems
 			
@@ -248,7 +314,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, returnQueue, 1);
+		return new BlockChannelWriter(channelID, getWriteQueue(channelID), returnQueue, 1);
 	}
 	
 	/**
@@ -278,7 +344,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, returnQueue, numRequestsToCombine);
+		return new BlockChannelWriter(channelID, getWriteQueue(channelID), returnQueue, numRequestsToCombine);
 	}
 	
 	/**
@@ -296,7 +362,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, new LinkedBlockingQueue<MemorySegment>(), 1);
+		return new BlockChannelWriter(channelID, getWriteQueue(channelID), new LinkedBlockingQueue<MemorySegment>(), 1);
 	}
 	
 	/**
@@ -323,7 +389,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, new LinkedBlockingQueue<MemorySegment>(), numRequestsToCombine);
+		return new BlockChannelWriter(channelID, getWriteQueue(channelID), new LinkedBlockingQueue<MemorySegment>(), numRequestsToCombine);
 	}
 	
 	/**
@@ -344,7 +410,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, returnQueue, 1);
+		return new BlockChannelReader(channelID, getReadQueue(channelID), returnQueue, 1);
 	}
 	
 	/**
@@ -374,7 +440,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, returnQueue, numRequestsToCombine);
+		return new BlockChannelReader(channelID, getReadQueue(channelID), returnQueue, numRequestsToCombine);
 	}
 	
 	/**
@@ -393,7 +459,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, new LinkedBlockingQueue<MemorySegment>(), 1);
+		return new BlockChannelReader(channelID, getReadQueue(channelID), new LinkedBlockingQueue<MemorySegment>(), 1);
 	}
 	
 	/**
@@ -421,10 +487,120 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, 
+		return new BlockChannelReader(channelID, getReadQueue(channelID), 
 			new LinkedBlockingQueue<MemorySegment>(), numRequestsToCombine);
 	}
 	
+	/**
+	 * Gets the codec with which the channels for spilled intermediate data are compressed.
+	 * 
+	 * @return The codec for spilled channels.
+	 */
+	public CompressionCodec getSpillCompression()
+	{
+		return this.spillCompression;
+	}
+	
+	/**
+	 * Creates a block channel writer for spilling intermediate data, such as sorted runs or hash table partitions.
+	 * The blocks are compressed with the I/O manager's spill codec, so the channel must be read back with a reader
+	 * created through {@link #createSpillingBlockChannelReader(Channel.ID, LinkedBlockingQueue)} or
+	 * {@link #createSpillingBulkBlockChannelReader(Channel.ID, List, int)}, sequentially from its beginning.
+	 * 
+	 * @param channelID The descriptor for the channel to write to.
+	 * @param returnQueue The queue to put the written buffers into.
+	 * @return A block channel writer that writes to the given channel.
+	 * @throws IOException Thrown, if the channel for the writer could not be opened.
+	 */
+	public BlockChannelWriter createSpillingBlockChannelWriter(Channel.ID channelID,
+								LinkedBlockingQueue<MemorySegment> returnQueue)
+	throws IOException
+	{
+		if (this.isClosed) {
+			throw new IllegalStateException("I/O-Manger is closed.");
+		}
+		
+		return new BlockChannelWriter(channelID, getWriteQueue(channelID), returnQueue, 1,
+			this.spillCompression);
+	}
+	
+	/**
+	 * Creates a block channel writer for spilling intermediate data that returns the written segments to its own
+	 * return queue.
+	 * 
+	 * @param channelID The descriptor for the channel to write to.
+	 * @return A block channel writer that writes to the given channel.
+	 * @throws IOException Thrown, if the channel for the writer could not be opened.
+	 * 
+	 * @see #createSpillingBlockChannelWriter(Channel.ID, LinkedBlockingQueue)
+	 */
+	public BlockChannelWriter createSpillingBlockChannelWriter(Channel.ID channelID)
+	throws IOException
+	{
+		return createSpillingBlockChannelWriter(channelID, new LinkedBlockingQueue<MemorySegment>());
+	}
+	
+	/**
+	 * Creates a block channel reader for a channel written by a spilling writer, decompressing the blocks with
+	 * the I/O manager's spill codec.
+	 * 
+	 * @param channelID The descriptor for the channel to read.
+	 * @param returnQueue The queue to put the full buffers into.
+	 * @return A block channel reader that reads from the given channel.
+	 * @throws IOException Thrown, if the channel for the reader could not be opened.
+	 */
+	public BlockChannelReader createSpillingBlockChannelReader(Channel.ID channelID,
+										LinkedBlockingQueue<MemorySegment> returnQueue)
+	throws IOException
+	{
+		if (this.isClosed) {
+			throw new IllegalStateException("I/O-Manger is closed.");
+		}
+		
+		return new BlockChannelReader(channelID, getReadQueue(channelID), returnQueue, 1,
+			this.spillCompression);
+	}
+	
+	/**
+	 * Creates a block channel reader for a channel written by a spilling writer that returns the full segments
+	 * to its own return queue.
+	 * 
+	 * @param channelID The descriptor for the channel to read.
+	 * @return A block channel reader that reads from the given channel.
+	 * @throws IOException Thrown, if the channel for the reader could not be opened.
+	 * 
+	 * @see #createSpillingBlockChannelReader(Channel.ID, LinkedBlockingQueue)
+	 */
+	public BlockChannelReader createSpillingBlockChannelReader(Channel.ID channelID)
+	throws IOException
+	{
+		return createSpillingBlockChannelReader(channelID, new LinkedBlockingQueue<MemorySegment>());
+	}
+	
+	/**
+	 * Creates a bulk block channel reader for a channel written by a spilling writer, decompressing the blocks
+	 * with the I/O manager's spill codec.
+	 * 
+	 * @param channelID The descriptor for the channel to read.
+	 * @param targetSegments The list to take the segments from into which to read the data.
+	 * @param numBlocks The number of blocks in the channel to read.
+	 * @return A block channel reader that reads from the given channel.
+	 * @throws IOException Thrown, if the channel for the reader could not be opened.
+	 * 
+	 * @see #createBulkBlockChannelReader(Channel.ID, List, int)
+	 */
+	public BulkBlockChannelReader createSpillingBulkBlockChannelReader(Channel.ID channelID,
+			List<MemorySegment> targetSegments,	int numBlocks)
+	throws IOException
+	{
+		if (this.isClosed) {
+			throw new IllegalStateException("I/O-Manger is closed.");
+		}
+		
+		return new BulkBlockChannelReader(channelID, getReadQueue(channelID),
+			targetSegments, numBlocks, this.spillCompression);
+	}
+	
 	/**
 	 * Creates a block channel reader that reads all blocks from the given channel directly in one bulk.
 	 * The reader draws segments to read the blocks into from a supplied list, which must contain as many
@@ -448,7 +624,7 @@ public final class IOManager implements UncaughtExceptionHandler
 			throw new IllegalStateException("I/O-Manger is closed.");
 		}
 		
-		return new BulkBlockChannelReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, targetSegments, numBlocks);
+		return new BulkBlockChannelReader(channelID, getReadQueue(channelID), targetSegments, numBlocks);
 	}
 	
 	// ========================================================================
@@ -463,6 +639,77 @@ public final class IOManager implements UncaughtExceptionHandler
 		return next;
 	}
 	
+	private final RequestQueue<WriteRequest> getWriteQueue(Channel.ID channelID)
+	{
+		return this.writers[getThreadIndex(channelID, this.nextWriterThread)].requestQueue;
+	}
+	
+	private final RequestQueue<ReadRequest> getReadQueue(Channel.ID channelID)
+	{
+		return this.readers[getThreadIndex(channelID, this.nextReaderThread)].requestQueue;
+	}
+	
+	/**
+	 * Picks one of the threads of the channel's path in a round-robin fashion.
+	 */
+	private final int getThreadIndex(Channel.ID channelID, AtomicInteger nextThread)
+	{
+		final int offset = (nextThread.getAndIncrement() & Integer.MAX_VALUE) % this.numThreadsPerPath;
+		return channelID.getThreadNum() * this.numThreadsPerPath + offset;
+	}
+	
+	// ========================================================================
+	//                             Statistics
+	// ========================================================================
+	
+	/**
+	 * Returns, per directory, the number of requests the reader and writer threads have carried out, the fraction
+	 * of time they were busy, and the maximum number of requests that were queued for a thread. Threads that are
+	 * busy almost all of the time with long queues indicate that spilling to the directory is I/O-bound.
+	 * 
+	 * @return A description of the I/O statistics, one line per directory.
+	 */
+	public String getStatistics()
+	{
+		final long elapsed = Math.max(1, System.nanoTime() - this.startTime);
+		final StringBuilder bld = new StringBuilder();
+		
+		for (int path = 0; path < this.paths.length; path++) {
+			long numWrites = 0, writeNanos = 0, numReads = 0, readNanos = 0;
+			int maxWriteQueue = 0, maxReadQueue = 0;
+			
+			for (int i = path * this.numThreadsPerPath; i < (path + 1) * this.numThreadsPerPath; i++) {
+				numWrites += this.writers[i].numRequests;
+				writeNanos += this.writers[i].busyNanos;
+				maxWriteQueue = Math.max(maxWriteQueue, this.writers[i].maxQueueDepth);
+				numReads += this.readers[i].numRequests;
+				readNanos += this.readers[i].busyNanos;
+				maxReadQueue = Math.max(maxReadQueue, this.readers[i].maxQueueDepth);
+			}
+			
+			if (path > 0) {
+				bld.append('\n');
+			}
+			bld.append(String.format("%s: %d writes (writers %.1f%% busy, max queue depth %d), " +
+					"%d reads (readers %.1f%% busy, max queue depth %d)", this.paths[path],
+				numWrites, 100.0 * writeNanos / (elapsed * this.numThreadsPerPath), maxWriteQueue,
+				numReads, 100.0 * readNanos / (elapsed * this.numThreadsPerPath), maxReadQueue));
+		}
+		return bld.toString();
+	}
+	
+	private final void logStatistics()
+	{
+		boolean used = false;
+		for (int i = 0; i < this.writers.length; i++) {
+			used |= this.writers[i].numRequests > 0 || this.readers[i].numRequests > 0;
+		}
+		
+		if (used) {
+			LOG.info("I/O statistics with " + this.numThreadsPerPath + " thread(s) per path:\n" + getStatistics());
+		}
+	}
+	
 	
 	// ========================================================================
 	//                          I/O Worker Threads
@@ -477,6 +724,13 @@ public final class IOManager implements UncaughtExceptionHandler
 		protected final RequestQueue<ReadRequest> requestQueue;
 
 		private volatile boolean alive;
+		
+		// statistics, only updated by this thread
+		private volatile long numRequests;
+		
+		private volatile long busyNanos;
+		
+		private volatile int maxQueueDepth;
 
 		// ---------------------------------------------------------------------
 		// Constructors / Destructors
@@ -538,6 +792,13 @@ public final class IOManager implements UncaughtExceptionHandler
 					}
 				}
 				
+				// the request itself was queued as well
+				final int queueDepth = this.requestQueue.size() + 1;
+				if (queueDepth > this.maxQueueDepth) {
+					this.maxQueueDepth = queueDepth;
+				}
+				final long start = System.nanoTime();
+				
 				// remember any IO exception that occurs, so it can be reported to the writer
 				IOException ioex = null;
 
@@ -554,6 +815,9 @@ public final class IOManager implements UncaughtExceptionHandler
 						t.getMessage() == null ? "." : ": ", t);
 				}
 
+				this.busyNanos += System.nanoTime() - start;
+				this.numRequests++;
+
 				// invoke the processed buffer handler of the request issuing reader object
 				request.requestDone(ioex);
 			} // end while alive
@@ -569,6 +833,13 @@ public final class IOManager implements UncaughtExceptionHandler
 		protected final RequestQueue<WriteRequest> requestQueue;
 
 		private volatile boolean alive;
+		
+		// statistics, only updated by this thread
+		private volatile long numRequests;
+		
+		private volatile long busyNanos;
+		
+		private volatile int maxQueueDepth;
 
 		// ---------------------------------------------------------------------
 		// Constructors / Destructors
@@ -631,6 +902,13 @@ public final class IOManager implements UncaughtExceptionHandler
 					}
 				}
 				
+				// the request itself was queued as well
+				final int queueDepth = this.requestQueue.size() + 1;
+				if (queueDepth > this.maxQueueDepth) {
+					this.maxQueueDepth = queueDepth;
+				}
+				final long start = System.nanoTime();
+				
 				// remember any IO exception that occurs, so it can be reported to the writer
 				IOException ioex = null;
 				
@@ -647,6 +925,9 @@ public final class IOManager implements UncaughtExceptionHandler
 						t.getMessage() == null ? "." : ": ", t);
 				}
 
+				this.busyNanos += System.nanoTime() - start;
+				this.numRequests++;
+
 				// invoke the processed buffer handler of the request issuing writer object
 				request.requestDone(ioex);
 			} // end while alive
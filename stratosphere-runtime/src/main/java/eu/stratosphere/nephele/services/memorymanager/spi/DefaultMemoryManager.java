@@ -13,6 +13,7 @@
 
 package eu.stratosphere.nephele.services.memorymanager.spi;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -20,7 +21,12 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,6 +37,22 @@ import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 
 
+/**
+ * The default memory manager, which hands out memory in pages of a fixed size. The pages are either backed
+ * by byte arrays on the heap, or (in off-heap mode) by direct memory outside the heap, which keeps large
+ * amounts of managed memory out of the garbage collector's old generation.
+ * <p>
+ * With lazy allocation, the pages are created only when they are first requested. Pages that are released
+ * are kept for reuse, but are given back (to the garbage collector) once no page has been requested for the
+ * configured idle time. The memory manager records statistics about its usage, see {@link #getStatistics()}.
+ * <p>
+ * The memory manager does not use a global lock for allocating and releasing pages, such that many tasks
+ * can request their memory at the same time: The pages are reserved by atomically decrementing the number of
+ * available pages. The free pages are kept in several sub-pools, each with its own lock. Every owner has a home
+ * pool, to which it returns its pages and from which it takes them, and only falls back to the other pools if
+ * its home pool is empty. The pages allocated by an owner are tracked per owner, guarded by a lock specific to
+ * that owner.
+ */
 public class DefaultMemoryManager implements MemoryManager {
 	
 	/**
@@ -43,6 +65,11 @@ public class DefaultMemoryManager implements MemoryManager {
 	 */
 	public static final int MIN_PAGE_SIZE = 4 * 1024;
 	
+	/**
+	 * The maximal number of sub-pools that the free pages are striped across.
+	 */
+	public static final int MAX_NUM_POOLS = 16;
+	
 	/**
 	 * The Log.
 	 */
@@ -50,11 +77,13 @@ public class DefaultMemoryManager implements MemoryManager {
 	
 	// --------------------------------------------------------------------------------------------
 	
-	private final Object lock = new Object();	 	// The lock used on the shared structures.
+	private final Object lock = new Object();	 	// The lock used on shutdown.
 	
-	private final ArrayDeque<byte[]> freeSegments;	// the free memory segments
+	private final MemoryPool<?>[] memoryPools;		// the sub-pools of free memory segments
 	
-	private final HashMap<AbstractInvokable, Set<DefaultMemorySegment>> allocatedSegments;
+	private final AtomicInteger numAvailablePages;	// the number of pages that are not allocated by an owner
+	
+	private final ConcurrentHashMap<AbstractInvokable, OwnerSegments> allocatedSegments;
 	
 	private final long roundingMask;		// mask used to round down sizes to multiples of the page size
 	
@@ -64,7 +93,25 @@ public class DefaultMemoryManager implements MemoryManager {
 	
 	private final int totalNumPages;		// The initial total size, for verification.
 	
-	private boolean isShutDown;				// flag whether the close() has already been invoked.
+	private final boolean offHeap;			// flag whether the pages are backed by off-heap memory
+	
+	private final boolean lazyAllocation;	// flag whether the pages are created on first request
+	
+	private final long idleTimeout;			// the time (msecs) after which unused pooled pages are given back
+	
+	private final Timer idleMemoryTrimmer;	// the timer that gives back unused pooled pages, null if not elastic
+	
+	private final AtomicInteger highWaterMark;			// the maximum number of pages allocated at the same time
+	
+	private final AtomicLong numAllocationRequests;	// the number of allocation requests that were served
+	
+	private final AtomicLong totalAllocationNanos;		// the accumulated time spent in serving allocation requests
+	
+	private final AtomicLong maxAllocationNanos;		// the longest time spent in serving a single allocation request
+	
+	private volatile long lastAllocationTime;	// the time (msecs) of the last page request
+	
+	private volatile boolean isShutDown;		// flag whether the close() has already been invoked.
 
 	// ------------------------------------------------------------------------
 	// Constructors / Destructors
@@ -86,6 +133,55 @@ public class DefaultMemoryManager implements MemoryManager {
 	 * @param pageSize The size of the pages handed out by the memory manager.
 	 */
 	public DefaultMemoryManager(long memorySize, int pageSize) {
+		this(memorySize, pageSize, false);
+	}
+	
+	/**
+	 * Creates a memory manager with the given capacity and given page size, which backs its pages either by
+	 * heap memory (byte arrays), or by off-heap memory (direct byte buffers).
+	 * 
+	 * @param memorySize The total size of the memory to be managed by this memory manager.
+	 * @param pageSize The size of the pages handed out by the memory manager.
+	 * @param offHeap True, if the pages should be backed by off-heap memory, false for heap memory.
+	 */
+	public DefaultMemoryManager(long memorySize, int pageSize, boolean offHeap) {
+		this(memorySize, pageSize, offHeap, false, -1);
+	}
+	
+	/**
+	 * Creates a memory manager with the given capacity and given page size. In lazy mode, pages are created
+	 * on first request rather than in the constructor, and released pages that are not requested again within
+	 * the idle timeout are given back.
+	 * 
+	 * @param memorySize The total size of the memory to be managed by this memory manager.
+	 * @param pageSize The size of the pages handed out by the memory manager.
+	 * @param offHeap True, if the pages should be backed by off-heap memory, false for heap memory.
+	 * @param lazyAllocation True, if the pages should be created when first requested, false to create all
+	 *                       pages up front.
+	 * @param idleTimeout The time (in milliseconds) without any page request, after which released pages are
+	 *                    given back. Only used in lazy mode. A non-positive value keeps released pages forever.
+	 */
+	public DefaultMemoryManager(long memorySize, int pageSize, boolean offHeap, boolean lazyAllocation, long idleTimeout) {
+		this(memorySize, pageSize, offHeap, lazyAllocation, idleTimeout, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates a memory manager with the given capacity and given page size, which stripes its free pages
+	 * across the given number of sub-pools. The number of sub-pools is rounded down to a power of two and
+	 * limited to {@link #MAX_NUM_POOLS} and to the number of pages.
+	 * 
+	 * @param memorySize The total size of the memory to be managed by this memory manager.
+	 * @param pageSize The size of the pages handed out by the memory manager.
+	 * @param offHeap True, if the pages should be backed by off-heap memory, false for heap memory.
+	 * @param lazyAllocation True, if the pages should be created when first requested, false to create all
+	 *                       pages up front.
+	 * @param idleTimeout The time (in milliseconds) without any page request, after which released pages are
+	 *                    given back. Only used in lazy mode. A non-positive value keeps released pages forever.
+	 * @param numPools The number of sub-pools to stripe the free pages across.
+	 */
+	public DefaultMemoryManager(long memorySize, int pageSize, boolean offHeap, boolean lazyAllocation,
+			long idleTimeout, int numPools)
+	{
 		// sanity checks
 		if (memorySize <= 0) {
 			throw new IllegalArgumentException("Size of total memory must be positive.");
@@ -97,6 +193,9 @@ public class DefaultMemoryManager implements MemoryManager {
 			// not a power of two
 			throw new IllegalArgumentException("The given page size is not a power of two.");
 		}
+		if (numPools < 1) {
+			throw new IllegalArgumentException("The number of memory pools must be at least one.");
+		}
 		
 		// assign page size and bit utilities
 		this.pageSize = pageSize;
@@ -112,15 +211,44 @@ public class DefaultMemoryManager implements MemoryManager {
 			throw new IllegalArgumentException("The given amount of memory amounted to less than one page.");
 		}
 		
-		// initialize the free segments and allocated segments tracking structures
-		this.freeSegments = new ArrayDeque<byte[]>(this.totalNumPages);
-		this.allocatedSegments = new HashMap<AbstractInvokable, Set<DefaultMemorySegment>>();
-
+		// initialize the sub-pools of free segments, striping the pages evenly across them
+		this.offHeap = offHeap;
+		this.lazyAllocation = lazyAllocation;
+		
+		numPools = Integer.highestOneBit(Math.min(Math.min(numPools, MAX_NUM_POOLS), this.totalNumPages));
+		this.memoryPools = new MemoryPool<?>[numPools];
+		for (int i = 0; i < numPools; i++) {
+			final int numPoolPages = this.totalNumPages / numPools + (i < this.totalNumPages % numPools ? 1 : 0);
+			this.memoryPools[i] = offHeap ?
+					new OffHeapMemoryPool(numPoolPages, this.pageSize, lazyAllocation) :
+					new HeapMemoryPool(numPoolPages, this.pageSize, lazyAllocation);
+		}
+		
+		// initialize the allocated segments tracking structures
+		this.numAvailablePages = new AtomicInteger(this.totalNumPages);
+		this.allocatedSegments = new ConcurrentHashMap<AbstractInvokable, OwnerSegments>();
 		
-		// add the full chunks
-		for (int i = 0; i < this.totalNumPages; i++) {
-			// allocate memory of the specified size
-			this.freeSegments.add(new byte[this.pageSize]);
+		this.highWaterMark = new AtomicInteger();
+		this.numAllocationRequests = new AtomicLong();
+		this.totalAllocationNanos = new AtomicLong();
+		this.maxAllocationNanos = new AtomicLong();
+		
+		// start giving back unused memory, if elastic
+		this.lastAllocationTime = System.currentTimeMillis();
+		if (lazyAllocation && idleTimeout > 0) {
+			this.idleTimeout = idleTimeout;
+			this.idleMemoryTrimmer = new Timer("Memory Manager Idle Memory Trimmer", true);
+			
+			final long checkInterval = Math.max(idleTimeout / 4, 10);
+			this.idleMemoryTrimmer.schedule(new TimerTask() {
+				@Override
+				public void run() {
+					releaseIdleMemory();
+				}
+			}, checkInterval, checkInterval);
+		} else {
+			this.idleTimeout = -1;
+			this.idleMemoryTrimmer = null;
 		}
 	}
 
@@ -134,14 +262,26 @@ public class DefaultMemoryManager implements MemoryManager {
 					LOG.debug("Shutting down MemoryManager instance " + toString());
 				}
 	
+				if (LOG.isInfoEnabled()) {
+					LOG.info("Memory manager usage: " + getStatistics());
+				}
+				
 				// mark as shutdown and release memory
 				this.isShutDown = true;
-				this.freeSegments.clear();
+				for (MemoryPool<?> pool : this.memoryPools) {
+					pool.clear();
+				}
+				
+				if (this.idleMemoryTrimmer != null) {
+					this.idleMemoryTrimmer.cancel();
+				}
 				
 				// go over all allocated segments and release them
-				for (Set<DefaultMemorySegment> segments : this.allocatedSegments.values()) {
-					for (DefaultMemorySegment seg : segments) {
-						seg.destroy();
+				for (OwnerSegments owned : this.allocatedSegments.values()) {
+					synchronized (owned) {
+						for (DefaultMemorySegment seg : owned.segments) {
+							seg.destroy();
+						}
 					}
 				}
 			}
@@ -150,9 +290,7 @@ public class DefaultMemoryManager implements MemoryManager {
 	}
 
 	public boolean verifyEmpty() {
-		synchronized (this.lock) {
-			return this.freeSegments.size() == this.totalNumPages;
-		}
+		return this.numAvailablePages.get() == this.totalNumPages;
 	}
 
 	// ------------------------------------------------------------------------
@@ -174,38 +312,126 @@ public class DefaultMemoryManager implements MemoryManager {
 		if (owner == null) {
 			throw new IllegalAccessError("The memory owner must not be null.");
 		}
+		if (this.isShutDown) {
+			throw new IllegalStateException("Memory manager has been shut down.");
+		}
 		
 		// reserve array space, if applicable
 		if (target instanceof ArrayList) {
 			((ArrayList<MemorySegment>) target).ensureCapacity(numPages);
 		}
 		
-		// -------------------- BEGIN CRITICAL SECTION -------------------
-		synchronized (this.lock)
-		{
-			if (this.isShutDown) {
-				throw new IllegalStateException("Memory manager has been shut down.");
-			}
-			
-			if (numPages > this.freeSegments.size()) {
+		final long startTime = System.nanoTime();
+		this.lastAllocationTime = System.currentTimeMillis();
+		
+		// reserve the pages, without locking
+		int available;
+		do {
+			available = this.numAvailablePages.get();
+			if (numPages > available) {
 				throw new MemoryAllocationException("Could not allocate " + numPages + " pages. Only " + 
-					this.freeSegments.size() + " pages are remaining.");
+					available + " pages are remaining.");
+			}
+		}
+		while (!this.numAvailablePages.compareAndSet(available, available - numPages));
+		
+		final int numAllocated = this.totalNumPages - available + numPages;
+		int mark;
+		while (numAllocated > (mark = this.highWaterMark.get()) && !this.highWaterMark.compareAndSet(mark, numAllocated));
+		
+		// take the reserved pages from the pools and register them for the owner. if the owner's
+		// book-keeping is concurrently retired (because all its pages were released), start a new one
+		final int homePool = getHomePool(owner);
+		
+		while (true) {
+			OwnerSegments owned = this.allocatedSegments.get(owner);
+			if (owned == null) {
+				owned = new OwnerSegments(numPages);
+				final OwnerSegments previous = this.allocatedSegments.putIfAbsent(owner, owned);
+				if (previous != null) {
+					owned = previous;
+				}
 			}
 			
-			Set<DefaultMemorySegment> segmentsForOwner = this.allocatedSegments.get(owner);
-			if (segmentsForOwner == null) {
-				segmentsForOwner = new HashSet<DefaultMemorySegment>(4 * numPages / 3 + 1);
-				this.allocatedSegments.put(owner, segmentsForOwner);
+			synchronized (owned) {
+				if (owned.retired) {
+					continue;
+				}
+				
+				final DefaultMemorySegment[] taken = new DefaultMemorySegment[numPages];
+				int numTaken = 0;
+				boolean success = false;
+				try {
+					for (; numTaken < numPages; numTaken++) {
+						final DefaultMemorySegment segment = requestSegment(owner, homePool);
+						taken[numTaken] = segment;
+						owned.segments.add(segment);
+						target.add(segment);
+					}
+					success = true;
+				}
+				finally {
+					if (!success) {
+						// creating the memory failed (or the manager was shut down), so give back the
+						// segments taken so far and the reservation for the whole request
+						rollbackAllocation(owner, owned, target, taken, numTaken, numPages);
+					}
+				}
+			}
+			break;
+		}
+		
+		final long duration = System.nanoTime() - startTime;
+		this.numAllocationRequests.incrementAndGet();
+		this.totalAllocationNanos.addAndGet(duration);
+		long max;
+		while (duration > (max = this.maxAllocationNanos.get()) && !this.maxAllocationNanos.compareAndSet(max, duration));
+	}
+	
+	/**
+	 * Returns the segments of a failed allocation to the pool and releases the reservation of all pages
+	 * of the request. Must be called while holding the lock of the owner's book-keeping.
+	 */
+	private void rollbackAllocation(AbstractInvokable owner, OwnerSegments owned, List<MemorySegment> target,
+			DefaultMemorySegment[] taken, int numTaken, int numReserved)
+	{
+		// the segment that was requested last may have been created without being added to the target
+		final int numCreated = numTaken < taken.length && taken[numTaken] != null ? numTaken + 1 : numTaken;
+		final MemoryPool<?> pool = this.memoryPools[getHomePool(owner)];
+		
+		for (int i = 0; i < numCreated; i++) {
+			final DefaultMemorySegment segment = taken[i];
+			target.remove(segment);
+			owned.segments.remove(segment);
+			pool.returnSegmentToPool(segment);
+		}
+		if (owned.segments.isEmpty()) {
+			retire(owner, owned);
+		}
+		this.numAvailablePages.addAndGet(numReserved);
+	}
+	
+	/**
+	 * Takes one segment from the owner's home pool, or from any other pool if the home pool is empty.
+	 * The caller must have reserved the segment before, which guarantees that one is eventually found.
+	 */
+	private DefaultMemorySegment requestSegment(AbstractInvokable owner, int homePool) {
+		final MemoryPool<?>[] pools = this.memoryPools;
+		final int mask = pools.length - 1;
+		
+		while (true) {
+			for (int i = 0; i < pools.length; i++) {
+				final DefaultMemorySegment segment = pools[(homePool + i) & mask].requestSegmentFromPool(owner);
+				if (segment != null) {
+					return segment;
+				}
 			}
 			
-			for (int i = numPages; i > 0; i--) {
-				byte[] buffer = this.freeSegments.poll();
-				final DefaultMemorySegment segment = new DefaultMemorySegment(owner, buffer);
-				target.add(segment);
-				segmentsForOwner.add(segment);
+			// the reserved page is concurrently being returned to a pool we already looked at
+			if (this.isShutDown) {
+				throw new IllegalStateException("Memory manager has been shut down.");
 			}
 		}
-		// -------------------- END CRITICAL SECTION -------------------
 	}
 	
 	// ------------------------------------------------------------------------
@@ -216,38 +442,29 @@ public class DefaultMemoryManager implements MemoryManager {
 		if (segment == null || segment.isFreed() || !(segment instanceof DefaultMemorySegment)) {
 			return;
 		}
+		if (this.isShutDown) {
+			throw new IllegalStateException("Memory manager has been shut down.");
+		}
 		
 		final DefaultMemorySegment defSeg = (DefaultMemorySegment) segment;
 		final AbstractInvokable owner = defSeg.owner;
 		
-		// -------------------- BEGIN CRITICAL SECTION -------------------
-		synchronized (this.lock)
-		{
-			if (this.isShutDown) {
-				throw new IllegalStateException("Memory manager has been shut down.");
-			}
-
-			// remove the reference in the map for the owner
-			try {
-				Set<DefaultMemorySegment> segsForOwner = this.allocatedSegments.get(owner);
-				
-				if (segsForOwner != null) {
-					segsForOwner.remove(defSeg);
-					if (segsForOwner.isEmpty()) {
-						this.allocatedSegments.remove(owner);
-					}
+		// remove the reference in the map for the owner. only the thread that removes the
+		// reference returns the memory, such that concurrent releases cannot return it twice
+		final OwnerSegments owned = this.allocatedSegments.get(owner);
+		if (owned != null) {
+			synchronized (owned) {
+				if (owned.retired || !owned.segments.remove(defSeg)) {
+					return;
 				}
+				if (owned.segments.isEmpty()) {
+					retire(owner, owned);
+				}
+				
+				this.memoryPools[getHomePool(owner)].returnSegmentToPool(defSeg);
 			}
-			catch (Throwable t) {
-				LOG.error("Error removing book-keeping reference to allocated memory segment.", t);
-			}
-			finally {
-				// release the memory in any case
-				byte[] buffer = defSeg.destroy();
-				this.freeSegments.add(buffer);
-			}
+			this.numAvailablePages.incrementAndGet();
 		}
-		// -------------------- END CRITICAL SECTION -------------------
 	}
 
 	@Override
@@ -257,91 +474,177 @@ public class DefaultMemoryManager implements MemoryManager {
 		if (segments == null) {
 			return;
 		}
+		if (this.isShutDown) {
+			throw new IllegalStateException("Memory manager has been shut down.");
+		}
+
+		final Iterator<T> segmentsIterator = segments.iterator();
 		
-		// -------------------- BEGIN CRITICAL SECTION -------------------
-		synchronized (this.lock)
-		{
-			if (this.isShutDown) {
-				throw new IllegalStateException("Memory manager has been shut down.");
-			}
+		AbstractInvokable lastOwner = null;
+		OwnerSegments owned = null;
+		MemoryPool<?> pool = null;
+		int numReleased = 0;
 
-			final Iterator<T> segmentsIterator = segments.iterator();
+		// go over all segments
+		while (segmentsIterator.hasNext()) {
 			
-			AbstractInvokable lastOwner = null;
-			Set<DefaultMemorySegment> segsForOwner = null;
-
-			// go over all segments
-			while (segmentsIterator.hasNext()) {
-				
-				final MemorySegment seg = segmentsIterator.next();
-				if (seg.isFreed()) {
-					continue;
-				}
-				
-				final DefaultMemorySegment defSeg = (DefaultMemorySegment) seg;
-				final AbstractInvokable owner = defSeg.owner;
-				
-				try {
-					// get the list of segments by this owner only if it is a different owner than for
-					// the previous one (or it is the first segment)
-					if (lastOwner != owner) {
-						lastOwner = owner;
-						segsForOwner = this.allocatedSegments.get(owner);
-					}
-					
-					// remove the segment from the list
-					if (segsForOwner != null) {
-						segsForOwner.remove(defSeg);
-						if (segsForOwner.isEmpty()) {
-							this.allocatedSegments.remove(owner);
+			final MemorySegment seg = segmentsIterator.next();
+			if (seg.isFreed()) {
+				continue;
+			}
+			
+			final DefaultMemorySegment defSeg = (DefaultMemorySegment) seg;
+			final AbstractInvokable owner = defSeg.owner;
+			
+			// get the book-keeping of this owner only if it is a different owner than for
+			// the previous one (or it is the first segment)
+			if (lastOwner != owner) {
+				lastOwner = owner;
+				owned = this.allocatedSegments.get(owner);
+				pool = this.memoryPools[getHomePool(owner)];
+			}
+			
+			// remove the segment from the book-keeping and return it, unless it was concurrently released
+			if (owned != null) {
+				synchronized (owned) {
+					if (!owned.retired && owned.segments.remove(defSeg)) {
+						if (owned.segments.isEmpty()) {
+							retire(owner, owned);
 						}
+						pool.returnSegmentToPool(defSeg);
+						numReleased++;
 					}
 				}
-				catch (Throwable t) {
-					LOG.error("Error removing book-keeping reference to allocated memory segment.", t);
-				}
-				finally {
-					// release the memory in any case
-					byte[] buffer = defSeg.destroy();
-					this.freeSegments.add(buffer);
-				}
 			}
-			
-			segments.clear();
 		}
-		// -------------------- END CRITICAL SECTION -------------------
+		
+		segments.clear();
+		this.numAvailablePages.addAndGet(numReleased);
 	}
 
 	@Override
 	public void releaseAll(AbstractInvokable owner) {
-		// -------------------- BEGIN CRITICAL SECTION -------------------
-		synchronized (this.lock)
-		{
-			if (this.isShutDown) {
-				throw new IllegalStateException("Memory manager has been shut down.");
-			}
+		if (this.isShutDown) {
+			throw new IllegalStateException("Memory manager has been shut down.");
+		}
+
+		// get all segments
+		final OwnerSegments owned = this.allocatedSegments.get(owner);
 
-			// get all segments
-			final Set<DefaultMemorySegment> segments = this.allocatedSegments.remove(owner);
+		// all segments may have been freed previously individually
+		if (owned == null) {
+			return;
+		}
 
-			// all segments may have been freed previously individually
-			if (segments == null || segments.isEmpty()) {
+		final int numReleased;
+		synchronized (owned) {
+			if (owned.retired) {
 				return;
 			}
-
+			retire(owner, owned);
+			
 			// free each segment
-			for (DefaultMemorySegment seg : segments) {
-				final byte[] buffer = seg.destroy();
-				this.freeSegments.add(buffer);
-			}
-
-			segments.clear();
+			this.memoryPools[getHomePool(owner)].returnSegmentsToPool(owned.segments);
+			numReleased = owned.segments.size();
+			owned.segments.clear();
 		}
-		// -------------------- END CRITICAL SECTION -------------------
+		this.numAvailablePages.addAndGet(numReleased);
+	}
+	
+	/**
+	 * Retires the book-keeping of an owner, such that subsequent allocations of the owner start a new one.
+	 * Must be called while holding the lock of the book-keeping.
+	 */
+	private void retire(AbstractInvokable owner, OwnerSegments owned) {
+		owned.retired = true;
+		this.allocatedSegments.remove(owner, owned);
+	}
+	
+	private int getHomePool(AbstractInvokable owner) {
+		final int hash = System.identityHashCode(owner);
+		return (hash ^ (hash >>> 16)) & (this.memoryPools.length - 1);
 	}
 	
 	// ------------------------------------------------------------------------
 
+	/**
+	 * Gives back the memory of all released pages that are kept for reuse, if no page has been requested
+	 * for the idle timeout. Called periodically when the memory manager allocates lazily.
+	 */
+	private void releaseIdleMemory() {
+		if (this.isShutDown || System.currentTimeMillis() - this.lastAllocationTime < this.idleTimeout) {
+			return;
+		}
+		
+		int numReleased = 0;
+		for (MemoryPool<?> pool : this.memoryPools) {
+			numReleased += pool.releasePooledMemory();
+		}
+		
+		if (numReleased > 0 && LOG.isDebugEnabled()) {
+			LOG.debug("Gave back " + numReleased + " memory pages that were idle for more than " +
+					this.idleTimeout + " msecs.");
+		}
+	}
+	
+	/**
+	 * Gets a snapshot of the statistics about the usage of this memory manager, such as the number of
+	 * allocated pages, their high-water mark, the allocation latency, and the number of pages per owner.
+	 * Since pages are allocated and released concurrently, the values are not necessarily consistent
+	 * with each other.
+	 * 
+	 * @return A snapshot of the memory manager's statistics.
+	 */
+	public MemoryManagerStatistics getStatistics() {
+		final Map<AbstractInvokable, Integer> pagesPerOwner = new HashMap<AbstractInvokable, Integer>();
+		for (Map.Entry<AbstractInvokable, OwnerSegments> entry : this.allocatedSegments.entrySet()) {
+			final OwnerSegments owned = entry.getValue();
+			synchronized (owned) {
+				if (!owned.retired) {
+					pagesPerOwner.put(entry.getKey(), owned.segments.size());
+				}
+			}
+		}
+		
+		int numPooledPages = 0;
+		for (MemoryPool<?> pool : this.memoryPools) {
+			numPooledPages += pool.getNumberOfPooledSegments();
+		}
+		
+		final int numAllocatedPages = this.totalNumPages - this.numAvailablePages.get();
+		
+		return new MemoryManagerStatistics(this.totalNumPages, numAllocatedPages, numAllocatedPages + numPooledPages,
+			this.highWaterMark.get(), this.numAllocationRequests.get(), this.totalAllocationNanos.get(),
+			this.maxAllocationNanos.get(), pagesPerOwner);
+	}
+	
+	/**
+	 * Checks whether this memory manager creates its pages lazily, when they are first requested.
+	 * 
+	 * @return True, if the pages are created lazily, false if they were all created up front.
+	 */
+	public boolean isLazyAllocation() {
+		return this.lazyAllocation;
+	}
+	
+	/**
+	 * Checks whether the pages handed out by this memory manager are backed by off-heap memory.
+	 * 
+	 * @return True, if the pages are backed by off-heap memory, false if they are backed by heap memory.
+	 */
+	public boolean isOffHeap() {
+		return this.offHeap;
+	}
+	
+	/**
+	 * Gets the number of sub-pools across which the free pages are striped.
+	 * 
+	 * @return The number of sub-pools.
+	 */
+	public int getNumberOfPools() {
+		return this.memoryPools.length;
+	}
+
 	@Override
 	public int getPageSize() {
 		return this.pageSize;
@@ -383,11 +686,201 @@ public class DefaultMemoryManager implements MemoryManager {
 			this.owner = owner;
 		}
 		
-		byte[] destroy() {
+		DefaultMemorySegment(AbstractInvokable owner, ByteBuffer offHeapMemory) {
+			super(offHeapMemory);
+			this.owner = owner;
+		}
+		
+		byte[] destroyHeapSegment() {
 			final byte[] buffer = this.memory;
-			this.memory = null;
-			this.wrapper = null;
+			free();
 			return buffer;
 		}
+		
+		ByteBuffer destroyOffHeapSegment() {
+			final ByteBuffer buffer = this.offHeapBuffer;
+			free();
+			return buffer;
+		}
+		
+		void destroy() {
+			free();
+		}
+	}
+	
+	/**
+	 * The book-keeping of the segments allocated by one owner. Once all segments of the owner have been
+	 * released, the book-keeping is retired and removed from the map of owners.
+	 */
+	private static final class OwnerSegments {
+		
+		final HashSet<DefaultMemorySegment> segments;
+		
+		boolean retired;
+		
+		OwnerSegments(int expectedNumSegments) {
+			this.segments = new HashSet<DefaultMemorySegment>(4 * expectedNumSegments / 3 + 1);
+		}
+	}
+	
+	// ------------------------------------------------------------------------
+	//                          Pools of free memory
+	// ------------------------------------------------------------------------
+	
+	/**
+	 * A pool of free memory, from which the segments are created and to which their memory is returned
+	 * when they are released. Memory that has not been created yet (in lazy mode), or that has been given
+	 * back, is created on request. Released memory is reused in last-in-first-out order, such that recently
+	 * touched memory is handed out first. The pool is guarded by its own lock, which is held only to take
+	 * memory from or put memory into the pool. Memory is created and segments are destroyed outside the lock.
+	 */
+	private static abstract class MemoryPool<T> {
+		
+		private final ArrayDeque<T> available;
+		
+		private final int segmentSize;
+		
+		private int numUncreatedSegments;
+		
+		MemoryPool(int numSegments, int segmentSize, boolean lazy) {
+			this.available = new ArrayDeque<T>(lazy ? 16 : Math.max(numSegments, 1));
+			this.segmentSize = segmentSize;
+			
+			if (lazy) {
+				this.numUncreatedSegments = numSegments;
+			} else {
+				for (int i = 0; i < numSegments; i++) {
+					this.available.add(createMemory(segmentSize));
+				}
+			}
+		}
+		
+		/**
+		 * Creates a segment from the pool's memory.
+		 * 
+		 * @return The segment, or null, if the pool has no memory left.
+		 */
+		DefaultMemorySegment requestSegmentFromPool(AbstractInvokable owner) {
+			T memory;
+			synchronized (this) {
+				memory = this.available.pollFirst();
+				if (memory == null) {
+					if (this.numUncreatedSegments > 0) {
+						this.numUncreatedSegments--;
+					} else {
+						return null;
+					}
+				}
+			}
+			
+			if (memory == null) {
+				boolean created = false;
+				try {
+					memory = createMemory(this.segmentSize);
+					created = true;
+				}
+				finally {
+					if (!created) {
+						// the memory can be requested again later
+						synchronized (this) {
+							this.numUncreatedSegments++;
+						}
+					}
+				}
+			}
+			return createSegment(owner, memory);
+		}
+		
+		void returnSegmentToPool(DefaultMemorySegment segment) {
+			final T memory = destroySegment(segment);
+			synchronized (this) {
+				this.available.addFirst(memory);
+			}
+		}
+		
+		void returnSegmentsToPool(Collection<DefaultMemorySegment> segments) {
+			final ArrayList<T> memory = new ArrayList<T>(segments.size());
+			for (DefaultMemorySegment segment : segments) {
+				memory.add(destroySegment(segment));
+			}
+			synchronized (this) {
+				for (T m : memory) {
+					this.available.addFirst(m);
+				}
+			}
+		}
+		
+		synchronized int getNumberOfPooledSegments() {
+			return this.available.size();
+		}
+		
+		/**
+		 * Gives back the memory that is kept for reuse. The segments can still be requested, in which
+		 * case their memory is created anew.
+		 * 
+		 * @return The number of segments whose memory was given back.
+		 */
+		synchronized int releasePooledMemory() {
+			final int numReleased = this.available.size();
+			this.available.clear();
+			this.numUncreatedSegments += numReleased;
+			return numReleased;
+		}
+		
+		synchronized void clear() {
+			this.available.clear();
+			this.numUncreatedSegments = 0;
+		}
+		
+		abstract T createMemory(int size);
+		
+		abstract DefaultMemorySegment createSegment(AbstractInvokable owner, T memory);
+		
+		abstract T destroySegment(DefaultMemorySegment segment);
+	}
+	
+	private static final class HeapMemoryPool extends MemoryPool<byte[]> {
+		
+		HeapMemoryPool(int numSegments, int segmentSize, boolean lazy) {
+			super(numSegments, segmentSize, lazy);
+		}
+		
+		@Override
+		byte[] createMemory(int size) {
+			return new byte[size];
+		}
+		
+		@Override
+		DefaultMemorySegment createSegment(AbstractInvokable owner, byte[] memory) {
+			return new DefaultMemorySegment(owner, memory);
+		}
+		
+		@Override
+		byte[] destroySegment(DefaultMemorySegment segment) {
+			return segment.destroyHeapSegment();
+		}
+	}
+	
+	private static final class OffHeapMemoryPool extends MemoryPool<ByteBuffer> {
+		
+		OffHeapMemoryPool(int numSegments, int segmentSize, boolean lazy) {
+			super(numSegments, segmentSize, lazy);
+		}
+		
+		@Override
+		ByteBuffer createMemory(int size) {
+			// the memory is reclaimed when the direct buffer is garbage collected
+			return ByteBuffer.allocateDirect(size);
+		}
+		
+		@Override
+		DefaultMemorySegment createSegment(AbstractInvokable owner, ByteBuffer memory) {
+			return new DefaultMemorySegment(owner, memory);
+		}
+		
+		@Override
+		ByteBuffer destroySegment(DefaultMemorySegment segment) {
+			return segment.destroyOffHeapSegment();
+		}
 	}
 }
@@ -0,0 +1,145 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.memorymanager.spi;
+
+import java.util.Collections;
+import java.util.Map;
+
+import eu.stratosphere.nephele.template.AbstractInvokable;
+
+/**
+ * A snapshot of the usage statistics of a {@link DefaultMemoryManager}. The statistics help to
+ * right-size the managed memory of a task manager: The high-water mark tells how much of the memory
+ * was actually needed at the same time, the number of created pages tells how much memory is currently
+ * held by the memory manager.
+ */
+public final class MemoryManagerStatistics {
+
+	private final int totalNumPages;
+
+	private final int numAllocatedPages;
+
+	private final int numCreatedPages;
+
+	private final int highWaterMark;
+
+	private final long numAllocationRequests;
+
+	private final long totalAllocationNanos;
+
+	private final long maxAllocationNanos;
+
+	private final Map<AbstractInvokable, Integer> pagesPerOwner;
+
+
+	MemoryManagerStatistics(int totalNumPages, int numAllocatedPages, int numCreatedPages, int highWaterMark,
+			long numAllocationRequests, long totalAllocationNanos, long maxAllocationNanos,
+			Map<AbstractInvokable, Integer> pagesPerOwner)
+	{
+		this.totalNumPages = totalNumPages;
+		this.numAllocatedPages = numAllocatedPages;
+		this.numCreatedPages = numCreatedPages;
+		this.highWaterMark = highWaterMark;
+		this.numAllocationRequests = numAllocationRequests;
+		this.totalAllocationNanos = totalAllocationNanos;
+		this.maxAllocationNanos = maxAllocationNanos;
+		this.pagesPerOwner = Collections.unmodifiableMap(pagesPerOwner);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Gets the total number of pages managed by the memory manager.
+	 *
+	 * @return The total number of pages.
+	 */
+	public int getTotalNumPages() {
+		return this.totalNumPages;
+	}
+
+	/**
+	 * Gets the number of pages that are currently allocated by an owner.
+	 *
+	 * @return The number of allocated pages.
+	 */
+	public int getNumAllocatedPages() {
+		return this.numAllocatedPages;
+	}
+
+	/**
+	 * Gets the number of pages whose memory is currently held by the memory manager, regardless of whether
+	 * they are allocated or kept for reuse. Without lazy allocation, this is always the total number of pages.
+	 *
+	 * @return The number of created pages.
+	 */
+	public int getNumCreatedPages() {
+		return this.numCreatedPages;
+	}
+
+	/**
+	 * Gets the maximum number of pages that were allocated at the same time.
+	 *
+	 * @return The high-water mark of allocated pages.
+	 */
+	public int getHighWaterMark() {
+		return this.highWaterMark;
+	}
+
+	/**
+	 * Gets the number of allocation requests that were served.
+	 *
+	 * @return The number of allocation requests.
+	 */
+	public long getNumAllocationRequests() {
+		return this.numAllocationRequests;
+	}
+
+	/**
+	 * Gets the average time spent to serve an allocation request, in nanoseconds.
+	 *
+	 * @return The average allocation latency in nanoseconds.
+	 */
+	public long getAverageAllocationNanos() {
+		return this.numAllocationRequests == 0 ? 0 : this.totalAllocationNanos / this.numAllocationRequests;
+	}
+
+	/**
+	 * Gets the longest time spent to serve a single allocation request, in nanoseconds.
+	 *
+	 * @return The maximal allocation latency in nanoseconds.
+	 */
+	public long getMaxAllocationNanos() {
+		return this.maxAllocationNanos;
+	}
+
+	/**
+	 * Gets the number of pages that are allocated by each owner.
+	 *
+	 * @return An unmodifiable map from the owners to their number of allocated pages.
+	 */
+	public Map<AbstractInvokable, Integer> getPagesPerOwner() {
+		return this.pagesPerOwner;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public String toString() {
+		return "total pages: " + this.totalNumPages + ", allocated pages: " + this.numAllocatedPages +
+			", created pages: " + this.numCreatedPages + ", high-water mark: " + this.highWaterMark +
+			", allocation requests: " + this.numAllocationRequests + ", average allocation time: " +
+			(getAverageAllocationNanos() / 1000) + " usecs, maximal allocation time: " +
+			(this.maxAllocationNanos / 1000) + " usecs, owners: " + this.pagesPerOwner.size();
+	}
+}
@@ -1,5 +1,5 @@
 /***********************************************************************************************************************
- * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
  *
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -14,7 +14,16 @@
 package eu.stratosphere.nephele.taskmanager;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import eu.stratosphere.core.io.InputSplit;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
@@ -28,45 +37,151 @@ import eu.stratosphere.util.StringUtils;
 /**
  * The task input split provider is a component of the task manager which implements the {@link InputSplitProvider}
  * interface. It is called by a task in order to acquire a new input split to consume. The task input split provider in
- * return will call the global input split provider to retrieve a new input split.
+ * return will call the global input split provider to retrieve new input splits.
+ * <p>
+ * The splits are requested in batches. When the task takes the last split of a batch, the next batch is fetched in
+ * the background while the task consumes that split. Because a prefetched split is withheld from the other tasks,
+ * prefetching only happens as long as the job manager hands out more than one split per batch, which it only does
+ * when there are plenty of splits left. The time the task waits for splits is logged when all splits are consumed.
  * <p>
  * This class is thread-safe.
  * 
  */
 public class TaskInputSplitProvider implements InputSplitProvider {
 
+	/**
+	 * The log object used for debugging.
+	 */
+	private static final Log LOG = LogFactory.getLog(TaskInputSplitProvider.class);
+
 	private final JobID jobID;
 
 	private final ExecutionVertexID executionVertexID;
 
 	private final InputSplitProviderProtocol globalInputSplitProvider;
 
-	private final AtomicInteger sequenceNumber = new AtomicInteger(0);
+	private final ExecutorService executorService;
+
+	private final int batchSize;
+
+	private final Queue<InputSplit> splits = new ArrayDeque<InputSplit>();
+
+	private Future<InputSplitWrapper> prefetchedSplits;
+
+	private int sequenceNumber;
+
+	private boolean prefetch;
+
+	private boolean exhausted;
+
+	// statistics
+	private long waitTime;
+
+	private int numRequests;
+
+	private int numSplits;
 
 	TaskInputSplitProvider(final JobID jobID, final ExecutionVertexID executionVertexID,
-			final InputSplitProviderProtocol globalInputSplitProvider) {
+			final InputSplitProviderProtocol globalInputSplitProvider, final ExecutorService executorService,
+			final int batchSize) {
+
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("The input split batch size must be at least one.");
+		}
 
 		this.jobID = jobID;
 		this.executionVertexID = executionVertexID;
 		this.globalInputSplitProvider = globalInputSplitProvider;
+		this.executorService = executorService;
+		this.batchSize = batchSize;
 	}
 
 
 	@Override
-	public InputSplit getNextInputSplit() {
+	public synchronized InputSplit getNextInputSplit() {
 
-		try {
+		if (this.splits.isEmpty() && !this.exhausted) {
+			final long start = System.nanoTime();
+			final InputSplitWrapper wrapper;
+			try {
+				if (this.prefetchedSplits != null) {
+					wrapper = this.prefetchedSplits.get();
+				} else {
+					wrapper = requestNextInputSplits(this.sequenceNumber);
+				}
+			} catch (IOException ioe) {
+				// Convert IOException into a RuntimException and let the regular fault tolerance routines take care of
+				// the rest
+				throw new RuntimeException(StringUtils.stringifyException(ioe));
+			} catch (ExecutionException ee) {
+				throw new RuntimeException(StringUtils.stringifyException(ee.getCause()));
+			} catch (InterruptedException ie) {
+				throw new RuntimeException("Interrupted while waiting for the next input splits.");
+			} finally {
+				this.prefetchedSplits = null;
+				this.waitTime += System.nanoTime() - start;
+			}
 
-			synchronized (this.globalInputSplitProvider) {
-				final InputSplitWrapper wrapper = this.globalInputSplitProvider.requestNextInputSplit(this.jobID,
-					this.executionVertexID, new IntegerRecord(this.sequenceNumber.getAndIncrement()));
-				return wrapper.getInputSplit();
+			addInputSplits(wrapper.getInputSplits());
+		}
+
+		final InputSplit next = this.splits.poll();
+
+		// fetch the next batch while the task consumes the last split of this batch
+		if (this.prefetch && this.splits.isEmpty() && !this.exhausted) {
+			final int nextSequenceNumber = this.sequenceNumber;
+			this.prefetchedSplits = this.executorService.submit(new Callable<InputSplitWrapper>() {
+				@Override
+				public InputSplitWrapper call() throws IOException {
+					return requestNextInputSplits(nextSequenceNumber);
+				}
+			});
+		}
+
+		return next;
+	}
+
+	private void addInputSplits(final List<InputSplit> inputSplits) {
+
+		this.numRequests++;
+		this.numSplits += inputSplits.size();
+		this.sequenceNumber += inputSplits.size();
+		this.prefetch = inputSplits.size() > 1;
+
+		if (inputSplits.isEmpty()) {
+			this.exhausted = true;
+			if (LOG.isInfoEnabled()) {
+				LOG.info("Task " + this.executionVertexID + " received " + this.numSplits + " input splits in "
+					+ this.numRequests + " requests and waited " + getWaitTime() + " msecs for them");
 			}
+		} else {
+			this.splits.addAll(inputSplits);
+		}
+	}
 
-		} catch (IOException ioe) {
-			// Convert IOException into a RuntimException and let the regular fault tolerance routines take care of the
-			// rest
-			throw new RuntimeException(StringUtils.stringifyException(ioe));
+	private InputSplitWrapper requestNextInputSplits(final int sequenceNumber) throws IOException {
+
+		synchronized (this.globalInputSplitProvider) {
+			return this.globalInputSplitProvider.requestNextInputSplits(this.jobID, this.executionVertexID,
+				new IntegerRecord(sequenceNumber), new IntegerRecord(this.batchSize));
 		}
 	}
+
+	/**
+	 * Returns the total time the task has waited for input splits.
+	 * 
+	 * @return the time waited for input splits, in milliseconds
+	 */
+	public synchronized long getWaitTime() {
+		return this.waitTime / 1000000;
+	}
+
+	/**
+	 * Returns the number of input splits the task has received so far.
+	 * 
+	 * @return the number of received input splits
+	 */
+	public synchronized int getNumberOfInputSplits() {
+		return this.numSplits;
+	}
 }
@@ -81,8 +81,11 @@ import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
 import eu.stratosphere.nephele.util.SerializableArrayList;
+import eu.stratosphere.pact.runtime.broadcast.BroadcastVariableManager;
 import eu.stratosphere.pact.runtime.cache.FileCache;
+import eu.stratosphere.runtime.io.api.OutputFlusher;
 import eu.stratosphere.runtime.io.channels.ChannelID;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 import eu.stratosphere.runtime.io.network.ChannelManager;
 import eu.stratosphere.runtime.io.network.InsufficientResourcesException;
 import eu.stratosphere.util.StringUtils;
@@ -117,6 +120,8 @@ public class TaskManager implements TaskOperationProtocol {
 	private final Server taskManagerServer;
 
 	private final FileCache fileCache = new FileCache();
+
+	private final BroadcastVariableManager broadcastVariableManager = new BroadcastVariableManager();
 	/**
 	 * This map contains all the tasks whose threads are in a state other than TERMINATED. If any task
 	 * is stored inside this map and its thread status is TERMINATED, this indicates a virtual machine error.
@@ -141,6 +146,13 @@ public class TaskManager implements TaskOperationProtocol {
 
 	private final IOManager ioManager;
 
+	/**
+	 * Sends partially filled network buffers of all tasks on timeout, <code>null</code> if there is no timeout.
+	 */
+	private final OutputFlusher outputFlusher;
+
+	private final int inputSplitBatchSize;
+
 	private static HardwareDescription hardwareDescription = null;
 
 	private final Thread heartbeatThread;
@@ -302,11 +314,46 @@ public class TaskManager implements TaskOperationProtocol {
 				ConfigConstants.TASK_MANAGER_NET_NETTY_HIGH_WATER_MARK,
 				ConfigConstants.DEFAULT_TASK_MANAGER_NET_NETTY_HIGH_WATER_MARK);
 
+		String transport = GlobalConfiguration.getString(
+				ConfigConstants.TASK_MANAGER_NET_TRANSPORT_KEY,
+				ConfigConstants.DEFAULT_TASK_MANAGER_NET_TRANSPORT);
+
+		int creditsPerChannel = GlobalConfiguration.getInteger(
+				ConfigConstants.TASK_MANAGER_NET_CREDITS_PER_CHANNEL_KEY,
+				ConfigConstants.DEFAULT_TASK_MANAGER_NET_CREDITS_PER_CHANNEL);
+
+		boolean spilling = GlobalConfiguration.getBoolean(
+				ConfigConstants.TASK_MANAGER_NET_SPILLING_KEY,
+				ConfigConstants.DEFAULT_TASK_MANAGER_NET_SPILLING);
+
+		if (spilling && creditsPerChannel <= 0) {
+			LOG.warn("Spilling network channels requires credit-based flow control, ignoring " +
+					ConfigConstants.TASK_MANAGER_NET_SPILLING_KEY + ".");
+			spilling = false;
+		}
+
+		long bufferTimeout = GlobalConfiguration.getLong(
+				ConfigConstants.TASK_MANAGER_NETWORK_BUFFER_TIMEOUT_KEY,
+				ConfigConstants.DEFAULT_TASK_MANAGER_NETWORK_BUFFER_TIMEOUT);
+
+		this.inputSplitBatchSize = Math.max(1, GlobalConfiguration.getInteger(
+				ConfigConstants.TASK_MANAGER_INPUT_SPLIT_BATCH_SIZE_KEY,
+				ConfigConstants.DEFAULT_TASK_MANAGER_INPUT_SPLIT_BATCH_SIZE));
+
+		if (bufferTimeout > 0) {
+			LOG.info("Flushing partially filled network buffers after " + bufferTimeout + " msecs.");
+			this.outputFlusher = new OutputFlusher(bufferTimeout);
+			this.outputFlusher.start();
+		} else {
+			this.outputFlusher = null;
+		}
+
 		// Initialize the channel manager
 		try {
 			this.channelManager = new ChannelManager(
 					this.lookupService, this.localInstanceConnectionInfo,
-					numBuffers, bufferSize, numInThreads, numOutThreads, lowWaterMark, highWaterMark);
+					numBuffers, bufferSize, numInThreads, numOutThreads, lowWaterMark, highWaterMark,
+					"epoll".equalsIgnoreCase(transport), creditsPerChannel, spilling);
 		} catch (IOException ioe) {
 			LOG.error(StringUtils.stringifyException(ioe));
 			throw new Exception("Failed to instantiate channel manager. " + ioe.getMessage(), ioe);
@@ -331,11 +378,20 @@ public class TaskManager implements TaskOperationProtocol {
 					"Page size is " + pageSize + " bytes.");
 			
 			try {
-				@SuppressWarnings("unused")
 				final boolean lazyAllocation = GlobalConfiguration.getBoolean(ConfigConstants.TASK_MANAGER_MEMORY_LAZY_ALLOCATION_KEY,
 					ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_LAZY_ALLOCATION);
 				
-				this.memoryManager = new DefaultMemoryManager(resources.getSizeOfFreeMemory(), pageSize);
+				final long idleTimeout = GlobalConfiguration.getLong(ConfigConstants.TASK_MANAGER_MEMORY_IDLE_TIMEOUT_KEY,
+					ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_IDLE_TIMEOUT);
+				
+				final boolean offHeap = GlobalConfiguration.getBoolean(ConfigConstants.TASK_MANAGER_MEMORY_OFF_HEAP_KEY,
+					ConfigConstants.DEFAULT_TASK_MANAGER_MEMORY_OFF_HEAP);
+				if (offHeap) {
+					LOG.info("Memory manager backs its pages by off-heap memory.");
+				}
+				
+				this.memoryManager = new DefaultMemoryManager(resources.getSizeOfFreeMemory(), pageSize, offHeap,
+					lazyAllocation, idleTimeout);
 			} catch (Throwable t) {
 				LOG.fatal("Unable to initialize memory manager with " + (resources.getSizeOfFreeMemory() >>> 20)
 					+ " megabytes of memory.", t);
@@ -343,7 +399,28 @@ public class TaskManager implements TaskOperationProtocol {
 			}
 		}
 
-		this.ioManager = new IOManager(tmpDirPaths);
+		// determine the compression of spilled intermediate data
+		final String spillCodecName = GlobalConfiguration.getString(ConfigConstants.TASK_MANAGER_TMP_COMPRESSION_KEY,
+			ConfigConstants.DEFAULT_TASK_MANAGER_TMP_COMPRESSION);
+		CompressionCodec spillCodec;
+		try {
+			spillCodec = CompressionCodec.valueOf(spillCodecName.toUpperCase());
+		} catch (IllegalArgumentException iaex) {
+			LOG.error("Invalid spill compression codec: " + spillCodecName + ". Ignoring parameter.");
+			spillCodec = CompressionCodec.NONE;
+		}
+		if (spillCodec != CompressionCodec.NONE) {
+			LOG.info("Compressing spilled intermediate data with " + spillCodec + ".");
+		}
+
+		int ioThreadsPerPath = GlobalConfiguration.getInteger(ConfigConstants.TASK_MANAGER_TMP_IO_THREADS_KEY,
+			ConfigConstants.DEFAULT_TASK_MANAGER_TMP_IO_THREADS);
+		if (ioThreadsPerPath < 1) {
+			LOG.error("Invalid number of I/O threads per temp directory: " + ioThreadsPerPath + ". Using one thread.");
+			ioThreadsPerPath = 1;
+		}
+
+		this.ioManager = new IOManager(tmpDirPaths, spillCodec, ioThreadsPerPath);
 		
 		this.heartbeatThread = new Thread() {
 			@Override
@@ -672,8 +749,10 @@ public class TaskManager implements TaskOperationProtocol {
 			}
 
 			try {
-				re = new RuntimeEnvironment(tdd, this.memoryManager, this.ioManager, new TaskInputSplitProvider(jobID,
-					vertexID, this.globalInputSplitProvider), this.accumulatorProtocolProxy, cpTasks);
+				final TaskInputSplitProvider inputSplitProvider = new TaskInputSplitProvider(jobID, vertexID,
+					this.globalInputSplitProvider, this.executorService, this.inputSplitBatchSize);
+				re = new RuntimeEnvironment(tdd, this.memoryManager, this.ioManager, inputSplitProvider,
+					this.outputFlusher, this.broadcastVariableManager, this.accumulatorProtocolProxy, cpTasks);
 			} catch (Throwable t) {
 				final TaskSubmissionResult result = new TaskSubmissionResult(vertexID,
 					AbstractTaskResult.ReturnCode.DEPLOYMENT_ERROR);
@@ -707,6 +786,9 @@ public class TaskManager implements TaskOperationProtocol {
 				continue;
 			}
 
+			// the locations of connected channels known at deployment time save lookups at the job manager
+			this.channelManager.addReceiverListHints(tdd);
+
 			submissionResultList.add(new TaskSubmissionResult(vertexID, AbstractTaskResult.ReturnCode.SUCCESS));
 			tasksToStart.add(task);
 		}
@@ -807,6 +889,11 @@ public class TaskManager implements TaskOperationProtocol {
 			// Unregister task from the byte buffered channel manager
 			this.channelManager.unregister(id, task);
 
+			// Unregister the task's record writers from the output flusher
+			if (this.outputFlusher != null) {
+				this.outputFlusher.unregister(task.getEnvironment());
+			}
+
 			// Unregister task from profiling
 			task.unregisterProfiler(this.profiler);
 
@@ -910,6 +997,11 @@ public class TaskManager implements TaskOperationProtocol {
 			this.profiler.shutdown();
 		}
 
+		// Stop flushing output buffers before the network is shut down
+		if (this.outputFlusher != null) {
+			this.outputFlusher.shutdown();
+		}
+
 		// Shut down the network channel manager
 		this.channelManager.shutdown();
 
@@ -0,0 +1,85 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.broadcast;
+
+import eu.stratosphere.nephele.jobgraph.JobID;
+
+/**
+ * Identifies a broadcast variable that the subtasks of a job vertex read. Because the subtasks of an iterative
+ * task read iterative broadcast variables anew in every superstep, the key also contains the number of times the
+ * variable has been read before.
+ */
+public final class BroadcastVariableKey {
+	
+	private final JobID jobId;
+	
+	private final String vertexId;
+	
+	private final int inputNum;
+	
+	private final int superstep;
+	
+	
+	public BroadcastVariableKey(JobID jobId, String vertexId, int inputNum, int superstep) {
+		if (jobId == null || vertexId == null) {
+			throw new NullPointerException();
+		}
+		
+		this.jobId = jobId;
+		this.vertexId = vertexId;
+		this.inputNum = inputNum;
+		this.superstep = superstep;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+
+	public JobID getJobId() {
+		return this.jobId;
+	}
+	
+	public String getVertexId() {
+		return this.vertexId;
+	}
+	
+	public int getInputNum() {
+		return this.inputNum;
+	}
+	
+	public int getSuperstep() {
+		return this.superstep;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public int hashCode() {
+		return 31 * (31 * (31 * this.jobId.hashCode() + this.vertexId.hashCode()) + this.inputNum) + this.superstep;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof BroadcastVariableKey) {
+			final BroadcastVariableKey other = (BroadcastVariableKey) obj;
+			return this.inputNum == other.inputNum && this.superstep == other.superstep &&
+				this.vertexId.equals(other.vertexId) && this.jobId.equals(other.jobId);
+		} else {
+			return false;
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return this.jobId + " - " + this.vertexId + " - input " + this.inputNum + " - superstep " + this.superstep;
+	}
+}
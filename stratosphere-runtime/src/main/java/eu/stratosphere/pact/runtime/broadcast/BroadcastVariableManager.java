@@ -0,0 +1,77 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.broadcast;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The broadcast variable manager keeps the broadcast variables that are shared by the subtasks running on a task
+ * manager. A variable is materialized once for all subtasks of a job vertex that read it, instead of once per
+ * subtask. The subtasks acquire and release the variable, and the manager drops it when the last subtask that
+ * acquired it has released it.
+ */
+public class BroadcastVariableManager {
+	
+	private final Map<BroadcastVariableKey, BroadcastVariableMaterialization<?>> variables =
+			new HashMap<BroadcastVariableKey, BroadcastVariableMaterialization<?>>();
+	
+	/**
+	 * Gets the broadcast variable with the given key and increments its reference count. If no subtask holds
+	 * the variable at the moment, a new and not yet materialized variable is created.
+	 * 
+	 * @param key The key of the broadcast variable.
+	 * @return The broadcast variable.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> BroadcastVariableMaterialization<T> acquire(BroadcastVariableKey key) {
+		synchronized (this.variables) {
+			BroadcastVariableMaterialization<?> variable = this.variables.get(key);
+			if (variable == null) {
+				variable = new BroadcastVariableMaterialization<T>(key);
+				this.variables.put(key, variable);
+			}
+			variable.references++;
+			return (BroadcastVariableMaterialization<T>) variable;
+		}
+	}
+	
+	/**
+	 * Decrements the reference count of the given broadcast variable. The variable is dropped when it is
+	 * no longer referenced.
+	 * 
+	 * @param variable The broadcast variable to release.
+	 */
+	public void release(BroadcastVariableMaterialization<?> variable) {
+		synchronized (this.variables) {
+			if (variable.references <= 0) {
+				throw new IllegalStateException("The broadcast variable has been released more often than acquired.");
+			}
+			if (--variable.references == 0 && this.variables.get(variable.getKey()) == variable) {
+				this.variables.remove(variable.getKey());
+			}
+		}
+	}
+	
+	/**
+	 * Gets the number of broadcast variables that are currently held.
+	 * 
+	 * @return The number of broadcast variables.
+	 */
+	public int getNumberOfVariables() {
+		synchronized (this.variables) {
+			return this.variables.size();
+		}
+	}
+}
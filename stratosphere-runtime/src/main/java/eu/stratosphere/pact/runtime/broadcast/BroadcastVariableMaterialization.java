@@ -0,0 +1,130 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.broadcast;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * The materialized data of a broadcast variable that is shared by the subtasks of a job vertex on one task manager.
+ * Every subtask still receives the full data on its own broadcast input, because the senders broadcast to all
+ * subtasks. The first subtask to read the variable materializes its data, while the other subtasks only drain their
+ * inputs, deserializing into a single reused object, and then wait for the materialized data.
+ * <p>
+ * Every subtask gets its own list, which it may reorder or modify, but the elements in the lists are shared
+ * among the subtasks' threads. The elements must hence not be modified, and it must be safe to read them
+ * concurrently. Sharing is therefore only enabled on request, see
+ * {@link eu.stratosphere.configuration.ConfigConstants#SHARE_BROADCAST_VARIABLES_KEY}.
+ * 
+ * @param <T> The type of the elements of the broadcast variable.
+ */
+public class BroadcastVariableMaterialization<T> {
+	
+	private final BroadcastVariableKey key;
+	
+	private final Object lock = new Object();
+	
+	private boolean materializing;		// flag marking that a subtask materializes the variable
+	
+	private List<T> data;				// the materialized data, once it is complete
+	
+	private Throwable failure;			// the error that occurred during the materialization
+	
+	int references;						// the number of subtasks using the variable, guarded by the manager
+	
+	
+	BroadcastVariableMaterialization(BroadcastVariableKey key) {
+		this.key = key;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public BroadcastVariableKey getKey() {
+		return this.key;
+	}
+	
+	/**
+	 * Reads the given subtask's input of the broadcast variable and returns the variable's materialized data.
+	 * The data is materialized from the input of the first subtask that calls this method. All other subtasks
+	 * drain their inputs and wait until the data has been materialized.
+	 * 
+	 * @param input The subtask's input of the broadcast variable.
+	 * @param serializer The serializer for the elements of the broadcast variable.
+	 * @return A new list for the calling subtask that holds the shared elements of the broadcast variable.
+	 * @throws IOException Thrown, if the input could not be read, or if the materialization failed.
+	 */
+	public List<T> materializeOrWait(MutableObjectIterator<T> input, TypeSerializer<T> serializer) throws IOException {
+		final boolean materializer;
+		synchronized (this.lock) {
+			materializer = !this.materializing;
+			this.materializing = true;
+		}
+		
+		if (materializer) {
+			try {
+				final ArrayList<T> data = new ArrayList<T>();
+				T record = serializer.createInstance();
+				while ((record = input.next(record)) != null) {
+					data.add(record);
+					record = serializer.createInstance();
+				}
+				
+				synchronized (this.lock) {
+					this.data = data;
+					this.lock.notifyAll();
+				}
+			}
+			catch (Throwable t) {
+				synchronized (this.lock) {
+					this.failure = t;
+					this.lock.notifyAll();
+				}
+				if (t instanceof IOException) {
+					throw (IOException) t;
+				} else {
+					throw new IOException("Materializing the broadcast variable failed: " + t.getMessage(), t);
+				}
+			}
+		}
+		else {
+			// the senders block unless every subtask consumes its input
+			T record = serializer.createInstance();
+			while ((record = input.next(record)) != null);
+			
+			synchronized (this.lock) {
+				while (this.data == null && this.failure == null) {
+					try {
+						this.lock.wait();
+					} catch (InterruptedException e) {
+						throw new IOException("Interrupted while waiting for the broadcast variable to be materialized.");
+					}
+				}
+			}
+			if (this.failure != null) {
+				throw new IOException("The materialization of the broadcast variable failed in another subtask.", this.failure);
+			}
+		}
+		
+		return new ArrayList<T>(this.data);
+	}
+	
+	@Override
+	public String toString() {
+		return "Broadcast variable (" + this.key + ")";
+	}
+}
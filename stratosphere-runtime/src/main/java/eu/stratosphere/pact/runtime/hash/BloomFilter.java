@@ -0,0 +1,125 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.hash;
+
+import eu.stratosphere.core.memory.MemorySegment;
+
+/**
+ * A bloom filter over 32 bit hash codes, whose bits live in a region of a memory segment. The filter owns
+ * no memory itself: it is pointed at the bits of one region with {@link #setBitsLocation(MemorySegment, int)}
+ * and can be moved from region to region, such that a single instance serves many small filters, for example
+ * one per hash table bucket.
+ * <p>
+ * The bit positions are derived from the hash code with double hashing, after the hash code has been mixed
+ * again. The mixing makes sure that hash codes which agree in their lower bits (as all hash codes in one hash
+ * table bucket do) still spread over the whole filter.
+ */
+public final class BloomFilter {
+	
+	private final int numBits;
+	
+	private final int numHashFunctions;
+	
+	private MemorySegment bits;
+	
+	private int bitsOffset;
+	
+	/**
+	 * Creates a new bloom filter for regions of the given size.
+	 * 
+	 * @param numBytes The number of bytes in the regions that hold the bits.
+	 * @param numHashFunctions The number of bits that are set for each hash code.
+	 */
+	public BloomFilter(int numBytes, int numHashFunctions) {
+		if (numBytes <= 0 || numHashFunctions <= 0) {
+			throw new IllegalArgumentException("The bloom filter needs at least one byte and one hash function.");
+		}
+		this.numBits = numBytes << 3;
+		this.numHashFunctions = numHashFunctions;
+	}
+	
+	/**
+	 * Sets the region that holds the bits of the filter.
+	 * 
+	 * @param segment The memory segment that holds the bits.
+	 * @param offset The offset of the first byte of the bits in the segment.
+	 */
+	public void setBitsLocation(MemorySegment segment, int offset) {
+		this.bits = segment;
+		this.bitsOffset = offset;
+	}
+	
+	/**
+	 * Clears all bits of the current region, leaving an empty filter.
+	 */
+	public void reset() {
+		final MemorySegment bits = this.bits;
+		final int end = this.bitsOffset + (this.numBits >>> 3);
+		int pos = this.bitsOffset;
+		for (; pos <= end - 8; pos += 8) {
+			bits.putLong(pos, 0L);
+		}
+		for (; pos < end; pos++) {
+			bits.put(pos, (byte) 0);
+		}
+	}
+	
+	/**
+	 * Adds the given hash code to the filter in the current region.
+	 * 
+	 * @param hashCode The hash code to add.
+	 */
+	public void addHash(int hashCode) {
+		final int h1 = mix(hashCode);
+		final int h2 = Integer.rotateLeft(h1, 16) * 0x9e3779b9 | 1;
+		
+		for (int i = 0, combined = h1; i < this.numHashFunctions; i++, combined += h2) {
+			final int bit = (combined & 0x7fffffff) % this.numBits;
+			final int pos = this.bitsOffset + (bit >>> 3);
+			this.bits.put(pos, (byte) (this.bits.get(pos) | (1 << (bit & 0x7))));
+		}
+	}
+	
+	/**
+	 * Checks whether the given hash code may have been added to the filter in the current region. 
+	 * The check may return false positives, but never false negatives.
+	 * 
+	 * @param hashCode The hash code to check.
+	 * @return False, if the hash code was definitely not added, true if it may have been added.
+	 */
+	public boolean testHash(int hashCode) {
+		final int h1 = mix(hashCode);
+		final int h2 = Integer.rotateLeft(h1, 16) * 0x9e3779b9 | 1;
+		
+		for (int i = 0, combined = h1; i < this.numHashFunctions; i++, combined += h2) {
+			final int bit = (combined & 0x7fffffff) % this.numBits;
+			if ((this.bits.get(this.bitsOffset + (bit >>> 3)) & (1 << (bit & 0x7))) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * The finalization step of MurmurHash3, which makes every bit of the result depend on every bit of the input.
+	 */
+	private static final int mix(int code) {
+		code ^= code >>> 16;
+		code *= 0x85ebca6b;
+		code ^= code >>> 13;
+		code *= 0xc2b2ae35;
+		code ^= code >>> 16;
+		return code;
+	}
+}
@@ -27,6 +27,8 @@ import eu.stratosphere.api.common.typeutils.TypeComparator;
 import eu.stratosphere.api.common.typeutils.TypePairComparator;
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.iomanager.Channel;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.ListMemorySegmentSource;
 import eu.stratosphere.pact.runtime.util.MathUtils;
 import eu.stratosphere.util.MutableObjectIterator;
@@ -38,7 +40,13 @@ import eu.stratosphere.util.MutableObjectIterator;
  * The design of this class follows on many parts the design presented in
  * "Hash joins and hash teams in Microsoft SQL Server", by Goetz Graefe et al..
  *<p>
- *
+ * If the table is created with an {@link IOManager}, it runs in a hybrid mode: When a partition runs out
+ * of memory and compaction cannot free enough of it, the record pages of the least recently used partitions
+ * are spilled to disk. The buckets and overflow buckets of a spilled partition stay in memory, so probes
+ * whose hash code matches no entry never touch the disk. A spilled partition is read back as soon as one of
+ * its records is accessed, spilling other cold partitions if needed. Without an I/O manager, inserts and
+ * updates fail with an {@link java.io.EOFException} once the memory is exhausted. The table stays consistent
+ * in that case and can still be read, for example to flush its contents.
  *
  * <hr>
  * 
@@ -209,6 +217,20 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 	 */
 	private int numBuckets;
 	
+	/**
+	 * The I/O manager used to spill partitions, or <code>null</code>, if the table must not spill.
+	 */
+	private final IOManager ioManager;
+	
+	/**
+	 * Logical time of the last access to each partition, used to pick the partitions to spill.
+	 */
+	private long[] partitionAccessTimes;
+	
+	private long accessCounter;
+	
+	private int numSpilledPartitions;
+	
 	private AtomicBoolean closed = new AtomicBoolean();
 	
 	private boolean running = true;
@@ -225,6 +247,24 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 	}
 	
 	public CompactingHashTable(TypeSerializer<T> buildSideSerializer, TypeComparator<T> buildSideComparator, List<MemorySegment> memorySegments, int avgRecordLen)
+	{
+		this(buildSideSerializer, buildSideComparator, memorySegments, avgRecordLen, null);
+	}
+	
+	/**
+	 * Creates a hash table that spills partitions through the given I/O manager when its memory is exhausted.
+	 * 
+	 * @param buildSideSerializer serializer for the records
+	 * @param buildSideComparator comparator for the records
+	 * @param memorySegments memory for the table
+	 * @param ioManager I/O manager used to spill partitions, or <code>null</code> to never spill
+	 */
+	public CompactingHashTable(TypeSerializer<T> buildSideSerializer, TypeComparator<T> buildSideComparator, List<MemorySegment> memorySegments, IOManager ioManager)
+	{
+		this(buildSideSerializer, buildSideComparator, memorySegments, DEFAULT_RECORD_LEN, ioManager);
+	}
+	
+	public CompactingHashTable(TypeSerializer<T> buildSideSerializer, TypeComparator<T> buildSideComparator, List<MemorySegment> memorySegments, int avgRecordLen, IOManager ioManager)
 	{
 		super(buildSideSerializer, buildSideComparator);
 		// some sanity checks first
@@ -257,6 +297,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		this.bucketsPerSegmentBits = MathUtils.log2strict(bucketsPerSegment);
 		
 		this.partitions = new ArrayList<InMemoryPartition<T>>();
+		this.ioManager = ioManager;
 		
 		// because we allow to open and close multiple times, the state is initially closed
 		this.closed.set(true);
@@ -350,57 +391,11 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		
 		// get the basic characteristics of the bucket
 		final int partitionNumber = bucket.get(bucketInSegmentPos + HEADER_PARTITION_OFFSET);
-		final InMemoryPartition<T> p = this.partitions.get(partitionNumber);
-		
+		accessPartition(partitionNumber);
 		
-		long pointer;
-		try {
-			pointer = p.appendRecord(record);
-			if((pointer >> this.pageSizeInBits) > this.compactionMemory.getBlockCount()) {
-				this.compactionMemory.allocateSegments((int)(pointer >> this.pageSizeInBits));
-			}
-		} catch (EOFException e) {
-			try {
-				compactPartition(partitionNumber);
-				// retry append
-				pointer = this.partitions.get(partitionNumber).appendRecord(record);
-			} catch (EOFException ex) {
-				throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-						" minPartition: " + getMinPartition() +
-						" maxPartition: " + getMaxPartition() +
-						" number of overflow segments: " + getOverflowSegmentCount() +
-						" bucketSize: " + this.buckets.length +
-						" Message: " + ex.getMessage());
-			} catch (IndexOutOfBoundsException ex) {
-				throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-						" minPartition: " + getMinPartition() +
-						" maxPartition: " + getMaxPartition() +
-						" number of overflow segments: " + getOverflowSegmentCount() +
-						" bucketSize: " + this.buckets.length +
-						" Message: " + ex.getMessage());
-			}
-		} catch (IndexOutOfBoundsException e1) {
-			try {
-				compactPartition(partitionNumber);
-				// retry append
-				pointer = this.partitions.get(partitionNumber).appendRecord(record);
-			} catch (EOFException ex) {
-				throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-						" minPartition: " + getMinPartition() +
-						" maxPartition: " + getMaxPartition() +
-						" number of overflow segments: " + getOverflowSegmentCount() +
-						" bucketSize: " + this.buckets.length +
-						" Message: " + ex.getMessage());
-			} catch (IndexOutOfBoundsException ex) {
-				throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-						" minPartition: " + getMinPartition() +
-						" maxPartition: " + getMaxPartition() +
-						" number of overflow segments: " + getOverflowSegmentCount() +
-						" bucketSize: " + this.buckets.length +
-						" Message: " + ex.getMessage());
-			}
-		}
-		insertBucketEntryFromStart(p, bucket, bucketInSegmentPos, hashCode, pointer);
+		final long pointer = appendRecord(partitionNumber, record);
+		// compaction may have exchanged the partition
+		insertBucketEntryFromStart(this.partitions.get(partitionNumber), bucket, bucketInSegmentPos, hashCode, pointer);
 	}
 	
 	
@@ -441,7 +436,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		
 		// get the basic characteristics of the bucket
 		final int partitionNumber = bucket.get(bucketInSegmentOffset + HEADER_PARTITION_OFFSET);
-		final InMemoryPartition<T> partition = this.partitions.get(partitionNumber);
+		final InMemoryPartition<T> partition = accessPartition(partitionNumber);
 		final MemorySegment[] overflowSegments = partition.overflowSegments;
 		
 		this.buildSideComparator.setReference(record);
@@ -470,66 +465,16 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 					// deserialize the key to check whether it is really equal, or whether we had only a hash collision
 					try {
 						partition.readRecordAt(pointer, tempHolder);
-						if (this.buildSideComparator.equalToReference(tempHolder)) {
-							long newPointer = partition.appendRecord(record);
-							bucket.putLong(pointerOffset, newPointer);
-							partition.setCompaction(false);
-							if((newPointer >> this.pageSizeInBits) > this.compactionMemory.getBlockCount()) {
-								this.compactionMemory.allocateSegments((int)(newPointer >> this.pageSizeInBits));
-							}
-							return;
-						}
-					} catch (EOFException e) {
-						// system is out of memory so we attempt to reclaim memory with a copy compact run
-						long newPointer;
-						try {
-							compactPartition(partition.getPartitionNumber());
-							// retry append
-							newPointer = this.partitions.get(partitionNumber).appendRecord(record);
-						} catch (EOFException ex) {
-							throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-									" minPartition: " + getMinPartition() +
-									" maxPartition: " + getMaxPartition() +
-									" number of overflow segments: " + getOverflowSegmentCount() +
-									" bucketSize: " + this.buckets.length +
-									" Message: " + ex.getMessage());
-						} catch (IndexOutOfBoundsException ex) {
-							throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-									" minPartition: " + getMinPartition() +
-									" maxPartition: " + getMaxPartition() +
-									" number of overflow segments: " + getOverflowSegmentCount() +
-									" bucketSize: " + this.buckets.length +
-									" Message: " + ex.getMessage());
-						}
-						bucket.putLong(pointerOffset, newPointer);
-						return;
-					} catch (IndexOutOfBoundsException e) {
-						// system is out of memory so we attempt to reclaim memory with a copy compact run
-						long newPointer;
-						try {
-							compactPartition(partition.getPartitionNumber());
-							// retry append
-							newPointer = this.partitions.get(partitionNumber).appendRecord(record);
-						} catch (EOFException ex) {
-							throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-									" minPartition: " + getMinPartition() +
-									" maxPartition: " + getMaxPartition() +
-									" number of overflow segments: " + getOverflowSegmentCount() +
-									" bucketSize: " + this.buckets.length +
-									" Message: " + ex.getMessage());
-						} catch (IndexOutOfBoundsException ex) {
-							throw new RuntimeException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
-									" minPartition: " + getMinPartition() +
-									" maxPartition: " + getMaxPartition() +
-									" number of overflow segments: " + getOverflowSegmentCount() +
-									" bucketSize: " + this.buckets.length +
-									" Message: " + ex.getMessage());
-						}
-						bucket.putLong(pointerOffset, newPointer);
-						return;
 					} catch (IOException e) {
 						throw new RuntimeException("Error deserializing record from the hashtable: " + e.getMessage(), e);
-					} 
+					}
+					if (this.buildSideComparator.equalToReference(tempHolder)) {
+						// may compact the partition or spill other partitions, if memory runs out
+						final long newPointer = appendRecord(partitionNumber, record);
+						bucket.putLong(pointerOffset, newPointer);
+						this.partitions.get(partitionNumber).setCompaction(false);
+						return;
+					}
 				}
 				else {
 					numInSegment++;
@@ -540,11 +485,9 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			long newForwardPointer = bucket.getLong(bucketInSegmentOffset + HEADER_FORWARD_OFFSET);
 			if (newForwardPointer == BUCKET_FORWARD_POINTER_NOT_SET) {
 				// nothing found. append and insert
-				long pointer = partition.appendRecord(record);
-				insertBucketEntryFromSearch(partition, originalBucket, bucket, originalBucketOffset, bucketInSegmentOffset, countInSegment, currentForwardPointer, searchHashCode, pointer);
-				if((pointer >> this.pageSizeInBits) > this.compactionMemory.getBlockCount()) {
-					this.compactionMemory.allocateSegments((int)(pointer >> this.pageSizeInBits));
-				}
+				final long pointer = appendRecord(partitionNumber, record);
+				// compaction may have exchanged the partition
+				insertBucketEntryFromSearch(this.partitions.get(partitionNumber), originalBucket, bucket, originalBucketOffset, bucketInSegmentOffset, countInSegment, currentForwardPointer, searchHashCode, pointer);
 				return;
 			}
 			
@@ -557,6 +500,64 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			currentForwardPointer = newForwardPointer;
 		}
 	}
+	
+	/**
+	 * Appends the record to the given partition. If the partition runs out of memory, it is compacted. If that
+	 * does not free enough memory, cold partitions are spilled (if the table may spill) until the record fits.
+	 * 
+	 * @param partitionNumber number of the partition to append to, must be in memory
+	 * @param record record to append
+	 * @return pointer to the record in the partition
+	 * @throws EOFException Thrown, if no memory could be freed for the record. The table stays consistent.
+	 * @throws IOException Thrown, if spilling a partition failed.
+	 */
+	private long appendRecord(int partitionNumber, T record) throws IOException {
+		InMemoryPartition<T> p = this.partitions.get(partitionNumber);
+		try {
+			final long pointer = p.appendRecord(record);
+			// once partitions are spilled, the compaction partition gets only what is left
+			if(this.numSpilledPartitions == 0 && (pointer >> this.pageSizeInBits) > this.compactionMemory.getBlockCount()) {
+				this.compactionMemory.allocateSegments((int)(pointer >> this.pageSizeInBits));
+			}
+			return pointer;
+		} catch (EOFException e) {
+			// out of memory, fall through
+		} catch (IndexOutOfBoundsException e) {
+			// out of memory, fall through
+		}
+		
+		// system is out of memory so we attempt to reclaim memory with a copy compact run. the compaction
+		// is only safe if the compaction partition can take all pages of the partition
+		if (!p.isCompacted() && this.compactionMemory.getBlockCount() + this.availableMemory.size() >= p.getBlockCount()) {
+			compactPartition(partitionNumber);
+			try {
+				// retry append
+				return this.partitions.get(partitionNumber).appendRecord(record);
+			} catch (EOFException e) {
+				// still out of memory, fall through
+			} catch (IndexOutOfBoundsException e) {
+				// still out of memory, fall through
+			}
+		}
+		
+		// free memory from other partitions until the record fits
+		while (reclaimMemory(partitionNumber)) {
+			try {
+				return this.partitions.get(partitionNumber).appendRecord(record);
+			} catch (EOFException e) {
+				// still out of memory, try again
+			} catch (IndexOutOfBoundsException e) {
+				// still out of memory, try again
+			}
+		}
+		
+		throw new EOFException("Memory ran out. Compaction failed. numPartitions: " + this.partitions.size() + 
+				" minPartition: " + getMinPartition() +
+				" maxPartition: " + getMaxPartition() +
+				" number of overflow segments: " + getOverflowSegmentCount() +
+				" bucketSize: " + this.buckets.length +
+				" spilled partitions: " + getNumSpilledPartitions());
+	}
 
 	private final void insertBucketEntryFromStart(InMemoryPartition<T> p, MemorySegment bucket, 
 			int bucketInSegmentPos, int hashCode, long pointer)
@@ -611,7 +612,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			// first, see if there is space for an overflow bucket remaining in the last overflow segment
 			if (p.nextOverflowBucket == 0) {
 				// no space left in last bucket, or no bucket yet, so create an overflow segment
-				overflowSeg = getNextBuffer();
+				overflowSeg = getNextBuffer(p.getPartitionNumber());
 				overflowBucketOffset = 0;
 				overflowBucketNum = p.numOverflowSegments;
 				
@@ -651,7 +652,9 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		}
 	}
 	
-	private final void insertBucketEntryFromSearch(InMemoryPartition<T> partition, MemorySegment originalBucket, MemorySegment currentBucket, int originalBucketOffset, int currentBucketOffset, int countInCurrentBucket, long currentForwardPointer, int hashCode, long pointer) {
+	private final void insertBucketEntryFromSearch(InMemoryPartition<T> partition, MemorySegment originalBucket, MemorySegment currentBucket, int originalBucketOffset, int currentBucketOffset, int countInCurrentBucket, long currentForwardPointer, int hashCode, long pointer)
+	throws IOException
+	{
 		if (countInCurrentBucket < NUM_ENTRIES_PER_BUCKET) {
 			// we are good in our current bucket, put the values
 			currentBucket.putInt(currentBucketOffset + BUCKET_HEADER_LENGTH + (countInCurrentBucket * HASH_CODE_LEN), hashCode);	// hash code
@@ -667,7 +670,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			// first, see if there is space for an overflow bucket remaining in the last overflow segment
 			if (partition.nextOverflowBucket == 0) {
 				// no space left in last bucket, or no bucket yet, so create an overflow segment
-				overflowSeg = getNextBuffer();
+				overflowSeg = getNextBuffer(partition.getPartitionNumber());
 				overflowBucketOffset = 0;
 				overflowBucketNum = partition.numOverflowSegments;
 				
@@ -720,6 +723,9 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		for (int i = 0; i < numPartitions; i++) {
 			this.partitions.add(new InMemoryPartition<T>(this.buildSideSerializer, i, memSource, this.segmentSize, pageSizeInBits));
 		}
+		this.partitionAccessTimes = new long[numPartitions];
+		this.accessCounter = 0;
+		this.numSpilledPartitions = 0;
 		this.compactionMemory = new InMemoryPartition<T>(this.buildSideSerializer, -1, memSource, this.segmentSize, pageSizeInBits);
 	}
 	
@@ -730,6 +736,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		}
 		this.partitions.clear();
 		this.compactionMemory.clearAllMemory(availableMemory);
+		this.numSpilledPartitions = 0;
 	}
 	
 	private void initTable(int numBuckets, byte numPartitions) {
@@ -784,6 +791,100 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 													" bucketSize: " + this.buckets.length);
 		}
 	}
+	
+	private final MemorySegment getNextBuffer(int pinnedPartition) throws IOException {
+		// free memory from other partitions if the list does not offer any
+		while (this.availableMemory.isEmpty() && reclaimMemory(pinnedPartition)) {}
+		if (this.availableMemory.isEmpty()) {
+			throw new EOFException("Memory ran out. No free segment for an overflow bucket. numPartitions: " +
+					this.partitions.size() + " spilled partitions: " + getNumSpilledPartitions());
+		}
+		return getNextBuffer();
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//                                  Spilling and Restoring
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Records an access to the given partition and reads it back from disk, if it is spilled.
+	 * 
+	 * @param partitionNumber number of the accessed partition
+	 * @return the partition, with all of its pages in memory
+	 * @throws IOException Thrown, if the spilled partition could not be read.
+	 */
+	private InMemoryPartition<T> accessPartition(int partitionNumber) throws IOException {
+		this.partitionAccessTimes[partitionNumber] = ++this.accessCounter;
+		
+		final InMemoryPartition<T> p = this.partitions.get(partitionNumber);
+		if (p.isSpilled()) {
+			final int numPages = p.getNumSpilledPages();
+			while (this.availableMemory.size() < numPages) {
+				if (!reclaimMemory(partitionNumber)) {
+					throw new RuntimeException("Memory ran out. Cannot restore spilled partition " + partitionNumber +
+							" with " + numPages + " pages. numPartitions: " + this.partitions.size() +
+							" spilled partitions: " + getNumSpilledPartitions() +
+							" number of overflow segments: " + getOverflowSegmentCount() +
+							" bucketSize: " + this.buckets.length);
+				}
+			}
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Restoring spilled partition " + partitionNumber + " with " + numPages + " pages.");
+			}
+			p.restorePartition(this.ioManager, this.availableMemory);
+			this.numSpilledPartitions--;
+		}
+		return p;
+	}
+	
+	/**
+	 * Frees memory for the given partition. Releases the memory of the compaction partition first, because
+	 * that costs no I/O, and spills the least recently used partition that is still in memory afterwards.
+	 * 
+	 * @param pinnedPartition number of the partition that must stay in memory
+	 * @return true, if memory was freed, false if there is nothing left to free
+	 * @throws IOException Thrown, if spilling a partition failed.
+	 */
+	private boolean reclaimMemory(int pinnedPartition) throws IOException {
+		if (this.ioManager == null) {
+			return false;
+		}
+		
+		// the compaction partition holds no records between compactions
+		if (this.compactionMemory.getBlockCount() > 0) {
+			this.compactionMemory.releaseSegments(0, this.availableMemory);
+			return true;
+		}
+		
+		// find the coldest partition that holds memory
+		InMemoryPartition<T> victim = null;
+		for (int i = 0; i < this.partitions.size(); i++) {
+			final InMemoryPartition<T> p = this.partitions.get(i);
+			if (i != pinnedPartition && !p.isSpilled() && p.getBlockCount() > 0 &&
+					(victim == null || this.partitionAccessTimes[i] < this.partitionAccessTimes[victim.getPartitionNumber()]))
+			{
+				victim = p;
+			}
+		}
+		
+		if (victim != null) {
+			final Channel.ID channel = this.ioManager.createChannel();
+			final int numReleased = victim.spillPartition(this.ioManager, channel, this.availableMemory);
+			this.numSpilledPartitions++;
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Spilled partition " + victim.getPartitionNumber() + " with " + numReleased + " pages.");
+			}
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * @return number of partitions whose records are currently spilled to disk
+	 */
+	public int getNumSpilledPartitions() {
+		return this.numSpilledPartitions;
+	}
 
 	// --------------------------------------------------------------------------------------------
 	//                             Utility Computational Functions
@@ -943,8 +1044,17 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 		this.partitions.get(partitionNumber).numOverflowSegments = this.compactionMemory.numOverflowSegments;
 		this.partitions.get(partitionNumber).nextOverflowBucket = this.compactionMemory.nextOverflowBucket;
 		this.partitions.get(partitionNumber).setCompaction(true);
+		// the overflow segments now belong to the compacted partition
+		this.compactionMemory.overflowSegments = new MemorySegment[2];
+		this.compactionMemory.numOverflowSegments = 0;
+		this.compactionMemory.nextOverflowBucket = 0;
 		this.compactionMemory.resetRecordCounter();
 		this.compactionMemory.setPartitionNumber(-1);
+		// once partitions are spilled, the memory is better used to keep partitions in memory
+		if (this.numSpilledPartitions > 0) {
+			this.compactionMemory.releaseSegments(0, this.availableMemory);
+			return;
+		}
 		// try to allocate maximum segment count
 		int maxSegmentNumber = 0;
 		for (InMemoryPartition<T> e : this.partitions) {
@@ -1045,10 +1155,12 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			MemorySegment bucket = table.buckets[currentSegmentIndex];
 			// get the basic characteristics of the bucket
 			final int partitionNumber = bucket.get(currentBucketOffset + HEADER_PARTITION_OFFSET);
-			final InMemoryPartition<T> partition = table.partitions.get(partitionNumber);
+			int countInSegment = bucket.getInt(currentBucketOffset + HEADER_COUNT_OFFSET);
+			// empty buckets of spilled partitions need not be read back
+			final InMemoryPartition<T> partition = countInSegment > 0 ?
+					table.accessPartition(partitionNumber) : table.partitions.get(partitionNumber);
 			final MemorySegment[] overflowSegments = partition.overflowSegments;
 			
-			int countInSegment = bucket.getInt(currentBucketOffset + HEADER_COUNT_OFFSET);
 			int numInSegment = 0;
 			int posInSegment = currentBucketOffset + BUCKET_POINTER_START_OFFSET;
 			int bucketOffset = currentBucketOffset;
@@ -1093,7 +1205,7 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 	
 	public final class HashTableProber<PT> extends AbstractHashTableProber<PT, T>{
 		
-		private InMemoryPartition<T> partition;
+		private int partitionNumber;
 		
 		private MemorySegment bucket;
 		
@@ -1119,8 +1231,9 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			
 			// get the basic characteristics of the bucket
 			final int partitionNumber = bucket.get(bucketInSegmentOffset + HEADER_PARTITION_OFFSET);
-			final InMemoryPartition<T> partition = partitions.get(partitionNumber);
-			final MemorySegment[] overflowSegments = partition.overflowSegments;
+			// the overflow buckets stay in memory, the records are read back only if a hash code matches
+			final MemorySegment[] overflowSegments = partitions.get(partitionNumber).overflowSegments;
+			InMemoryPartition<T> partition = null;
 			
 			this.pairComparator.setReference(probeSideRecord);
 			
@@ -1145,10 +1258,13 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 						
 						// deserialize the key to check whether it is really equal, or whether we had only a hash collision
 						try {
+							if (partition == null) {
+								partition = accessPartition(partitionNumber);
+							}
 							partition.readRecordAt(pointer, targetForMatch);
 							
 							if (this.pairComparator.equalToReference(targetForMatch)) {
-								this.partition = partition;
+								this.partitionNumber = partitionNumber;
 								this.bucket = bucket;
 								this.pointerOffsetInBucket = pointerOffset;
 								return true;
@@ -1182,9 +1298,11 @@ public class CompactingHashTable<T> extends AbstractMutableHashTable<T>{
 			if(closed.get()) {
 				return;
 			}
-			long newPointer = this.partition.appendRecord(record);
+			// the partition may have been spilled since the match was found
+			accessPartition(this.partitionNumber);
+			long newPointer = appendRecord(this.partitionNumber, record);
 			this.bucket.putLong(this.pointerOffsetInBucket, newPointer);
-			this.partition.setCompaction(false); //FIXME Do we really create garbage here?
+			partitions.get(this.partitionNumber).setCompaction(false); //FIXME Do we really create garbage here?
 		}
 	}
 }
@@ -18,10 +18,17 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.core.memory.MemorySegmentSource;
 import eu.stratosphere.core.memory.SeekableDataInputView;
+import eu.stratosphere.nephele.services.iomanager.BlockChannelReader;
+import eu.stratosphere.nephele.services.iomanager.BlockChannelWriter;
+import eu.stratosphere.nephele.services.iomanager.Channel;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.AbstractPagedInputView;
 import eu.stratosphere.nephele.services.memorymanager.AbstractPagedOutputView;
 import eu.stratosphere.nephele.services.memorymanager.ListMemorySegmentSource;
@@ -33,6 +40,8 @@ import eu.stratosphere.nephele.services.memorymanager.ListMemorySegmentSource;
  */
 public class InMemoryPartition<T> {
 	
+	private static final Log LOG = LogFactory.getLog(InMemoryPartition.class);
+	
 	// --------------------------------- Table Structure Auxiliaries ------------------------------------
 	
 	protected MemorySegment[] overflowSegments;	// segments in which overflow buckets from the table structure are stored
@@ -63,6 +72,16 @@ public class InMemoryPartition<T> {
 	
 	private boolean compacted;						// overwritten records since allocation or last full compaction
 	
+	// ----------------------------------------- Spilling -----------------------------------------------
+	
+	private BlockChannelWriter spilledChannel;		// channel holding a copy of the record pages, while that copy is current
+	
+	private boolean spilled;						// the record pages are on disk only
+	
+	private int numSpilledPages;					// the number of record pages written to the channel
+	
+	private int spilledWriteOffset;				// the write position in the last page at the time of spilling
+	
 	// --------------------------------------------------------------------------------------------------
 	
 	
@@ -157,6 +176,20 @@ public class InMemoryPartition<T> {
 		this.compacted = compacted;
 	}
 	
+	/**
+	 * @return true if the record pages of this partition are currently spilled to disk
+	 */
+	public boolean isSpilled() {
+		return this.spilled;
+	}
+	
+	/**
+	 * @return number of pages that have to be available to restore this partition, or zero if it is not spilled
+	 */
+	public int getNumSpilledPages() {
+		return this.spilled ? this.numSpilledPages : 0;
+	}
+	
 	// --------------------------------------------------------------------------------------------------
 	
 	/**
@@ -168,7 +201,15 @@ public class InMemoryPartition<T> {
 	 * @throws IOException Thrown when the write failed.
 	 */
 	public final long appendRecord(T record) throws IOException {
+		// the spilled copy of the pages is outdated from now on
+		if (this.spilledChannel != null) {
+			deleteSpilledChannel();
+		}
 		long pointer = this.writeView.getCurrentPointer();
+		// remember page and offset separately, the pointer of a record that starts at the very end of
+		// a page already refers to the next page, which may not exist
+		final int pageNumber = this.writeView.getCurrentPageNumber();
+		final int offset = this.writeView.getCurrentPositionInSegment();
 		try {
 			this.serializer.serialize(record, this.writeView);
 			this.recordCounter++;
@@ -178,7 +219,7 @@ public class InMemoryPartition<T> {
 			// we ran out of pages. 
 			// first, reset the pages and then we need to trigger a compaction
 			//int oldCurrentBuffer = 
-			this.writeView.resetTo(pointer);
+			this.writeView.restoreTo(pageNumber, offset);
 			//for (int bufNum = this.partitionPages.size() - 1; bufNum > oldCurrentBuffer; bufNum--) {
 			//	this.availableMemory.addMemorySegment(this.partitionPages.remove(bufNum));
 			//}
@@ -201,6 +242,9 @@ public class InMemoryPartition<T> {
 	 */
 	@Deprecated
 	public void overwriteRecordAt(long pointer, T record) throws IOException {
+		if (this.spilledChannel != null) {
+			deleteSpilledChannel();
+		}
 		long tmpPointer = this.writeView.getCurrentPointer();
 		this.writeView.resetTo(pointer);
 		this.serializer.serialize(record, this.writeView);
@@ -223,6 +267,103 @@ public class InMemoryPartition<T> {
 		// return the partition buffers
 		target.addAll(this.partitionPages);
 		this.partitionPages.clear();
+		
+		// drop the spilled pages, they are of no use anymore
+		if (this.spilledChannel != null) {
+			deleteSpilledChannel();
+		}
+	}
+	
+	/**
+	 * Writes the record pages of this partition to the given channel and releases them to the given target.
+	 * The overflow buckets stay in memory, such that the table structure remains intact and all pointers
+	 * into this partition are valid again once the pages are restored. If the partition was not modified
+	 * since it was restored, the pages are released without writing them again.
+	 * 
+	 * @param ioManager I/O manager used to write the pages
+	 * @param targetChannel channel to write the pages to, unless a current copy exists
+	 * @param target memory pool to release segments to
+	 * @return number of segments that were released
+	 * @throws IOException Thrown, if the pages could not be written.
+	 */
+	public int spillPartition(IOManager ioManager, Channel.ID targetChannel, List<MemorySegment> target) throws IOException {
+		if (isSpilled()) {
+			throw new IllegalStateException("Partition " + this.partitionNumber + " has already been spilled.");
+		}
+		
+		if (this.spilledChannel == null) {
+			// only the pages up to the current write position hold records
+			final int numPages = this.writeView.getCurrentPageNumber() + 1;
+			final BlockChannelWriter writer = ioManager.createBlockChannelWriter(targetChannel);
+			try {
+				for (int i = 0; i < numPages; i++) {
+					writer.writeBlock(this.partitionPages.get(i));
+				}
+			} finally {
+				// waits until all pages are written, so that they can be safely handed out
+				writer.close();
+				// the written pages are released below, the writer must not keep them
+				writer.getReturnQueue().clear();
+			}
+			
+			this.spilledChannel = writer;
+			this.numSpilledPages = numPages;
+			this.spilledWriteOffset = this.writeView.getCurrentPositionInSegment();
+		}
+		this.spilled = true;
+		
+		final int numReleased = this.partitionPages.size();
+		target.addAll(this.partitionPages);
+		this.partitionPages.clear();
+		return numReleased;
+	}
+	
+	/**
+	 * Reads the spilled record pages of this partition back into memory. The channel is kept as long as the
+	 * partition is not modified, such that it can be spilled again without writing it.
+	 * The caller must make sure that the source offers at least {@link #getNumSpilledPages()} segments.
+	 * 
+	 * @param ioManager I/O manager used to read the pages
+	 * @param source memory pool to take the segments from
+	 * @throws IOException Thrown, if the pages could not be read.
+	 */
+	public void restorePartition(IOManager ioManager, List<MemorySegment> source) throws IOException {
+		if (!isSpilled()) {
+			return;
+		}
+		if (source.size() < this.numSpilledPages) {
+			throw new IllegalArgumentException("Restoring partition " + this.partitionNumber + " requires " +
+				this.numSpilledPages + " segments, but only " + source.size() + " are available.");
+		}
+		
+		final BlockChannelReader reader = ioManager.createBlockChannelReader(this.spilledChannel.getChannelID());
+		try {
+			for (int i = 0; i < this.numSpilledPages; i++) {
+				final MemorySegment page = source.remove(source.size() - 1);
+				this.partitionPages.add(page);
+				reader.readBlock(page);
+			}
+		} finally {
+			// waits until all pages are read
+			reader.close();
+		}
+		
+		this.writeView.restoreTo(this.numSpilledPages - 1, this.spilledWriteOffset);
+		this.spilled = false;
+	}
+	
+	private void deleteSpilledChannel() {
+		try {
+			this.spilledChannel.closeAndDelete();
+		}
+		catch (IOException ioex) {
+			LOG.warn("Could not close and delete the spill file of partition " + this.partitionNumber + ".", ioex);
+		}
+		
+		this.spilledChannel = null;
+		this.spilled = false;
+		this.numSpilledPages = 0;
+		this.spilledWriteOffset = 0;
 	}
 	
 	/**
@@ -236,6 +377,10 @@ public class InMemoryPartition<T> {
 			MemorySegment next = this.availableMemory.nextSegment();
 			if(next != null) {
 				this.partitionPages.add(next);
+				if (this.partitionPages.size() == 1) {
+					// the partition was cleared before, so writing starts over at the first page
+					this.writeView.resetTo(0L);
+				}
 			} else {
 				return;
 			}
@@ -284,11 +429,18 @@ public class InMemoryPartition<T> {
 
 		@Override
 		protected MemorySegment nextSegment(MemorySegment current, int bytesUsed) throws IOException {
-			MemorySegment next = this.memSource.nextSegment();
-			if(next == null) {
-				throw new EOFException();
+			final MemorySegment next;
+			final int nextPosInArray = this.currentPageNumber + 1 - this.segmentNumberOffset;
+			if (nextPosInArray < this.pages.size()) {
+				// reuse the page that was fetched before the write position was reset
+				next = this.pages.get(nextPosInArray);
+			} else {
+				next = this.memSource.nextSegment();
+				if(next == null) {
+					throw new EOFException();
+				}
+				this.pages.add(next);
 			}
-			this.pages.add(next);
 			
 			this.currentPageNumber++;
 			return next;
@@ -298,6 +450,15 @@ public class InMemoryPartition<T> {
 			return (((long) this.currentPageNumber) << this.sizeBits) + getCurrentPositionInSegment();
 		}
 		
+		private int getCurrentPageNumber() {
+			return this.currentPageNumber;
+		}
+		
+		private void restoreTo(int pageNum, int offset) {
+			this.currentPageNumber = pageNum;
+			seekOutput(this.pages.get(pageNum - this.segmentNumberOffset), offset);
+		}
+		
 		private int resetTo(long pointer) {
 			final int pageNum  = (int) (pointer >>> this.sizeBits);
 			final int offset = (int) (pointer & this.sizeMask);
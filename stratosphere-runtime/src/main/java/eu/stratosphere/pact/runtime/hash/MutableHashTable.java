@@ -183,13 +183,24 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	 */
 	private static final long BUCKET_FORWARD_POINTER_NOT_SET = ~0x0L;
 	
-//	private static final byte BUCKET_STATUS_SPILLED = 1;
-	
 	/**
 	 * Constant for the bucket status, indicating that the bucket is in memory.
 	 */
 	private static final byte BUCKET_STATUS_IN_MEMORY = 0;
 	
+	/**
+	 * Constant for the bucket status, indicating that the bucket's partition is spilled and that the
+	 * bucket holds a bloom filter over the hash codes of the partition's build side records.
+	 */
+	private static final byte BUCKET_STATUS_IN_FILTER = 1;
+	
+	/**
+	 * The number of bits set in a bucket's bloom filter per hash code. The filter of a bucket has
+	 * 896 bits, so four bits per hash code keep the false positive rate below 2% for up to a hundred
+	 * build side records per bucket.
+	 */
+	private static final int NUM_BLOOM_FILTER_HASH_FUNCTIONS = 4;
+	
 	// ------------------------------------------------------------------------
 	//                              Members
 	// ------------------------------------------------------------------------
@@ -342,6 +353,17 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	protected boolean furtherPartitioning = false;
 	
 	private boolean running = true;
+	
+	/**
+	 * The bloom filter that is pointed at the buckets of spilled partitions, to drop probe side
+	 * records that cannot have a match before they are spilled.
+	 */
+	private final BloomFilter bloomFilter;
+	
+	/**
+	 * Scratch space for the hash codes of a bucket chain, while the chain is turned into a bloom filter.
+	 */
+	private int[] bucketHashCodes;
 
 	// ------------------------------------------------------------------------
 	//                         Construction and Teardown
@@ -402,6 +424,9 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		this.partitionsBeingBuilt = new ArrayList<HashPartition<BT, PT>>();
 		this.partitionsPending = new ArrayList<HashPartition<BT, PT>>();
 		
+		this.bloomFilter = new BloomFilter(HASH_BUCKET_SIZE - BUCKET_HEADER_LENGTH, NUM_BLOOM_FILTER_HASH_FUNCTIONS);
+		this.bucketHashCodes = new int[2 * NUM_ENTRIES_PER_BUCKET];
+		
 		// because we allow to open and close multiple times, the state is initially closed
 		this.closed.set(true);
 	}
@@ -466,6 +491,13 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 				return true;
 			}
 			else {
+				// drop the record right away, if the bucket's bloom filter rules out a matching build side record
+				if (bucket.get(bucketInSegmentOffset + HEADER_STATUS_OFFSET) == BUCKET_STATUS_IN_FILTER) {
+					this.bloomFilter.setBitsLocation(bucket, bucketInSegmentOffset + BUCKET_HEADER_LENGTH);
+					if (!this.bloomFilter.testHash(hash)) {
+						continue;
+					}
+				}
 				p.insertIntoProbeBuffer(next);
 			}
 		}
@@ -504,7 +536,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 
 			// set the probe side - gather memory segments for reading
 			LinkedBlockingQueue<MemorySegment> returnQueue = new LinkedBlockingQueue<MemorySegment>();
-			this.currentSpilledProbeSide = this.ioManager.createBlockChannelReader(p.getProbeSideChannel().getChannelID(), returnQueue);
+			this.currentSpilledProbeSide = this.ioManager.createSpillingBlockChannelReader(p.getProbeSideChannel().getChannelID(), returnQueue);
 
 			List<MemorySegment> memory = new ArrayList<MemorySegment>();
 			memory.add(getNextBuffer());
@@ -605,6 +637,21 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		return this.bucketIterator;
 	}
 
+	/**
+	 * Checks whether some partitions of the build side were spilled to disk while the table was built.
+	 * Only tables without spilled partitions can be probed through {@link #getMatchesFor(Object)}.
+	 * 
+	 * @return True, if at least one partition is not entirely in memory, false otherwise.
+	 */
+	public boolean hasSpilledPartitions() {
+		for (int i = 0; i < this.partitionsBeingBuilt.size(); i++) {
+			if (!this.partitionsBeingBuilt.get(i).isInMemory()) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	public MutableObjectIterator<BT> getPartitionEntryIterator() {
 		return new HashPartitionIterator<BT, PT>(this.partitionsBeingBuilt.iterator(), this.buildSideSerializer);
 	}
@@ -748,7 +795,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			ensureNumBuffersReturned(p.getBuildSideBlockCount());
 			
 			// first read the partition in
-			final BulkBlockChannelReader reader = this.ioManager.createBulkBlockChannelReader(p.getBuildSideChannel().getChannelID(), 
+			final BulkBlockChannelReader reader = this.ioManager.createSpillingBulkBlockChannelReader(p.getBuildSideChannel().getChannelID(), 
 				this.availableMemory, p.getBuildSideBlockCount());
 			// call waits until all is read
 			if (keepBuildSidePartitions && p.recursionLevel == 0) {
@@ -806,7 +853,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			segments.add(getNextBuffer());
 			segments.add(getNextBuffer());
 			
-			final BlockChannelReader inReader = this.ioManager.createBlockChannelReader(p.getBuildSideChannel().getChannelID());
+			final BlockChannelReader inReader = this.ioManager.createSpillingBlockChannelReader(p.getBuildSideChannel().getChannelID());
 			final ChannelReaderInputView inView = new HeaderlessChannelReaderInputView(inReader, segments,
 						p.getBuildSideBlockCount(), p.getLastSegmentLimit(), false);
 			final ChannelReaderInputViewIterator<BT> inIter = new ChannelReaderInputViewIterator<BT>(inView, 
@@ -855,6 +902,9 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		if (pointer != -1) {
 			// record was inserted into an in-memory partition. a pointer must be inserted into the buckets
 			insertBucketEntry(p, bucket, bucketInSegmentPos, hashCode, pointer);
+		} else {
+			// record went to a spilled partition. the bucket's bloom filter must know its hash code
+			addToBloomFilter(bucket, bucketInSegmentPos, hashCode);
 		}
 	}
 	
@@ -926,7 +976,9 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 					// no memory available to create overflow bucket. we need to spill a partition
 					final int spilledPart = spillPartition();
 					if (spilledPart == p.getPartitionNumber()) {
-						// this bucket is no longer in-memory
+						// this bucket is no longer in-memory. the record was spilled with the partition,
+						// so its hash code goes into the bucket's bloom filter
+						addToBloomFilter(bucket, bucketInSegmentPos, hashCode);
 						return;
 					}
 					overflowSeg = getNextBuffer();
@@ -1095,6 +1147,9 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		}
 		final HashPartition<BT, PT> p = partitions.get(largestPartNum);
 		
+		// turn the partition's buckets into bloom filters, while the overflow buckets are still there
+		buildBloomFiltersForPartition(largestPartNum, p);
+		
 		// spill the partition
 		int numBuffersFreed = p.spillPartition(this.availableMemory, this.ioManager, 
 										this.currentEnumerator.next(), this.writeBehindBuffers);
@@ -1108,6 +1163,73 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		return largestPartNum;
 	}
 	
+	/**
+	 * Replaces the contents of all buckets of the given partition by bloom filters over the hash codes in the
+	 * buckets and their overflow buckets. Afterwards, the buckets no longer reference any records and their
+	 * status indicates the bloom filter. This must happen before the partition is spilled, because spilling
+	 * releases the overflow buckets.
+	 * 
+	 * @param partitionNumber The number of the partition.
+	 * @param p The partition.
+	 */
+	protected void buildBloomFiltersForPartition(int partitionNumber, HashPartition<BT, PT> p) {
+		final BloomFilter filter = this.bloomFilter;
+		
+		// the buckets are assigned to the partitions round robin
+		for (int bucketNum = partitionNumber; bucketNum < this.numBuckets; bucketNum += this.partitionsBeingBuilt.size()) {
+			final MemorySegment bucket = this.buckets[bucketNum >> this.bucketsPerSegmentBits];
+			final int bucketInSegmentPos = (bucketNum & this.bucketsPerSegmentMask) << NUM_INTRA_BUCKET_BITS;
+			
+			// gather the hash codes of the bucket and its chain of overflow buckets
+			int numCodes = 0;
+			MemorySegment seg = bucket;
+			int segOffset = bucketInSegmentPos;
+			while (true) {
+				final int count = seg.getShort(segOffset + HEADER_COUNT_OFFSET);
+				if (numCodes + count > this.bucketHashCodes.length) {
+					final int[] codes = new int[Math.max(2 * this.bucketHashCodes.length, numCodes + count)];
+					System.arraycopy(this.bucketHashCodes, 0, codes, 0, numCodes);
+					this.bucketHashCodes = codes;
+				}
+				for (int i = 0; i < count; i++) {
+					this.bucketHashCodes[numCodes++] = seg.getInt(segOffset + BUCKET_HEADER_LENGTH + (i * HASH_CODE_LEN));
+				}
+				
+				final long forwardPointer = seg.getLong(segOffset + HEADER_FORWARD_OFFSET);
+				if (forwardPointer == BUCKET_FORWARD_POINTER_NOT_SET) {
+					break;
+				}
+				seg = p.overflowSegments[(int) (forwardPointer >>> 32)];
+				segOffset = (int) (forwardPointer & 0xffffffff);
+			}
+			
+			// overwrite the entries with the bloom filter
+			filter.setBitsLocation(bucket, bucketInSegmentPos + BUCKET_HEADER_LENGTH);
+			filter.reset();
+			for (int i = 0; i < numCodes; i++) {
+				filter.addHash(this.bucketHashCodes[i]);
+			}
+			
+			bucket.put(bucketInSegmentPos + HEADER_STATUS_OFFSET, BUCKET_STATUS_IN_FILTER);
+			bucket.putShort(bucketInSegmentPos + HEADER_COUNT_OFFSET, (short) 0);
+			bucket.putLong(bucketInSegmentPos + HEADER_FORWARD_OFFSET, BUCKET_FORWARD_POINTER_NOT_SET);
+		}
+	}
+	
+	/**
+	 * Adds the given hash code to the bloom filter of the given bucket, if the bucket holds a bloom filter.
+	 * 
+	 * @param bucket The memory segment that holds the bucket.
+	 * @param bucketInSegmentPos The offset of the bucket in the memory segment.
+	 * @param hashCode The hash code to add.
+	 */
+	final void addToBloomFilter(MemorySegment bucket, int bucketInSegmentPos, int hashCode) {
+		if (bucket.get(bucketInSegmentPos + HEADER_STATUS_OFFSET) == BUCKET_STATUS_IN_FILTER) {
+			this.bloomFilter.setBitsLocation(bucket, bucketInSegmentPos + BUCKET_HEADER_LENGTH);
+			this.bloomFilter.addHash(hashCode);
+		}
+	}
+	
 	/**
 	 * This method makes sure that at least a certain number of memory segments is in the list of free segments.
 	 * Free memory can be in the list of free segments, or in the return-queue where segments used to write behind are
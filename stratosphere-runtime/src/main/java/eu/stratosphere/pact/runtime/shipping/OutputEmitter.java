@@ -27,6 +27,8 @@ public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T
 	private int nextChannelToSendTo = 0;		// counter to go over channels round robin
 	
 	private final TypeComparator<T> comparator;	// the comparator for hashing / sorting
+	
+	private final RangeBoundaries<T> rangeBoundaries;	// the boundaries for range partitioning
 
 	// ------------------------------------------------------------------------
 	// Constructors
@@ -68,12 +70,30 @@ public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T
 	 * @param distr The distribution pattern used in the case of a range partitioning.
 	 */
 	public OutputEmitter(ShipStrategyType strategy, TypeComparator<T> comparator, DataDistribution distr) {
+		this(strategy, comparator, distr, null);
+	}
+	
+	/**
+	 * Creates a new channel selector that range partitions the records by the given boundaries, which are
+	 * computed at runtime from a sample of the data.
+	 * 
+	 * @param comparator The comparator used to compare the records.
+	 * @param boundaries The holder of the boundaries of the range partitioning.
+	 */
+	public OutputEmitter(TypeComparator<T> comparator, RangeBoundaries<T> boundaries) {
+		this(ShipStrategyType.PARTITION_RANGE, comparator, null, boundaries);
+	}
+	
+	private OutputEmitter(ShipStrategyType strategy, TypeComparator<T> comparator, DataDistribution distr,
+			RangeBoundaries<T> boundaries)
+	{
 		if (strategy == null) { 
 			throw new NullPointerException();
 		}
 		
 		this.strategy = strategy;
 		this.comparator = comparator;
+		this.rangeBoundaries = boundaries;
 		
 		switch (strategy) {
 		case FORWARD:
@@ -87,8 +107,14 @@ public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T
 			throw new IllegalArgumentException("Invalid shipping strategy for OutputEmitter: " + strategy.name());
 		}
 		
-		if ((strategy == ShipStrategyType.PARTITION_RANGE) && distr == null) {
-			throw new NullPointerException("Data distribution must not be null when the ship strategy is range partitioning.");
+		if (strategy == ShipStrategyType.PARTITION_RANGE) {
+			if (boundaries == null) {
+				// range partitioning by a data distribution is only supported for the Record data model
+				throw new NullPointerException("Range boundaries must not be null when the ship strategy is range partitioning.");
+			}
+			if (comparator == null) {
+				throw new NullPointerException("The comparator must not be null when the ship strategy is range partitioning.");
+			}
 		}
 	}
 
@@ -181,6 +207,12 @@ public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T
 	}
 
 	private final int[] rangePartition(T record, int numberOfChannels) {
-		throw new UnsupportedOperationException();
+		if (this.channels == null || this.channels.length != 1) {
+			this.channels = new int[1];
+		}
+		
+		this.comparator.setReference(record);
+		this.channels[0] = this.rangeBoundaries.getPartition(this.comparator, numberOfChannels);
+		return this.channels;
 	}
 }
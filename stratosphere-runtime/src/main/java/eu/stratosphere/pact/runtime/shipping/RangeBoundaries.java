@@ -0,0 +1,128 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.shipping;
+
+import java.util.Collection;
+
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+
+/**
+ * The boundaries of a range partitioning that are not given by a data distribution, but computed at runtime
+ * from a sample of the data. The boundaries reach the partitioning task as a broadcast variable and are set
+ * on this holder before the first record is partitioned.
+ * <p>
+ * The holder keeps one comparator per boundary, with the boundary set as its reference, such that finding
+ * the partition of a record takes only a binary search over the references.
+ * 
+ * @param <T> The type of the partitioned records.
+ */
+public final class RangeBoundaries<T> {
+	
+	private final String name;					// the name of the broadcast variable with the boundaries
+	
+	private final TypeComparator<T> comparator;	// the comparator that defines the order of the records
+	
+	private TypeComparator<T>[] boundaries;		// the boundaries, each one as the reference of a comparator
+	
+	
+	/**
+	 * Creates a new holder for the boundaries that are read from the broadcast variable with the given name.
+	 * 
+	 * @param name The name of the broadcast variable with the boundaries.
+	 * @param comparator The comparator that defines the order of the records.
+	 */
+	public RangeBoundaries(String name, TypeComparator<T> comparator) {
+		if (name == null || comparator == null) {
+			throw new NullPointerException();
+		}
+		this.name = name;
+		this.comparator = comparator.duplicate();
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Gets the name of the broadcast variable from which the boundaries are read.
+	 * 
+	 * @return The name of the broadcast variable with the boundaries.
+	 */
+	public String getName() {
+		return this.name;
+	}
+	
+	/**
+	 * Checks whether the boundaries have been set.
+	 * 
+	 * @return True, if the boundaries have been set, false otherwise.
+	 */
+	public boolean isSet() {
+		return this.boundaries != null;
+	}
+	
+	/**
+	 * Sets the boundaries. The boundaries must be sorted in ascending order with respect to the comparator.
+	 * 
+	 * @param boundaries The sorted boundaries.
+	 */
+	@SuppressWarnings("unchecked")
+	public void setBoundaries(Collection<T> boundaries) {
+		final TypeComparator<T>[] references = new TypeComparator[boundaries.size()];
+		int i = 0;
+		for (T boundary : boundaries) {
+			final TypeComparator<T> reference = this.comparator.duplicate();
+			reference.setReference(boundary);
+			references[i++] = reference;
+		}
+		this.boundaries = references;
+	}
+	
+	/**
+	 * Gets the partition of the record that is currently set as the reference of the given comparator.
+	 * The boundaries are the inclusive upper bounds of the partitions.
+	 * 
+	 * @param record The comparator with the record as its reference.
+	 * @param numPartitions The number of partitions.
+	 * @return The partition of the record.
+	 */
+	public int getPartition(TypeComparator<T> record, int numPartitions) {
+		final TypeComparator<T>[] boundaries = this.boundaries;
+		if (boundaries == null) {
+			throw new IllegalStateException("The boundaries of the range partitioning have not been received.");
+		}
+		if (numPartitions != boundaries.length + 1) {
+			throw new IllegalStateException(
+				"The number of channels to partition among is inconsistent with the number of range boundaries.");
+		}
+		
+		// bin search the bucket
+		int low = 0;
+		int high = boundaries.length - 1;
+		
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			// smaller than zero, if the record is smaller than the boundary
+			final int result = boundaries[mid].compareToReference(record);
+			
+			if (result > 0) {
+				low = mid + 1;
+			} else if (result < 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		// key not found, but the low index is the target bucket, since the boundaries are the upper bound
+		return low;
+	}
+}
@@ -37,6 +37,8 @@ public class RecordOutputEmitter implements ChannelSelector<Record> {
 	
 	private final DataDistribution distribution; // the data distribution to create the partition boundaries for range partitioning
 	
+	private final RangeBoundaries<Record> rangeBoundaries; // the sampled partition boundaries, if there is no distribution
+	
 	private int nextChannelToSendTo;				// counter to go over channels round robin
 
 	// ------------------------------------------------------------------------
@@ -72,6 +74,23 @@ public class RecordOutputEmitter implements ChannelSelector<Record> {
 	 * @param distr The distribution pattern used in the case of a range partitioning.
 	 */
 	public RecordOutputEmitter(ShipStrategyType strategy, TypeComparator<Record> comparator, DataDistribution distr) {
+		this(strategy, comparator, distr, null);
+	}
+	
+	/**
+	 * Creates a new channel selector that range partitions the records by the given boundaries, which are
+	 * computed at runtime from a sample of the data.
+	 * 
+	 * @param comparator The comparator used to compare the records.
+	 * @param boundaries The holder of the boundaries of the range partitioning.
+	 */
+	public RecordOutputEmitter(TypeComparator<Record> comparator, RangeBoundaries<Record> boundaries) {
+		this(ShipStrategyType.PARTITION_RANGE, comparator, null, boundaries);
+	}
+	
+	private RecordOutputEmitter(ShipStrategyType strategy, TypeComparator<Record> comparator, DataDistribution distr,
+			RangeBoundaries<Record> boundaries)
+	{
 		if (strategy == null) { 
 			throw new NullPointerException();
 		}
@@ -79,6 +98,7 @@ public class RecordOutputEmitter implements ChannelSelector<Record> {
 		this.strategy = strategy;
 		this.comparator = comparator;
 		this.distribution = distr;
+		this.rangeBoundaries = boundaries;
 		
 		switch (strategy) {
 		case FORWARD:
@@ -94,8 +114,8 @@ public class RecordOutputEmitter implements ChannelSelector<Record> {
 			throw new IllegalArgumentException("Invalid shipping strategy for OutputEmitter: " + strategy.name());
 		}
 		
-		if ((strategy == ShipStrategyType.PARTITION_RANGE) && distr == null) {
-			throw new NullPointerException("Data distribution must not be null when the ship strategy is range partitioning.");
+		if ((strategy == ShipStrategyType.PARTITION_RANGE) && distr == null && boundaries == null) {
+			throw new NullPointerException("Data distribution or range boundaries must not be null when the ship strategy is range partitioning.");
 		}
 	}
 
@@ -160,6 +180,12 @@ public class RecordOutputEmitter implements ChannelSelector<Record> {
 	}
 	
 	private final int[] rangePartition(final Record record, int numberOfChannels) {
+		if (this.rangeBoundaries != null) {
+			this.comparator.setReference(record);
+			this.channels[0] = this.rangeBoundaries.getPartition(this.comparator, numberOfChannels);
+			return this.channels;
+		}
+		
 		if (this.partitionBoundaries == null) {
 			this.partitionBoundaries = new Key[numberOfChannels - 1][];
 			for (int i = 0; i < numberOfChannels - 1; i++) {
@@ -29,7 +29,7 @@ import eu.stratosphere.util.MutableObjectIterator;
 /**
  * 
  */
-public final class FixedLengthRecordSorter<T> implements InMemorySorter<T> {
+public final class FixedLengthRecordSorter<T> implements InMemorySorter<T>, NormalizedKeySortable {
 	
 	private static final int MIN_REQUIRED_BUFFERS = 3;
 
@@ -303,6 +303,28 @@ public final class FixedLengthRecordSorter<T> implements InMemorySorter<T> {
 	public int size() {
 		return this.numRecords;
 	}
+	
+	@Override
+	public int getNumNormalizedKeyBytes() {
+		return this.numKeyBytes;
+	}
+	
+	/**
+	 * Always true, as this sorter orders the records by their normalized keys only.
+	 */
+	@Override
+	public boolean isNormalizedKeyFullyDetermining() {
+		return true;
+	}
+	
+	@Override
+	public int getNormalizedKeyByte(int i, int b) {
+		final int bufferNum = i / this.recordsPerSegment;
+		final int segmentOffset = (i % this.recordsPerSegment) * this.recordSize;
+		
+		final int val = this.sortBuffer.get(bufferNum).get(segmentOffset + b) & 0xff;
+		return this.useNormKeyUninverted ? val : 0xff - val;
+	}
 
 	// -------------------------------------------------------------------------
 	
@@ -14,7 +14,6 @@
 package eu.stratosphere.pact.runtime.sort;
 
 import java.io.IOException;
-import java.util.Comparator;
 import java.util.List;
 
 import eu.stratosphere.api.common.typeutils.TypeComparator;
@@ -24,40 +23,50 @@ import eu.stratosphere.util.MutableObjectIterator;
 /**
  * An iterator that returns a sorted merge of the sequences of elements from a
  * set of iterators, assuming those sequences are ordered themselves.
- * The iterators to be merged are kept internally as a heap, making each access
- * to the next smallest element logarithmic in complexity, with respect to the
- * number of streams to be merged.
+ * The iterators to be merged are kept internally in a loser tree (a tournament tree
+ * that records the loser of every match), making each access to the next smallest
+ * element logarithmic in complexity, with respect to the number of streams to be merged.
+ * Other than a heap, the loser tree needs only one comparison per tree level to replace
+ * the returned element, because the new head of a stream is only played against the
+ * losers on its path to the root.
  * The order among the elements is established using the methods from the
- * {@link TypeSerializer} class, specifically {@link TypeSerializer#setReference(Object)}
- * and {@link TypeSerializer#compareToReference(TypeSerializer)}.
+ * {@link TypeComparator} class, specifically {@link TypeComparator#setReference(Object)}
+ * and {@link TypeComparator#compareToReference(TypeComparator)}.
  * 
- * @see TypeSerializer
- * @see TypeSerializer#setReference(Object)
- * @see TypeSerializer#compareToReference(TypeSerializer)
+ * @see TypeComparator
+ * @see TypeComparator#setReference(Object)
+ * @see TypeComparator#compareToReference(TypeComparator)
  * 
  */
 public class MergeIterator<E> implements MutableObjectIterator<E>
 {
-	private final PartialOrderPriorityQueue<HeadStream<E>> heap;	// heap over the head elements of the stream
+	private final HeadStream<E>[] streams;		// the streams, the leaves of the tree
+	
+	private final int[] losers;					// the loser of the match at each inner node, the root is node 1
 	
 	private final TypeSerializer<E> serializer;
 	
+	private int winner;							// the stream holding the overall smallest head
+	
 	/**
 	 * @param iterators
 	 * @param accessors The accessors used to establish an order among the elements.
 	 *                  The accessors will not be used directly, but a duplicate will be used.
 	 * @throws IOException
 	 */
+	@SuppressWarnings("unchecked")
 	public MergeIterator(List<MutableObjectIterator<E>> iterators,
 			TypeSerializer<E> serializer, TypeComparator<E> comparator)
 	throws IOException
 	{
-		this.heap = new PartialOrderPriorityQueue<HeadStream<E>>(new HeadStreamComparator<E>(), iterators.size());
+		this.streams = new HeadStream[iterators.size()];
+		this.losers = new int[iterators.size()];
 		this.serializer = serializer;
 		
-		for (MutableObjectIterator<E> iterator : iterators) {
-			this.heap.add(new HeadStream<E>(iterator, serializer, comparator.duplicate()));
+		for (int i = 0; i < this.streams.length; i++) {
+			this.streams[i] = new HeadStream<E>(iterators.get(i), serializer, comparator.duplicate());
 		}
+		this.winner = this.streams.length > 0 ? play(1) : -1;
 	}
 
 	/**
@@ -74,21 +83,64 @@ public class MergeIterator<E> implements MutableObjectIterator<E>
 	@Override
 	public E next(E reuse) throws IOException
 	{
-		if (this.heap.size() > 0) {
-			// get the smallest element
-			final HeadStream<E> top = this.heap.peek();
-			reuse = this.serializer.copy(top.getHead(), reuse);
-			
-			// read an element
-			if (!top.nextHead()) {
-				this.heap.poll();
-			} else {
-				this.heap.adjustTop();
+		if (this.winner == -1 || this.streams[this.winner].isExhausted()) {
+			return null;
+		}
+		
+		// get the smallest element
+		final HeadStream<E> top = this.streams[this.winner];
+		reuse = this.serializer.copy(top.getHead(), reuse);
+		
+		// read an element and replay the matches on the path to the root
+		top.nextHead();
+		int w = this.winner;
+		for (int node = (w + this.streams.length) >>> 1; node > 0; node >>>= 1) {
+			final int challenger = this.losers[node];
+			if (beats(challenger, w)) {
+				this.losers[node] = w;
+				w = challenger;
 			}
-			return reuse;
 		}
-		else {
-			return null;
+		this.winner = w;
+		return reuse;
+	}
+	
+	/**
+	 * Plays all matches in the subtree below the given node, recording the losers.
+	 * Node <code>i</code> has the children <code>2i</code> and <code>2i + 1</code>, where
+	 * the nodes from <code>n</code> to <code>2n - 1</code> are the leaves for the <code>n</code> streams.
+	 * 
+	 * @param node The root of the subtree.
+	 * @return The stream that wins the subtree.
+	 */
+	private int play(int node) {
+		if (node >= this.streams.length) {
+			return node - this.streams.length;
+		}
+		final int left = play(node << 1);
+		final int right = play((node << 1) + 1);
+		if (beats(left, right)) {
+			this.losers[node] = right;
+			return left;
+		} else {
+			this.losers[node] = left;
+			return right;
+		}
+	}
+	
+	/**
+	 * Checks whether the head of stream <code>a</code> is strictly smaller than that of stream
+	 * <code>b</code>. Exhausted streams lose against all others.
+	 */
+	private boolean beats(int a, int b) {
+		final HeadStream<E> sa = this.streams[a];
+		final HeadStream<E> sb = this.streams[b];
+		if (sa.isExhausted()) {
+			return false;
+		} else if (sb.isExhausted()) {
+			return true;
+		} else {
+			return sb.comparator.compareToReference(sa.comparator) < 0;
 		}
 	}
 
@@ -119,6 +171,10 @@ public class MergeIterator<E> implements MutableObjectIterator<E>
 		public E getHead() {
 			return this.head;
 		}
+		
+		public boolean isExhausted() {
+			return this.head == null;
+		}
 
 		public boolean nextHead() throws IOException
 		{
@@ -131,15 +187,4 @@ public class MergeIterator<E> implements MutableObjectIterator<E>
 			}
 		}
 	}
-
-	// --------------------------------------------------------------------------------------------
-	
-	private static final class HeadStreamComparator<E> implements Comparator<HeadStream<E>>
-	{		
-		@Override
-		public int compare(HeadStream<E> o1, HeadStream<E> o2)
-		{
-			return o2.comparator.compareToReference(o1.comparator);
-		}
-	}
 }
@@ -0,0 +1,107 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.sort;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import eu.stratosphere.pact.runtime.sort.UnilateralSortMerger.ChannelWithBlockCount;
+
+/**
+ * Plans the intermediate merges that reduce a number of sorted runs to at most as many runs as can be merged
+ * at once (the fan-in), such that the number of blocks that are written and read again is minimal.
+ * <p>
+ * The planner always merges the smallest runs. The first merge takes only as many runs as are needed for
+ * all subsequent merges, including the final one, to take exactly fan-in many runs. This is the optimal merge
+ * pattern known from Huffman trees: large runs are re-read as rarely as possible, and the final merge reads
+ * as many runs as possible directly.
+ */
+final class MergePlanner {
+	
+	private static final Comparator<ChannelWithBlockCount> SMALLEST_FIRST = new Comparator<ChannelWithBlockCount>() {
+		@Override
+		public int compare(ChannelWithBlockCount o1, ChannelWithBlockCount o2) {
+			return o1.getBlockCount() < o2.getBlockCount() ? -1 : o1.getBlockCount() == o2.getBlockCount() ? 0 : 1;
+		}
+	};
+	
+	private final PriorityQueue<ChannelWithBlockCount> runs;
+	
+	private final int fanIn;
+	
+	private boolean firstMerge = true;
+	
+	/**
+	 * Creates a planner for the given runs.
+	 * 
+	 * @param runs The sorted runs to be merged.
+	 * @param fanIn The maximal number of runs to merge at once. Must be at least two.
+	 */
+	MergePlanner(List<ChannelWithBlockCount> runs, int fanIn) {
+		if (fanIn < 2) {
+			throw new IllegalArgumentException("The fan-in must be at least two.");
+		}
+		this.runs = new PriorityQueue<ChannelWithBlockCount>(Math.max(runs.size(), 1), SMALLEST_FIRST);
+		this.runs.addAll(runs);
+		this.fanIn = fanIn;
+	}
+	
+	/**
+	 * Removes the runs for the next intermediate merge from the plan. The run produced by merging them
+	 * must be handed back via {@link #addRun(ChannelWithBlockCount)} before the next merge is planned.
+	 * 
+	 * @return The runs to merge next, or null, if the remaining runs can be merged in a single final merge.
+	 */
+	List<ChannelWithBlockCount> nextMerge() {
+		final int numRuns = this.runs.size();
+		if (numRuns <= this.fanIn) {
+			return null;
+		}
+		
+		int numToMerge = this.fanIn;
+		if (this.firstMerge) {
+			// every merge reduces the number of runs by (fanIn - 1). the first merge takes the
+			// remainder, such that the final merge ends up with exactly fanIn runs.
+			final int remainder = (numRuns - 1) % (this.fanIn - 1);
+			numToMerge = remainder == 0 ? this.fanIn : remainder + 1;
+			this.firstMerge = false;
+		}
+		
+		final List<ChannelWithBlockCount> toMerge = new ArrayList<ChannelWithBlockCount>(numToMerge);
+		for (int i = 0; i < numToMerge; i++) {
+			toMerge.add(this.runs.poll());
+		}
+		return toMerge;
+	}
+	
+	/**
+	 * Adds a run that was produced by a merge back to the plan.
+	 * 
+	 * @param run The merged run.
+	 */
+	void addRun(ChannelWithBlockCount run) {
+		this.runs.add(run);
+	}
+	
+	/**
+	 * Gets the runs that remain for the final merge.
+	 * 
+	 * @return The remaining runs.
+	 */
+	List<ChannelWithBlockCount> getRuns() {
+		return new ArrayList<ChannelWithBlockCount>(this.runs);
+	}
+}
@@ -0,0 +1,50 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.sort;
+
+/**
+ * An {@link IndexedSortable} whose order is given by a fixed-length binary normalized key per element. Such
+ * sortables can be sorted with a {@link RadixSort}, which distributes the elements by the individual key bytes
+ * rather than comparing them pairwise.
+ */
+public interface NormalizedKeySortable extends IndexedSortable {
+
+	/**
+	 * Gets the number of normalized key bytes per element. A value of zero means that the elements have no
+	 * normalized key and can only be sorted by comparison.
+	 * 
+	 * @return The number of normalized key bytes per element.
+	 */
+	int getNumNormalizedKeyBytes();
+	
+	/**
+	 * Checks whether the normalized key alone determines the order of the elements. If not, elements with
+	 * equal normalized keys must be ordered through {@link #compare(int, int)}.
+	 * 
+	 * @return True, if the normalized key fully determines the order, false if it is only a prefix.
+	 */
+	boolean isNormalizedKeyFullyDetermining();
+	
+	/**
+	 * Gets a byte of the normalized key of the element at the given position, as an unsigned value in the
+	 * range <code>[0, 255]</code>. The value is already adjusted for the sort direction, i.e. for every two
+	 * elements whose keys differ first in byte <code>b</code>, the element with the smaller value for
+	 * <code>b</code> is sorted first.
+	 * 
+	 * @param i The position of the element.
+	 * @param b The index of the key byte, between <code>0</code> and {@link #getNumNormalizedKeyBytes()}.
+	 * @return The unsigned key byte, adjusted for the sort direction.
+	 */
+	int getNormalizedKeyByte(int i, int b);
+}
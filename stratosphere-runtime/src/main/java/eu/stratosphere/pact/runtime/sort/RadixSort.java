@@ -0,0 +1,130 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.sort;
+
+/**
+ * An in-place MSD radix sort (American flag sort) over the normalized keys of a {@link NormalizedKeySortable}.
+ * Each pass distributes a range of elements into 256 buckets by one key byte, using only
+ * {@link IndexedSortable#swap(int, int)}, and then recurses into the buckets with the next byte. Small ranges
+ * and ranges whose normalized keys are exhausted without determining the order are finished with a
+ * {@link QuickSort}. Sortables without a normalized key are sorted entirely by the quick sort.
+ * <p>
+ * The sorter keeps no state between calls and may be shared by concurrently sorting threads.
+ */
+public final class RadixSort implements IndexedSorter {
+	
+	/** Ranges with fewer elements are sorted by comparison, where bucket counting does not pay off. */
+	private static final int COMPARISON_SORT_THRESHOLD = 64;
+	
+	private static final int NUM_BUCKETS = 256;
+	
+	private static final IndexedSorter fallback = new QuickSort();
+	
+	public RadixSort() {
+	}
+	
+	/**
+	 * Checks whether the given sortable is sorted faster by a radix sort than by the quick sort. That is the
+	 * case if it has a normalized key that fully determines the order of its elements.
+	 * 
+	 * @param s The sortable to check.
+	 * @return True, if the radix sort is applicable, false otherwise.
+	 */
+	public static boolean isApplicable(IndexedSortable s) {
+		if (s instanceof NormalizedKeySortable) {
+			final NormalizedKeySortable nks = (NormalizedKeySortable) s;
+			return nks.getNumNormalizedKeyBytes() > 0 && nks.isNormalizedKeyFullyDetermining();
+		}
+		return false;
+	}
+
+	@Override
+	public void sort(IndexedSortable s, int p, int r) {
+		if (s instanceof NormalizedKeySortable) {
+			final NormalizedKeySortable nks = (NormalizedKeySortable) s;
+			final int numKeyBytes = nks.getNumNormalizedKeyBytes();
+			if (numKeyBytes > 0) {
+				sortInternal(nks, p, r, 0, numKeyBytes, nks.isNormalizedKeyFullyDetermining());
+				return;
+			}
+		}
+		fallback.sort(s, p, r);
+	}
+
+	@Override
+	public void sort(IndexedSortable s) {
+		sort(s, 0, s.size());
+	}
+	
+	private static void sortInternal(NormalizedKeySortable s, int p, int r, int keyByte, int numKeyBytes,
+			boolean fullyDetermining)
+	{
+		final int[] counts = new int[NUM_BUCKETS];
+		
+		// skip all bytes on which the range does not differ, without recursing
+		while (true) {
+			if (r - p < COMPARISON_SORT_THRESHOLD) {
+				// the comparison considers the complete key, so the equal prefix does not harm
+				fallback.sort(s, p, r);
+				return;
+			}
+			if (keyByte == numKeyBytes) {
+				if (!fullyDetermining) {
+					fallback.sort(s, p, r);
+				}
+				return;
+			}
+			
+			for (int i = p; i < r; i++) {
+				counts[s.getNormalizedKeyByte(i, keyByte)]++;
+			}
+			if (counts[s.getNormalizedKeyByte(p, keyByte)] == r - p) {
+				counts[s.getNormalizedKeyByte(p, keyByte)] = 0;
+				keyByte++;
+			} else {
+				break;
+			}
+		}
+		
+		// compute the bucket boundaries
+		final int[] heads = new int[NUM_BUCKETS];
+		final int[] tails = new int[NUM_BUCKETS];
+		for (int b = 0, pos = p; b < NUM_BUCKETS; b++) {
+			heads[b] = pos;
+			pos += counts[b];
+			tails[b] = pos;
+		}
+		
+		// permute the elements into their buckets, cycle by cycle
+		for (int b = 0; b < NUM_BUCKETS; b++) {
+			while (heads[b] < tails[b]) {
+				final int v = s.getNormalizedKeyByte(heads[b], keyByte);
+				if (v == b) {
+					heads[b]++;
+				} else {
+					s.swap(heads[b], heads[v]++);
+				}
+			}
+		}
+		
+		// sort the buckets by the next key byte
+		for (int b = 0, pos = p; b < NUM_BUCKETS; b++) {
+			final int end = pos + counts[b];
+			if (end - pos > 1) {
+				sortInternal(s, pos, end, keyByte + 1, numKeyBytes, fullyDetermining);
+			}
+			pos = end;
+		}
+	}
+}
@@ -23,7 +23,10 @@ import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -124,6 +127,11 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	 */
 	protected final MemoryManager memoryManager;
 	
+	/**
+	 * The number of threads that sort buffers concurrently.
+	 */
+	protected final int numSortThreads;
+	
 	// ------------------------------------------------------------------------
 	//                            Miscellaneous Fields
 	// ------------------------------------------------------------------------
@@ -225,6 +233,39 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			totalMemory, numSortBuffers, maxNumFileHandles, startSpillingFraction, false);
 	}
 	
+	/**
+	 * Creates a new sorter that reads the data from a given reader and provides an iterator returning that
+	 * data in a sorted manner. The memory is divided among sort buffers, write buffers and read buffers
+	 * automatically. Up to the given number of sort buffers are sorted concurrently.
+	 * 
+	 * @param memoryManager The memory manager from which to allocate the memory.
+	 * @param ioManager The I/O manager, which is used to write temporary files to disk.
+	 * @param input The input that is sorted by this sorter.
+	 * @param parentTask The parent task, which owns all resources used by this sorter.
+	 * @param serializerFactory The type serializer.
+	 * @param comparator The type comparator establishing the order relation.
+	 * @param totalMemory The total amount of memory dedicated to sorting, merging and I/O.
+	 * @param numSortBuffers The number of distinct buffers to use creation of the initial runs.
+	 * @param numSortThreads The number of threads that sort buffers concurrently.
+	 * @param maxNumFileHandles The maximum number of files to be merged at once.
+	 * @param startSpillingFraction The faction of the buffers that have to be filled before the spilling thread
+	 *                              actually begins spilling data to disk.
+	 * 
+	 * @throws IOException Thrown, if an error occurs initializing the resources for external sorting.
+	 * @throws MemoryAllocationException Thrown, if not enough memory can be obtained from the memory manager to
+	 *                                   perform the sort.
+	 */
+	public UnilateralSortMerger(MemoryManager memoryManager, IOManager ioManager,
+			MutableObjectIterator<E> input, AbstractInvokable parentTask, 
+			TypeSerializerFactory<E> serializerFactory, TypeComparator<E> comparator,
+			long totalMemory, int numSortBuffers, int numSortThreads, int maxNumFileHandles, 
+			float startSpillingFraction)
+	throws IOException, MemoryAllocationException
+	{
+		this(memoryManager, ioManager, input, parentTask, serializerFactory, comparator,
+			totalMemory, numSortBuffers, numSortThreads, maxNumFileHandles, startSpillingFraction, false);
+	}
+	
 	/**
 	 * Internal constructor and constructor for subclasses that want to circumvent the spilling.
 	 * 
@@ -252,6 +293,40 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			long totalMemory, int numSortBuffers, int maxNumFileHandles, 
 			float startSpillingFraction, boolean noSpillingMemory)
 	throws IOException, MemoryAllocationException
+	{
+		this(memoryManager, ioManager, input, parentTask, serializerFactory, comparator,
+			totalMemory, numSortBuffers, 1, maxNumFileHandles, startSpillingFraction, noSpillingMemory);
+	}
+	
+	/**
+	 * Internal constructor and constructor for subclasses that want to circumvent the spilling and sort
+	 * multiple buffers concurrently.
+	 * 
+	 * @param memoryManager The memory manager from which to allocate the memory.
+	 * @param ioManager The I/O manager, which is used to write temporary files to disk.
+	 * @param input The input that is sorted by this sorter.
+	 * @param parentTask The parent task, which owns all resources used by this sorter.
+	 * @param serializerFactory The type serializer.
+	 * @param comparator The type comparator establishing the order relation.
+	 * @param totalMemory The total amount of memory dedicated to sorting, merging and I/O.
+	 * @param numSortBuffers The number of distinct buffers to use creation of the initial runs.
+	 * @param numSortThreads The number of threads that sort buffers concurrently.
+	 * @param maxNumFileHandles The maximum number of files to be merged at once.
+	 * @param startSpillingFraction The faction of the buffers that have to be filled before the spilling thread
+	 *                              actually begins spilling data to disk.
+	 * @param noSpilling When set to true, no memory will be allocated for writing and no spilling thread
+	 *                   will be spawned.
+	 * 
+	 * @throws IOException Thrown, if an error occurs initializing the resources for external sorting.
+	 * @throws MemoryAllocationException Thrown, if not enough memory can be obtained from the memory manager to
+	 *                                   perform the sort.
+	 */
+	protected UnilateralSortMerger(MemoryManager memoryManager, IOManager ioManager,
+			MutableObjectIterator<E> input, AbstractInvokable parentTask, 
+			TypeSerializerFactory<E> serializerFactory, TypeComparator<E> comparator,
+			long totalMemory, int numSortBuffers, int numSortThreads, int maxNumFileHandles, 
+			float startSpillingFraction, boolean noSpillingMemory)
+	throws IOException, MemoryAllocationException
 	{
 		// sanity checks
 		if (memoryManager == null | (ioManager == null && !noSpillingMemory) | serializerFactory == null | comparator == null) {
@@ -263,8 +338,12 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		if (maxNumFileHandles < 2) {
 			throw new IllegalArgumentException("Merger cannot work with less than two file handles.");
 		}
+		if (numSortThreads < 1) {
+			throw new IllegalArgumentException("Sorter cannot work with less than one sorting thread.");
+		}
 		
 		this.memoryManager = memoryManager;
+		this.numSortThreads = numSortThreads;
 		
 		// adjust the memory quotas to the page size
 		final int numPagesTotal = memoryManager.computeNumberOfPages(totalMemory);
@@ -319,13 +398,19 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			else {
 				numSortBuffers = 1;
 			}
+			
+			// keep the sorting threads busy while the reading thread fills another buffer
+			if (numSortThreads > 1) {
+				numSortBuffers = Math.max(numSortBuffers,
+					Math.min(numSortThreads + 1, sortMemPages / MIN_NUM_SORT_MEM_SEGMENTS));
+			}
 		}
 		final int numSegmentsPerSortBuffer = sortMemPages / numSortBuffers;
 		
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("Instantiating sorter with " + sortMemPages + " pages of sorting memory (=" +
 				sortMemory + " bytes total) divided over " + numSortBuffers + " sort buffers (" + 
-				numSegmentsPerSortBuffer + " pages per buffer). Using " + numWriteBuffers + 
+				numSegmentsPerSortBuffer + " pages per buffer, sorted by " + numSortThreads + " thread(s)). Using " + numWriteBuffers + 
 				" buffers for writing sorted results and merging maximally " + maxNumFileHandles +
 				" streams at once.");
 		}
@@ -581,7 +666,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	protected ThreadBase<E> getSortingThread(ExceptionHandler<IOException> exceptionHandler, CircularQueues<E> queues,
 			AbstractInvokable parentTask)
 	{
-		return new SortingThread<E>(exceptionHandler, queues, parentTask);
+		return new SortingThread<E>(exceptionHandler, queues, parentTask, this.numSortThreads);
 	}
 
 
@@ -1078,6 +1163,20 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	protected static class SortingThread<E> extends ThreadBase<E> {
 		
 		private final IndexedSorter sorter;
+		
+		private final IndexedSorter radixSorter;
+		
+		/**
+		 * The threads sorting the buffers, if multiple buffers are sorted concurrently.
+		 */
+		private final ExecutorService sortExecutor;
+		
+		/**
+		 * The number of buffers handed to the sort executor that have not been passed on to the spilling thread.
+		 */
+		private int numBuffersInSort;
+		
+		private final Object sortLock = new Object();
 
 		/**
 		 * Creates a new sorting thread.
@@ -1088,10 +1187,41 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		 */
 		public SortingThread(ExceptionHandler<IOException> exceptionHandler, CircularQueues<E> queues,
 				AbstractInvokable parentTask) {
+			this(exceptionHandler, queues, parentTask, 1);
+		}
+		
+		/**
+		 * Creates a new sorting thread that sorts up to the given number of buffers concurrently. The buffers are
+		 * passed on to the spilling thread as soon as they are sorted, the markers after all buffers queued before
+		 * them.
+		 * 
+		 * @param exceptionHandler The exception handler to call for all exceptions.
+		 * @param queues The queues used to pass buffers between the threads.
+		 * @param parentTask The task that started this thread. If non-null, it is used to register this thread.
+		 * @param numSortThreads The number of buffers to sort concurrently.
+		 */
+		public SortingThread(ExceptionHandler<IOException> exceptionHandler, CircularQueues<E> queues,
+				AbstractInvokable parentTask, final int numSortThreads) {
 			super(exceptionHandler, "SortMerger sorting thread", queues, parentTask);
 
 			// members
 			this.sorter = new QuickSort();
+			this.radixSorter = new RadixSort();
+			
+			if (numSortThreads > 1) {
+				this.sortExecutor = Executors.newFixedThreadPool(numSortThreads, new ThreadFactory() {
+					private int num;
+					
+					@Override
+					public Thread newThread(Runnable r) {
+						final Thread t = new Thread(r, "SortMerger sorting thread #" + (++this.num));
+						t.setDaemon(true);
+						return t;
+					}
+				});
+			} else {
+				this.sortExecutor = null;
+			}
 		}
 
 		/**
@@ -1122,24 +1252,99 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				}
 
 				if (element != EOF_MARKER && element != SPILLING_MARKER) {
-					if (LOG.isDebugEnabled()) {
-						LOG.debug("Sorting buffer " + element.id + ".");
+					if (this.sortExecutor != null) {
+						sortConcurrently(element);
+						continue;
 					}
 					
-					this.sorter.sort(element.buffer);
+					sort(element);
+				}
+				else {
+					// the markers must not overtake the buffers that are still being sorted
+					if (!waitForBuffersInSort()) {
+						return;
+					}
 					
-					if (LOG.isDebugEnabled()) {
-						LOG.debug("Sorted buffer " + element.id + ".");
+					if (element == EOF_MARKER) {
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("Sorting thread done.");
+						}
+						if (this.sortExecutor != null) {
+							this.sortExecutor.shutdown();
+						}
+						alive = false;
 					}
 				}
-				else if (element == EOF_MARKER) {
-					if (LOG.isDebugEnabled()) {
-						LOG.debug("Sorting thread done.");
+				this.queues.spill.add(element);
+			}
+		}
+		
+		@Override
+		public void shutdown() {
+			super.shutdown();
+			
+			if (this.sortExecutor != null) {
+				this.sortExecutor.shutdownNow();
+			}
+		}
+		
+		private void sort(CircularElement<E> element) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Sorting buffer " + element.id + ".");
+			}
+			
+			(RadixSort.isApplicable(element.buffer) ? this.radixSorter : this.sorter).sort(element.buffer);
+			
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Sorted buffer " + element.id + ".");
+			}
+		}
+		
+		private void sortConcurrently(final CircularElement<E> element) {
+			synchronized (this.sortLock) {
+				this.numBuffersInSort++;
+			}
+			
+			this.sortExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						sort(element);
+						SortingThread.this.queues.spill.add(element);
+					}
+					catch (Throwable t) {
+						internalHandleException(new IOException("Thread '" + Thread.currentThread().getName() +
+							"' terminated due to an exception: " + t.getMessage(), t));
+					}
+					finally {
+						synchronized (SortingThread.this.sortLock) {
+							SortingThread.this.numBuffersInSort--;
+							SortingThread.this.sortLock.notifyAll();
+						}
+					}
+				}
+			});
+		}
+		
+		/**
+		 * Waits until all buffers handed to the sort executor have been passed on to the spilling thread.
+		 * 
+		 * @return False, if the thread was shut down while waiting, true otherwise.
+		 */
+		private boolean waitForBuffersInSort() {
+			synchronized (this.sortLock) {
+				while (this.numBuffersInSort > 0) {
+					try {
+						this.sortLock.wait();
+					}
+					catch (InterruptedException iex) {
+						if (!isRunning()) {
+							return false;
+						}
 					}
-					alive = false;
 				}
-				this.queues.spill.add(element);
 			}
+			return true;
 		}
 	}
 
@@ -1163,8 +1368,6 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		
 		protected final int maxNumFileHandles;
 		
-		protected final int numWriteBuffersToCluster;
-		
 		/**
 		 * Creates the spilling thread.
 		 * 
@@ -1191,8 +1394,8 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			this.comparator = comparator;
 			this.sortReadMemory = sortReadMemory;
 			this.writeMemory = writeMemory;
-			this.maxNumFileHandles = maxNumFileHandles;
-			this.numWriteBuffersToCluster = writeMemory.size() >= 4 ? writeMemory.size() / 2 : 1;
+			// merge at most as many runs as can be read with at least two buffers each, to overlap reading and merging
+			this.maxNumFileHandles = Math.min(maxNumFileHandles, Math.max(2, sortReadMemory.size() / 2));
 		}
 
 		/**
@@ -1298,8 +1501,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				registerChannelToBeRemovedAtShudown(channel);
 
 				// create writer
-				final BlockChannelWriter writer = this.ioManager.createBlockChannelWriter(
-																channel, this.numWriteBuffersToCluster);
+				final BlockChannelWriter writer = this.ioManager.createSpillingBlockChannelWriter(channel);
 				registerOpenChannelToBeRemovedAtShudown(writer);
 				final ChannelWriterOutputView output = new ChannelWriterOutputView(writer, this.writeMemory,
 																			this.memManager.getPageSize());
@@ -1427,10 +1629,8 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				final ChannelWithBlockCount channel = channelIDs.get(i);
 				final List<MemorySegment> segsForChannel = inputSegments.get(i);
 				
-				// create a reader. if there are multiple segments for the reader, issue multiple together per I/O request
-				final BlockChannelReader reader = segsForChannel.size() >= 4 ? 
-					this.ioManager.createBlockChannelReader(channel.getChannel(), segsForChannel.size() / 2) :
-					this.ioManager.createBlockChannelReader(channel.getChannel());
+				// create a reader. the runs are written by spilling writers and may be compressed
+				final BlockChannelReader reader = this.ioManager.createSpillingBlockChannelReader(channel.getChannel());
 					
 				readerList.add(reader);
 				registerOpenChannelToBeRemovedAtShudown(reader);
@@ -1446,49 +1646,42 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		}
 
 		/**
-		 * Merges the given sorted runs to a smaller number of sorted runs. 
+		 * Merges the given sorted runs to at most {@code maxNumFileHandles} sorted runs. The intermediate merges
+		 * are planned by a {@link MergePlanner}, which always merges the smallest runs, such that as few blocks
+		 * as possible are written and read again.
 		 * 
 		 * @param channelIDs The IDs of the sorted runs that need to be merged.
+		 * @param allReadBuffers The buffers to be used by the readers.
 		 * @param writeBuffers The buffers to be used by the writers.
-		 * @param writeBufferSize The size of the write buffers.
-		 * @param  readMemorySize The amount of memory dedicated to the readers.
 		 * @return A list of the IDs of the merged channels.
 		 * @throws IOException Thrown, if the readers or writers encountered an I/O problem.
-		 * @throws MemoryAllocationException Thrown, if the specified memory is insufficient to merge the channels
-		 *                                   or if the memory manager could not provide the requested memory.
 		 */
 		protected final List<ChannelWithBlockCount> mergeChannelList(final List<ChannelWithBlockCount> channelIDs,
 					final List<MemorySegment> allReadBuffers, final List<MemorySegment> writeBuffers)
 		throws IOException
 		{
-			final double numMerges = Math.ceil(channelIDs.size() / ((double) this.maxNumFileHandles));
-			final int channelsToMergePerStep = (int) Math.ceil(channelIDs.size() / numMerges);
-			
-			// allocate the memory for the merging step
-			final List<List<MemorySegment>> readBuffers = new ArrayList<List<MemorySegment>>(channelsToMergePerStep);
-			getSegmentsForReaders(readBuffers, allReadBuffers, channelsToMergePerStep);
+			final MergePlanner planner = new MergePlanner(channelIDs, this.maxNumFileHandles);
+			final long startTime = System.currentTimeMillis();
+			int numMerges = 0;
+			long numBlocksMerged = 0;
 			
-			// the list containing the IDs of the merged channels
-			final ArrayList<ChannelWithBlockCount> mergedChannelIDs = new ArrayList<ChannelWithBlockCount>((int) (numMerges + 1));
-
-			final ArrayList<ChannelWithBlockCount> channelsToMergeThisStep = new ArrayList<ChannelWithBlockCount>(channelsToMergePerStep);
-			int channelNum = 0;
-			while (isRunning() && channelNum < channelIDs.size()) {
-				channelsToMergeThisStep.clear();
-
-				for (int i = 0; i < channelsToMergePerStep && channelNum < channelIDs.size(); i++, channelNum++) {
-					channelsToMergeThisStep.add(channelIDs.get(channelNum));
-				}
+			List<ChannelWithBlockCount> channelsToMergeThisStep;
+			while (isRunning() && (channelsToMergeThisStep = planner.nextMerge()) != null) {
+				final List<List<MemorySegment>> readBuffers = new ArrayList<List<MemorySegment>>(channelsToMergeThisStep.size());
+				getSegmentsForReaders(readBuffers, allReadBuffers, channelsToMergeThisStep.size());
 				
-				// merge only, if there is more than one channel
-				if (channelsToMergeThisStep.size() < 2)  {
-					mergedChannelIDs.addAll(channelsToMergeThisStep);
-				}
-				else {
-					mergedChannelIDs.add(mergeChannels(channelsToMergeThisStep, readBuffers, writeBuffers));
+				for (ChannelWithBlockCount channel : channelsToMergeThisStep) {
+					numBlocksMerged += channel.getBlockCount();
 				}
+				planner.addRun(mergeChannels(channelsToMergeThisStep, readBuffers, writeBuffers));
+				numMerges++;
 			}
 			
+			final List<ChannelWithBlockCount> mergedChannelIDs = planner.getRuns();
+			if (LOG.isInfoEnabled()) {
+				LOG.info("Reduced " + channelIDs.size() + " sorted runs to " + mergedChannelIDs.size() + " in " + numMerges + " intermediate merges of " + numBlocksMerged + " blocks, taking " +
+					(System.currentTimeMillis() - startTime) + " msecs.");
+			}
 			return mergedChannelIDs;
 		}
 
@@ -1514,8 +1707,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			// create a new channel writer
 			final Channel.ID mergedChannelID = this.ioManager.createChannel();
 			registerChannelToBeRemovedAtShudown(mergedChannelID);
-			final BlockChannelWriter writer = this.ioManager.createBlockChannelWriter(
-															mergedChannelID, this.numWriteBuffersToCluster);
+			final BlockChannelWriter writer = this.ioManager.createSpillingBlockChannelWriter(mergedChannelID);
 			registerOpenChannelToBeRemovedAtShudown(writer);
 			final ChannelWriterOutputView output = new ChannelWriterOutputView(writer, writeBuffers, 
 																			this.memManager.getPageSize());
@@ -0,0 +1,242 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.functions.GenericCoGrouper;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypePairComparatorFactory;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.pact.runtime.hash.MutableHashTable;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.pact.runtime.util.EmptyMutableObjectIterator;
+import eu.stratosphere.pact.runtime.util.KeyGroupedIterator;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * A co-group driver for iterations that indexes its first input once and keeps the index across all supersteps.
+ * In the first superstep, the records of the first input are inserted into a hash table in the driver's memory.
+ * In every superstep, each key group of the second input, which must arrive grouped by key, probes the table for
+ * the records of the first input with the same key. The work of a superstep is hence proportional to the size of the second input,
+ * rather than to the size of the (static) first input.
+ * <p>
+ * Different from the sort-based co-group, the function is called only for the keys that occur in the second input.
+ * The first input must fit into the memory of the driver.
+ */
+public class BuildFirstCachedCoGroupDriver<IT1, IT2, OT> implements ResettablePactDriver<GenericCoGrouper<IT1, IT2, OT>, OT> {
+	
+	private static final Log LOG = LogFactory.getLog(BuildFirstCachedCoGroupDriver.class);
+	
+	private PactTaskContext<GenericCoGrouper<IT1, IT2, OT>, OT> taskContext;
+	
+	private volatile MutableHashTable<IT1, IT2> hashTable;
+	
+	private TypeSerializer<IT1> buildSideSerializer;
+	
+	private TypeSerializer<IT2> probeSideSerializer;
+	
+	private TypeComparator<IT2> probeSideComparator;
+	
+	protected volatile boolean running;
+
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public void setup(PactTaskContext<GenericCoGrouper<IT1, IT2, OT>, OT> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+	
+	@Override
+	public int getNumberOfInputs() {
+		return 2;
+	}
+	
+	@Override
+	public Class<GenericCoGrouper<IT1, IT2, OT>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<GenericCoGrouper<IT1, IT2, OT>> clazz = (Class<GenericCoGrouper<IT1, IT2, OT>>) (Class<?>) GenericCoGrouper.class;
+		return clazz;
+	}
+	
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return true;
+	}
+	
+	@Override
+	public boolean isInputResettable(int inputNum) {
+		if (inputNum < 0 || inputNum > 1) {
+			throw new IndexOutOfBoundsException();
+		}
+		return inputNum == 0;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void initialize() throws Exception {
+		final TaskConfig config = this.taskContext.getTaskConfig();
+		
+		this.buildSideSerializer = this.taskContext.<IT1>getInputSerializer(0).getSerializer();
+		this.probeSideSerializer = this.taskContext.<IT2>getInputSerializer(1).getSerializer();
+		final TypeComparator<IT1> buildSideComparator = this.taskContext.getInputComparator(0);
+		final TypeComparator<IT2> probeSideComparator = this.taskContext.getInputComparator(1);
+		
+		// the grouping of the probe side needs its own comparator, because the hash table sets its references
+		this.probeSideComparator = probeSideComparator.duplicate();
+		
+		final TypePairComparatorFactory<IT1, IT2> pairComparatorFactory = 
+				config.getPairComparatorFactory(this.taskContext.getUserCodeClassLoader());
+		
+		final int numMemoryPages = this.taskContext.getMemoryManager().computeNumberOfPages(config.getMemoryDriver());
+		final List<MemorySegment> memSegments = this.taskContext.getMemoryManager().allocatePages(
+			this.taskContext.getOwningNepheleTask(), numMemoryPages);
+		
+		final long startTime = System.currentTimeMillis();
+		
+		final MutableHashTable<IT1, IT2> table = new MutableHashTable<IT1, IT2>(this.buildSideSerializer, this.probeSideSerializer,
+				buildSideComparator, probeSideComparator, pairComparatorFactory.createComparator21(buildSideComparator, probeSideComparator),
+				memSegments, this.taskContext.getIOManager());
+		this.hashTable = table;
+		table.open(this.taskContext.<IT1>getInput(0), EmptyMutableObjectIterator.<IT2>get());
+		
+		// the cached table is probed key by key, which works only if the whole first input is in memory
+		if (table.hasSpilledPartitions()) {
+			table.close();
+			throw new RuntimeException("The first input (the edges) exceeds the driver memory of " + config.getMemoryDriver() +
+				" bytes for the cached hash table. Increase the memory or disable the cached edge index (setCachedEdgeIndex).");
+		}
+		
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Built the cached hash table over the first input in " + 
+				(System.currentTimeMillis() - startTime) + " msecs."));
+		}
+	}
+
+	@Override
+	public void prepare() {
+		// the hash table is built once in the first superstep
+	}
+
+	@Override
+	public void run() throws Exception {
+		final GenericCoGrouper<IT1, IT2, OT> coGroupStub = this.taskContext.getStub();
+		final Collector<OT> collector = this.taskContext.getOutputCollector();
+		final MutableHashTable<IT1, IT2> table = this.hashTable;
+		
+		final KeyGroupedIterator<IT2> probeSideInput = new KeyGroupedIterator<IT2>(this.taskContext.<IT2>getInput(1),
+				this.probeSideSerializer, this.probeSideComparator);
+		final BuildSideIterator<IT1> buildSide = new BuildSideIterator<IT1>(this.buildSideSerializer);
+		
+		IT2 probeRecord = this.probeSideSerializer.createInstance();
+		
+		while (this.running && probeSideInput.nextKey()) {
+			// probe with a copy, because iterating over the group's values overwrites the current record
+			probeRecord = this.probeSideSerializer.copy(probeSideInput.getCurrent(), probeRecord);
+			buildSide.set(table.getMatchesFor(probeRecord));
+			coGroupStub.coGroup(buildSide, probeSideInput.getValues(), collector);
+		}
+	}
+
+	@Override
+	public void cleanup() {}
+	
+	@Override
+	public void reset() {}
+
+	@Override
+	public void teardown() {
+		MutableHashTable<?, ?> table = this.hashTable;
+		if (table != null) {
+			table.close();
+		}
+	}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+		MutableHashTable<?, ?> table = this.hashTable;
+		if (table != null) {
+			table.close();
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Iterator over the records of a hash bucket that match the probe record. The iterator is re-pointed to the
+	 * bucket of every probed key, such that no objects are created per key.
+	 */
+	private static final class BuildSideIterator<T> implements Iterator<T> {
+		
+		private MutableObjectIterator<T> bucket;
+		
+		private T current;
+		
+		private boolean currentIsAvailable;
+		
+		private BuildSideIterator(TypeSerializer<T> serializer) {
+			this.current = serializer.createInstance();
+		}
+		
+		private void set(MutableObjectIterator<T> bucket) {
+			this.bucket = bucket;
+			this.currentIsAvailable = false;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (this.currentIsAvailable) {
+				return true;
+			}
+			try {
+				T next = this.bucket.next(this.current);
+				if (next != null) {
+					this.current = next;
+					this.currentIsAvailable = true;
+					return true;
+				} else {
+					return false;
+				}
+			} catch (IOException ioex) {
+				throw new RuntimeException("Error reading the next record from the hash table: " + ioex.getMessage(), ioex);
+			}
+		}
+
+		@Override
+		public T next() {
+			if (this.currentIsAvailable || hasNext()) {
+				this.currentIsAvailable = false;
+				return this.current;
+			} else {
+				throw new NoSuchElementException();
+			}
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
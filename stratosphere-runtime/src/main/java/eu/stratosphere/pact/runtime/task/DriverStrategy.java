@@ -51,6 +51,10 @@ public enum DriverStrategy {
 	SORTED_REDUCE(ReduceDriver.class, null, PIPELINED, true),
 	// sorted partial reduce is the combiner for the Reduce. same function, but potentially not fully sorted
 	SORTED_PARTIAL_REDUCE(ReduceCombineDriver.class, null, MATERIALIZING, true),
+	// grouping the inputs in a hash table, reducing each record in place with the record of the same key
+	HASHED_REDUCE(HashReduceDriver.class, null, FULL_DAM, true),
+	// hashed partial reduce is the hash-based combiner for the Reduce. emits the table whenever it is full
+	HASHED_PARTIAL_REDUCE(HashReduceCombineDriver.class, null, MATERIALIZING, true),
 	
 	// grouping the inputs and apply the GroupReduce function
 	SORTED_GROUP_REDUCE(GroupReduceDriver.class, null, PIPELINED, true),
@@ -62,6 +66,8 @@ public enum DriverStrategy {
 
 	// co-grouping inputs
 	CO_GROUP(CoGroupDriver.class, null, PIPELINED, PIPELINED, true),
+	// co-grouping inside an iteration, probing a hash table over the static first input that is built only once
+	CO_GROUP_HASH_BUILD_FIRST_CACHED(BuildFirstCachedCoGroupDriver.class, null, FULL_DAM, PIPELINED, true),
 	
 	// the first input is build side, the second side is probe side of a hybrid hash table
 	HYBRIDHASH_BUILD_FIRST(MatchDriver.class, null, FULL_DAM, MATERIALIZING, true),
@@ -77,6 +83,11 @@ public enum DriverStrategy {
 	// the first input is inner loop, the second input is outer loop and stream-processed
 	NESTEDLOOP_STREAMED_OUTER_SECOND(CrossDriver.class, null, MATERIALIZING, PIPELINED, false),
 	
+	// reservoir sample of the input, the first step of a range partitioning without a given data distribution
+	SAMPLE(SampleDriver.class, null, FULL_DAM, false),
+	// sorts the samples and picks from them the boundaries of the range partitions
+	RANGE_BOUNDARIES(RangeBoundaryDriver.class, null, FULL_DAM, true),
+	
 	// union utility op. unions happen implicitly on the network layer (in the readers) when bundeling streams
 	UNION(null, null, FULL_DAM, FULL_DAM, false);
 	// explicit binary union between a streamed and a cached input
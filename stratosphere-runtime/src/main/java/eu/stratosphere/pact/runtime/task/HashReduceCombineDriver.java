@@ -0,0 +1,200 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.functions.GenericReduce;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.pact.runtime.hash.CompactingHashTable;
+import eu.stratosphere.pact.runtime.util.SameTypePairComparator;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * Combine operator for Reduce functions, standalone (not chained), that aggregates the records in a hash table.
+ * Each record is reduced in place with the record of the same key in the table, so the table holds one partially
+ * aggregated record per key. When the table is full, all of its records are emitted and the table starts over.
+ * Like the sort-based {@link ReduceCombineDriver}, it may produce multiple partially aggregated records per key.
+ * <p>
+ * The hash-based combiner is much faster than the sort-based one if the number of distinct keys is small.
+ * 
+ * @param <T> The data type consumed and produced by the combiner.
+ */
+public class HashReduceCombineDriver<T> implements PactDriver<GenericReduce<T>, T> {
+	
+	private static final Log LOG = LogFactory.getLog(HashReduceCombineDriver.class);
+	
+	
+	private PactTaskContext<GenericReduce<T>, T> taskContext;
+
+	private TypeSerializer<T> serializer;
+
+	private TypeComparator<T> comparator;
+	
+	private GenericReduce<T> reducer;
+	
+	private Collector<T> output;
+	
+	
+	private MemoryManager memManager;
+	
+	private CompactingHashTable<T> table;
+	
+	private CompactingHashTable<T>.HashTableProber<T> prober;
+	
+	
+	private volatile boolean running;
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void setup(PactTaskContext<GenericReduce<T>, T> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+	
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+
+	@Override
+	public Class<GenericReduce<T>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<GenericReduce<T>> clazz = (Class<GenericReduce<T>>) (Class<?>) GenericReduce.class;
+		return clazz;
+	}
+
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return true;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		if (this.taskContext.getTaskConfig().getDriverStrategy() != DriverStrategy.HASHED_PARTIAL_REDUCE) {
+			throw new Exception("Invalid strategy " + this.taskContext.getTaskConfig().getDriverStrategy() + " for hash reduce combiner.");
+		}
+		
+		this.memManager = this.taskContext.getMemoryManager();
+		final int numMemoryPages = this.memManager.computeNumberOfPages(this.taskContext.getTaskConfig().getMemoryDriver());
+		
+		// instantiate the serializer / comparator
+		this.serializer = this.taskContext.<T>getInputSerializer(0).getSerializer();
+		this.comparator = this.taskContext.getInputComparator(0);
+		this.reducer = this.taskContext.getStub();
+		this.output = this.taskContext.getOutputCollector();
+
+		final List<MemorySegment> memory = this.memManager.allocatePages(this.taskContext.getOwningNepheleTask(), numMemoryPages);
+		
+		// the combiner does not spill, it emits the contents of the table when the table is full
+		this.table = new CompactingHashTable<T>(this.serializer, this.comparator.duplicate(), memory);
+		this.prober = this.table.getProber(this.comparator.duplicate(), new SameTypePairComparator<T>(this.comparator));
+		this.table.open();
+	}
+
+	@Override
+	public void run() throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Hash combiner starting.");
+		}
+		
+		final MutableObjectIterator<T> in = this.taskContext.getInput(0);
+		final CompactingHashTable<T> table = this.table;
+		final CompactingHashTable<T>.HashTableProber<T> prober = this.prober;
+		final GenericReduce<T> function = this.reducer;
+		
+		T value = this.serializer.createInstance();
+		T match = this.serializer.createInstance();
+		
+		while (this.running && (value = in.next(value)) != null) {
+			if (prober.getMatchFor(value, match)) {
+				final T res = function.reduce(match, value);
+				try {
+					prober.updateMatch(res);
+				} catch (EOFException e) {
+					// the table is full and still holds the old aggregate for the key. the new aggregate
+					// replaces it in the output
+					flushTable(res);
+				}
+			} else {
+				try {
+					table.insert(value);
+				} catch (EOFException e) {
+					// the table is full, emit its contents and insert the record again
+					flushTable(null);
+					try {
+						table.insert(value);
+					} catch (EOFException ex) {
+						throw new IOException("Cannot write record to fresh hash table. Record too large.");
+					}
+				}
+			}
+		}
+		
+		// send the final batch
+		flushTable(null);
+	}
+	
+	/**
+	 * Emits all records of the hash table and resets the table. If a replacement record is given, it is
+	 * emitted instead of the table's record with the same key.
+	 * 
+	 * @param replacement The record that replaces the table's record with the same key, or null.
+	 */
+	private void flushTable(T replacement) throws Exception {
+		final Collector<T> output = this.output;
+		final TypeComparator<T> comparator = this.comparator;
+		
+		if (replacement != null) {
+			output.collect(replacement);
+			comparator.setReference(replacement);
+		}
+		
+		final MutableObjectIterator<T> entries = this.table.getEntryIterator();
+		T entry = this.serializer.createInstance();
+		
+		while (this.running && (entry = entries.next(entry)) != null) {
+			if (replacement == null || !comparator.equalToReference(entry)) {
+				output.collect(entry);
+			}
+		}
+		
+		this.table.close();
+		this.table.open();
+	}
+
+	@Override
+	public void cleanup() {
+		this.table.close();
+		this.memManager.release(this.table.getFreeMemory());
+	}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+		this.table.abort();
+		this.table.close();
+		this.memManager.release(this.table.getFreeMemory());
+	}
+}
@@ -0,0 +1,158 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.functions.GenericReduce;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.pact.runtime.hash.CompactingHashTable;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.pact.runtime.util.SameTypePairComparator;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * Reduce task which groups its input in a hash table instead of sorting it. Each record is reduced in place
+ * with the record of the same key in the table, so the table holds one aggregated record per key. After the
+ * input is consumed, the records of the table are the results of the reduce function.
+ * <p>
+ * The table spills its least recently used partitions to disk, if the aggregates do not fit into memory.
+ * 
+ * @see GenericReduce
+ * @see CompactingHashTable
+ */
+public class HashReduceDriver<T> implements PactDriver<GenericReduce<T>, T> {
+	
+	private static final Log LOG = LogFactory.getLog(HashReduceDriver.class);
+
+	private PactTaskContext<GenericReduce<T>, T> taskContext;
+	
+	private MutableObjectIterator<T> input;
+
+	private TypeSerializer<T> serializer;
+	
+	private MemoryManager memManager;
+	
+	private CompactingHashTable<T> table;
+	
+	private CompactingHashTable<T>.HashTableProber<T> prober;
+	
+	private volatile boolean running;
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void setup(PactTaskContext<GenericReduce<T>, T> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+	
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+
+	@Override
+	public Class<GenericReduce<T>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<GenericReduce<T>> clazz = (Class<GenericReduce<T>>) (Class<?>) GenericReduce.class;
+		return clazz;
+	}
+
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return true;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void prepare() throws Exception {
+		TaskConfig config = this.taskContext.getTaskConfig();
+		if (config.getDriverStrategy() != DriverStrategy.HASHED_REDUCE) {
+			throw new Exception("Unrecognized driver strategy for hash Reduce driver: " + config.getDriverStrategy().name());
+		}
+		this.serializer = this.taskContext.<T>getInputSerializer(0).getSerializer();
+		this.input = this.taskContext.getInput(0);
+		
+		final TypeComparator<T> comparator = this.taskContext.getInputComparator(0);
+		
+		this.memManager = this.taskContext.getMemoryManager();
+		final int numMemoryPages = this.memManager.computeNumberOfPages(config.getMemoryDriver());
+		final List<MemorySegment> memory = this.memManager.allocatePages(this.taskContext.getOwningNepheleTask(), numMemoryPages);
+		
+		this.table = new CompactingHashTable<T>(this.serializer, comparator.duplicate(), memory, this.taskContext.getIOManager());
+		this.prober = this.table.getProber(comparator.duplicate(), new SameTypePairComparator<T>(comparator));
+		this.table.open();
+	}
+
+	@Override
+	public void run() throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Hash reducer preprocessing done. Running Reducer code."));
+		}
+
+		// cache references on the stack
+		final MutableObjectIterator<T> input = this.input;
+		final CompactingHashTable<T> table = this.table;
+		final CompactingHashTable<T>.HashTableProber<T> prober = this.prober;
+		
+		final GenericReduce<T> function = this.taskContext.getStub();
+		
+		final Collector<T> output = this.taskContext.getOutputCollector();
+		
+		T value = this.serializer.createInstance();
+		T match = this.serializer.createInstance();
+		
+		// aggregate the input in the table
+		while (this.running && (value = input.next(value)) != null) {
+			if (prober.getMatchFor(value, match)) {
+				prober.updateMatch(function.reduce(match, value));
+			} else {
+				table.insert(value);
+			}
+		}
+		
+		if (LOG.isDebugEnabled() && table.getNumSpilledPartitions() > 0) {
+			LOG.debug(this.taskContext.formatLogString("Hash reducer spilled " + table.getNumSpilledPartitions() + " partitions."));
+		}
+		
+		// emit the aggregates
+		final MutableObjectIterator<T> results = table.getEntryIterator();
+		while (this.running && (value = results.next(value)) != null) {
+			output.collect(value);
+		}
+	}
+
+	@Override
+	public void cleanup() {
+		this.table.close();
+		this.memManager.release(this.table.getFreeMemory());
+	}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+		this.table.abort();
+		this.table.close();
+		this.memManager.release(this.table.getFreeMemory());
+	}
+}
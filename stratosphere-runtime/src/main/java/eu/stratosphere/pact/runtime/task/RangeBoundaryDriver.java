@@ -0,0 +1,143 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.functions.AbstractFunction;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.pact.runtime.task.util.WeightedSample;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * A driver that picks the boundaries of a range partitioning from a sample of the data. The driver
+ * collects the samples of all parallel {@link SampleDriver} instances, sorts them by the comparator
+ * of the range partitioning, and emits the <i>n - 1</i> records that split the sorted sample into
+ * <i>n</i> partitions of equal size, in ascending order. The size of a partition is the sum of the
+ * weights of its samples, such that the data of a large parallel instance is not under-represented
+ * by its sample. If the sample is empty, because the data is empty, no boundaries are emitted.
+ * 
+ * @param <T> The data type.
+ */
+public class RangeBoundaryDriver<T> implements PactDriver<AbstractFunction, T> {
+	
+	private static final Log LOG = LogFactory.getLog(RangeBoundaryDriver.class);
+	
+	private PactTaskContext<AbstractFunction, T> taskContext;
+	
+	private int numPartitions;
+	
+	private volatile boolean running;
+	
+	
+	@Override
+	public void setup(PactTaskContext<AbstractFunction, T> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+	
+	@Override
+	public Class<AbstractFunction> getStubType() {
+		return null;
+	}
+
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return true;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		final TaskConfig config = this.taskContext.getTaskConfig();
+		if (config.getDriverStrategy() != DriverStrategy.RANGE_BOUNDARIES) {
+			throw new Exception("Unrecognized driver strategy for Range Boundary driver: " + config.getDriverStrategy().name());
+		}
+		
+		this.numPartitions = config.getNumberOfRangePartitions();
+		if (this.numPartitions <= 0) {
+			throw new Exception("The number of range partitions has not been configured.");
+		}
+	}
+
+	@Override
+	public void run() throws Exception {
+		// cache references on the stack
+		final MutableObjectIterator<WeightedSample<T>> input = this.taskContext.getInput(0);
+		final TypeSerializer<WeightedSample<T>> serializer = this.taskContext.<WeightedSample<T>>getInputSerializer(0).getSerializer();
+		final TypeComparator<T> comparator = this.taskContext.getInputComparator(0);
+		
+		final ArrayList<WeightedSample<T>> samples = new ArrayList<WeightedSample<T>>();
+		double totalWeight = 0.0;
+		WeightedSample<T> sample;
+		while (this.running && ((sample = input.next(serializer.createInstance())) != null)) {
+			samples.add(sample);
+			totalWeight += sample.getWeight();
+		}
+		
+		if (!this.running || samples.isEmpty()) {
+			return;
+		}
+		
+		final TypeComparator<T> first = comparator;
+		final TypeComparator<T> second = comparator.duplicate();
+		Collections.sort(samples, new Comparator<WeightedSample<T>>() {
+			@Override
+			public int compare(WeightedSample<T> o1, WeightedSample<T> o2) {
+				first.setReference(o1.getRecord());
+				second.setReference(o2.getRecord());
+				return second.compareToReference(first);
+			}
+		});
+		
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Picking the boundaries of " + this.numPartitions + 
+				" range partitions from " + samples.size() + " samples."));
+		}
+		
+		// the i-th boundary is the last sample up to which the weights add up to at most i / n of the
+		// total weight, or the first sample, if that one alone weighs more
+		final Collector<T> output = this.taskContext.getOutputCollector();
+		double weight = samples.get(0).getWeight();
+		int pos = 0;
+		for (int i = 1; i < this.numPartitions; i++) {
+			final double limit = i * totalWeight / this.numPartitions;
+			while (pos + 1 < samples.size() && weight + samples.get(pos + 1).getWeight() <= limit) {
+				pos++;
+				weight += samples.get(pos).getWeight();
+			}
+			output.collect(samples.get(pos).getRecord());
+		}
+	}
+	
+	@Override
+	public void cleanup() {}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+	}
+}
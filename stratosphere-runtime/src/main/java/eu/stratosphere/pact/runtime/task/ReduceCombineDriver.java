@@ -27,8 +27,10 @@ import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.pact.runtime.sort.FixedLengthRecordSorter;
 import eu.stratosphere.pact.runtime.sort.InMemorySorter;
+import eu.stratosphere.pact.runtime.sort.IndexedSorter;
 import eu.stratosphere.pact.runtime.sort.NormalizedKeySorter;
 import eu.stratosphere.pact.runtime.sort.QuickSort;
+import eu.stratosphere.pact.runtime.sort.RadixSort;
 import eu.stratosphere.util.Collector;
 import eu.stratosphere.util.MutableObjectIterator;
 
@@ -62,7 +64,7 @@ public class ReduceCombineDriver<T> implements PactDriver<GenericReduce<T>, T> {
 	
 	private InMemorySorter<T> sorter;
 	
-	private QuickSort sortAlgo = new QuickSort();
+	private IndexedSorter sortAlgo;
 	
 	
 	private boolean running;
@@ -119,6 +121,7 @@ public class ReduceCombineDriver<T> implements PactDriver<GenericReduce<T>, T> {
 		} else {
 			this.sorter = new NormalizedKeySorter<T>(this.serializer, this.comparator.duplicate(), memory);
 		}
+		this.sortAlgo = RadixSort.isApplicable(this.sorter) ? new RadixSort() : new QuickSort();
 	}
 
 	@Override
@@ -28,6 +28,7 @@ import eu.stratosphere.nephele.execution.CancelTaskException;
 import eu.stratosphere.nephele.execution.Environment;
 import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
 import eu.stratosphere.runtime.io.api.ChannelSelector;
+import eu.stratosphere.runtime.io.api.BroadcastRecordWriter;
 import eu.stratosphere.runtime.io.api.RecordWriter;
 import eu.stratosphere.runtime.io.api.MutableReader;
 import eu.stratosphere.runtime.io.api.MutableRecordReader;
@@ -39,11 +40,15 @@ import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.template.AbstractInputTask;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.nephele.template.AbstractTask;
+import eu.stratosphere.pact.runtime.broadcast.BroadcastVariableKey;
+import eu.stratosphere.pact.runtime.broadcast.BroadcastVariableManager;
+import eu.stratosphere.pact.runtime.broadcast.BroadcastVariableMaterialization;
 import eu.stratosphere.pact.runtime.plugable.DeserializationDelegate;
 import eu.stratosphere.pact.runtime.plugable.SerializationDelegate;
 import eu.stratosphere.pact.runtime.resettable.SpillingResettableMutableObjectIterator;
 import eu.stratosphere.pact.runtime.shipping.OutputCollector;
 import eu.stratosphere.pact.runtime.shipping.OutputEmitter;
+import eu.stratosphere.pact.runtime.shipping.RangeBoundaries;
 import eu.stratosphere.pact.runtime.shipping.RecordOutputCollector;
 import eu.stratosphere.pact.runtime.shipping.RecordOutputEmitter;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
@@ -66,6 +71,7 @@ import org.apache.commons.logging.LogFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -206,6 +212,21 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 	 */
 	private int[] materializationMemory;
 
+	/**
+	 * The boundaries of the range partitioned outputs, which are read from broadcast variables.
+	 */
+	private List<RangeBoundaries<?>> rangeBoundaries;
+
+	/**
+	 * The broadcast variables that are currently shared with the other subtasks on the task manager, per broadcast input.
+	 */
+	private BroadcastVariableMaterialization<?>[] sharedBroadcastVariables;
+
+	/**
+	 * The number of times each broadcast input has been read. Iterative broadcast inputs are read once per superstep.
+	 */
+	private int[] broadcastInputReadCounts;
+
 	/**
 	 * The flag that tags the task as still running. Checked periodically to abort processing.
 	 */
@@ -365,6 +386,13 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 				final String name = this.config.getBroadcastInputName(i);
 				readAndSetBroadcastInput(i, name, this.runtimeUdfContext);
 			}
+			
+			// hand the range boundaries that were computed from a sample to the output emitters
+			if (this.rangeBoundaries != null) {
+				for (RangeBoundaries<?> boundaries : this.rangeBoundaries) {
+					setRangeBoundaries(boundaries);
+				}
+			}
 
 			// the work goes here
 			run();
@@ -372,6 +400,7 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 		finally {
 			// clean up in any case!
 			closeLocalStrategiesAndCaches();
+			releaseBroadcastVariables();
 		}
 
 		if (this.running) {
@@ -450,15 +479,78 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 		@SuppressWarnings("unchecked")
 		final TypeSerializer<X> serializer =  (TypeSerializer<X>) this.broadcastInputSerializers[inputNum].getSerializer();
 
+		X record = serializer.createInstance();
+
+		// share the variable with the other subtasks on this task manager, so that it is deserialized and held
+		// in memory only once. records are not shared, because they deserialize their fields lazily.
+		final BroadcastVariableManager manager = getEnvironment().getBroadcastVariableManager();
+		final String sharingId = this.config.getBroadcastVariablesSharingId();
+		if (manager != null && sharingId != null && !(record instanceof Record)) {
+			if (this.sharedBroadcastVariables == null) {
+				this.sharedBroadcastVariables = new BroadcastVariableMaterialization<?>[this.broadcastInputIterators.length];
+				this.broadcastInputReadCounts = new int[this.broadcastInputIterators.length];
+			}
+			
+			// release the variable of the previous superstep
+			if (this.sharedBroadcastVariables[inputNum] != null) {
+				manager.release(this.sharedBroadcastVariables[inputNum]);
+				this.sharedBroadcastVariables[inputNum] = null;
+			}
+			
+			final BroadcastVariableKey key = new BroadcastVariableKey(getEnvironment().getJobID(), sharingId,
+				inputNum, this.broadcastInputReadCounts[inputNum]++);
+			final BroadcastVariableMaterialization<X> variable = manager.acquire(key);
+			this.sharedBroadcastVariables[inputNum] = variable;
+			
+			context.setBroadcastVariable(bcVarName, variable.materializeOrWait(reader, serializer));
+			return;
+		}
+		
 		ArrayList<X> collection = new ArrayList<X>();
 		
-		X record = serializer.createInstance();
 		while (this.running && ((record = reader.next(record)) != null)) {
 			collection.add(record);
 			record = serializer.createInstance();
 		}
 		context.setBroadcastVariable(bcVarName, collection);
 	}
+	
+	/**
+	 * Releases the broadcast variables that this task shares with the other subtasks on the task manager.
+	 */
+	protected void releaseBroadcastVariables() {
+		if (this.sharedBroadcastVariables != null) {
+			final BroadcastVariableManager manager = getEnvironment().getBroadcastVariableManager();
+			for (int i = 0; i < this.sharedBroadcastVariables.length; i++) {
+				if (this.sharedBroadcastVariables[i] != null) {
+					manager.release(this.sharedBroadcastVariables[i]);
+					this.sharedBroadcastVariables[i] = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Registers the boundaries of a range partitioned output. The boundaries are set from the broadcast
+	 * variable with the boundaries' name, after the broadcast variables have been read.
+	 * 
+	 * @param boundaries The holder of the boundaries.
+	 */
+	protected void addRangeBoundaries(RangeBoundaries<?> boundaries) {
+		if (this.rangeBoundaries == null) {
+			this.rangeBoundaries = new ArrayList<RangeBoundaries<?>>();
+		}
+		this.rangeBoundaries.add(boundaries);
+	}
+	
+	private <X> void setRangeBoundaries(RangeBoundaries<X> boundaries) throws Exception {
+		final Collection<X> values = this.runtimeUdfContext.<X>getBroadcastVariable(boundaries.getName());
+		if (values == null) {
+			throw new Exception("The boundaries of the range partitioning were not received as broadcast variable '" +
+				boundaries.getName() + "'.");
+		}
+		boundaries.setBoundaries(values);
+	}
 
 	protected void run() throws Exception {
 		// ---------------------------- Now, the actual processing starts ------------------------
@@ -946,8 +1038,8 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 				@SuppressWarnings({ "rawtypes", "unchecked" })
 				UnilateralSortMerger<?> sorter = new UnilateralSortMerger(getMemoryManager(), getIOManager(),
 					this.inputIterators[inputNum], this, this.inputSerializers[inputNum], getLocalStrategyComparator(inputNum),
-					this.config.getMemoryInput(inputNum), this.config.getFilehandlesInput(inputNum),
-					this.config.getSpillingThresholdInput(inputNum));
+					this.config.getMemoryInput(inputNum), -1, this.config.getNumSortThreadsInput(inputNum),
+					this.config.getFilehandlesInput(inputNum), this.config.getSpillingThresholdInput(inputNum));
 				// set the input to null such that it will be lazily fetched from the input strategy
 				this.inputs[inputNum] = null;
 				this.localStrategies[inputNum] = sorter;
@@ -982,8 +1074,8 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 				CombiningUnilateralSortMerger<?> cSorter = new CombiningUnilateralSortMerger(
 					(GenericCombine) localStub, getMemoryManager(), getIOManager(), this.inputIterators[inputNum], 
 					this, this.inputSerializers[inputNum], getLocalStrategyComparator(inputNum),
-					this.config.getMemoryInput(inputNum), this.config.getFilehandlesInput(inputNum),
-					this.config.getSpillingThresholdInput(inputNum));
+					this.config.getMemoryInput(inputNum), -1, this.config.getNumSortThreadsInput(inputNum),
+					this.config.getFilehandlesInput(inputNum), this.config.getSpillingThresholdInput(inputNum));
 				cSorter.setUdfConfiguration(this.config.getStubParameters());
 
 				// set the input to null such that it will be lazily fetched from the input strategy
@@ -1253,14 +1345,24 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 					if (!comparator.supportsCompareAgainstReference()) {
 						throw new Exception("Incompatibe serializer-/comparator factories.");
 					}
-					final DataDistribution distribution = config.getOutputDataDistribution(i, cl);
-					oe = new RecordOutputEmitter(strategy, comparator, distribution);
+					final String boundariesName = config.getOutputRangeBoundariesName(i);
+					if (boundariesName == null) {
+						final DataDistribution distribution = config.getOutputDataDistribution(i, cl);
+						oe = new RecordOutputEmitter(strategy, comparator, distribution);
+					} else {
+						oe = new RecordOutputEmitter(comparator, createRangeBoundaries(task, boundariesName, comparator));
+					}
 				}
 
+				// broadcast writers serialize each record only once for all channels
 				if (task instanceof AbstractTask) {
-					writers.add(new RecordWriter<Record>((AbstractTask) task, oe));
+					writers.add(strategy == ShipStrategyType.BROADCAST ?
+						new BroadcastRecordWriter<Record>((AbstractTask) task) :
+						new RecordWriter<Record>((AbstractTask) task, oe));
 				} else if (task instanceof AbstractInputTask<?>) {
-					writers.add(new RecordWriter<Record>((AbstractInputTask<?>) task, oe));
+					writers.add(strategy == ShipStrategyType.BROADCAST ?
+						new BroadcastRecordWriter<Record>((AbstractInputTask<?>) task) :
+						new RecordWriter<Record>((AbstractInputTask<?>) task, oe));
 				}
 			}
 			if (eventualOutputs != null) {
@@ -1283,9 +1385,14 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 				final TypeComparatorFactory<T> compFactory = config.getOutputComparator(i, cl);
 				final DataDistribution dataDist = config.getOutputDataDistribution(i, cl);
 
+				final String boundariesName = config.getOutputRangeBoundariesName(i);
+
 				final ChannelSelector<SerializationDelegate<T>> oe;
 				if (compFactory == null) {
 					oe = new OutputEmitter<T>(strategy);
+				} else if (boundariesName != null) {
+					final TypeComparator<T> comparator = compFactory.createComparator();
+					oe = new OutputEmitter<T>(comparator, createRangeBoundaries(task, boundariesName, comparator));
 				} else if (dataDist == null){
 					final TypeComparator<T> comparator = compFactory.createComparator();
 					oe = new OutputEmitter<T>(strategy, comparator);
@@ -1294,10 +1401,15 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 					oe = new OutputEmitter<T>(strategy, comparator, dataDist);
 				}
 
+				// broadcast writers serialize each record only once for all channels
 				if (task instanceof AbstractTask) {
-					writers.add(new RecordWriter<SerializationDelegate<T>>((AbstractTask) task, oe));
+					writers.add(strategy == ShipStrategyType.BROADCAST ?
+						new BroadcastRecordWriter<SerializationDelegate<T>>((AbstractTask) task) :
+						new RecordWriter<SerializationDelegate<T>>((AbstractTask) task, oe));
 				} else if (task instanceof AbstractInputTask<?>) {
-					writers.add(new RecordWriter<SerializationDelegate<T>>((AbstractInputTask<?>) task, oe));
+					writers.add(strategy == ShipStrategyType.BROADCAST ?
+						new BroadcastRecordWriter<SerializationDelegate<T>>((AbstractInputTask<?>) task) :
+						new RecordWriter<SerializationDelegate<T>>((AbstractInputTask<?>) task, oe));
 				}
 			}
 			if (eventualOutputs != null) {
@@ -1307,6 +1419,17 @@ public class RegularPactTask<S extends Function, OT> extends AbstractTask implem
 		}
 	}
 
+	private static <T> RangeBoundaries<T> createRangeBoundaries(AbstractInvokable task, String name,
+			TypeComparator<T> comparator) throws Exception
+	{
+		if (!(task instanceof RegularPactTask<?, ?>)) {
+			throw new Exception("Range partitioning by sampled boundaries is only supported for regular tasks.");
+		}
+		final RangeBoundaries<T> boundaries = new RangeBoundaries<T>(name, comparator);
+		((RegularPactTask<?, ?>) task).addRangeBoundaries(boundaries);
+		return boundaries;
+	}
+
 	/**
 	 * Creates a writer for each output. Creates an OutputCollector which forwards its input to all writers.
 	 * The output collector applies the configured shipping strategy.
@@ -0,0 +1,140 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.functions.AbstractFunction;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.pact.runtime.task.util.WeightedSample;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * A driver that draws a uniform random sample of fixed size from its input and emits the sample after
+ * the input has been consumed. The sample is drawn by reservoir sampling, in a single pass and with
+ * memory for the sample only.
+ * <p>
+ * Every record of the sample is emitted with the number of input records that it stands for, i.e. the
+ * number of records the driver has seen divided by the size of the sample. Parallel instances that see
+ * different amounts of data draw samples of equal size, which are only representative of the whole
+ * data once they are weighted.
+ * <p>
+ * The driver is the first step of a range partitioning for which no data distribution is given. The
+ * samples of all parallel instances are gathered by the {@link RangeBoundaryDriver}, which picks the
+ * boundaries of the partitions from them.
+ * 
+ * @param <T> The data type.
+ */
+public class SampleDriver<T> implements PactDriver<AbstractFunction, WeightedSample<T>> {
+	
+	private static final Log LOG = LogFactory.getLog(SampleDriver.class);
+	
+	private static final long SEED = 0x5DEECE66DL;
+	
+	private PactTaskContext<AbstractFunction, WeightedSample<T>> taskContext;
+	
+	private int sampleSize;
+	
+	private volatile boolean running;
+	
+	
+	@Override
+	public void setup(PactTaskContext<AbstractFunction, WeightedSample<T>> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+	
+	@Override
+	public Class<AbstractFunction> getStubType() {
+		return null;
+	}
+
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return false;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		final TaskConfig config = this.taskContext.getTaskConfig();
+		if (config.getDriverStrategy() != DriverStrategy.SAMPLE) {
+			throw new Exception("Unrecognized driver strategy for Sample driver: " + config.getDriverStrategy().name());
+		}
+		
+		this.sampleSize = config.getSampleSize();
+		if (this.sampleSize <= 0) {
+			throw new Exception("The sample size has not been configured.");
+		}
+	}
+
+	@Override
+	public void run() throws Exception {
+		// cache references on the stack
+		final MutableObjectIterator<T> input = this.taskContext.getInput(0);
+		final TypeSerializer<T> serializer = this.taskContext.<T>getInputSerializer(0).getSerializer();
+		final int sampleSize = this.sampleSize;
+		
+		final ArrayList<T> reservoir = new ArrayList<T>(sampleSize);
+		final Random rnd = new Random(SEED);
+		
+		T record = serializer.createInstance();
+		long count = 0;
+		
+		// fill the reservoir
+		while (count < sampleSize && this.running && ((record = input.next(record)) != null)) {
+			reservoir.add(serializer.copy(record, serializer.createInstance()));
+			count++;
+		}
+		
+		// replace elements of the reservoir with decreasing probability
+		while (this.running && ((record = input.next(record)) != null)) {
+			count++;
+			final long pos = (long) (rnd.nextDouble() * count);
+			if (pos < sampleSize) {
+				final int i = (int) pos;
+				reservoir.set(i, serializer.copy(record, reservoir.get(i)));
+			}
+		}
+		
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Sampled " + reservoir.size() + " out of " + count + " records."));
+		}
+		
+		final Collector<WeightedSample<T>> output = this.taskContext.getOutputCollector();
+		final WeightedSample<T> sample = new WeightedSample<T>(null, count / (double) reservoir.size());
+		for (int i = 0; this.running && i < reservoir.size(); i++) {
+			sample.setRecord(reservoir.get(i));
+			output.collect(sample);
+		}
+	}
+	
+	@Override
+	public void cleanup() {}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+	}
+}
@@ -28,8 +28,10 @@ import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.pact.runtime.sort.FixedLengthRecordSorter;
 import eu.stratosphere.pact.runtime.sort.InMemorySorter;
+import eu.stratosphere.pact.runtime.sort.IndexedSorter;
 import eu.stratosphere.pact.runtime.sort.NormalizedKeySorter;
 import eu.stratosphere.pact.runtime.sort.QuickSort;
+import eu.stratosphere.pact.runtime.sort.RadixSort;
 import eu.stratosphere.pact.runtime.task.RegularPactTask;
 import eu.stratosphere.pact.runtime.util.KeyGroupedIterator;
 import eu.stratosphere.util.Collector;
@@ -53,7 +55,7 @@ public class SynchronousChainedCombineDriver<T> extends ChainedDriver<T, T> {
 
 	private AbstractInvokable parent;
 
-	private QuickSort sortAlgo = new QuickSort();
+	private IndexedSorter sortAlgo;
 
 	private MemoryManager memManager;
 
@@ -99,6 +101,7 @@ public class SynchronousChainedCombineDriver<T> extends ChainedDriver<T, T> {
 		} else {
 			this.sorter = new NormalizedKeySorter<T>(this.serializer, this.comparator.duplicate(), memory);
 		}
+		this.sortAlgo = RadixSort.isApplicable(this.sorter) ? new RadixSort() : new QuickSort();
 	}
 
 	@Override
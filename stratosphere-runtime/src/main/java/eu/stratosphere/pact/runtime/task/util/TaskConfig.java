@@ -68,6 +68,10 @@ public class TaskConfig {
 	private static final String DRIVER_COMPARATOR_PARAMETERS_PREFIX = "driver.comp.params.";
 	
 	private static final String DRIVER_PAIR_COMPARATOR_FACTORY = "driver.paircomp";
+	
+	private static final String DRIVER_SAMPLE_SIZE = "driver.sample-size";
+	
+	private static final String DRIVER_NUM_RANGE_PARTITIONS = "driver.range-partitions";
 
 	// -------------------------------------- Inputs ----------------------------------------------
 
@@ -112,6 +116,8 @@ public class TaskConfig {
 	
 	private static final String BROADCAST_INPUT_NAME_PREFIX = "in.broadcast.name.";
 	
+	private static final String BROADCAST_VARIABLES_SHARING_ID = "in.broadcast.sharing-id";
+	
 	
 	// -------------------------------------- Outputs ---------------------------------------------
 	
@@ -131,6 +137,8 @@ public class TaskConfig {
 	
 	private static final String OUTPUT_DATA_DISTRIBUTION_PREFIX = "out.distribution.";
 	
+	private static final String OUTPUT_RANGE_BOUNDARIES_PREFIX = "out.range-boundaries.";
+	
 	// ------------------------------------- Chaining ---------------------------------------------
 	
 	private static final String CHAINING_NUM_STUBS = "chaining.num";
@@ -155,6 +163,8 @@ public class TaskConfig {
 	
 	private static final String SORT_SPILLING_THRESHOLD_INPUT_PREFIX = "sort-spill-threshold.input.";
 	
+	private static final String SORT_THREADS_INPUT_PREFIX = "sort-threads.input.";
+	
 	// ----------------------------------- Iterations ---------------------------------------------
 	
 	private static final String NUMBER_OF_ITERATIONS = "iterative.num-iterations";
@@ -361,6 +371,28 @@ public class TaskConfig {
 		}
 	}
 	
+	public void setSampleSize(int sampleSize) {
+		if (sampleSize <= 0) {
+			throw new IllegalArgumentException("The sample size must be positive.");
+		}
+		this.config.setInteger(DRIVER_SAMPLE_SIZE, sampleSize);
+	}
+	
+	public int getSampleSize() {
+		return this.config.getInteger(DRIVER_SAMPLE_SIZE, -1);
+	}
+	
+	public void setNumberOfRangePartitions(int numPartitions) {
+		if (numPartitions <= 0) {
+			throw new IllegalArgumentException("The number of range partitions must be positive.");
+		}
+		this.config.setInteger(DRIVER_NUM_RANGE_PARTITIONS, numPartitions);
+	}
+	
+	public int getNumberOfRangePartitions() {
+		return this.config.getInteger(DRIVER_NUM_RANGE_PARTITIONS, -1);
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//                                        Inputs
 	// --------------------------------------------------------------------------------------------
@@ -470,6 +502,21 @@ public class TaskConfig {
 		return this.config.getString(BROADCAST_INPUT_NAME_PREFIX + groupIndex, String.format("broadcastVar%04d", groupIndex));
 	}
 	
+	/**
+	 * Sets the id under which the subtasks of the task share their broadcast variables with the other
+	 * subtasks on the same task manager. If no id is set, every subtask materializes its broadcast variables
+	 * by itself.
+	 * 
+	 * @param sharingId The id under which the broadcast variables are shared.
+	 */
+	public void setBroadcastVariablesSharingId(String sharingId) {
+		this.config.setString(BROADCAST_VARIABLES_SHARING_ID, sharingId);
+	}
+	
+	public String getBroadcastVariablesSharingId() {
+		return this.config.getString(BROADCAST_VARIABLES_SHARING_ID, null);
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//                                        Outputs
 	// --------------------------------------------------------------------------------------------
@@ -573,6 +620,22 @@ public class TaskConfig {
 		}
 	}
 	
+	/**
+	 * Sets the name of the broadcast variable from which the task receives the boundaries for the range
+	 * partitioning on the given output. Used when the partitioning is not described by a data distribution,
+	 * but by boundaries that are computed at runtime from a sample of the data.
+	 * 
+	 * @param name The name of the broadcast variable holding the range boundaries.
+	 * @param outputNum The number of the output.
+	 */
+	public void setOutputRangeBoundariesName(String name, int outputNum) {
+		this.config.setString(OUTPUT_RANGE_BOUNDARIES_PREFIX + outputNum, name);
+	}
+	
+	public String getOutputRangeBoundariesName(int outputNum) {
+		return this.config.getString(OUTPUT_RANGE_BOUNDARIES_PREFIX + outputNum, null);
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//                       Parameters to configure the memory and I/O behavior
 	// --------------------------------------------------------------------------------------------
@@ -641,6 +704,17 @@ public class TaskConfig {
 		return this.config.getFloat(SORT_SPILLING_THRESHOLD_INPUT_PREFIX + inputNum, 0.7f);
 	}
 	
+	public void setNumSortThreadsInput(int inputNum, int numThreads) {
+		if (numThreads < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.config.setInteger(SORT_THREADS_INPUT_PREFIX + inputNum, numThreads);
+	}
+	
+	public int getNumSortThreadsInput(int inputNum) {
+		return this.config.getInteger(SORT_THREADS_INPUT_PREFIX + inputNum, 1);
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	//                                    Parameters for Function Chaining
 	// --------------------------------------------------------------------------------------------
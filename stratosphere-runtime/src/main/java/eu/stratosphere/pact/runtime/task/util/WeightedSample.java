@@ -0,0 +1,54 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.task.util;
+
+/**
+ * A record drawn into a sample, together with the number of records of the input that it stands for.
+ * Samples that were drawn from inputs of different sizes can only be combined by their weights.
+ * 
+ * @param <T> The type of the sampled record.
+ */
+public final class WeightedSample<T> {
+	
+	private T record;
+	
+	private double weight;
+	
+	
+	public WeightedSample() {}
+	
+	public WeightedSample(T record, double weight) {
+		this.record = record;
+		this.weight = weight;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public T getRecord() {
+		return this.record;
+	}
+	
+	public void setRecord(T record) {
+		this.record = record;
+	}
+	
+	public double getWeight() {
+		return this.weight;
+	}
+	
+	public void setWeight(double weight) {
+		this.weight = weight;
+	}
+}
@@ -0,0 +1,119 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.task.util;
+
+import java.io.IOException;
+
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.DataInputView;
+import eu.stratosphere.core.memory.DataOutputView;
+
+/**
+ * Serializer for {@link WeightedSample}s. The weight is written in front of the record, which is written
+ * by the serializer of the sampled type.
+ * 
+ * @param <T> The type of the sampled record.
+ */
+public final class WeightedSampleSerializer<T> extends TypeSerializer<WeightedSample<T>> {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final TypeSerializer<T> recordSerializer;
+	
+	
+	public WeightedSampleSerializer(TypeSerializer<T> recordSerializer) {
+		if (recordSerializer == null) {
+			throw new NullPointerException();
+		}
+		this.recordSerializer = recordSerializer;
+	}
+	
+	public TypeSerializer<T> getRecordSerializer() {
+		return this.recordSerializer;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public boolean isImmutableType() {
+		return false;
+	}
+
+	@Override
+	public boolean isStateful() {
+		return this.recordSerializer.isStateful();
+	}
+
+	@Override
+	public WeightedSample<T> createInstance() {
+		return new WeightedSample<T>(this.recordSerializer.createInstance(), 0.0);
+	}
+
+	@Override
+	public WeightedSample<T> copy(WeightedSample<T> from, WeightedSample<T> reuse) {
+		T record = reuse.getRecord();
+		if (record == null) {
+			record = this.recordSerializer.createInstance();
+		}
+		reuse.setRecord(this.recordSerializer.copy(from.getRecord(), record));
+		reuse.setWeight(from.getWeight());
+		return reuse;
+	}
+
+	@Override
+	public int getLength() {
+		final int recordLength = this.recordSerializer.getLength();
+		return recordLength < 0 ? -1 : 8 + recordLength;
+	}
+
+	@Override
+	public void serialize(WeightedSample<T> sample, DataOutputView target) throws IOException {
+		target.writeDouble(sample.getWeight());
+		this.recordSerializer.serialize(sample.getRecord(), target);
+	}
+
+	@Override
+	public WeightedSample<T> deserialize(WeightedSample<T> reuse, DataInputView source) throws IOException {
+		T record = reuse.getRecord();
+		if (record == null) {
+			record = this.recordSerializer.createInstance();
+		}
+		reuse.setWeight(source.readDouble());
+		reuse.setRecord(this.recordSerializer.deserialize(record, source));
+		return reuse;
+	}
+
+	@Override
+	public void copy(DataInputView source, DataOutputView target) throws IOException {
+		target.writeDouble(source.readDouble());
+		this.recordSerializer.copy(source, target);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public int hashCode() {
+		return this.recordSerializer.hashCode() + 31;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof WeightedSampleSerializer) {
+			return this.recordSerializer.equals(((WeightedSampleSerializer<?>) obj).recordSerializer);
+		} else {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+
+package eu.stratosphere.pact.runtime.task.util;
+
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig.DelegatingConfiguration;
+import eu.stratosphere.util.InstantiationUtil;
+
+/**
+ * Factory for the {@link WeightedSampleSerializer}. The factory wraps the serializer factory of the sampled
+ * type and stores that factory's parameters under a prefix of its own parameters.
+ * 
+ * @param <T> The type of the sampled record.
+ */
+public final class WeightedSampleSerializerFactory<T> implements TypeSerializerFactory<WeightedSample<T>> {
+	
+	private static final String CONFIG_KEY_RECORD_FACTORY = "record-factory";
+	
+	private static final String CONFIG_PREFIX_RECORD_PARAMETERS = "record-parameters.";
+	
+	
+	private TypeSerializerFactory<T> recordFactory;
+	
+	private WeightedSampleSerializer<T> serializer;
+	
+	
+	public WeightedSampleSerializerFactory() {}
+	
+	public WeightedSampleSerializerFactory(TypeSerializerFactory<T> recordFactory) {
+		if (recordFactory == null) {
+			throw new NullPointerException();
+		}
+		this.recordFactory = recordFactory;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void writeParametersToConfig(Configuration config) {
+		config.setString(CONFIG_KEY_RECORD_FACTORY, this.recordFactory.getClass().getName());
+		this.recordFactory.writeParametersToConfig(new DelegatingConfiguration(config, CONFIG_PREFIX_RECORD_PARAMETERS));
+	}
+
+	@Override
+	public void readParametersFromConfig(Configuration config, ClassLoader cl) throws ClassNotFoundException {
+		final String className = config.getString(CONFIG_KEY_RECORD_FACTORY, null);
+		if (className == null) {
+			throw new CorruptConfigurationException("The serializer factory of the sampled records is missing.");
+		}
+		
+		@SuppressWarnings("unchecked")
+		final Class<TypeSerializerFactory<T>> superClass = (Class<TypeSerializerFactory<T>>) (Class<?>) TypeSerializerFactory.class;
+		final Class<? extends TypeSerializerFactory<T>> clazz = Class.forName(className, true, cl).asSubclass(superClass);
+		
+		this.recordFactory = InstantiationUtil.instantiate(clazz, superClass);
+		this.recordFactory.readParametersFromConfig(new DelegatingConfiguration(config, CONFIG_PREFIX_RECORD_PARAMETERS), cl);
+		this.serializer = null;
+	}
+
+	@Override
+	public TypeSerializer<WeightedSample<T>> getSerializer() {
+		if (this.recordFactory == null) {
+			throw new RuntimeException("SerializerFactory has not been initialized from configuration.");
+		}
+		if (this.serializer == null || this.serializer.isStateful()) {
+			this.serializer = new WeightedSampleSerializer<T>(this.recordFactory.getSerializer());
+		}
+		return this.serializer;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Class<WeightedSample<T>> getDataType() {
+		return (Class<WeightedSample<T>>) (Class<?>) WeightedSample.class;
+	}
+}
@@ -0,0 +1,54 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.util;
+
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypePairComparator;
+
+/**
+ * A pair comparator for two instances of the same type. It compares them with respect to the key
+ * of the given type comparator, for example to probe a hash table with records of its own type.
+ *
+ * @param <T> The type of the compared instances.
+ */
+public class SameTypePairComparator<T> extends TypePairComparator<T, T> {
+
+	private final TypeComparator<T> comparator;
+
+	private final TypeComparator<T> candidateComparator;
+
+
+	public SameTypePairComparator(TypeComparator<T> comparator) {
+		this.comparator = comparator.duplicate();
+		this.candidateComparator = comparator.duplicate();
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void setReference(T reference) {
+		this.comparator.setReference(reference);
+	}
+
+	@Override
+	public boolean equalToReference(T candidate) {
+		return this.comparator.equalToReference(candidate);
+	}
+
+	@Override
+	public int compareToReference(T candidate) {
+		this.candidateComparator.setReference(candidate);
+		return this.comparator.compareToReference(this.candidateComparator);
+	}
+}
@@ -0,0 +1,133 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.io.api;
+
+import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.nephele.event.task.AbstractEvent;
+import eu.stratosphere.nephele.template.AbstractInputTask;
+import eu.stratosphere.nephele.template.AbstractTask;
+import eu.stratosphere.runtime.io.Buffer;
+import eu.stratosphere.runtime.io.serialization.RecordSerializer;
+import eu.stratosphere.runtime.io.serialization.SpanningRecordSerializer;
+
+import java.io.IOException;
+
+/**
+ * A record writer that sends every record to all output channels. Unlike the {@link RecordWriter} with a
+ * broadcasting channel selector, which serializes each record once per channel, this writer serializes each
+ * record once into a single buffer. A full buffer is handed to all channels, which share it through its
+ * reference count and recycle it when the last channel has sent it.
+ * 
+ * @param <T>
+ *        the type of the record that can be emitted with this record writer
+ */
+public class BroadcastRecordWriter<T extends IOReadableWritable> extends RecordWriter<T> {
+
+	private int numChannels;
+
+	/** The single serializer, whose buffers go to all channels */
+	private RecordSerializer<T> serializer;
+
+	/** Time when the first record was written to the current buffer, 0 if the buffer is empty */
+	private long bufferStartTime;
+
+	// -----------------------------------------------------------------------------------------------------------------
+
+	public BroadcastRecordWriter(AbstractTask task) {
+		super(task, null);
+	}
+
+	public BroadcastRecordWriter(AbstractInputTask<?> task) {
+		super(task, null);
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+
+	@Override
+	public void initializeSerializers() {
+		this.numChannels = this.outputGate.getNumChannels();
+		this.serializer = new SpanningRecordSerializer<T>();
+
+		registerWithFlusher();
+	}
+
+	@Override
+	protected void emitRecord(final T record) throws IOException, InterruptedException {
+		RecordSerializer.SerializationResult result = this.serializer.addRecord(record);
+		while (result.isFullBuffer()) {
+			Buffer buffer = this.serializer.getCurrentBuffer();
+			if (buffer != null) {
+				reportSentBuffer(buffer, this.bufferStartTime, false);
+				this.bufferStartTime = 0;
+				broadcastBuffer(buffer);
+			}
+
+			buffer = this.bufferPool.requestBufferBlocking(this.bufferPool.getBufferSize());
+			result = this.serializer.setNextBuffer(buffer);
+		}
+
+		if (this.bufferStartTime == 0 && this.serializer.hasData()) {
+			this.bufferStartTime = System.nanoTime();
+		}
+	}
+
+	@Override
+	protected void flushBuffers(boolean onTimeout) throws IOException, InterruptedException {
+		// the buffer goes to all channels, so a timeout only flushes it if every channel can take it right away.
+		// otherwise, a single slow receiver would block the flusher in the middle of the broadcast.
+		if (onTimeout && (!this.serializer.hasData() || !canSendToAllChannelsWithoutBlocking())) {
+			return;
+		}
+
+		Buffer buffer = this.serializer.getCurrentBuffer();
+		if (buffer != null) {
+			reportSentBuffer(buffer, this.bufferStartTime, onTimeout);
+			this.bufferStartTime = 0;
+			broadcastBuffer(buffer);
+		}
+
+		this.serializer.clear();
+	}
+
+	private boolean canSendToAllChannelsWithoutBlocking() {
+		for (int targetChannel = 0; targetChannel < this.numChannels; targetChannel++) {
+			if (!this.outputGate.canSendWithoutBlocking(targetChannel)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	protected void sendBuffersAndEvent(AbstractEvent event) throws IOException, InterruptedException {
+		Buffer buffer = this.serializer.getCurrentBuffer();
+		if (buffer == null) {
+			for (int targetChannel = 0; targetChannel < this.numChannels; targetChannel++) {
+				sendEvent(event, targetChannel);
+			}
+		} else {
+			reportSentBuffer(buffer, this.bufferStartTime, false);
+			this.bufferStartTime = 0;
+
+			// the duplicates hold a reference each, so the buffer is recycled only after the last channel
+			for (int targetChannel = 1; targetChannel < this.numChannels; targetChannel++) {
+				sendBufferAndEvent(buffer.duplicate(), event, targetChannel);
+			}
+			sendBufferAndEvent(buffer, event, 0);
+
+			buffer = this.bufferPool.requestBufferBlocking(this.bufferPool.getBufferSize());
+			this.serializer.setNextBuffer(buffer);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.io.api;
+
+import eu.stratosphere.nephele.execution.Environment;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A thread that periodically sends the partially filled buffers of all registered record writers. The flusher
+ * bounds the time that a record waits in a network buffer to roughly the buffer timeout, which matters for tasks
+ * that produce their records slowly. Without the flusher, a buffer is only sent when it is full or when the task
+ * explicitly flushes its output.
+ * <p>
+ * There is one flusher per task manager. Record writers register themselves with the environment of their task
+ * and are unregistered together, when the task is unregistered from the task manager.
+ * <p>
+ * Since a single thread serves all tasks, the flusher must never block. It only sends a buffer to a channel that
+ * can take it right away, i.e. whose receiver has granted a credit for it. Channels without credit-based flow
+ * control are not flushed on timeout.
+ */
+public class OutputFlusher extends Thread {
+
+	private static final Log LOG = LogFactory.getLog(OutputFlusher.class);
+
+	private final long timeout;
+
+	private final ConcurrentMap<Environment, List<RecordWriter<?>>> writers =
+			new ConcurrentHashMap<Environment, List<RecordWriter<?>>>();
+
+	private volatile boolean running = true;
+
+	/**
+	 * Creates a new flusher that sends partially filled buffers every {@code timeout} milliseconds.
+	 * The flusher needs to be started before it flushes anything.
+	 *
+	 * @param timeout The buffer timeout in milliseconds.
+	 */
+	public OutputFlusher(long timeout) {
+		super("Output Flusher");
+
+		if (timeout <= 0) {
+			throw new IllegalArgumentException("The buffer timeout must be positive.");
+		}
+
+		this.timeout = timeout;
+		setDaemon(true);
+	}
+
+	public long getTimeout() {
+		return this.timeout;
+	}
+
+	/**
+	 * Registers a record writer of the task with the given environment.
+	 *
+	 * @param environment The environment of the task that owns the writer.
+	 * @param writer The writer whose buffers are flushed on timeout.
+	 */
+	public void register(Environment environment, RecordWriter<?> writer) {
+		List<RecordWriter<?>> list = this.writers.get(environment);
+		if (list == null) {
+			list = new CopyOnWriteArrayList<RecordWriter<?>>();
+			List<RecordWriter<?>> previous = this.writers.putIfAbsent(environment, list);
+			if (previous != null) {
+				list = previous;
+			}
+		}
+		list.add(writer);
+	}
+
+	/**
+	 * Unregisters all record writers of the task with the given environment.
+	 *
+	 * @param environment The environment of the task whose writers are unregistered.
+	 */
+	public void unregister(Environment environment) {
+		this.writers.remove(environment);
+	}
+
+	/**
+	 * Stops the flusher. Buffers that are pending at that time are not sent.
+	 */
+	public void shutdown() {
+		this.running = false;
+		interrupt();
+	}
+
+	@Override
+	public void run() {
+		while (this.running) {
+			try {
+				Thread.sleep(this.timeout);
+			} catch (InterruptedException e) {
+				// only the shutdown interrupts the flusher
+				continue;
+			}
+
+			for (List<RecordWriter<?>> list : this.writers.values()) {
+				for (RecordWriter<?> writer : list) {
+					try {
+						writer.flushOnTimeout();
+					} catch (Throwable t) {
+						// the task runs into the same problem on its next send and reports it there
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("Flushing the output of a task on timeout failed.", t);
+						}
+					}
+				}
+			}
+		}
+	}
+}
@@ -15,36 +15,57 @@ package eu.stratosphere.runtime.io.api;
 
 import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.nephele.event.task.AbstractEvent;
+import eu.stratosphere.nephele.execution.Environment;
 import eu.stratosphere.nephele.template.AbstractInputTask;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.nephele.template.AbstractTask;
 import eu.stratosphere.runtime.io.Buffer;
 import eu.stratosphere.runtime.io.channels.EndOfSuperstepEvent;
+import eu.stratosphere.runtime.io.gates.OutputGateStatistics;
 import eu.stratosphere.runtime.io.network.bufferprovider.BufferProvider;
 import eu.stratosphere.runtime.io.serialization.RecordSerializer;
 import eu.stratosphere.runtime.io.serialization.SpanningRecordSerializer;
 
 import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A record writer connects the application to an output gate. It allows the application
  * of emit (send out) to the output gate. The output gate will then take care of distributing
  * the emitted records among the output channels.
+ * <p>
+ * If the task manager runs an {@link OutputFlusher}, partially filled buffers are also sent when the buffer timeout
+ * expires. The writer then guards its serializers with a lock, which the flusher only acquires when the task thread
+ * does not hold it.
  * 
  * @param <T>
  *        the type of the record that can be emitted with this record writer
  */
 public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 
-	private final BufferProvider bufferPool;
+	protected final BufferProvider bufferPool;
 
 	private final ChannelSelector<T> channelSelector;
 
+	private final Environment environment;
+
+	private final OutputFlusher flusher;
+
+	/** Guards the serializers against the flusher, null if buffers are never flushed on timeout */
+	private final ReentrantLock flushLock;
+
+	private final OutputGateStatistics statistics;
+
+	private boolean registeredWithFlusher;
+
 	private int numChannels;
 
 	/** RecordSerializer per outgoing channel */
 	private RecordSerializer<T>[] serializers;
 
+	/** Time when the first record was written to the current buffer of each channel, 0 if the buffer is empty */
+	private long[] bufferStartTimes;
+
 	// -----------------------------------------------------------------------------------------------------------------
 
 	public RecordWriter(AbstractTask task) {
@@ -69,8 +90,12 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 		// initialize the gate
 		super(invokable);
 
-		this.bufferPool = invokable.getEnvironment().getOutputBufferProvider();
+		this.environment = invokable.getEnvironment();
+		this.bufferPool = this.environment.getOutputBufferProvider();
 		this.channelSelector = channelSelector;
+		this.flusher = this.environment.getOutputFlusher();
+		this.flushLock = this.flusher == null ? null : new ReentrantLock();
+		this.statistics = this.outputGate.getStatistics();
 	}
 
 	// -----------------------------------------------------------------------------------------------------------------
@@ -79,12 +104,76 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 	public void initializeSerializers() {
 		this.numChannels = this.outputGate.getNumChannels();
 		this.serializers = new RecordSerializer[numChannels];
+		this.bufferStartTimes = new long[numChannels];
 		for (int i = 0; i < this.numChannels; i++) {
 			this.serializers[i] = new SpanningRecordSerializer<T>();
 		}
+
+		registerWithFlusher();
 	}
 
 	public void emit(final T record) throws IOException, InterruptedException {
+		if (this.flushLock == null) {
+			emitRecord(record);
+		} else {
+			this.flushLock.lock();
+			try {
+				emitRecord(record);
+			} finally {
+				this.flushLock.unlock();
+			}
+		}
+	}
+
+	public void flush() throws IOException, InterruptedException {
+		if (this.flushLock == null) {
+			flushBuffers(false);
+		} else {
+			this.flushLock.lock();
+			try {
+				flushBuffers(false);
+			} finally {
+				this.flushLock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public void broadcastEvent(AbstractEvent event) throws IOException, InterruptedException {
+		if (this.flushLock == null) {
+			sendBuffersAndEvent(event);
+		} else {
+			this.flushLock.lock();
+			try {
+				sendBuffersAndEvent(event);
+			} finally {
+				this.flushLock.unlock();
+			}
+		}
+	}
+
+	@Override
+	public void sendEndOfSuperstep() throws IOException, InterruptedException {
+		broadcastEvent(EndOfSuperstepEvent.INSTANCE);
+	}
+
+	/**
+	 * Sends the partially filled buffers, unless the task thread is currently using this writer. In that case,
+	 * the buffers are sent on the next timeout. Called by the {@link OutputFlusher}.
+	 */
+	void flushOnTimeout() throws IOException, InterruptedException {
+		if (this.flushLock.tryLock()) {
+			try {
+				flushBuffers(true);
+			} finally {
+				this.flushLock.unlock();
+			}
+		}
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+
+	protected void emitRecord(T record) throws IOException, InterruptedException {
 		for (int targetChannel : this.channelSelector.selectChannels(record, this.numChannels)) {
 			// serialize with corresponding serializer and send full buffer
 			RecordSerializer<T> serializer = this.serializers[targetChannel];
@@ -93,21 +182,36 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 			while (result.isFullBuffer()) {
 				Buffer buffer = serializer.getCurrentBuffer();
 				if (buffer != null) {
+					reportSentBuffer(buffer, this.bufferStartTimes[targetChannel], false);
+					this.bufferStartTimes[targetChannel] = 0;
 					sendBuffer(buffer, targetChannel);
 				}
 
 				buffer = this.bufferPool.requestBufferBlocking(this.bufferPool.getBufferSize());
 				result = serializer.setNextBuffer(buffer);
 			}
+
+			if (this.bufferStartTimes[targetChannel] == 0 && serializer.hasData()) {
+				this.bufferStartTimes[targetChannel] = System.nanoTime();
+			}
 		}
 	}
 
-	public void flush() throws IOException, InterruptedException {
+	protected void flushBuffers(boolean onTimeout) throws IOException, InterruptedException {
 		for (int targetChannel = 0; targetChannel < this.numChannels; targetChannel++) {
 			RecordSerializer<T> serializer = this.serializers[targetChannel];
 
+			// a timeout leaves the empty buffers to the serializers, the task sends or recycles them later.
+			// it also skips channels that cannot take a buffer right away, so that a slow receiver does not
+			// block the flusher, which serves all tasks of the task manager.
+			if (onTimeout && (!serializer.hasData() || !this.outputGate.canSendWithoutBlocking(targetChannel))) {
+				continue;
+			}
+
 			Buffer buffer = serializer.getCurrentBuffer();
 			if (buffer != null) {
+				reportSentBuffer(buffer, this.bufferStartTimes[targetChannel], onTimeout);
+				this.bufferStartTimes[targetChannel] = 0;
 				sendBuffer(buffer, targetChannel);
 			}
 
@@ -115,8 +219,7 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 		}
 	}
 
-	@Override
-	public void broadcastEvent(AbstractEvent event) throws IOException, InterruptedException {
+	protected void sendBuffersAndEvent(AbstractEvent event) throws IOException, InterruptedException {
 		for (int targetChannel = 0; targetChannel < this.numChannels; targetChannel++) {
 			RecordSerializer<T> serializer = this.serializers[targetChannel];
 
@@ -124,6 +227,8 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 			if (buffer == null) {
 				super.sendEvent(event, targetChannel);
 			} else {
+				reportSentBuffer(buffer, this.bufferStartTimes[targetChannel], false);
+				this.bufferStartTimes[targetChannel] = 0;
 				super.sendBufferAndEvent(buffer, event, targetChannel);
 
 				buffer = this.bufferPool.requestBufferBlocking(this.bufferPool.getBufferSize());
@@ -132,20 +237,29 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 		}
 	}
 
-	@Override
-	public void sendEndOfSuperstep() throws IOException, InterruptedException {
-		for (int targetChannel = 0; targetChannel < this.numChannels; targetChannel++) {
-			RecordSerializer<T> serializer = this.serializers[targetChannel];
-
-			Buffer buffer = serializer.getCurrentBuffer();
-			if (buffer == null) {
-				super.sendEvent(EndOfSuperstepEvent.INSTANCE, targetChannel);
-			} else {
-				super.sendBufferAndEvent(buffer, EndOfSuperstepEvent.INSTANCE, targetChannel);
+	/**
+	 * Registers this writer with the output flusher of the task manager, if there is one. Must be called once
+	 * the serializers are initialized.
+	 */
+	protected void registerWithFlusher() {
+		if (this.flusher != null && !this.registeredWithFlusher) {
+			this.flusher.register(this.environment, this);
+			this.registeredWithFlusher = true;
+		}
+	}
 
-				buffer = this.bufferPool.requestBufferBlocking(this.bufferPool.getBufferSize());
-				serializer.setNextBuffer(buffer);
-			}
+	/**
+	 * Adds a buffer that is about to be sent to the statistics of the output gate.
+	 *
+	 * @param buffer The buffer to be sent.
+	 * @param startTime The time when the first record was written to the buffer, 0 if it is empty.
+	 * @param onTimeout True, if the buffer is sent because the buffer timeout expired.
+	 */
+	protected void reportSentBuffer(Buffer buffer, long startTime, boolean onTimeout) {
+		final int size = buffer.size();
+		if (size > 0) {
+			final long latency = startTime == 0 ? 0 : System.nanoTime() - startTime;
+			this.statistics.reportBuffer(size, this.bufferPool.getBufferSize(), latency, onTimeout);
 		}
 	}
 }
@@ -0,0 +1,53 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.io.channels;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import eu.stratosphere.nephele.event.task.AbstractEvent;
+
+/**
+ * Announces credits of an input channel to its output channel. Every credit stands for a buffer, which the input
+ * channel has reserved for the next incoming data, so that the output channel may send one more buffer.
+ * <p>
+ * An output channel sends an event without credits once, in order to ask its input channel for the initial credits.
+ */
+public final class ChannelCreditEvent extends AbstractEvent {
+
+	private int credits;
+
+	public ChannelCreditEvent() {
+		this(0);
+	}
+
+	public ChannelCreditEvent(int credits) {
+		this.credits = credits;
+	}
+
+	public int getCredits() {
+		return this.credits;
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+		this.credits = in.readInt();
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(this.credits);
+	}
+}
@@ -0,0 +1,135 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.io.channels;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.iomanager.BlockChannelReader;
+import eu.stratosphere.nephele.services.iomanager.BlockChannelWriter;
+import eu.stratosphere.nephele.services.iomanager.Channel;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.runtime.io.Buffer;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A file the buffers of an output channel are spilled to while the receiver grants no credits. The buffers are written
+ * asynchronously and returned to their buffer pool as soon as their content is on disk. They are read back in the
+ * order they have been written.
+ */
+final class ChannelSpillFile {
+
+	private final IOManager ioManager;
+
+	private final Channel.ID channelID;
+
+	private final BlockChannelWriter writer;
+
+	private BlockChannelReader reader;
+
+	/** Buffers whose memory segment is currently written, recycled by the I/O thread once the write is done */
+	private final Map<MemorySegment, Buffer> pendingWrites = new IdentityHashMap<MemorySegment, Buffer>();
+
+	private int numBlocksWritten;
+
+	private int numBlocksRead;
+
+	ChannelSpillFile(IOManager ioManager) throws IOException {
+		this.ioManager = ioManager;
+		this.channelID = ioManager.createChannel();
+		this.writer = ioManager.createBlockChannelWriter(this.channelID, new RecyclingReturnQueue());
+	}
+
+	/**
+	 * Writes the memory segment of the given buffer to the file. The buffer is recycled once it has been written.
+	 */
+	void write(Buffer buffer) throws IOException {
+		synchronized (this.pendingWrites) {
+			this.pendingWrites.put(buffer.getMemorySegment(), buffer);
+		}
+
+		try {
+			this.writer.writeBlock(buffer.getMemorySegment());
+		} catch (IOException e) {
+			synchronized (this.pendingWrites) {
+				this.pendingWrites.remove(buffer.getMemorySegment());
+			}
+			buffer.recycleBuffer();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the next block of the file into the given memory segment. Blocks until the block has been written.
+	 */
+	void read(MemorySegment target) throws IOException, InterruptedException {
+		synchronized (this.pendingWrites) {
+			while (this.numBlocksWritten == this.numBlocksRead) {
+				this.writer.checkErroneous();
+				this.pendingWrites.wait(1000);
+			}
+			this.numBlocksRead++;
+		}
+		this.writer.checkErroneous();
+
+		if (this.reader == null) {
+			this.reader = this.ioManager.createBlockChannelReader(this.channelID, new LinkedBlockingQueue<MemorySegment>());
+		}
+
+		this.reader.readBlock(target);
+		this.reader.getNextReturnedSegment();
+	}
+
+	/**
+	 * Closes and deletes the file. Waits for pending writes, so that their buffers are recycled.
+	 */
+	void closeAndDelete() throws IOException {
+		try {
+			if (this.reader != null) {
+				this.reader.close();
+			}
+		} finally {
+			this.writer.closeAndDelete();
+		}
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Return queue of the writer, which recycles the buffers of the written segments right away instead of queuing
+	 * the segments.
+	 */
+	private final class RecyclingReturnQueue extends LinkedBlockingQueue<MemorySegment> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean add(MemorySegment segment) {
+			Buffer buffer;
+
+			synchronized (ChannelSpillFile.this.pendingWrites) {
+				buffer = ChannelSpillFile.this.pendingWrites.remove(segment);
+				ChannelSpillFile.this.numBlocksWritten++;
+				ChannelSpillFile.this.pendingWrites.notifyAll();
+			}
+
+			if (buffer != null) {
+				buffer.recycleBuffer();
+			}
+			return true;
+		}
+	}
+}
@@ -36,6 +36,8 @@ import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * InputChannel is an abstract base class to all different kinds of concrete
@@ -92,6 +94,44 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 
 	private Iterator<AbstractEvent> pendingEvents;
 
+	// ----------------------
+
+	/** Guards the credit-based flow control state */
+	private final Object creditLock = new Object();
+
+	/** Buffers reserved for the data the output channel has been granted credits for */
+	private final Queue<Buffer> reservedBuffers = new ArrayDeque<Buffer>();
+
+	/** Maximum number of credits this channel grants to its output channel, 0 if flow control is not credit-based */
+	private int maxCredits;
+
+	/** Number of buffers reserved or about to be reserved for credits */
+	private int numReservedBuffers;
+
+	/** Number of buffers handed out for incoming data, which have not been consumed yet */
+	private int numUnconsumedBuffers;
+
+	/** Flag to indicate whether the output channel asked for credits */
+	private boolean creditsRequested;
+
+	/** Flag to indicate whether a listener waits for a buffer to reserve */
+	private boolean creditListenerRegistered;
+
+	/** Flag to indicate whether the channel stopped granting credits */
+	private boolean creditsReleased;
+
+	/** Executor to announce credits with, or <code>null</code> if the granting thread announces them itself */
+	private Executor creditAnnouncer;
+
+	/** Number of granted credits, which have not been announced to the output channel yet */
+	private int unannouncedCredits;
+
+	/** Flag to indicate whether the output channel waits for an answer to its credit request */
+	private boolean creditAnswerPending;
+
+	/** Flag to indicate whether an announcement of the pending credits is scheduled */
+	private boolean announcementScheduled;
+
 	/**
 	 * Constructs an input channel with a given input gate associated.
 	 * 
@@ -186,6 +226,7 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 				AbstractEvent evt = boe.getEvent();
 				if (evt.getClass() == ChannelCloseEvent.class) {
 					this.brokerAggreedToCloseChannel = true;
+					releaseReservedBuffers();
 					return InputChannelResult.END_OF_STREAM;
 				}
 				else if (evt.getClass() == EndOfSuperstepEvent.class) {
@@ -264,6 +305,8 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 			}
 		}
 
+		releaseReservedBuffers();
+
 		// Send close event to indicate the input channel has successfully
 		// processed all data it is interested in.
 		transferEventToOutputChannel(new ChannelCloseEvent());
@@ -273,6 +316,15 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 	private void releasedConsumedReadBuffer(Buffer buffer) {
 		this.amountOfDataTransmitted += buffer.size();
 		buffer.recycleBuffer();
+
+		if (this.maxCredits > 0) {
+			synchronized (this.creditLock) {
+				this.numUnconsumedBuffers--;
+			}
+
+			// the consumed buffer makes room for a new credit
+			grantCredits();
+		}
 	}
 
 
@@ -297,6 +349,8 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 		this.brokerAggreedToCloseChannel = true;
 		this.deserializer.clear();
 
+		releaseReservedBuffers();
+
 		// The buffers are recycled by the input channel wrapper
 	}
 
@@ -320,6 +374,10 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 		// The sequence number of the envelope to be queued
 		final int sequenceNumber = envelope.getSequenceNumber();
 
+		final List<? extends AbstractEvent> events = envelope.deserializeEvents();
+
+		boolean isCreditRequest = false;
+
 		synchronized (this.queuedEnvelopes) {
 
 			if (this.destroyCalled) {
@@ -348,6 +406,12 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 				if (buffer != null) {
 					buffer.recycleBuffer();
 				}
+			} else if (isCreditRequest(envelope, events)) {
+				// the request is answered right away and never seen by the reader
+				this.lastReceivedEnvelope = sequenceNumber;
+				this.lastSourceID = envelope.getSource();
+
+				isCreditRequest = true;
 			} else {
 
 				this.queuedEnvelopes.add(envelope);
@@ -359,8 +423,6 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 					notifyGateThatInputIsAvailable();
 				}
 
-				List<? extends AbstractEvent> events = envelope.deserializeEvents();
-
 				if (events != null) {
 					for (int i = 0; i < events.size(); i++) {
 						notifyGateThatInputIsAvailable();
@@ -368,6 +430,19 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 				}
 			}
 		}
+
+		if (isCreditRequest) {
+			synchronized (this.creditLock) {
+				this.creditsRequested = true;
+			}
+
+			// always answer the request, so that a spilling sender knows when to spill
+			announceCredits(reserveCredits(), true);
+		}
+	}
+
+	private boolean isCreditRequest(Envelope envelope, List<? extends AbstractEvent> events) {
+		return envelope.getBuffer() == null && events.size() == 1 && events.get(0).getClass() == ChannelCreditEvent.class;
 	}
 
 	@Override
@@ -388,6 +463,8 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 		while (!buffersToRecycle.isEmpty()) {
 			buffersToRecycle.poll().recycleBuffer();
 		}
+
+		releaseReservedBuffers();
 	}
 
 	public void logQueuedEnvelopes() {
@@ -418,11 +495,41 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 
 	@Override
 	public Buffer requestBuffer(int minBufferSize) throws IOException {
+		if (this.maxCredits > 0) {
+			Buffer buffer = takeReservedBuffer(minBufferSize);
+			if (buffer != null) {
+				return buffer;
+			}
+
+			// data without credit, fall back to the buffers of the gate
+			buffer = this.inputGate.requestBuffer(minBufferSize);
+			if (buffer != null) {
+				synchronized (this.creditLock) {
+					this.numUnconsumedBuffers++;
+				}
+			}
+			return buffer;
+		}
+
 		return this.inputGate.requestBuffer(minBufferSize);
 	}
 
 	@Override
 	public Buffer requestBufferBlocking(int minBufferSize) throws IOException, InterruptedException {
+		if (this.maxCredits > 0) {
+			Buffer buffer = takeReservedBuffer(minBufferSize);
+			if (buffer != null) {
+				return buffer;
+			}
+
+			// data without credit, fall back to the buffers of the gate
+			buffer = this.inputGate.requestBufferBlocking(minBufferSize);
+			synchronized (this.creditLock) {
+				this.numUnconsumedBuffers++;
+			}
+			return buffer;
+		}
+
 		return this.inputGate.requestBufferBlocking(minBufferSize);
 	}
 
@@ -438,9 +545,321 @@ public class InputChannel<T extends IOReadableWritable> extends Channel implemen
 
 	@Override
 	public BufferAvailabilityRegistration registerBufferAvailabilityListener(BufferAvailabilityListener listener) {
+		if (this.maxCredits > 0) {
+			synchronized (this.creditLock) {
+				if (!this.reservedBuffers.isEmpty()) {
+					return BufferAvailabilityRegistration.FAILED_BUFFER_AVAILABLE;
+				}
+			}
+		}
+
 		return this.inputGate.registerBufferAvailabilityListener(listener);
 	}
 
+	// -----------------------------------------------------------------------------------------------------------------
+	//                                            Flow control
+	// -----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Enables credit-based flow control for this channel. The channel then reserves buffers of its input gate for
+	 * incoming data and announces one credit per reserved buffer to its output channel, which only sends buffers it
+	 * holds credits for. This way, a slowly consumed channel cannot occupy the buffers and the connection shared
+	 * with other channels.
+	 * <p>
+	 * The number of credits is further limited to the channel's share of the gate's designated buffers, so that
+	 * every channel of the gate can always reserve at least one buffer.
+	 *
+	 * @param maxCredits maximum number of credits to grant at a time
+	 */
+	public void enableCreditBasedFlowControl(int maxCredits) {
+		if (maxCredits <= 0) {
+			throw new IllegalArgumentException("The number of credits must be positive.");
+		}
+
+		this.maxCredits = maxCredits;
+	}
+
+	/**
+	 * Enables credit-based flow control like {@link #enableCreditBasedFlowControl(int)}, but announces the credits
+	 * with the given executor. Credits are granted by the network I/O threads and by buffer availability listeners,
+	 * which run while the buffer pool is locked. Neither should wait for the announcement, which may have to look up
+	 * the output channel first.
+	 *
+	 * @param maxCredits maximum number of credits to grant at a time
+	 * @param creditAnnouncer the executor to announce the credits with
+	 */
+	public void enableCreditBasedFlowControl(int maxCredits, Executor creditAnnouncer) {
+		enableCreditBasedFlowControl(maxCredits);
+		this.creditAnnouncer = creditAnnouncer;
+	}
+
+	public boolean isCreditBased() {
+		return this.maxCredits > 0;
+	}
+
+	/**
+	 * Returns the number of buffers currently reserved for granted credits.
+	 *
+	 * @return number of reserved buffers
+	 */
+	public int getNumberOfReservedBuffers() {
+		synchronized (this.creditLock) {
+			return this.reservedBuffers.size();
+		}
+	}
+
+	private Buffer takeReservedBuffer(int minBufferSize) {
+		synchronized (this.creditLock) {
+			Buffer buffer = this.reservedBuffers.poll();
+			if (buffer == null) {
+				return null;
+			}
+
+			this.numReservedBuffers--;
+			this.numUnconsumedBuffers++;
+
+			buffer.limitSize(minBufferSize);
+			return buffer;
+		}
+	}
+
+	/**
+	 * Reserves buffers up to the channel's credit limit and announces the newly reserved buffers as credits to the
+	 * output channel. If the gate has no buffer available, a listener reserves the next recycled one.
+	 * <p>
+	 * Buffers are requested without holding the credit lock, because the buffer pool calls the listener while
+	 * holding its own lock.
+	 */
+	private void grantCredits() {
+		announceCredits(reserveCredits(), false);
+	}
+
+	/**
+	 * Reserves buffers up to this channel's share of the gate's buffers.
+	 *
+	 * @return the number of buffers reserved, which are not announced to the output channel yet
+	 */
+	private int reserveCredits() {
+		final int numToReserve;
+
+		synchronized (this.creditLock) {
+			if (!this.creditsRequested || this.creditsReleased) {
+				return 0;
+			}
+
+			int numChannels = this.inputGate.getNumberOfInputChannels();
+			int fairShare = Math.max(1, this.inputGate.getNumberOfDesignatedBuffers() / numChannels);
+			int limit = Math.min(this.maxCredits, fairShare);
+
+			numToReserve = limit - this.numReservedBuffers - this.numUnconsumedBuffers;
+			if (numToReserve <= 0) {
+				return 0;
+			}
+
+			this.numReservedBuffers += numToReserve;
+		}
+
+		int numReserved = 0;
+		int numMissing = 0;
+
+		try {
+			for (int i = 0; i < numToReserve; i++) {
+				Buffer buffer = this.inputGate.requestBuffer(this.inputGate.getBufferSize());
+
+				if (buffer == null) {
+					numMissing = numToReserve - i;
+					break;
+				}
+
+				if (!addReservedBuffer(buffer)) {
+					return 0;
+				}
+				numReserved++;
+			}
+		} catch (IOException e) {
+			reportIOException(e);
+			notifyGateThatInputIsAvailable();
+			return 0;
+		}
+
+		if (numMissing > 0) {
+			boolean registerListener;
+
+			synchronized (this.creditLock) {
+				registerListener = !this.creditListenerRegistered;
+				this.creditListenerRegistered = true;
+
+				// keep one reservation for the listener, the others are retried after the next consumed buffer
+				this.numReservedBuffers -= registerListener ? numMissing - 1 : numMissing;
+			}
+
+			if (registerListener) {
+				registerCreditListener();
+			}
+		}
+
+		return numReserved;
+	}
+
+	private void registerCreditListener() {
+		while (true) {
+			BufferAvailabilityRegistration registration =
+					this.inputGate.registerBufferAvailabilityListener(new BufferAvailabilityListener() {
+						@Override
+						public void bufferAvailable(Buffer buffer) {
+							synchronized (InputChannel.this.creditLock) {
+								InputChannel.this.creditListenerRegistered = false;
+							}
+
+							if (addReservedBuffer(buffer)) {
+								announceCredits(1, false);
+							}
+						}
+					});
+
+			if (registration == BufferAvailabilityRegistration.SUCCEEDED_REGISTERED) {
+				return;
+			}
+
+			if (registration == BufferAvailabilityRegistration.FAILED_BUFFER_AVAILABLE) {
+				try {
+					Buffer buffer = this.inputGate.requestBuffer(this.inputGate.getBufferSize());
+					if (buffer != null) {
+						synchronized (this.creditLock) {
+							this.creditListenerRegistered = false;
+						}
+
+						if (addReservedBuffer(buffer)) {
+							announceCredits(1, false);
+						}
+						return;
+					}
+				} catch (IOException e) {
+					reportIOException(e);
+					notifyGateThatInputIsAvailable();
+					return;
+				}
+			} else {
+				// the buffer pool has been destroyed
+				synchronized (this.creditLock) {
+					this.creditListenerRegistered = false;
+					this.numReservedBuffers--;
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Adds a buffer to the reserved buffers. Recycles the buffer, if the channel does not grant credits anymore.
+	 *
+	 * @return <code>true</code>, if the buffer has been reserved
+	 */
+	private boolean addReservedBuffer(Buffer buffer) {
+		synchronized (this.creditLock) {
+			if (!this.creditsReleased) {
+				this.reservedBuffers.add(buffer);
+				return true;
+			}
+		}
+
+		buffer.recycleBuffer();
+		return false;
+	}
+
+	private void announceCredits(int credits, boolean force) {
+		if (credits == 0 && !force) {
+			return;
+		}
+
+		if (this.creditAnnouncer == null) {
+			sendCredits(credits);
+			return;
+		}
+
+		synchronized (this.creditLock) {
+			this.unannouncedCredits += credits;
+			this.creditAnswerPending |= force;
+
+			if (this.announcementScheduled) {
+				return;
+			}
+			this.announcementScheduled = true;
+		}
+
+		try {
+			this.creditAnnouncer.execute(new Runnable() {
+				@Override
+				public void run() {
+					announcePendingCredits();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// the task manager shuts down
+			synchronized (this.creditLock) {
+				this.announcementScheduled = false;
+			}
+		}
+	}
+
+	/**
+	 * Announces the credits granted so far in a single event, until no more credits are pending.
+	 */
+	private void announcePendingCredits() {
+		while (true) {
+			final int credits;
+
+			synchronized (this.creditLock) {
+				credits = this.unannouncedCredits;
+
+				if (credits == 0 && !this.creditAnswerPending) {
+					this.announcementScheduled = false;
+					return;
+				}
+
+				this.unannouncedCredits = 0;
+				this.creditAnswerPending = false;
+			}
+
+			sendCredits(credits);
+		}
+	}
+
+	private void sendCredits(int credits) {
+		try {
+			transferEventToOutputChannel(new ChannelCreditEvent(credits));
+		} catch (IOException e) {
+			reportIOException(e);
+			notifyGateThatInputIsAvailable();
+		} catch (InterruptedException e) {
+			reportIOException(new IOException("Interrupted while announcing credits."));
+			notifyGateThatInputIsAvailable();
+		}
+	}
+
+	/**
+	 * Stops granting credits and returns the reserved buffers to the input gate. Called once the output channel has
+	 * closed the channel or the channel has been released.
+	 */
+	private void releaseReservedBuffers() {
+		if (this.maxCredits == 0) {
+			return;
+		}
+
+		final Queue<Buffer> buffersToRecycle;
+
+		synchronized (this.creditLock) {
+			this.creditsReleased = true;
+
+			buffersToRecycle = new ArrayDeque<Buffer>(this.reservedBuffers);
+			this.reservedBuffers.clear();
+		}
+
+		while (!buffersToRecycle.isEmpty()) {
+			buffersToRecycle.poll().recycleBuffer();
+		}
+	}
+
 	// ChannelBroker
 
 	public BufferOrEvent getNextBufferOrEvent() throws IOException {
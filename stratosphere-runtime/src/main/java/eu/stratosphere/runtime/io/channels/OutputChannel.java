@@ -13,10 +13,15 @@
 
 package eu.stratosphere.runtime.io.channels;
 
+import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.nephele.event.task.AbstractEvent;
 import eu.stratosphere.nephele.event.task.AbstractTaskEvent;
 import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.runtime.io.Buffer;
+import eu.stratosphere.runtime.io.BufferRecycler;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
+import eu.stratosphere.runtime.io.compression.CompressionStatistics;
 import eu.stratosphere.runtime.io.network.Envelope;
 import eu.stratosphere.runtime.io.gates.OutputGate;
 import org.apache.commons.logging.Log;
@@ -24,22 +29,73 @@ import org.apache.commons.logging.LogFactory;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 
 
 public class OutputChannel extends Channel {
 
 	private static final Log LOG = LogFactory.getLog(OutputChannel.class);
 
+	/** Time (ms) to wait before checking again whether the receiver closed the channel while waiting for credits */
+	private static final int CREDIT_WAIT_TIME = 1000;
+
 	private final Object closeLock = new Object();
+
+	private final Object creditLock = new Object();
+
+	/** Lock to assign sequence numbers and dispatch envelopes in the same order */
+	private final Object sendLock = new Object();
 	
 	private final OutputGate outputGate;
 
+	private final CompressionStatistics compressionStatistics;
+
 	private boolean senderCloseRequested;
 
 	private boolean receiverCloseRequested;
 
 	private int currentSeqNum;
 
+	/** Flag to indicate whether this channel only sends buffers the receiver has granted credits for */
+	private boolean creditBased;
+
+	/** Flag to indicate whether the initial credits have been requested from the receiver */
+	private boolean creditsRequested;
+
+	/** Number of buffers this channel may send before the receiver grants further credits */
+	private int credits;
+
+	/** Flag to indicate whether the receiver has answered the request for the initial credits */
+	private boolean initialCreditsReceived;
+
+	/** I/O manager to spill buffers without credits to, or <code>null</code> if the channel waits for credits */
+	private IOManager spillIOManager;
+
+	/** Executor to replay spilled buffers once the receiver grants credits again */
+	private Executor replayExecutor;
+
+	/** Spilled buffers and the events queued behind them, in sending order */
+	private final Queue<SpilledEnvelope> spilledEnvelopes = new ConcurrentLinkedQueue<SpilledEnvelope>();
+
+	private ChannelSpillFile spillFile;
+
+	private int spillSegmentSize;
+
+	private final Object replayLock = new Object();
+
+	/** Segment to read spilled buffers back into, in use until the replayed buffer has been sent */
+	private MemorySegment replaySegment;
+
+	private boolean replaySegmentInUse;
+
+	private boolean replayScheduled;
+
+	private volatile Throwable replayError;
+
+	private volatile boolean destroyed;
+
 	// -----------------------------------------------------------------------------------------------------------------
 
 	/**
@@ -55,6 +111,13 @@ public class OutputChannel extends Channel {
 		super(index, id, connectedId, type);
 
 		this.outputGate = outputGate;
+
+		CompressionCodec codec = outputGate.getCompressionCodec();
+		this.compressionStatistics = codec == null || codec == CompressionCodec.NONE ? null : new CompressionStatistics(codec);
+	}
+
+	public OutputGate getOutputGate() {
+		return this.outputGate;
 	}
 
 	// -----------------------------------------------------------------------------------------------------------------
@@ -69,25 +132,54 @@ public class OutputChannel extends Channel {
 			return;
 		}
 
-		Envelope envelope = createNextEnvelope();
-		envelope.setBuffer(buffer);
-		this.envelopeDispatcher.dispatchFromOutputChannel(envelope);
+		if (isSpilling()) {
+			sendOrSpill(buffer, null);
+			return;
+		}
+
+		acquireCredit(buffer);
+
+		synchronized (this.sendLock) {
+			dispatch(buffer, null);
+		}
 	}
 
 	public void sendEvent(AbstractEvent event) throws IOException, InterruptedException {
 		checkStatus();
 
-		Envelope envelope = createNextEnvelope();
-		envelope.serializeEventList(Arrays.asList(event));
-		this.envelopeDispatcher.dispatchFromOutputChannel(envelope);
+		if (isSpilling()) {
+			sendOrSpill(null, event);
+			return;
+		}
+
+		synchronized (this.sendLock) {
+			dispatch(null, event);
+		}
 	}
 
 	public void sendBufferAndEvent(Buffer buffer, AbstractEvent event) throws IOException, InterruptedException {
 		checkStatus();
 
+		if (isSpilling()) {
+			sendOrSpill(buffer, event);
+			return;
+		}
+
+		acquireCredit(buffer);
+
+		synchronized (this.sendLock) {
+			dispatch(buffer, event);
+		}
+	}
+
+	private void dispatch(Buffer buffer, AbstractEvent event) throws IOException, InterruptedException {
 		Envelope envelope = createNextEnvelope();
-		envelope.setBuffer(buffer);
-		envelope.serializeEventList(Arrays.asList(event));
+		if (buffer != null) {
+			envelope.setBuffer(buffer);
+		}
+		if (event != null) {
+			envelope.serializeEventList(Arrays.asList(event));
+		}
 		this.envelopeDispatcher.dispatchFromOutputChannel(envelope);
 	}
 
@@ -107,7 +199,23 @@ public class OutputChannel extends Channel {
 					this.receiverCloseRequested = true;
 					this.closeLock.notifyAll();
 				}
-			} 
+
+				// wake up a sender waiting for credits, which will not be granted anymore
+				synchronized (this.creditLock) {
+					this.creditLock.notifyAll();
+				}
+			}
+			else if (event.getClass() == ChannelCreditEvent.class) {
+				synchronized (this.creditLock) {
+					this.credits += ((ChannelCreditEvent) event).getCredits();
+					this.initialCreditsReceived = true;
+					this.creditLock.notifyAll();
+				}
+
+				if (isSpilling()) {
+					scheduleReplay();
+				}
+			}
 			else if (event instanceof AbstractTaskEvent) {
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("OutputChannel received task event: " + event);
@@ -121,6 +229,361 @@ public class OutputChannel extends Channel {
 		}
 	}
 
+	// -----------------------------------------------------------------------------------------------------------------
+	//                                            Flow control
+	// -----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Enables credit-based flow control for this channel. The channel then only sends a buffer if its receiver has
+	 * granted a credit for it, i.e. if the receiver has reserved a buffer for the incoming data. Events are sent
+	 * without credits.
+	 * <p>
+	 * Must be called before the first buffer is sent.
+	 */
+	public void enableCreditBasedFlowControl() {
+		this.creditBased = true;
+	}
+
+	public boolean isCreditBased() {
+		return this.creditBased;
+	}
+
+	/**
+	 * Returns whether this channel can send a buffer without waiting for credits. Asks the receiver for the initial
+	 * credits, if this has not been done yet.
+	 *
+	 * @return <code>true</code>, if the channel is not credit-based or holds at least one credit and has no spilled
+	 *         buffers to send first
+	 */
+	public boolean hasCredit() throws IOException, InterruptedException {
+		if (!this.creditBased) {
+			return true;
+		}
+
+		requestInitialCredits();
+
+		synchronized (this.creditLock) {
+			return this.credits > 0 && this.spilledEnvelopes.isEmpty();
+		}
+	}
+
+	/**
+	 * Returns whether this channel can take a buffer right now without blocking the caller. This is the case if the
+	 * receiver has granted a credit for it or, for a spilling channel, has answered the request for credits. Unlike
+	 * {@link #hasCredit()}, this method never asks the receiver for credits, so threads that must not block, like
+	 * the output flusher, may call it.
+	 * <p>
+	 * A channel without credit-based flow control cannot tell whether its receiver has room for a buffer and thus
+	 * always returns <code>false</code>.
+	 *
+	 * @return <code>true</code>, if sending a buffer does not block
+	 */
+	public boolean canSendWithoutBlocking() {
+		if (!this.creditBased) {
+			return false;
+		}
+
+		synchronized (this.creditLock) {
+			if (!this.initialCreditsReceived) {
+				return false;
+			}
+
+			// a spilling channel writes buffers without credits to disk
+			return isSpilling() || (this.credits > 0 && this.spilledEnvelopes.isEmpty());
+		}
+	}
+
+	/**
+	 * Returns the number of buffers this channel may currently send.
+	 *
+	 * @return the number of credits granted by the receiver
+	 */
+	public int getCredits() {
+		synchronized (this.creditLock) {
+			return this.credits;
+		}
+	}
+
+	/**
+	 * Takes a credit for the given buffer and blocks until the receiver granted one, if necessary. Recycles the buffer,
+	 * if the receiver closed the channel in the meantime.
+	 */
+	private void acquireCredit(Buffer buffer) throws IOException, InterruptedException {
+		if (!this.creditBased) {
+			return;
+		}
+
+		try {
+			requestInitialCredits();
+
+			synchronized (this.creditLock) {
+				while (this.credits == 0) {
+					checkStatus();
+					this.creditLock.wait(CREDIT_WAIT_TIME);
+				}
+
+				this.credits--;
+			}
+		} catch (IOException e) {
+			buffer.recycleBuffer();
+			throw e;
+		} catch (InterruptedException e) {
+			buffer.recycleBuffer();
+			throw e;
+		}
+	}
+
+	/**
+	 * Asks the receiver for its initial credits. The request is an envelope like any other, so that it also triggers
+	 * the deployment of the receiver.
+	 */
+	private void requestInitialCredits() throws IOException, InterruptedException {
+		synchronized (this.creditLock) {
+			if (this.creditsRequested) {
+				return;
+			}
+			this.creditsRequested = true;
+		}
+
+		synchronized (this.sendLock) {
+			dispatch(null, new ChannelCreditEvent());
+		}
+	}
+
+	private boolean tryTakeCredit() {
+		synchronized (this.creditLock) {
+			if (this.credits == 0) {
+				return false;
+			}
+
+			this.credits--;
+			return true;
+		}
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+	//                                              Spilling
+	// -----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Lets this credit-based channel spill buffers, for which the receiver has not granted a credit, to disk instead
+	 * of blocking the sender. Spilled buffers are returned to their buffer pool as soon as they are written and are
+	 * sent by the given executor once the receiver grants credits again. Events sent in the meantime are queued
+	 * behind the spilled buffers.
+	 * <p>
+	 * Must be called after {@link #enableCreditBasedFlowControl()} and before the first buffer is sent.
+	 *
+	 * @param ioManager the I/O manager to spill the buffers with
+	 * @param replayExecutor the executor to send the spilled buffers with
+	 */
+	public void enableSpilling(IOManager ioManager, Executor replayExecutor) {
+		if (!this.creditBased) {
+			throw new IllegalStateException("Spilling requires credit-based flow control.");
+		}
+
+		this.spillIOManager = ioManager;
+		this.replayExecutor = replayExecutor;
+	}
+
+	public boolean isSpilling() {
+		return this.spillIOManager != null;
+	}
+
+	/**
+	 * Returns the number of spilled buffers and queued events, which have not been sent yet.
+	 *
+	 * @return the number of envelopes waiting to be replayed
+	 */
+	public int getNumberOfSpilledEnvelopes() {
+		return this.spilledEnvelopes.size();
+	}
+
+	/**
+	 * Sends the given buffer and/or event right away, if nothing is spilled and the receiver granted a credit for the
+	 * buffer. Otherwise, spills the buffer and queues the event.
+	 */
+	private void sendOrSpill(Buffer buffer, AbstractEvent event) throws IOException, InterruptedException {
+		try {
+			checkReplayError();
+
+			// the receiver answers the request right away, even if it cannot reserve buffers yet
+			if (buffer != null) {
+				requestInitialCredits();
+
+				synchronized (this.creditLock) {
+					while (!this.initialCreditsReceived) {
+						checkStatus();
+						this.creditLock.wait(CREDIT_WAIT_TIME);
+					}
+				}
+			}
+		} catch (IOException e) {
+			if (buffer != null) {
+				buffer.recycleBuffer();
+			}
+			throw e;
+		} catch (InterruptedException e) {
+			if (buffer != null) {
+				buffer.recycleBuffer();
+			}
+			throw e;
+		}
+
+		synchronized (this.sendLock) {
+			if (this.spilledEnvelopes.isEmpty() && (buffer == null || tryTakeCredit())) {
+				dispatch(buffer, event);
+				return;
+			}
+
+			int size = 0;
+			if (buffer != null) {
+				size = buffer.size();
+
+				if (this.spillFile == null) {
+					try {
+						this.spillFile = new ChannelSpillFile(this.spillIOManager);
+					} catch (IOException e) {
+						buffer.recycleBuffer();
+						throw e;
+					}
+					this.spillSegmentSize = buffer.getMemorySegment().size();
+				}
+
+				this.spillFile.write(buffer);
+			}
+
+			this.spilledEnvelopes.add(new SpilledEnvelope(size, event));
+		}
+
+		scheduleReplay();
+	}
+
+	private void scheduleReplay() {
+		synchronized (this.creditLock) {
+			SpilledEnvelope next = this.spilledEnvelopes.peek();
+
+			if (this.replayScheduled || this.replayError != null || this.destroyed || next == null
+					|| (next.bufferSize > 0 && this.credits == 0)) {
+				return;
+			}
+
+			this.replayScheduled = true;
+		}
+
+		this.replayExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				replaySpilledEnvelopes();
+			}
+		});
+	}
+
+	/**
+	 * Sends spilled buffers and queued events for as long as the receiver grants credits.
+	 * <p>
+	 * The send lock is only held to look at the queue, so that the sender keeps spilling while a buffer is read back
+	 * and sent. The replayed envelope stays queued until it has been sent, which keeps the sender from sending
+	 * directly in the meantime and thus keeps the envelopes in order.
+	 */
+	private void replaySpilledEnvelopes() {
+		try {
+			while (true) {
+				SpilledEnvelope next;
+				ChannelSpillFile file;
+
+				synchronized (this.sendLock) {
+					next = this.spilledEnvelopes.peek();
+
+					if (next == null || this.receiverCloseRequested || this.destroyed) {
+						// nothing left to replay or nobody to replay to anymore
+						this.spilledEnvelopes.clear();
+						closeSpillFile();
+						break;
+					}
+
+					if (next.bufferSize > 0 && !tryTakeCredit()) {
+						break;
+					}
+
+					file = this.spillFile;
+				}
+
+				Buffer buffer = next.bufferSize > 0 ? readSpilledBuffer(file, next.bufferSize) : null;
+				dispatch(buffer, next.event);
+
+				synchronized (this.sendLock) {
+					this.spilledEnvelopes.poll();
+				}
+			}
+		} catch (Throwable t) {
+			if (!this.destroyed) {
+				LOG.error(String.format("OutputChannel %s failed to replay spilled buffers.", getID()), t);
+			}
+			this.replayError = t;
+		} finally {
+			synchronized (this.creditLock) {
+				this.replayScheduled = false;
+			}
+		}
+
+		// credits may have arrived after the last check
+		scheduleReplay();
+	}
+
+	private Buffer readSpilledBuffer(ChannelSpillFile file, int size) throws IOException, InterruptedException {
+		synchronized (this.replayLock) {
+			while (this.replaySegmentInUse) {
+				this.replayLock.wait();
+			}
+			this.replaySegmentInUse = true;
+
+			if (this.replaySegment == null) {
+				this.replaySegment = new MemorySegment(new byte[this.spillSegmentSize]);
+			}
+		}
+
+		BufferRecycler recycler = new BufferRecycler() {
+			@Override
+			public void recycle(MemorySegment memSeg) {
+				synchronized (OutputChannel.this.replayLock) {
+					OutputChannel.this.replaySegmentInUse = false;
+					OutputChannel.this.replayLock.notifyAll();
+				}
+			}
+		};
+
+		Buffer buffer = new Buffer(this.replaySegment, size, recycler);
+		try {
+			file.read(this.replaySegment);
+		} catch (IOException e) {
+			buffer.recycleBuffer();
+			throw e;
+		} catch (InterruptedException e) {
+			buffer.recycleBuffer();
+			throw e;
+		}
+
+		return buffer;
+	}
+
+	private void closeSpillFile() {
+		if (this.spillFile != null) {
+			try {
+				this.spillFile.closeAndDelete();
+			} catch (IOException e) {
+				LOG.warn(String.format("OutputChannel %s failed to delete its spill file.", getID()), e);
+			}
+			this.spillFile = null;
+		}
+	}
+
+	private void checkReplayError() throws IOException {
+		Throwable error = this.replayError;
+		if (error != null) {
+			throw error instanceof IOException ? (IOException) error : new IOException(error);
+		}
+	}
+
 	// -----------------------------------------------------------------------------------------------------------------
 	//                                              Shutdown
 	// -----------------------------------------------------------------------------------------------------------------
@@ -132,9 +595,15 @@ public class OutputChannel extends Channel {
 
 		this.senderCloseRequested = true;
 
-		Envelope envelope = createNextEnvelope();
-		envelope.serializeEventList(Arrays.asList(new ChannelCloseEvent()));
-		this.envelopeDispatcher.dispatchFromOutputChannel(envelope);
+		// a spilling channel sends the close event after the spilled buffers
+		if (isSpilling()) {
+			sendOrSpill(null, new ChannelCloseEvent());
+			return;
+		}
+
+		synchronized (this.sendLock) {
+			dispatch(null, new ChannelCloseEvent());
+		}
 	}
 
 	@Override
@@ -148,6 +617,20 @@ public class OutputChannel extends Channel {
 				this.closeLock.wait(1000);
 			}
 		}
+
+		// the receiver acknowledged the close event, so all buffers have passed the compression
+		if (this.compressionStatistics != null && this.compressionStatistics.getNumBuffers() > 0 && LOG.isInfoEnabled()) {
+			LOG.info(String.format("OutputChannel %s: %s", getID(), this.compressionStatistics));
+		}
+	}
+
+	/**
+	 * Returns the statistics of the compression of the buffers this channel ships over the network.
+	 *
+	 * @return the compression statistics, or <code>null</code>, if the channel does not compress its buffers
+	 */
+	public CompressionStatistics getCompressionStatistics() {
+		return this.compressionStatistics;
 	}
 
 	// -----------------------------------------------------------------------------------------------------------------
@@ -172,7 +655,9 @@ public class OutputChannel extends Channel {
 	}
 
 	private Envelope createNextEnvelope() {
-		return new Envelope(this.currentSeqNum++, getJobID(), getID());
+		Envelope envelope = new Envelope(this.currentSeqNum++, getJobID(), getID());
+		envelope.setCompression(this.compressionStatistics);
+		return envelope;
 	}
 
 	@Override
@@ -187,6 +672,32 @@ public class OutputChannel extends Channel {
 
 	@Override
 	public void destroy() {
-		// nothing to do for buffer oriented runtime => TODO remove with pending changes for input side
+		if (isSpilling()) {
+			this.destroyed = true;
+
+			// a running replay discards the spilled buffers itself
+			synchronized (this.sendLock) {
+				this.spilledEnvelopes.clear();
+				closeSpillFile();
+			}
+		}
+	}
+
+	// -----------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * A spilled buffer or an event queued behind spilled buffers.
+	 */
+	private static final class SpilledEnvelope {
+
+		/** Size of the spilled buffer, 0 if there is no buffer */
+		private final int bufferSize;
+
+		private final AbstractEvent event;
+
+		private SpilledEnvelope(int bufferSize, AbstractEvent event) {
+			this.bufferSize = bufferSize;
+			this.event = event;
+		}
 	}
 }
@@ -0,0 +1,43 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.io.compression;
+
+/**
+ * A compressor for blocks of bytes. A compressor holds internal state and is not thread-safe, but it can be
+ * used to compress many blocks, one after the other. Every compressed block can be decompressed independently
+ * with the {@link BlockDecompressor} of the same {@link CompressionCodec}.
+ */
+public interface BlockCompressor {
+
+	/**
+	 * Gets the maximal size that a block of the given size can have after compression. The target array
+	 * given to {@link #compress(byte[], int, int, byte[], int)} must have at least this many bytes left.
+	 *
+	 * @param srcLen The size of the uncompressed block.
+	 * @return The maximal size of the compressed block.
+	 */
+	int getMaxCompressedSize(int srcLen);
+
+	/**
+	 * Compresses a block of bytes.
+	 *
+	 * @param src The array holding the uncompressed block.
+	 * @param srcOff The offset of the block in the source array.
+	 * @param srcLen The length of the block.
+	 * @param dst The array to write the compressed block to.
+	 * @param dstOff The offset in the target array where the compressed block starts.
+	 * @return The size of the compressed block.
+	 */
+	int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff);
+}
@@ -0,0 +1,37 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.io.compression;
+
+import java.io.IOException;
+
+/**
+ * A decompressor for blocks of bytes that were compressed with the {@link BlockCompressor} of the same
+ * {@link CompressionCodec}. A decompressor is not thread-safe.
+ */
+public interface BlockDecompressor {
+
+	/**
+	 * Decompresses a block of bytes.
+	 *
+	 * @param src The array holding the compressed block.
+	 * @param srcOff The offset of the compressed block in the source array.
+	 * @param srcLen The length of the compressed block.
+	 * @param dst The array to write the uncompressed block to.
+	 * @param dstOff The offset in the target array where the uncompressed block starts.
+	 * @param dstLen The number of bytes available in the target array.
+	 * @return The size of the uncompressed block.
+	 * @throws IOException Thrown, if the compressed block is corrupt or if it does not fit into the target array.
+	 */
+	int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws IOException;
+}
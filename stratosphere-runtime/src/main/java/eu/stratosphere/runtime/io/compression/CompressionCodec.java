@@ -0,0 +1,84 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.io.compression;
+
+/**
+ * The codecs that can be used to compress the buffers of a channel. Additional codecs are added by adding a
+ * constant that creates their {@link BlockCompressor} and {@link BlockDecompressor}.
+ * <p>
+ * The ordinal of a codec is used to identify it on the wire, so new codecs must be appended at the end.
+ */
+public enum CompressionCodec {
+
+	/**
+	 * No compression.
+	 */
+	NONE {
+		@Override
+		public BlockCompressor createCompressor() {
+			throw new UnsupportedOperationException("The codec NONE does not compress.");
+		}
+
+		@Override
+		public BlockDecompressor createDecompressor() {
+			throw new UnsupportedOperationException("The codec NONE does not compress.");
+		}
+	},
+
+	/**
+	 * A fast compression in the LZ4 block format. It trades compression ratio for speed and is suited for
+	 * links whose bandwidth is not much lower than the rate at which the tasks produce the data.
+	 */
+	LZ4 {
+		@Override
+		public BlockCompressor createCompressor() {
+			return new Lz4BlockCompressor();
+		}
+
+		@Override
+		public BlockDecompressor createDecompressor() {
+			return new Lz4BlockDecompressor();
+		}
+	};
+
+	private static final CompressionCodec[] CODECS = values();
+
+	/**
+	 * Creates a new compressor for this codec.
+	 *
+	 * @return A new compressor.
+	 */
+	public abstract BlockCompressor createCompressor();
+
+	/**
+	 * Creates a new decompressor for this codec.
+	 *
+	 * @return A new decompressor.
+	 */
+	public abstract BlockDecompressor createDecompressor();
+
+	/**
+	 * Gets the codec with the given ordinal, as it was written to the wire.
+	 *
+	 * @param ordinal The ordinal of the codec.
+	 * @return The codec with the given ordinal.
+	 * @throws IllegalArgumentException Thrown, if no codec has the given ordinal.
+	 */
+	public static CompressionCodec fromOrdinal(int ordinal) {
+		if (ordinal < 0 || ordinal >= CODECS.length) {
+			throw new IllegalArgumentException("Unknown compression codec: " + ordinal);
+		}
+		return CODECS[ordinal];
+	}
+}
@@ -0,0 +1,95 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.io.compression;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The compression codec of an output channel, together with the statistics about the buffers that were
+ * compressed with it. The buffers are compressed by the network I/O thread, while the statistics are read
+ * by the task thread, so the counters are atomic.
+ */
+public final class CompressionStatistics {
+
+	private final CompressionCodec codec;
+
+	private final AtomicLong numBuffers = new AtomicLong();
+
+	private final AtomicLong uncompressedBytes = new AtomicLong();
+
+	private final AtomicLong sentBytes = new AtomicLong();
+
+	private final AtomicLong compressionNanos = new AtomicLong();
+
+
+	public CompressionStatistics(CompressionCodec codec) {
+		if (codec == null || codec == CompressionCodec.NONE) {
+			throw new IllegalArgumentException("Statistics are only kept for compressing codecs.");
+		}
+		this.codec = codec;
+	}
+
+	public CompressionCodec getCodec() {
+		return this.codec;
+	}
+
+	/**
+	 * Adds a compressed buffer to the statistics.
+	 *
+	 * @param uncompressedSize The size of the buffer before compression.
+	 * @param sentSize The number of bytes that were sent for the buffer. That is the compressed size, or the
+	 *                 uncompressed size, if the compression did not make the buffer smaller.
+	 * @param nanos The time spent in the compression, in nanoseconds.
+	 */
+	public void reportBuffer(int uncompressedSize, int sentSize, long nanos) {
+		this.numBuffers.incrementAndGet();
+		this.uncompressedBytes.addAndGet(uncompressedSize);
+		this.sentBytes.addAndGet(sentSize);
+		this.compressionNanos.addAndGet(nanos);
+	}
+
+	public long getNumBuffers() {
+		return this.numBuffers.get();
+	}
+
+	public long getUncompressedBytes() {
+		return this.uncompressedBytes.get();
+	}
+
+	public long getSentBytes() {
+		return this.sentBytes.get();
+	}
+
+	public long getCompressionNanos() {
+		return this.compressionNanos.get();
+	}
+
+	/**
+	 * Gets the ratio between the uncompressed and the sent bytes. A ratio of 2 means that the compression halved
+	 * the data volume.
+	 *
+	 * @return The compression ratio, or 1, if no buffer was compressed, yet.
+	 */
+	public double getCompressionRatio() {
+		final long sent = this.sentBytes.get();
+		return sent == 0 ? 1.0 : this.uncompressedBytes.get() / (double) sent;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s compression: %d buffers, %d bytes compressed to %d bytes (ratio %.2f), %d msecs CPU time",
+			this.codec, getNumBuffers(), getUncompressedBytes(), getSentBytes(), getCompressionRatio(),
+			getCompressionNanos() / 1000000);
+	}
+}
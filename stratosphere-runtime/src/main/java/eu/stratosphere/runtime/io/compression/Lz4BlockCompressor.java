@@ -0,0 +1,162 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.io.compression;
+
+import java.util.Arrays;
+
+/**
+ * A compressor that writes the LZ4 block format. The compressor does a greedy search for matches, using a
+ * hash table over the four byte sequences it has seen. When it does not find matches, it advances faster
+ * through the input, so that incompressible data costs little time.
+ * <p>
+ * The format consists of sequences. A sequence starts with a token byte, whose high four bits hold the number
+ * of literals and whose low four bits hold the length of the match (minus the minimal match length). If a
+ * length does not fit into four bits, it continues in additional bytes. The literals follow after the token
+ * and the literal length, then the two byte (little endian) offset of the match, then the rest of the match
+ * length. The last sequence has only literals.
+ */
+public final class Lz4BlockCompressor implements BlockCompressor {
+
+	static final int MIN_MATCH = 4;
+
+	/** The last bytes of a block are always literals. */
+	static final int LAST_LITERALS = 5;
+
+	/** A match must start at least this many bytes before the end of the block. */
+	static final int MF_LIMIT = 12;
+
+	static final int MAX_DISTANCE = (1 << 16) - 1;
+
+	static final int RUN_MASK = 0x0f;
+
+	private static final int HASH_LOG = 12;
+
+	private static final int SKIP_STRENGTH = 6;
+
+	private final int[] hashTable = new int[1 << HASH_LOG];
+
+
+	@Override
+	public int getMaxCompressedSize(int srcLen) {
+		return srcLen + srcLen / 255 + 16;
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+		final int srcEnd = srcOff + srcLen;
+		final int matchLimit = srcEnd - LAST_LITERALS;
+		final int mfLimit = srcEnd - MF_LIMIT;
+
+		int dOff = dstOff;
+		int anchor = srcOff;
+
+		if (srcLen > MF_LIMIT) {
+			final int[] table = this.hashTable;
+			Arrays.fill(table, -1);
+
+			int sOff = srcOff;
+			int findMatchAttempts = 1 << SKIP_STRENGTH;
+
+			while (sOff < mfLimit) {
+				final int sequence = readInt(src, sOff);
+				final int h = hash(sequence);
+				int ref = table[h];
+				table[h] = sOff;
+
+				if (ref < 0 || sOff - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+					// no match, skip ahead the faster, the longer we have not found a match
+					sOff += findMatchAttempts++ >>> SKIP_STRENGTH;
+					continue;
+				}
+				findMatchAttempts = 1 << SKIP_STRENGTH;
+
+				// extend the match backwards into the pending literals
+				while (sOff > anchor && ref > srcOff && src[sOff - 1] == src[ref - 1]) {
+					sOff--;
+					ref--;
+				}
+
+				// extend the match forward
+				int matchLen = MIN_MATCH;
+				while (sOff + matchLen < matchLimit && src[sOff + matchLen] == src[ref + matchLen]) {
+					matchLen++;
+				}
+
+				// write the sequence: token, literals, offset, match length
+				final int literalLen = sOff - anchor;
+				final int tokenPos = dOff++;
+				int token;
+				if (literalLen >= RUN_MASK) {
+					token = RUN_MASK << 4;
+					dOff = writeLength(literalLen - RUN_MASK, dst, dOff);
+				} else {
+					token = literalLen << 4;
+				}
+				System.arraycopy(src, anchor, dst, dOff, literalLen);
+				dOff += literalLen;
+
+				final int offset = sOff - ref;
+				dst[dOff++] = (byte) offset;
+				dst[dOff++] = (byte) (offset >>> 8);
+
+				final int remainingMatchLen = matchLen - MIN_MATCH;
+				if (remainingMatchLen >= RUN_MASK) {
+					token |= RUN_MASK;
+					dOff = writeLength(remainingMatchLen - RUN_MASK, dst, dOff);
+				} else {
+					token |= remainingMatchLen;
+				}
+				dst[tokenPos] = (byte) token;
+
+				sOff += matchLen;
+				anchor = sOff;
+
+				// remember a position inside the match, it often starts the next match
+				if (sOff < mfLimit) {
+					table[hash(readInt(src, sOff - 2))] = sOff - 2;
+				}
+			}
+		}
+
+		// the last literals
+		final int literalLen = srcEnd - anchor;
+		if (literalLen >= RUN_MASK) {
+			dst[dOff++] = (byte) (RUN_MASK << 4);
+			dOff = writeLength(literalLen - RUN_MASK, dst, dOff);
+		} else {
+			dst[dOff++] = (byte) (literalLen << 4);
+		}
+		System.arraycopy(src, anchor, dst, dOff, literalLen);
+		dOff += literalLen;
+
+		return dOff - dstOff;
+	}
+
+	private static int writeLength(int len, byte[] dst, int dOff) {
+		while (len >= 0xff) {
+			dst[dOff++] = (byte) 0xff;
+			len -= 0xff;
+		}
+		dst[dOff++] = (byte) len;
+		return dOff;
+	}
+
+	private static int readInt(byte[] buf, int off) {
+		return (buf[off] & 0xff) | ((buf[off + 1] & 0xff) << 8) | ((buf[off + 2] & 0xff) << 16) | (buf[off + 3] << 24);
+	}
+
+	private static int hash(int sequence) {
+		return (sequence * -1640531535) >>> (32 - HASH_LOG);
+	}
+}
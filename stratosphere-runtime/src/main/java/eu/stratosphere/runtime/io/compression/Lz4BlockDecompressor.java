@@ -0,0 +1,107 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.io.compression;
+
+import static eu.stratosphere.runtime.io.compression.Lz4BlockCompressor.MIN_MATCH;
+import static eu.stratosphere.runtime.io.compression.Lz4BlockCompressor.RUN_MASK;
+
+import java.io.IOException;
+
+/**
+ * A decompressor for the LZ4 block format, as written by the {@link Lz4BlockCompressor}. The decompressor checks
+ * all lengths and offsets against the bounds of the source and the target, so that corrupt data results in
+ * an exception rather than in reading or writing out of bounds.
+ */
+public final class Lz4BlockDecompressor implements BlockDecompressor {
+
+	@Override
+	public int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws IOException {
+		final int srcEnd = srcOff + srcLen;
+		final int dstEnd = dstOff + dstLen;
+
+		int sOff = srcOff;
+		int dOff = dstOff;
+
+		while (sOff < srcEnd) {
+			final int token = src[sOff++] & 0xff;
+
+			// literals
+			int literalLen = token >>> 4;
+			if (literalLen == RUN_MASK) {
+				int b;
+				do {
+					if (sOff >= srcEnd) {
+						throw corrupt();
+					}
+					b = src[sOff++] & 0xff;
+					literalLen += b;
+				} while (b == 0xff);
+			}
+			if (literalLen > srcEnd - sOff || literalLen > dstEnd - dOff) {
+				throw corrupt();
+			}
+			System.arraycopy(src, sOff, dst, dOff, literalLen);
+			sOff += literalLen;
+			dOff += literalLen;
+
+			// the last sequence has no match
+			if (sOff == srcEnd) {
+				break;
+			}
+
+			// match
+			if (srcEnd - sOff < 2) {
+				throw corrupt();
+			}
+			final int offset = (src[sOff] & 0xff) | ((src[sOff + 1] & 0xff) << 8);
+			sOff += 2;
+			if (offset == 0 || offset > dOff - dstOff) {
+				throw corrupt();
+			}
+
+			int matchLen = token & RUN_MASK;
+			if (matchLen == RUN_MASK) {
+				int b;
+				do {
+					if (sOff >= srcEnd) {
+						throw corrupt();
+					}
+					b = src[sOff++] & 0xff;
+					matchLen += b;
+				} while (b == 0xff);
+			}
+			matchLen += MIN_MATCH;
+			if (matchLen > dstEnd - dOff) {
+				throw corrupt();
+			}
+
+			final int ref = dOff - offset;
+			if (offset >= matchLen) {
+				System.arraycopy(dst, ref, dst, dOff, matchLen);
+			} else {
+				// the match overlaps with the bytes it produces, copy byte by byte
+				for (int i = 0; i < matchLen; i++) {
+					dst[dOff + i] = dst[ref + i];
+				}
+			}
+			dOff += matchLen;
+		}
+
+		return dOff - dstOff;
+	}
+
+	private static IOException corrupt() {
+		return new IOException("Corrupt LZ4 compressed block.");
+	}
+}
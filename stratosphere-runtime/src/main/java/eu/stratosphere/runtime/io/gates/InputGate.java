@@ -343,6 +343,15 @@ public class InputGate<T extends IOReadableWritable> extends Gate<T> implements
 		return getNumberOfInputChannels();
 	}
 
+	/**
+	 * Returns the number of buffers designated for the local buffer pool of this gate.
+	 *
+	 * @return number of designated buffers
+	 */
+	public int getNumberOfDesignatedBuffers() {
+		return this.bufferPool.numDesignatedBuffers();
+	}
+
 	@Override
 	public void setDesignatedNumberOfBuffers(int numBuffers) {
 		this.bufferPool.setNumDesignatedBuffers(numBuffers);
@@ -20,14 +20,23 @@ import eu.stratosphere.nephele.event.task.AbstractEvent;
 import eu.stratosphere.runtime.io.Buffer;
 import eu.stratosphere.runtime.io.channels.ChannelID;
 import eu.stratosphere.runtime.io.channels.OutputChannel;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.jobgraph.JobID;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import java.io.IOException;
 
 public class OutputGate extends Gate<IOReadableWritable> {
 
+	private static final Log LOG = LogFactory.getLog(OutputGate.class);
+
 	private OutputChannel[] channels;
 
+	private CompressionCodec compressionCodec = CompressionCodec.NONE;
+
+	private final OutputGateStatistics statistics = new OutputGateStatistics();
+
 	private boolean closed;
 	
 	/**
@@ -57,6 +66,17 @@ public class OutputGate extends Gate<IOReadableWritable> {
 		this.channels[targetChannel].sendBufferAndEvent(buffer, event);
 	}
 
+	/**
+	 * Returns whether the given channel can take a buffer without blocking the caller.
+	 *
+	 * @param targetChannel the index of the channel
+	 * @return <code>true</code>, if sending a buffer to the channel does not block
+	 * @see OutputChannel#canSendWithoutBlocking()
+	 */
+	public boolean canSendWithoutBlocking(int targetChannel) {
+		return this.channels[targetChannel].canSendWithoutBlocking();
+	}
+
 	public void broadcastBuffer(Buffer buffer) throws IOException, InterruptedException {
 		for (int i = 1; i < this.channels.length; i++) {
 			channels[i].sendBuffer(buffer.duplicate());
@@ -79,6 +99,7 @@ public class OutputGate extends Gate<IOReadableWritable> {
 		this.channels = new OutputChannel[numChannels];
 
 		setChannelType(descriptor.getChannelType());
+		this.compressionCodec = descriptor.getCompressionCodec();
 
 		for (int i = 0; i < numChannels; i++) {
 			ChannelDeploymentDescriptor channelDescriptor = descriptor.getChannelDescriptor(i);
@@ -90,6 +111,24 @@ public class OutputGate extends Gate<IOReadableWritable> {
 		}
 	}
 
+	/**
+	 * Returns the codec with which the channels of this gate compress the buffers they ship over the network.
+	 *
+	 * @return the compression codec of this gate
+	 */
+	public CompressionCodec getCompressionCodec() {
+		return this.compressionCodec;
+	}
+
+	/**
+	 * Returns the statistics about the buffers sent through this gate.
+	 *
+	 * @return the statistics of this gate
+	 */
+	public OutputGateStatistics getStatistics() {
+		return this.statistics;
+	}
+
 	public OutputChannel[] channels() {
 		return this.channels;
 	}
@@ -138,6 +177,15 @@ public class OutputGate extends Gate<IOReadableWritable> {
 		}
 		
 		this.closed = true;
+
+		if (this.statistics.getNumBuffers() > 0) {
+			// buffer timeouts trade throughput for latency, so their effect is worth reporting
+			if (this.statistics.getNumTimeoutFlushes() > 0 && LOG.isInfoEnabled()) {
+				LOG.info(toString() + ": " + this.statistics);
+			} else if (LOG.isDebugEnabled()) {
+				LOG.debug(toString() + ": " + this.statistics);
+			}
+		}
 	}
 
 	// -----------------------------------------------------------------------------------------------------------------
@@ -0,0 +1,102 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.io.gates;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics about the buffers that were sent through an output gate: how full they were when they were sent,
+ * and how long the first record in each buffer waited until the buffer was sent. Buffers are reported by the task
+ * thread and by the output flusher, while the statistics may be read by any thread, so the counters are atomic.
+ */
+public final class OutputGateStatistics {
+
+	private final AtomicLong numBuffers = new AtomicLong();
+
+	private final AtomicLong numTimeoutFlushes = new AtomicLong();
+
+	private final AtomicLong sentBytes = new AtomicLong();
+
+	private final AtomicLong capacityBytes = new AtomicLong();
+
+	private final AtomicLong totalLatencyNanos = new AtomicLong();
+
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+	/**
+	 * Adds a sent buffer to the statistics.
+	 *
+	 * @param size The number of bytes in the buffer.
+	 * @param capacity The number of bytes the buffer could have held.
+	 * @param latencyNanos The time between writing the first record into the buffer and sending the buffer.
+	 * @param timeoutFlush True, if the buffer was sent because its timeout expired, rather than because it was full.
+	 */
+	public void reportBuffer(int size, int capacity, long latencyNanos, boolean timeoutFlush) {
+		this.numBuffers.incrementAndGet();
+		this.sentBytes.addAndGet(size);
+		this.capacityBytes.addAndGet(capacity);
+		this.totalLatencyNanos.addAndGet(latencyNanos);
+		if (timeoutFlush) {
+			this.numTimeoutFlushes.incrementAndGet();
+		}
+
+		long max = this.maxLatencyNanos.get();
+		while (latencyNanos > max && !this.maxLatencyNanos.compareAndSet(max, latencyNanos)) {
+			max = this.maxLatencyNanos.get();
+		}
+	}
+
+	public long getNumBuffers() {
+		return this.numBuffers.get();
+	}
+
+	public long getNumTimeoutFlushes() {
+		return this.numTimeoutFlushes.get();
+	}
+
+	public long getSentBytes() {
+		return this.sentBytes.get();
+	}
+
+	/**
+	 * Gets the average fraction of the buffer capacity that was used by the sent buffers.
+	 *
+	 * @return The fill ratio between 0 and 1, or 0, if no buffer was sent, yet.
+	 */
+	public double getFillRatio() {
+		final long capacity = this.capacityBytes.get();
+		return capacity == 0 ? 0.0 : this.sentBytes.get() / (double) capacity;
+	}
+
+	/**
+	 * Gets the average time between writing the first record into a buffer and sending the buffer.
+	 *
+	 * @return The average buffer latency in milliseconds, or 0, if no buffer was sent, yet.
+	 */
+	public double getAverageLatencyMillis() {
+		final long buffers = this.numBuffers.get();
+		return buffers == 0 ? 0.0 : this.totalLatencyNanos.get() / (buffers * 1000000.0);
+	}
+
+	public double getMaxLatencyMillis() {
+		return this.maxLatencyNanos.get() / 1000000.0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d buffers with %d bytes (fill ratio %.2f), %d flushed on timeout, " +
+			"latency avg %.2f msecs, max %.2f msecs", getNumBuffers(), getSentBytes(), getFillRatio(),
+			getNumTimeoutFlushes(), getAverageLatencyMillis(), getMaxLatencyMillis());
+	}
+}
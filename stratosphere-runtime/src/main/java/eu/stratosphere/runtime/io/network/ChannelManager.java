@@ -14,6 +14,9 @@
 package eu.stratosphere.runtime.io.network;
 
 import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.nephele.deployment.ChannelDeploymentDescriptor;
+import eu.stratosphere.nephele.deployment.GateDeploymentDescriptor;
+import eu.stratosphere.nephele.deployment.TaskDeploymentDescriptor;
 import eu.stratosphere.nephele.execution.CancelTaskException;
 import eu.stratosphere.nephele.execution.Environment;
 import eu.stratosphere.nephele.execution.RuntimeEnvironment;
@@ -26,7 +29,9 @@ import eu.stratosphere.runtime.io.channels.InputChannel;
 import eu.stratosphere.runtime.io.channels.OutputChannel;
 import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.nephele.protocols.ChannelLookupProtocol;
+import eu.stratosphere.nephele.taskmanager.ExecutorThreadFactory;
 import eu.stratosphere.nephele.taskmanager.Task;
+import eu.stratosphere.nephele.util.SerializableArrayList;
 import eu.stratosphere.nephele.AbstractID;
 import eu.stratosphere.runtime.io.Buffer;
 import eu.stratosphere.runtime.io.network.bufferprovider.BufferProvider;
@@ -43,9 +48,12 @@ import org.apache.commons.logging.LogFactory;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * The channel manager sets up the network buffers and dispatches data between channels.
@@ -72,21 +80,32 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 	
 	private final DiscardBufferPool discardBufferPool;
 
+	/** Maximum number of credits per network input channel, 0 if the channels are not flow controlled by credits */
+	private final int creditsPerChannel;
+
+	/** Executor to replay the buffers spilled by network output channels, <code>null</code> if they do not spill */
+	private final ExecutorService spillReplayExecutor;
+
+	/** Executor to announce the credits of network input channels, <code>null</code> if they grant no credits */
+	private final ExecutorService creditAnnouncementExecutor;
+
 	// -----------------------------------------------------------------------------------------------------------------
 
 	public ChannelManager(ChannelLookupProtocol channelLookupService, InstanceConnectionInfo connectionInfo,
 						int numNetworkBuffers, int networkBufferSize,
 						int numInThreads, int numOutThreads,
-						int lowWatermark, int highWaterMark) throws IOException {
+						int lowWatermark, int highWaterMark, boolean nativeTransport, int creditsPerChannel,
+						boolean spilling) throws IOException {
 
 		this.channelLookupService = channelLookupService;
 		this.connectionInfo = connectionInfo;
 
-		this.globalBufferPool = new GlobalBufferPool(numNetworkBuffers, networkBufferSize);
+		// the native transport writes off-heap buffers without copying them
+		this.globalBufferPool = new GlobalBufferPool(numNetworkBuffers, networkBufferSize, nativeTransport);
 
 		this.nettyConnectionManager = new NettyConnectionManager(
 				this, connectionInfo.address(), connectionInfo.dataPort(),
-				networkBufferSize, numInThreads, numOutThreads, lowWatermark, highWaterMark);
+				networkBufferSize, numInThreads, numOutThreads, lowWatermark, highWaterMark, nativeTransport);
 
 		// management data structures
 		this.channels = new ConcurrentHashMap<ChannelID, Channel>();
@@ -97,9 +116,20 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 		
 		// a special pool if the data is to be discarded
 		this.discardBufferPool = new DiscardBufferPool();
+
+		this.creditsPerChannel = creditsPerChannel;
+		this.spillReplayExecutor = spilling && creditsPerChannel > 0 ? Executors.newCachedThreadPool(ExecutorThreadFactory.INSTANCE) : null;
+		this.creditAnnouncementExecutor = creditsPerChannel > 0 ? Executors.newCachedThreadPool(ExecutorThreadFactory.INSTANCE) : null;
 	}
 
 	public void shutdown() {
+		if (this.spillReplayExecutor != null) {
+			this.spillReplayExecutor.shutdownNow();
+		}
+		if (this.creditAnnouncementExecutor != null) {
+			this.creditAnnouncementExecutor.shutdownNow();
+		}
+
 		this.nettyConnectionManager.shutdown();
 		this.globalBufferPool.destroy();
 	}
@@ -142,6 +172,14 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 						break;
 					case NETWORK:
 						addReceiverListHint(channel.getConnectedId(), channel.getID());
+
+						if (this.creditsPerChannel > 0) {
+							channel.enableCreditBasedFlowControl();
+
+							if (this.spillReplayExecutor != null) {
+								channel.enableSpilling(environment.getIOManager(), this.spillReplayExecutor);
+							}
+						}
 						break;
 				}
 
@@ -167,6 +205,12 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 					addReceiverListHint(channel.getID(), channel.getConnectedId());
 				}
 
+				// both ends of a network channel agree on credits, because all task managers share the configuration.
+				// the credits are announced by a separate thread, because the network I/O threads grant them.
+				if (gate.getChannelType() == ChannelType.NETWORK && this.creditsPerChannel > 0) {
+					channel.enableCreditBasedFlowControl(this.creditsPerChannel, this.creditAnnouncementExecutor);
+				}
+
 				this.channels.put(channel.getID(), channel);
 			}
 
@@ -178,6 +222,32 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 		redistributeBuffers();
 	}
 
+	/**
+	 * Adds the locations of connected channels, which the job manager shipped with the deployment descriptor of a
+	 * task, to the receiver cache. Envelopes from and to these channels are then dispatched without lookups.
+	 *
+	 * @param tdd the deployment descriptor of a registered task
+	 */
+	public void addReceiverListHints(TaskDeploymentDescriptor tdd) {
+		for (int i = 0; i < tdd.getNumberOfOutputGateDescriptors(); i++) {
+			GateDeploymentDescriptor gdd = tdd.getOutputGateDescriptor(i);
+
+			for (int j = 0; j < gdd.getNumberOfChannelDescriptors(); j++) {
+				ChannelDeploymentDescriptor cdd = gdd.getChannelDescriptor(j);
+				addReceiverListHint(cdd.getOutputChannelID(), cdd.getConnectedChannelLocation());
+			}
+		}
+
+		for (int i = 0; i < tdd.getNumberOfInputGateDescriptors(); i++) {
+			GateDeploymentDescriptor gdd = tdd.getInputGateDescriptor(i);
+
+			for (int j = 0; j < gdd.getNumberOfChannelDescriptors(); j++) {
+				ChannelDeploymentDescriptor cdd = gdd.getChannelDescriptor(j);
+				addReceiverListHint(cdd.getInputChannelID(), cdd.getConnectedChannelLocation());
+			}
+		}
+	}
+
 	/**
 	 * Unregisters the given task from the channel manager.
 	 *
@@ -306,6 +376,13 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 		}
 	}
 
+	private void addReceiverListHint(ChannelID source, ConnectionInfoLookupResponse location) {
+		// an existing entry is at least as recent as the location known at deployment time
+		if (location != null && location.receiverReady() && !this.receiverCache.containsKey(source)) {
+			this.receiverCache.put(source, new EnvelopeReceiverList(location));
+		}
+	}
+
 	private void generateSenderHint(Envelope envelope, RemoteReceiver receiver) throws IOException {
 		Channel channel = this.channels.get(envelope.getSource());
 		if (channel == null) {
@@ -345,10 +422,7 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 		}
 
 		while (true) {
-			ConnectionInfoLookupResponse lookupResponse;
-			synchronized (this.channelLookupService) {
-				lookupResponse = this.channelLookupService.lookupConnectionInfo(this.connectionInfo, jobID, sourceChannelID);
-			}
+			ConnectionInfoLookupResponse lookupResponse = lookupConnectionInfo(jobID, sourceChannelID);
 
 			if (lookupResponse.receiverReady()) {
 				receiverList = new EnvelopeReceiverList(lookupResponse);
@@ -396,6 +470,69 @@ public class ChannelManager implements EnvelopeDispatcher, BufferProviderBroker
 		return receiverList;
 	}
 
+	/**
+	 * Looks up the receiver for the given channel at the job manager. If the channel belongs to a gate of a local task,
+	 * the receivers of all other unresolved channels of the gate are looked up in the same call and cached.
+	 *
+	 * @param jobID the ID of the job the given channel ID belongs to
+	 * @param sourceChannelID the source channel ID to look up
+	 * @return the lookup response for the given channel
+	 * @throws IOException
+	 */
+	private ConnectionInfoLookupResponse lookupConnectionInfo(JobID jobID, ChannelID sourceChannelID) throws IOException {
+		final List<ChannelID> channelIDs = getUnresolvedChannelsOfGate(sourceChannelID);
+
+		if (channelIDs.size() == 1) {
+			synchronized (this.channelLookupService) {
+				return this.channelLookupService.lookupConnectionInfo(this.connectionInfo, jobID, sourceChannelID);
+			}
+		}
+
+		List<ConnectionInfoLookupResponse> lookupResponses;
+		synchronized (this.channelLookupService) {
+			lookupResponses = this.channelLookupService.lookupConnectionInfos(this.connectionInfo, jobID, channelIDs);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(String.format("Looked up receivers for %d channels of the gate of %s", channelIDs.size(), sourceChannelID));
+		}
+
+		// the requested channel comes first, the receiver lists of the others are cached if they are ready
+		for (int i = 1; i < channelIDs.size(); i++) {
+			addReceiverListHint(channelIDs.get(i), lookupResponses.get(i));
+		}
+
+		return lookupResponses.get(0);
+	}
+
+	/**
+	 * Returns the given channel ID followed by the IDs of all other channels of its gate, which have no cached receiver
+	 * list yet. Returns only the given channel ID, if it does not belong to a local gate.
+	 */
+	private List<ChannelID> getUnresolvedChannelsOfGate(ChannelID sourceChannelID) {
+		// the list is an argument of the lookup call
+		final List<ChannelID> channelIDs = new SerializableArrayList<ChannelID>();
+		channelIDs.add(sourceChannelID);
+
+		final Channel channel = this.channels.get(sourceChannelID);
+		if (channel == null) {
+			return channelIDs;
+		}
+
+		final Channel[] gateChannels = channel.isInputChannel()
+				? ((InputChannel<?>) channel).getInputGate().channels()
+				: ((OutputChannel) channel).getOutputGate().channels();
+
+		for (Channel gateChannel : gateChannels) {
+			ChannelID id = gateChannel.getID();
+			if (!id.equals(sourceChannelID) && !this.receiverCache.containsKey(id)) {
+				channelIDs.add(id);
+			}
+		}
+
+		return channelIDs;
+	}
+
 	/**
 	 * Invalidates the entries identified by the given channel IDs from the receiver lookup cache.
 	 *
@@ -16,6 +16,7 @@ package eu.stratosphere.runtime.io.network;
 import eu.stratosphere.nephele.event.task.AbstractEvent;
 import eu.stratosphere.runtime.io.Buffer;
 import eu.stratosphere.runtime.io.channels.ChannelID;
+import eu.stratosphere.runtime.io.compression.CompressionStatistics;
 import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.runtime.io.serialization.DataInputDeserializer;
 import eu.stratosphere.runtime.io.serialization.DataOutputSerializer;
@@ -39,6 +40,8 @@ public final class Envelope {
 
 	private Buffer buffer;
 
+	private CompressionStatistics compression;
+
 	public Envelope(int sequenceNumber, JobID jobID, ChannelID source) {
 		this.sequenceNumber = sequenceNumber;
 		this.jobID = jobID;
@@ -51,6 +54,7 @@ public final class Envelope {
 		this.sequenceNumber = toDuplicate.sequenceNumber;
 		this.serializedEventList = null;
 		this.buffer = null;
+		this.compression = toDuplicate.compression;
 	}
 
 	public Envelope duplicate() {
@@ -145,6 +149,20 @@ public final class Envelope {
 		return this.buffer;
 	}
 
+	/**
+	 * Sets the statistics of the compression with which the buffer of this envelope is shipped over the network.
+	 * If no statistics are set, the buffer is shipped uncompressed.
+	 *
+	 * @param compression The compression statistics of the sending channel, or <code>null</code>.
+	 */
+	public void setCompression(CompressionStatistics compression) {
+		this.compression = compression;
+	}
+
+	public CompressionStatistics getCompression() {
+		return this.compression;
+	}
+
 	private ByteBuffer serializeEvents(List<? extends AbstractEvent> events) {
 		try {
 			// create the serialized event list
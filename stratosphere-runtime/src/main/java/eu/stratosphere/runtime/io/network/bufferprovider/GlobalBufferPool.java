@@ -13,6 +13,7 @@
 
 package eu.stratosphere.runtime.io.network.bufferprovider;
 
+import java.nio.ByteBuffer;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 
@@ -49,16 +50,29 @@ public final class GlobalBufferPool {
 	// -----------------------------------------------------------------------------------------------------------------
 
 	public GlobalBufferPool(int numBuffers, int bufferSize) {
+		this(numBuffers, bufferSize, false);
+	}
+
+	/**
+	 * Creates the pool. Off-heap buffers can be handed to the network without copying them to direct memory first.
+	 *
+	 * @param numBuffers the number of buffers
+	 * @param bufferSize the size of each buffer in bytes
+	 * @param offHeap flag indicating whether the buffers are allocated as direct byte buffers
+	 */
+	public GlobalBufferPool(int numBuffers, int bufferSize, boolean offHeap) {
 		this.numBuffers = numBuffers;
 		this.bufferSize = bufferSize;
 
 		this.buffers = new ArrayBlockingQueue<MemorySegment>(this.numBuffers);
 		for (int i = 0; i < this.numBuffers; i++) {
-			this.buffers.add(new MemorySegment(new byte[this.bufferSize]));
+			this.buffers.add(offHeap ?
+					new MemorySegment(ByteBuffer.allocateDirect(this.bufferSize)) :
+					new MemorySegment(new byte[this.bufferSize]));
 		}
 
-		LOG.info(String.format("Initialized global buffer pool with %d buffers (%d bytes each).",
-				this.numBuffers, this.bufferSize));
+		LOG.info(String.format("Initialized global buffer pool with %d %s buffers (%d bytes each).",
+				this.numBuffers, offHeap ? "off-heap" : "heap", this.bufferSize));
 	}
 
 	// -----------------------------------------------------------------------------------------------------------------
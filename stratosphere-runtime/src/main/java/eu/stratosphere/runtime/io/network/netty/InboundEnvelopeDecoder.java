@@ -16,6 +16,8 @@ package eu.stratosphere.runtime.io.network.netty;
 import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.runtime.io.Buffer;
 import eu.stratosphere.runtime.io.channels.ChannelID;
+import eu.stratosphere.runtime.io.compression.BlockDecompressor;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 import eu.stratosphere.runtime.io.network.bufferprovider.BufferAvailabilityListener;
 import eu.stratosphere.runtime.io.network.bufferprovider.BufferProvider;
 import eu.stratosphere.runtime.io.network.bufferprovider.BufferProviderBroker;
@@ -50,6 +52,16 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 
 	private int currentBufferRequestSize;
 
+	private CompressionCodec currentCompressionCodec;
+
+	private int currentCompressedSize;
+
+	private final BlockDecompressor[] decompressors = new BlockDecompressor[CompressionCodec.values().length];
+
+	private byte[] compressed = new byte[0];
+
+	private byte[] decompressed = new byte[0];
+
 	private BufferProvider currentBufferProvider;
 
 	private JobID lastJobId;
@@ -141,9 +153,11 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 						continue;
 
 					case FAILED_BUFFER_POOL_DESTROYED:
-						this.bytesToSkip = skipBytes(in, this.currentBufferRequestSize);
+						this.bytesToSkip = skipBytes(in, this.currentCompressedSize > 0 ?
+								this.currentCompressedSize : this.currentBufferRequestSize);
 
 						this.currentBufferRequestSize = 0;
+						this.currentCompressedSize = 0;
 						this.currentEventsBuffer = null;
 						this.currentEnvelope = null;
 				}
@@ -192,9 +206,7 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 			// This alters the state of the last `decodeEnvelope(ByteBuf)`
 			// call to set the buffer, which has become available again
 			availableBuffer.limitSize(currentBufferRequestSize);
-			currentEnvelope.setBuffer(availableBuffer);
-			currentDataBuffer = availableBuffer.getMemorySegment().wrap(0, InboundEnvelopeDecoder.this.currentBufferRequestSize);
-			currentBufferRequestSize = 0;
+			setTargetBuffer(availableBuffer);
 
 			stagedBuffer.release();
 
@@ -241,9 +253,19 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 
 				int eventsSize = this.headerBuffer.getInt();
 				int bufferSize = this.headerBuffer.getInt();
+				int codec = this.headerBuffer.getInt();
+				int compressedSize = this.headerBuffer.getInt();
+
+				if (codec < 0 || codec >= this.decompressors.length || compressedSize < 0 ||
+						(compressedSize > 0 && codec == CompressionCodec.NONE.ordinal())) {
+					throw new IOException("Network stream corrupted: invalid compression " +
+							"in current envelope header.");
+				}
 
 				this.currentEventsBuffer = eventsSize > 0 ? ByteBuffer.allocate(eventsSize) : null;
 				this.currentBufferRequestSize = bufferSize > 0 ? bufferSize : 0;
+				this.currentCompressionCodec = CompressionCodec.fromOrdinal(codec);
+				this.currentCompressedSize = compressedSize;
 
 				this.headerBuffer.clear();
 			}
@@ -278,13 +300,11 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 				return DecoderState.NO_BUFFER_AVAILABLE;
 			}
 			else {
-				this.currentEnvelope.setBuffer(buffer);
-				this.currentDataBuffer = buffer.getMemorySegment().wrap(0, this.currentBufferRequestSize);
-				this.currentBufferRequestSize = 0;
+				setTargetBuffer(buffer);
 			}
 		}
 
-		// (b) copy data to OUR buffer
+		// (b) copy data to OUR buffer (or to the scratch space, if it is compressed)
 		if (this.currentDataBuffer != null) {
 			copy(in, this.currentDataBuffer);
 
@@ -293,6 +313,10 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 			}
 			else {
 				this.currentDataBuffer = null;
+
+				if (this.currentCompressedSize > 0) {
+					decompress(this.currentEnvelope.getBuffer());
+				}
 			}
 		}
 
@@ -301,6 +325,50 @@ public class InboundEnvelopeDecoder extends ChannelInboundHandlerAdapter impleme
 		return DecoderState.COMPLETE;
 	}
 
+	/**
+	 * Sets the buffer, which was requested for the current envelope, as the target of the data copy. The data of
+	 * compressed envelopes is first copied to the scratch space and decompressed into the buffer afterwards.
+	 */
+	private void setTargetBuffer(Buffer buffer) {
+		this.currentEnvelope.setBuffer(buffer);
+
+		if (this.currentCompressedSize > 0) {
+			if (this.compressed.length < this.currentCompressedSize) {
+				this.compressed = new byte[this.currentCompressedSize];
+			}
+			this.currentDataBuffer = ByteBuffer.wrap(this.compressed, 0, this.currentCompressedSize);
+		}
+		else {
+			this.currentDataBuffer = buffer.getMemorySegment().wrap(0, this.currentBufferRequestSize);
+		}
+
+		this.currentBufferRequestSize = 0;
+	}
+
+	private void decompress(Buffer buffer) throws IOException {
+		final int size = buffer.size();
+
+		BlockDecompressor decompressor = this.decompressors[this.currentCompressionCodec.ordinal()];
+		if (decompressor == null) {
+			decompressor = this.currentCompressionCodec.createDecompressor();
+			this.decompressors[this.currentCompressionCodec.ordinal()] = decompressor;
+		}
+
+		if (this.decompressed.length < size) {
+			this.decompressed = new byte[size];
+		}
+
+		int decompressedSize = decompressor.decompress(this.compressed, 0, this.currentCompressedSize,
+				this.decompressed, 0, size);
+		if (decompressedSize != size) {
+			throw new IOException("Network stream corrupted: the decompressed buffer has " + decompressedSize +
+					" bytes instead of " + size + " bytes.");
+		}
+
+		buffer.getMemorySegment().put(0, this.decompressed, 0, size);
+		this.currentCompressedSize = 0;
+	}
+
 	private Buffer requestBufferForTarget(JobID jobId, ChannelID sourceId, int size) throws IOException {
 		// Request the buffer from the target buffer provider, which is the
 		// InputGate of the receiving InputChannel.
@@ -19,11 +19,17 @@ import eu.stratosphere.runtime.io.network.RemoteReceiver;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
@@ -56,6 +62,13 @@ public class NettyConnectionManager {
 	public NettyConnectionManager(ChannelManager channelManager, InetAddress bindAddress, int bindPort,
 								int bufferSize, int numInThreads, int numOutThreads,
 								int lowWaterMark, int highWaterMark) {
+		this(channelManager, bindAddress, bindPort, bufferSize, numInThreads, numOutThreads,
+				lowWaterMark, highWaterMark, false);
+	}
+
+	public NettyConnectionManager(ChannelManager channelManager, InetAddress bindAddress, int bindPort,
+								int bufferSize, int numInThreads, int numOutThreads,
+								int lowWaterMark, int highWaterMark, boolean preferEpoll) {
 		this.outConnections = new ConcurrentHashMap<RemoteReceiver, Object>();
 		this.channelManager = channelManager;
 
@@ -70,12 +83,41 @@ public class NettyConnectionManager {
 		highWaterMark = (highWaterMark == -1) ? bufferSize : highWaterMark;
 		LOG.info(String.format("Setting low water mark to %d and high water mark to %d bytes.", lowWaterMark, highWaterMark));
 
+		// --------------------------------------------------------------------
+		// transport (native epoll, if requested and available, NIO otherwise)
+		// --------------------------------------------------------------------
+		EventLoopGroup inGroup = null;
+		EventLoopGroup outGroup = null;
+		Class<? extends ServerChannel> serverChannelClass = NioServerSocketChannel.class;
+		Class<? extends Channel> channelClass = NioSocketChannel.class;
+
+		if (preferEpoll) {
+			try {
+				inGroup = new EpollEventLoopGroup(numInThreads);
+				outGroup = new EpollEventLoopGroup(numOutThreads);
+				serverChannelClass = EpollServerSocketChannel.class;
+				channelClass = EpollSocketChannel.class;
+				LOG.info("Using the native epoll transport.");
+			} catch (Throwable t) {
+				// the native library is only available on Linux
+				LOG.warn("The native epoll transport is not available, falling back to NIO: " + t.getMessage());
+				if (inGroup != null) {
+					inGroup.shutdownGracefully();
+					inGroup = null;
+				}
+			}
+		}
+		if (inGroup == null) {
+			inGroup = new NioEventLoopGroup(numInThreads);
+			outGroup = new NioEventLoopGroup(numOutThreads);
+		}
+
 		// --------------------------------------------------------------------
 		// server bootstrap (incoming connections)
 		// --------------------------------------------------------------------
 		this.in = new ServerBootstrap();
-		this.in.group(new NioEventLoopGroup(numInThreads))
-				.channel(NioServerSocketChannel.class)
+		this.in.group(inGroup)
+				.channel(serverChannelClass)
 				.localAddress(bindAddress, bindPort)
 				.childHandler(new ChannelInitializer<SocketChannel>() {
 					@Override
@@ -92,8 +134,8 @@ public class NettyConnectionManager {
 		// client bootstrap (outgoing connections)
 		// --------------------------------------------------------------------
 		this.out = new Bootstrap();
-		this.out.group(new NioEventLoopGroup(numOutThreads))
-				.channel(NioSocketChannel.class)
+		this.out.group(outGroup)
+				.channel(channelClass)
 				.handler(new ChannelInitializer<SocketChannel>() {
 					@Override
 					public void initChannel(SocketChannel channel) throws Exception {
@@ -14,52 +14,150 @@
 package eu.stratosphere.runtime.io.network.netty;
 
 import eu.stratosphere.runtime.io.Buffer;
+import eu.stratosphere.runtime.io.compression.BlockCompressor;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
+import eu.stratosphere.runtime.io.compression.CompressionStatistics;
 import eu.stratosphere.runtime.io.network.Envelope;
 import io.netty.buffer.ByteBuf;
-import io.netty.channel.ChannelHandler;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
 
-@ChannelHandler.Sharable
-public class OutboundEnvelopeEncoder extends MessageToByteEncoder<Envelope> {
+/**
+ * Encodes envelopes to the wire format. The buffers of envelopes with compression statistics are compressed with
+ * the statistics' codec. The encoder keeps scratch space for the compression and is hence not sharable between
+ * channels.
+ * <p>
+ * Uncompressed buffers are not copied to Netty's buffer space. Instead, the memory segment of the buffer is wrapped
+ * and written together with the header as a composite buffer. The buffer is recycled once the write has completed.
+ */
+public class OutboundEnvelopeEncoder extends ChannelOutboundHandlerAdapter {
 
-	public static final int HEADER_SIZE = 48;
+	public static final int HEADER_SIZE = 56;
 
 	public static final int MAGIC_NUMBER = 0xBADC0FFE;
 
+	private final BlockCompressor[] compressors = new BlockCompressor[CompressionCodec.values().length];
+
+	private byte[] uncompressed = new byte[0];
+
+	private byte[] compressed = new byte[0];
+
 	@Override
-	protected void encode(ChannelHandlerContext ctx, Envelope env, ByteBuf out) throws Exception {
-		// --------------------------------------------------------------------
-		// (1) header (48 bytes)
-		// --------------------------------------------------------------------
-		out.writeInt(MAGIC_NUMBER); // 4 bytes
-
-		if (out.getInt(out.writerIndex()-4) != MAGIC_NUMBER) {
-			throw new RuntimeException();
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+		if (!(msg instanceof Envelope)) {
+			ctx.write(msg, promise);
+			return;
+		}
+
+		final Envelope env = (Envelope) msg;
+		final Buffer buffer = env.getBuffer();
+
+		ByteBuf out = null;
+		boolean recycled = buffer == null;
+		try {
+			// compress the buffer before writing the header, because the header contains the compressed size
+			final int compressedSize = buffer != null && env.getCompression() != null ?
+				compress(buffer, env.getCompression()) : 0;
+
+			final int eventsSize = env.getEventsSerialized() != null ? env.getEventsSerialized().remaining() : 0;
+			out = ctx.alloc().buffer(HEADER_SIZE + eventsSize + compressedSize);
+
+			// --------------------------------------------------------------------
+			// (1) header (56 bytes)
+			// --------------------------------------------------------------------
+			out.writeInt(MAGIC_NUMBER); // 4 bytes
+			out.writeInt(env.getSequenceNumber()); // 4 bytes
+			env.getJobID().writeTo(out); // 16 bytes
+			env.getSource().writeTo(out); // 16 bytes
+			out.writeInt(eventsSize); // 4 bytes
+			out.writeInt(buffer != null ? buffer.size() : 0); // 4 bytes
+			out.writeInt(compressedSize > 0 ? env.getCompression().getCodec().ordinal() : CompressionCodec.NONE.ordinal()); // 4 bytes
+			out.writeInt(compressedSize); // 4 bytes
+
+			// --------------------------------------------------------------------
+			// (2) events (var length)
+			// --------------------------------------------------------------------
+			if (eventsSize > 0) {
+				out.writeBytes(env.getEventsSerialized());
+			}
+
+			// --------------------------------------------------------------------
+			// (3) buffer (var length)
+			// --------------------------------------------------------------------
+			if (buffer == null) {
+				ctx.write(out, promise);
+			}
+			else if (compressedSize > 0) {
+				out.writeBytes(this.compressed, 0, compressedSize);
+
+				// the buffer has been copied to the compression scratch space
+				buffer.recycleBuffer();
+				recycled = true;
+				ctx.write(out, promise);
+			}
+			else {
+				// write the buffer's memory segment without copying it. OUR buffer is only recycled
+				// after Netty has written its contents.
+				final ByteBuf data = Unpooled.wrappedBuffer(buffer.getMemorySegment().wrap(0, buffer.size()));
+				final ByteBuf composite = Unpooled.wrappedBuffer(out, data);
+				out = null;
+				recycled = true;
+
+				promise.addListener(new ChannelFutureListener() {
+					@Override
+					public void operationComplete(ChannelFuture future) {
+						buffer.recycleBuffer();
+					}
+				});
+				ctx.write(composite, promise);
+			}
 		}
+		catch (Throwable t) {
+			if (out != null) {
+				out.release();
+			}
+			if (!recycled) {
+				buffer.recycleBuffer();
+			}
+			promise.tryFailure(t);
+		}
+	}
 
-		out.writeInt(env.getSequenceNumber()); // 4 bytes
-		env.getJobID().writeTo(out); // 16 bytes
-		env.getSource().writeTo(out); // 16 bytes
-		out.writeInt(env.getEventsSerialized() != null ? env.getEventsSerialized().remaining() : 0); // 4 bytes
-		out.writeInt(env.getBuffer() != null ? env.getBuffer().size() : 0); // 4 bytes
-		// --------------------------------------------------------------------
-		// (2) events (var length)
-		// --------------------------------------------------------------------
-		if (env.getEventsSerialized() != null) {
-			out.writeBytes(env.getEventsSerialized());
+	/**
+	 * Compresses the buffer into the scratch space and reports the result to the statistics.
+	 *
+	 * @return The compressed size, or 0, if the compression did not make the buffer smaller. In that case, the
+	 *         buffer is sent uncompressed.
+	 */
+	private int compress(Buffer buffer, CompressionStatistics statistics) {
+		final long start = System.nanoTime();
+		final int size = buffer.size();
+
+		BlockCompressor compressor = this.compressors[statistics.getCodec().ordinal()];
+		if (compressor == null) {
+			compressor = statistics.getCodec().createCompressor();
+			this.compressors[statistics.getCodec().ordinal()] = compressor;
 		}
 
-		// --------------------------------------------------------------------
-		// (3) buffer (var length)
-		// --------------------------------------------------------------------
-		if (env.getBuffer() != null) {
-			Buffer buffer = env.getBuffer();
-			out.writeBytes(buffer.getMemorySegment().wrap(0, buffer.size()));
+		if (this.uncompressed.length < size) {
+			this.uncompressed = new byte[size];
+		}
+		final int maxCompressedSize = compressor.getMaxCompressedSize(size);
+		if (this.compressed.length < maxCompressedSize) {
+			this.compressed = new byte[maxCompressedSize];
+		}
 
-			// Recycle the buffer from OUR buffer pool after everything has been
-			// copied to Nettys buffer space.
-			buffer.recycleBuffer();
+		buffer.getMemorySegment().get(0, this.uncompressed, 0, size);
+		int compressedSize = compressor.compress(this.uncompressed, 0, size, this.compressed, 0);
+		if (compressedSize >= size) {
+			compressedSize = 0;
 		}
+
+		statistics.reportBuffer(size, compressedSize > 0 ? compressedSize : size, System.nanoTime() - start);
+		return compressedSize;
 	}
 }
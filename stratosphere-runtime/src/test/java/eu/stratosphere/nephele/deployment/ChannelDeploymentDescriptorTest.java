@@ -15,13 +15,18 @@ package eu.stratosphere.nephele.deployment;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 
 import org.junit.Test;
 
 import eu.stratosphere.runtime.io.channels.ChannelID;
+import eu.stratosphere.runtime.io.network.ConnectionInfoLookupResponse;
+import eu.stratosphere.runtime.io.network.RemoteReceiver;
 import eu.stratosphere.nephele.util.ServerTestUtils;
 import eu.stratosphere.util.StringUtils;
 
@@ -106,5 +111,32 @@ public class ChannelDeploymentDescriptorTest {
 
 		assertEquals(orig.getOutputChannelID(), copy.getOutputChannelID());
 		assertEquals(orig.getInputChannelID(), copy.getInputChannelID());
+		assertNull(copy.getConnectedChannelLocation());
+	}
+
+	/**
+	 * Tests the serialization/deserialization of a {@link ChannelDeploymentDescriptor} with the location of the
+	 * connected channel.
+	 */
+	@Test
+	public void testSerializationWithConnectedChannelLocation() {
+
+		final RemoteReceiver receiver = new RemoteReceiver(new InetSocketAddress("localhost", 5000), 3);
+		final ChannelDeploymentDescriptor orig = new ChannelDeploymentDescriptor(new ChannelID(), new ChannelID(),
+			ConnectionInfoLookupResponse.createReceiverFoundAndReady(receiver));
+
+		ChannelDeploymentDescriptor copy = null;
+
+		try {
+			copy = ServerTestUtils.createCopy(orig);
+		} catch (IOException ioe) {
+			fail(StringUtils.stringifyException(ioe));
+		}
+
+		assertEquals(orig.getOutputChannelID(), copy.getOutputChannelID());
+		assertEquals(orig.getInputChannelID(), copy.getInputChannelID());
+		assertTrue(copy.getConnectedChannelLocation().receiverReady());
+		assertEquals(receiver, copy.getConnectedChannelLocation().getRemoteTarget());
+		assertNull(copy.getConnectedChannelLocation().getLocalTarget());
 	}
 }
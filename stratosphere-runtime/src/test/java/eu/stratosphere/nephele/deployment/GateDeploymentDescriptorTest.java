@@ -26,6 +26,7 @@ import org.junit.Test;
 import eu.stratosphere.runtime.io.gates.GateID;
 import eu.stratosphere.runtime.io.channels.ChannelID;
 import eu.stratosphere.runtime.io.channels.ChannelType;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 import eu.stratosphere.nephele.util.ServerTestUtils;
 import eu.stratosphere.util.StringUtils;
 
@@ -111,7 +112,7 @@ public class GateDeploymentDescriptorTest {
 		channels.add(cdd);
 
 		final GateDeploymentDescriptor orig = new GateDeploymentDescriptor(gateID, channelType,
-			channels);
+			CompressionCodec.LZ4, channels);
 
 		GateDeploymentDescriptor copy = null;
 
@@ -125,6 +126,7 @@ public class GateDeploymentDescriptorTest {
 
 		assertEquals(orig.getGateID(), copy.getGateID());
 		assertEquals(orig.getChannelType(), copy.getChannelType());
+		assertEquals(orig.getCompressionCodec(), copy.getCompressionCodec());
 		assertEquals(orig.getNumberOfChannelDescriptors(), copy.getNumberOfChannelDescriptors());
 		assertEquals(orig.getChannelDescriptor(0).getOutputChannelID(), copy.getChannelDescriptor(0)
 			.getOutputChannelID());
@@ -15,7 +15,9 @@ package eu.stratosphere.nephele.services.iomanager;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import junit.framework.Assert;
 
@@ -26,6 +28,7 @@ import org.junit.Test;
 import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.nephele.services.memorymanager.DefaultMemoryManagerTest.DummyInvokable;
 import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
 
 public class IOManagerTest
 {
@@ -188,6 +191,199 @@ public class IOManagerTest
 		}
 	}
 
+	@Test
+	public void spillingChannelReadWriteCompressed()
+	{
+		final int NUM_IOS = 333;
+		final int NUM_SEGS = 8;
+		
+		final IOManager compressingIOManager = new IOManager(
+			new String[] { System.getProperty("java.io.tmpdir") }, CompressionCodec.LZ4);
+		try {
+			final List<MemorySegment> memSegs = this.memoryManager.allocatePages(new DummyInvokable(), NUM_SEGS);
+			final Channel.ID channelID = compressingIOManager.createChannel();
+			final BlockChannelWriter writer = compressingIOManager.createSpillingBlockChannelWriter(channelID);
+			Assert.assertTrue(writer.isCompressed());
+			
+			for (int i = 0; i < NUM_IOS; i++) {
+				final MemorySegment memSeg = memSegs.isEmpty() ? writer.getNextReturnedSegment() : memSegs.remove(0);
+				fillSegment(memSeg, i);
+				writer.writeBlock(memSeg);
+			}
+			writer.close();
+			
+			// the blocks are highly redundant, so the file must be much smaller than the written data
+			final long fileSize = new File(channelID.getPath()).length();
+			Assert.assertTrue("Channel was not compressed.",
+				fileSize < ((long) NUM_IOS) * this.memoryManager.getPageSize() / 2);
+			
+			while (memSegs.size() < NUM_SEGS) {
+				memSegs.add(writer.getNextReturnedSegment());
+			}
+			
+			final BlockChannelReader reader = compressingIOManager.createSpillingBlockChannelReader(channelID);
+			while(!memSegs.isEmpty()) {
+				reader.readBlock(memSegs.remove(0));
+			}
+			
+			for (int i = 0; i < NUM_IOS; i++) {
+				final MemorySegment memSeg = reader.getNextReturnedSegment();
+				validateSegment(memSeg, i);
+				reader.readBlock(memSeg);
+			}
+			
+			reader.closeAndDelete();
+			
+			while (memSegs.size() < NUM_SEGS) {
+				memSegs.add(reader.getNextReturnedSegment());
+			}
+			
+			this.memoryManager.release(memSegs);
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("Test encountered an exception: " + ex.getMessage());
+		} finally {
+			compressingIOManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void spillingChannelReadWriteIncompressible()
+	{
+		final int NUM_IOS = 64;
+		final long SEED = 649180756312423613L;
+		
+		final IOManager compressingIOManager = new IOManager(
+			new String[] { System.getProperty("java.io.tmpdir") }, CompressionCodec.LZ4);
+		try {
+			final List<MemorySegment> memSegs = this.memoryManager.allocatePages(new DummyInvokable(), NUM_IOS);
+			final Channel.ID channelID = compressingIOManager.createChannel();
+			final BlockChannelWriter writer = compressingIOManager.createSpillingBlockChannelWriter(channelID);
+			
+			Random rnd = new Random(SEED);
+			final byte[] bytes = new byte[this.memoryManager.getPageSize()];
+			for (MemorySegment memSeg : memSegs) {
+				rnd.nextBytes(bytes);
+				memSeg.put(0, bytes);
+				writer.writeBlock(memSeg);
+			}
+			writer.close();
+			
+			// the blocks are stored verbatim with their header
+			final long fileSize = new File(channelID.getPath()).length();
+			Assert.assertEquals(NUM_IOS * (((long) this.memoryManager.getPageSize()) + BlockCompression.HEADER_LENGTH), fileSize);
+			
+			for (int i = 0; i < NUM_IOS; i++) {
+				memSegs.set(i, writer.getNextReturnedSegment());
+			}
+			
+			final BulkBlockChannelReader reader = compressingIOManager.createSpillingBulkBlockChannelReader(
+				channelID, memSegs, NUM_IOS);
+			reader.closeAndDelete();
+			
+			final List<MemorySegment> fullSegments = reader.getFullSegments();
+			Assert.assertEquals(NUM_IOS, fullSegments.size());
+			
+			rnd = new Random(SEED);
+			final byte[] expected = new byte[this.memoryManager.getPageSize()];
+			for (MemorySegment memSeg : fullSegments) {
+				rnd.nextBytes(expected);
+				memSeg.get(0, bytes);
+				Assert.assertTrue("Read memory segment contains invalid data.", Arrays.equals(expected, bytes));
+			}
+			
+			this.memoryManager.release(fullSegments);
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("Test encountered an exception: " + ex.getMessage());
+		} finally {
+			compressingIOManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void channelReadWriteMultipleThreadsPerPath()
+	{
+		final int NUM_CHANNELS = 8;
+		final int NUM_IOS = 111;
+		final int NUM_SEGS = 4;
+		
+		final IOManager multiThreadedIOManager = new IOManager(
+			new String[] { System.getProperty("java.io.tmpdir") }, CompressionCodec.NONE, 4);
+		try {
+			final List<MemorySegment> memSegs = this.memoryManager.allocatePages(new DummyInvokable(), NUM_CHANNELS * NUM_SEGS);
+			final Channel.ID[] channelIDs = new Channel.ID[NUM_CHANNELS];
+			final BlockChannelWriter[] writers = new BlockChannelWriter[NUM_CHANNELS];
+			
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				channelIDs[c] = multiThreadedIOManager.createChannel();
+				writers[c] = multiThreadedIOManager.createBlockChannelWriter(channelIDs[c]);
+				for (int i = 0; i < NUM_SEGS; i++) {
+					writers[c].getReturnQueue().add(memSegs.remove(0));
+				}
+			}
+			
+			// interleave the writes to all channels, so that the threads serve them concurrently
+			for (int i = 0; i < NUM_IOS; i++) {
+				for (int c = 0; c < NUM_CHANNELS; c++) {
+					final MemorySegment memSeg = writers[c].getNextReturnedSegment();
+					fillSegment(memSeg, c * NUM_IOS + i);
+					writers[c].writeBlock(memSeg);
+				}
+			}
+			
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				writers[c].close();
+				while (!writers[c].getReturnQueue().isEmpty()) {
+					memSegs.add(writers[c].getNextReturnedSegment());
+				}
+			}
+			
+			for (int c = 0; c < NUM_CHANNELS; c++) {
+				final BlockChannelReader reader = multiThreadedIOManager.createBlockChannelReader(channelIDs[c]);
+				for (int i = 0; i < NUM_SEGS; i++) {
+					reader.readBlock(memSegs.remove(0));
+				}
+				
+				for (int i = 0; i < NUM_IOS; i++) {
+					final MemorySegment memSeg = reader.getNextReturnedSegment();
+					validateSegment(memSeg, c * NUM_IOS + i);
+					reader.readBlock(memSeg);
+				}
+				
+				reader.closeAndDelete();
+				while (!reader.getReturnQueue().isEmpty()) {
+					memSegs.add(reader.getNextReturnedSegment());
+				}
+			}
+			
+			Assert.assertTrue(multiThreadedIOManager.getStatistics().contains(
+				(NUM_CHANNELS * NUM_IOS) + " writes"));
+			
+			this.memoryManager.release(memSegs);
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail("Test encountered an exception: " + ex.getMessage());
+		} finally {
+			multiThreadedIOManager.shutdown();
+			Assert.assertTrue(multiThreadedIOManager.isProperlyShutDown());
+		}
+	}
+	
+	private static void fillSegment(MemorySegment memSeg, int value) {
+		for (int pos = 0; pos < memSeg.size(); pos += 4) {
+			memSeg.putInt(pos, value);
+		}
+	}
+	
+	private static void validateSegment(MemorySegment memSeg, int value) {
+		for (int pos = 0; pos < memSeg.size(); pos += 4) {
+			if (memSeg.getInt(pos) != value) {
+				Assert.fail("Read memory segment contains invalid data.");
+			}
+		}
+	}
+
 	// ============================================================================================
 	
 	final class FailingSegmentReadRequest implements ReadRequest
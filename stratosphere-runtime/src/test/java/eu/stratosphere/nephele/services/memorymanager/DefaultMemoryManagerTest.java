@@ -14,8 +14,10 @@
 package eu.stratosphere.nephele.services.memorymanager;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 
 import junit.framework.Assert;
 
@@ -25,6 +27,7 @@ import org.junit.Test;
 
 import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
+import eu.stratosphere.nephele.services.memorymanager.spi.MemoryManagerStatistics;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 
 public class DefaultMemoryManagerTest
@@ -158,6 +161,273 @@ public class DefaultMemoryManagerTest
 		}
 	}
 	
+	@Test
+	public void allocateWithFailureWhileFillingTheTarget()
+	{
+		try {
+			final AbstractInvokable mockInvoke = new DummyInvokable();
+			
+			List<MemorySegment> segs = this.memoryManager.allocatePages(mockInvoke, 10);
+			
+			// the target fails after having received some of the requested segments
+			List<MemorySegment> failingTarget = new ArrayList<MemorySegment>() {
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				public boolean add(MemorySegment segment) {
+					if (size() == 50) {
+						throw new IllegalStateException("Test failure.");
+					}
+					return super.add(segment);
+				}
+			};
+			
+			try {
+				this.memoryManager.allocatePages(mockInvoke, failingTarget, 100);
+				Assert.fail("Expected the failure of the target list.");
+			} catch (IllegalStateException isex) {
+				// expected
+			}
+			Assert.assertTrue("The segments of the failed allocation were not removed.", failingTarget.isEmpty());
+			
+			// all pages except the previously allocated ones are available again
+			List<MemorySegment> rest = this.memoryManager.allocatePages(mockInvoke, NUM_PAGES - 10);
+			Assert.assertTrue(allMemorySegmentsValid(segs));
+			Assert.assertTrue(allMemorySegmentsValid(rest));
+			
+			this.memoryManager.releaseAll(mockInvoke);
+			Assert.assertTrue(allMemorySegmentsFreed(segs));
+			Assert.assertTrue(allMemorySegmentsFreed(rest));
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void allocateWithFailingMemoryCreation()
+	{
+		// pages so large that the heap cannot hold all of them, which makes the lazy creation of the memory fail
+		final int pageSize = 1 << 30;
+		final int numPages = (int) (Runtime.getRuntime().maxMemory() / pageSize) + 2;
+		final DefaultMemoryManager lazyManager = new DefaultMemoryManager(numPages * (long) pageSize, pageSize, false, true, 0);
+		try {
+			final AbstractInvokable mockInvoke = new DummyInvokable();
+			
+			try {
+				lazyManager.allocatePages(mockInvoke, numPages);
+				Assert.fail("Expected an OutOfMemoryError.");
+			} catch (OutOfMemoryError oome) {
+				// expected
+			}
+			
+			Assert.assertTrue("The reservation of the failed allocation was not released.", lazyManager.verifyEmpty());
+			Assert.assertEquals(0, lazyManager.getStatistics().getNumAllocatedPages());
+			Assert.assertTrue(lazyManager.getStatistics().getPagesPerOwner().isEmpty());
+			
+			// the memory manager is still usable and accounts all pages
+			try {
+				lazyManager.allocatePages(mockInvoke, numPages + 1);
+				Assert.fail("Expected MemoryAllocationException.");
+			} catch (MemoryAllocationException maex) {
+				// expected
+			}
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			lazyManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void allocateOffHeap()
+	{
+		final DefaultMemoryManager offHeapManager = new DefaultMemoryManager(MEMORY_SIZE, PAGE_SIZE, true);
+		try {
+			final AbstractInvokable mockInvoke = new DummyInvokable();
+			
+			List<MemorySegment> segs = offHeapManager.allocatePages(mockInvoke, NUM_PAGES);
+			for (MemorySegment seg : segs) {
+				Assert.assertTrue("Segment is not backed by off-heap memory.", seg.isOffHeap());
+				Assert.assertEquals(PAGE_SIZE, seg.size());
+			}
+			
+			try {
+				offHeapManager.allocatePages(mockInvoke, 1);
+				Assert.fail("Expected MemoryAllocationException.");
+			} catch (MemoryAllocationException maex) {
+				// expected
+			}
+			
+			offHeapManager.releaseAll(mockInvoke);
+			Assert.assertTrue("Released memory segments have not been destroyed.", allMemorySegmentsFreed(segs));
+			Assert.assertTrue("Memory manager is not empty after releasing all memory.", offHeapManager.verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			offHeapManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void allocateLazilyAndGiveBackIdleMemory()
+	{
+		final DefaultMemoryManager lazyManager = new DefaultMemoryManager(MEMORY_SIZE, PAGE_SIZE, false, true, 50);
+		try {
+			final AbstractInvokable owner1 = new DummyInvokable();
+			final AbstractInvokable owner2 = new DummyInvokable();
+			
+			Assert.assertEquals(0, lazyManager.getStatistics().getNumCreatedPages());
+			
+			lazyManager.allocatePages(owner1, 10);
+			lazyManager.allocatePages(owner2, 5);
+			
+			MemoryManagerStatistics stats = lazyManager.getStatistics();
+			Assert.assertEquals(NUM_PAGES, stats.getTotalNumPages());
+			Assert.assertEquals(15, stats.getNumAllocatedPages());
+			Assert.assertEquals(15, stats.getNumCreatedPages());
+			Assert.assertEquals(15, stats.getHighWaterMark());
+			Assert.assertEquals(2, stats.getNumAllocationRequests());
+			Assert.assertEquals(Integer.valueOf(10), stats.getPagesPerOwner().get(owner1));
+			Assert.assertEquals(Integer.valueOf(5), stats.getPagesPerOwner().get(owner2));
+			
+			// all pages can still be allocated
+			List<MemorySegment> rest = lazyManager.allocatePages(owner2, NUM_PAGES - 15);
+			Assert.assertTrue(allMemorySegmentsValid(rest));
+			try {
+				lazyManager.allocatePages(owner1, 1);
+				Assert.fail("Expected MemoryAllocationException.");
+			} catch (MemoryAllocationException maex) {
+				// expected
+			}
+			
+			lazyManager.releaseAll(owner1);
+			lazyManager.releaseAll(owner2);
+			
+			stats = lazyManager.getStatistics();
+			Assert.assertEquals(0, stats.getNumAllocatedPages());
+			Assert.assertEquals(NUM_PAGES, stats.getHighWaterMark());
+			Assert.assertTrue(stats.getPagesPerOwner().isEmpty());
+			Assert.assertTrue(lazyManager.verifyEmpty());
+			
+			// wait until the idle pages have been given back
+			final long deadline = System.currentTimeMillis() + 10000;
+			while (lazyManager.getStatistics().getNumCreatedPages() > 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(0, lazyManager.getStatistics().getNumCreatedPages());
+			
+			// pages that were given back can be allocated again
+			List<MemorySegment> all = lazyManager.allocatePages(owner1, NUM_PAGES);
+			Assert.assertTrue(allMemorySegmentsValid(all));
+			lazyManager.release(all);
+			Assert.assertTrue(lazyManager.verifyEmpty());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			lazyManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void allocateAndReleaseConcurrently()
+	{
+		final int NUM_THREADS = 8;
+		final int NUM_ROUNDS = 500;
+		
+		final DefaultMemoryManager stripedManager = new DefaultMemoryManager(MEMORY_SIZE, PAGE_SIZE, false, true, -1, 4);
+		Assert.assertEquals(4, stripedManager.getNumberOfPools());
+		
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		final Thread[] threads = new Thread[NUM_THREADS];
+		
+		try {
+			for (int t = 0; t < NUM_THREADS; t++) {
+				final long seed = RANDOM_SEED + t;
+				threads[t] = new Thread() {
+					@Override
+					public void run() {
+						try {
+							final Random rnd = new Random(seed);
+							final AbstractInvokable owner = new DummyInvokable();
+							
+							for (int round = 0; round < NUM_ROUNDS; round++) {
+								final List<MemorySegment> segs = stripedManager.allocatePages(owner,
+										1 + rnd.nextInt(NUM_PAGES / NUM_THREADS));
+								
+								// write a pattern, to detect segments that are handed out twice
+								for (MemorySegment seg : segs) {
+									seg.putLong(0, seed);
+								}
+								for (MemorySegment seg : segs) {
+									if (seg.getLong(0) != seed) {
+										throw new Exception("Memory segment was handed out to two owners.");
+									}
+								}
+								
+								switch (rnd.nextInt(3)) {
+								case 0:
+									stripedManager.releaseAll(owner);
+									break;
+								case 1:
+									stripedManager.release(segs);
+									break;
+								default:
+									for (MemorySegment seg : segs) {
+										stripedManager.release(seg);
+									}
+								}
+							}
+						}
+						catch (Throwable t) {
+							error.compareAndSet(null, t);
+						}
+					}
+				};
+				threads[t].start();
+			}
+			
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			
+			if (error.get() != null) {
+				error.get().printStackTrace();
+				Assert.fail("Concurrent allocation failed: " + error.get().getMessage());
+			}
+			
+			Assert.assertTrue("Memory manager is not empty after releasing all memory.", stripedManager.verifyEmpty());
+			Assert.assertTrue(stripedManager.getStatistics().getPagesPerOwner().isEmpty());
+			
+			// all pages are still available, and distinct
+			final AbstractInvokable owner = new DummyInvokable();
+			final List<MemorySegment> all = stripedManager.allocatePages(owner, NUM_PAGES);
+			final IdentityHashMap<MemorySegment, Boolean> distinct = new IdentityHashMap<MemorySegment, Boolean>();
+			for (MemorySegment seg : all) {
+				distinct.put(seg, Boolean.TRUE);
+			}
+			Assert.assertEquals(NUM_PAGES, distinct.size());
+			stripedManager.releaseAll(owner);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			Assert.fail("Test encountered an exception: " + e.getMessage());
+		}
+		finally {
+			stripedManager.shutdown();
+		}
+	}
+	
 	private boolean allMemorySegmentsValid(List<MemorySegment> memSegs)
 	{
 		for (MemorySegment seg : memSegs) {
@@ -0,0 +1,145 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.memorymanager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
+
+/**
+ * Runs all memory segment tests against segments backed by off-heap memory, and checks
+ * the interaction between heap and off-heap segments.
+ */
+public class OffHeapMemorySegmentTest extends MemorySegmentTest {
+
+	@Override
+	protected DefaultMemoryManager createMemoryManager() {
+		return new DefaultMemoryManager(MANAGED_MEMORY_SIZE, PAGE_SIZE, true);
+	}
+	
+	@Test
+	public void testHeapAndOffHeapInterop() {
+		final Random rnd = new Random(RANDOM_SEED);
+		
+		final MemorySegment heap = new MemorySegment(new byte[1024]);
+		final MemorySegment offHeap = new MemorySegment(ByteBuffer.allocateDirect(1024));
+		
+		assertFalse(heap.isOffHeap());
+		assertTrue(offHeap.isOffHeap());
+		
+		final byte[] data = new byte[1024];
+		rnd.nextBytes(data);
+		heap.put(0, data);
+		
+		// copy in both directions
+		heap.copyTo(0, offHeap, 0, 1024);
+		assertEquals(0, MemorySegment.compare(heap, offHeap, 0, 0, 1024));
+		
+		offHeap.putLongBigEndian(8, 0x0102030405060708L);
+		offHeap.copyTo(8, heap, 8, 8);
+		assertEquals(0x0102030405060708L, heap.getLongBigEndian(8));
+		assertEquals(heap.getShort(8), offHeap.getShort(8));
+		assertEquals(heap.getChar(10), offHeap.getChar(10));
+		
+		// swap regions between the segments
+		final byte[] expectedHeap = new byte[128];
+		final byte[] expectedOffHeap = new byte[128];
+		heap.get(0, expectedOffHeap);
+		offHeap.get(512, expectedHeap);
+		MemorySegment.swapBytes(heap, offHeap, new byte[128], 0, 512, 128);
+		
+		final byte[] actual = new byte[128];
+		heap.get(0, actual);
+		assertArrayEquals(expectedHeap, actual);
+		offHeap.get(512, actual);
+		assertArrayEquals(expectedOffHeap, actual);
+	}
+	
+	@Test
+	public void testStreamAndBufferTransfers() {
+		try {
+			final Random rnd = new Random(RANDOM_SEED);
+			final MemorySegment offHeap = new MemorySegment(ByteBuffer.allocateDirect(16 * 1024));
+			
+			final byte[] data = new byte[10000];
+			rnd.nextBytes(data);
+			
+			// streams, spanning multiple copy chunks
+			offHeap.put(new DataInputStream(new ByteArrayInputStream(data)), 17, data.length);
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			offHeap.get(new DataOutputStream(bos), 17, data.length);
+			assertArrayEquals(data, bos.toByteArray());
+			
+			// byte buffers
+			ByteBuffer target = ByteBuffer.allocate(data.length);
+			offHeap.get(17, target, data.length);
+			assertArrayEquals(data, target.array());
+			
+			ByteBuffer source = ByteBuffer.wrap(data);
+			offHeap.put(5000, source, 2000);
+			assertEquals(2000, source.position());
+			
+			final byte[] actual = new byte[2000];
+			offHeap.get(5000, actual);
+			for (int i = 0; i < actual.length; i++) {
+				assertEquals(data[i], actual[i]);
+			}
+			
+			// the wrapped buffer views exactly the requested region
+			ByteBuffer wrapped = offHeap.wrap(5000, 2000);
+			assertTrue(wrapped.isDirect());
+			assertEquals(2000, wrapped.remaining());
+			assertEquals(data[0], wrapped.get(5000));
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail("Test encountered an exception: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testAccessAfterFree() {
+		final MemorySegment offHeap = new MemorySegment(ByteBuffer.allocateDirect(1024));
+		offHeap.free();
+		assertTrue(offHeap.isFreed());
+		
+		try {
+			offHeap.getLong(0);
+			fail("IndexOutOfBoundsException expected");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+		
+		try {
+			offHeap.put(0, (byte) 1);
+			fail("IndexOutOfBoundsException expected");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+}
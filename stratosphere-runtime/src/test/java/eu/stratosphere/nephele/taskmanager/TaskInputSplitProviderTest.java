@@ -0,0 +1,160 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.taskmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.core.io.GenericInputSplit;
+import eu.stratosphere.core.io.InputSplit;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.jobmanager.splitassigner.InputSplitWrapper;
+import eu.stratosphere.nephele.protocols.InputSplitProviderProtocol;
+import eu.stratosphere.nephele.types.IntegerRecord;
+
+/**
+ * Tests the batching and prefetching of input splits in the {@link TaskInputSplitProvider}.
+ */
+public class TaskInputSplitProviderTest {
+
+	private static final int NUM_SPLITS = 100;
+
+	private ExecutorService executor;
+
+	@Before
+	public void startExecutor() {
+		this.executor = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void stopExecutor() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void testBatchedSplits() {
+		final MockInputSplitProviderProtocol jobManager = new MockInputSplitProviderProtocol(NUM_SPLITS, 8);
+		final TaskInputSplitProvider provider = new TaskInputSplitProvider(new JobID(), new ExecutionVertexID(),
+			jobManager, this.executor, 8);
+
+		for (int i = 0; i < NUM_SPLITS; i++) {
+			final InputSplit split = provider.getNextInputSplit();
+			assertEquals(i, split.getSplitNumber());
+		}
+		assertNull(provider.getNextInputSplit());
+		assertNull(provider.getNextInputSplit());
+
+		assertEquals(NUM_SPLITS, provider.getNumberOfInputSplits());
+		// 13 batches and the final empty request
+		assertEquals(14, jobManager.getNumberOfRequests());
+		assertTrue(jobManager.sequenceNumbersAreConsecutive());
+	}
+
+	@Test
+	public void testSingleSplitsAreNotPrefetched() {
+		// the job manager hands out single splits, as if there were only few splits per task
+		final MockInputSplitProviderProtocol jobManager = new MockInputSplitProviderProtocol(NUM_SPLITS, 1);
+		final TaskInputSplitProvider provider = new TaskInputSplitProvider(new JobID(), new ExecutionVertexID(),
+			jobManager, this.executor, 8);
+
+		for (int i = 0; i < NUM_SPLITS; i++) {
+			assertEquals(i, provider.getNextInputSplit().getSplitNumber());
+			// no split is requested before the task asks for it
+			assertEquals(i + 1, jobManager.getNumberOfRequests());
+		}
+		assertNull(provider.getNextInputSplit());
+		assertTrue(jobManager.sequenceNumbersAreConsecutive());
+	}
+
+	@Test
+	public void testFailingRequest() {
+		final MockInputSplitProviderProtocol jobManager = new MockInputSplitProviderProtocol(NUM_SPLITS, 4);
+		final TaskInputSplitProvider provider = new TaskInputSplitProvider(new JobID(), new ExecutionVertexID(),
+			jobManager, this.executor, 4);
+
+		jobManager.fail = true;
+		try {
+			provider.getNextInputSplit();
+			fail("The failed request should have been reported.");
+		} catch (RuntimeException e) {
+			// expected
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static final class MockInputSplitProviderProtocol implements InputSplitProviderProtocol {
+
+		private final int numSplits;
+
+		private final int maxBatchSize;
+
+		private final List<Integer> sequenceNumbers = new ArrayList<Integer>();
+
+		private int nextSplit;
+
+		private volatile boolean fail;
+
+		MockInputSplitProviderProtocol(int numSplits, int maxBatchSize) {
+			this.numSplits = numSplits;
+			this.maxBatchSize = maxBatchSize;
+		}
+
+		@Override
+		public synchronized InputSplitWrapper requestNextInputSplits(JobID jobID, ExecutionVertexID vertexID,
+				IntegerRecord sequenceNumber, IntegerRecord maxNumberOfSplits) throws IOException {
+
+			if (this.fail) {
+				throw new IOException("Test exception");
+			}
+
+			this.sequenceNumbers.add(sequenceNumber.getValue());
+
+			final List<InputSplit> batch = new ArrayList<InputSplit>();
+			final int batchSize = Math.min(this.maxBatchSize, maxNumberOfSplits.getValue());
+			while (batch.size() < batchSize && this.nextSplit < this.numSplits) {
+				batch.add(new GenericInputSplit(this.nextSplit++, this.numSplits));
+			}
+			return new InputSplitWrapper(jobID, batch);
+		}
+
+		synchronized int getNumberOfRequests() {
+			return this.sequenceNumbers.size();
+		}
+
+		synchronized boolean sequenceNumbersAreConsecutive() {
+			int expected = 0;
+			for (int i = 0; i < this.sequenceNumbers.size(); i++) {
+				if (this.sequenceNumbers.get(i) != expected) {
+					return false;
+				}
+				expected = Math.min(this.numSplits, expected + this.maxBatchSize);
+			}
+			return true;
+		}
+	}
+}
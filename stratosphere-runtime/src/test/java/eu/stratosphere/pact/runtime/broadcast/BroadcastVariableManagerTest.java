@@ -0,0 +1,171 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.broadcast;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.typeutils.base.IntSerializer;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.util.MutableObjectIterator;
+
+public class BroadcastVariableManagerTest {
+	
+	private static final int NUM_ELEMENTS = 10000;
+	
+	@Test
+	public void testReferenceCounting() {
+		final BroadcastVariableManager manager = new BroadcastVariableManager();
+		final BroadcastVariableKey key = new BroadcastVariableKey(new JobID(), "vertex", 0, 0);
+		
+		BroadcastVariableMaterialization<Integer> first = manager.acquire(key);
+		BroadcastVariableMaterialization<Integer> second = manager.acquire(new BroadcastVariableKey(key.getJobId(), "vertex", 0, 0));
+		Assert.assertSame(first, second);
+		
+		BroadcastVariableMaterialization<Integer> nextSuperstep = manager.acquire(new BroadcastVariableKey(key.getJobId(), "vertex", 0, 1));
+		Assert.assertNotSame(first, nextSuperstep);
+		Assert.assertEquals(2, manager.getNumberOfVariables());
+		
+		manager.release(first);
+		Assert.assertEquals(2, manager.getNumberOfVariables());
+		manager.release(second);
+		Assert.assertEquals(1, manager.getNumberOfVariables());
+		manager.release(nextSuperstep);
+		Assert.assertEquals(0, manager.getNumberOfVariables());
+		
+		try {
+			manager.release(first);
+			Assert.fail("Releasing an unreferenced variable should fail.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		
+		// a variable that is acquired again after it was dropped is materialized anew
+		Assert.assertNotSame(first, manager.acquire(key));
+	}
+	
+	@Test
+	public void testConcurrentMaterialization() throws Exception {
+		final BroadcastVariableManager manager = new BroadcastVariableManager();
+		final BroadcastVariableKey key = new BroadcastVariableKey(new JobID(), "vertex", 0, 0);
+		
+		final int numSubtasks = 8;
+		final SubtaskThread[] subtasks = new SubtaskThread[numSubtasks];
+		for (int i = 0; i < numSubtasks; i++) {
+			subtasks[i] = new SubtaskThread(manager, key);
+		}
+		for (SubtaskThread subtask : subtasks) {
+			subtask.start();
+		}
+		
+		List<Integer> shared = null;
+		for (SubtaskThread subtask : subtasks) {
+			subtask.join();
+			if (subtask.error != null) {
+				throw new Exception("A subtask failed: " + subtask.error.getMessage(), subtask.error);
+			}
+			
+			// every subtask must have consumed its input, and all get their own list over the same elements
+			Assert.assertEquals(NUM_ELEMENTS, subtask.input.count);
+			if (shared == null) {
+				shared = subtask.result;
+			} else {
+				Assert.assertNotSame(shared, subtask.result);
+				Assert.assertEquals(NUM_ELEMENTS, subtask.result.size());
+				for (int i = 0; i < NUM_ELEMENTS; i++) {
+					Assert.assertSame(shared.get(i), subtask.result.get(i));
+				}
+			}
+		}
+		
+		Assert.assertEquals(NUM_ELEMENTS, shared.size());
+		for (int i = 0; i < NUM_ELEMENTS; i++) {
+			Assert.assertEquals(i, shared.get(i).intValue());
+		}
+		Assert.assertEquals(0, manager.getNumberOfVariables());
+	}
+	
+	@Test
+	public void testFailedMaterialization() throws Exception {
+		final BroadcastVariableManager manager = new BroadcastVariableManager();
+		final BroadcastVariableKey key = new BroadcastVariableKey(new JobID(), "vertex", 0, 0);
+		
+		final BroadcastVariableMaterialization<Integer> failing = manager.acquire(key);
+		try {
+			failing.materializeOrWait(new MutableObjectIterator<Integer>() {
+				@Override
+				public Integer next(Integer reuse) throws IOException {
+					throw new IOException("Test exception");
+				}
+			}, IntSerializer.INSTANCE);
+			Assert.fail("The materialization should have failed.");
+		} catch (IOException e) {
+			// expected
+		}
+		
+		final BroadcastVariableMaterialization<Integer> waiting = manager.acquire(key);
+		Assert.assertSame(failing, waiting);
+		try {
+			waiting.materializeOrWait(new IntegerIterator(), IntSerializer.INSTANCE);
+			Assert.fail("The waiting subtask should have seen the failure.");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static final class IntegerIterator implements MutableObjectIterator<Integer> {
+		
+		private int count;
+		
+		@Override
+		public Integer next(Integer reuse) {
+			return this.count < NUM_ELEMENTS ? Integer.valueOf(this.count++) : null;
+		}
+	}
+	
+	private static final class SubtaskThread extends Thread {
+		
+		private final BroadcastVariableManager manager;
+		
+		private final BroadcastVariableMaterialization<Integer> variable;
+		
+		private final IntegerIterator input = new IntegerIterator();
+		
+		private volatile List<Integer> result;
+		
+		private volatile Throwable error;
+		
+		SubtaskThread(BroadcastVariableManager manager, BroadcastVariableKey key) {
+			this.manager = manager;
+			// acquire before the thread starts, such that no subtask drops the variable before all have read it
+			this.variable = manager.acquire(key);
+		}
+		
+		@Override
+		public void run() {
+			try {
+				this.result = this.variable.materializeOrWait(this.input, IntSerializer.INSTANCE);
+			} catch (Throwable t) {
+				this.error = t;
+			} finally {
+				this.manager.release(this.variable);
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.hash;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.core.memory.MemorySegment;
+
+public class BloomFilterTest {
+	
+	private static final int NUM_BYTES = 112;
+	
+	@Test
+	public void testNoFalseNegatives() {
+		final MemorySegment segment = new MemorySegment(new byte[1024]);
+		final BloomFilter filter = new BloomFilter(NUM_BYTES, 4);
+		final Random rnd = new Random(4390587349051789L);
+		
+		// two filters next to each other in the same segment
+		final int[] codes = new int[100];
+		filter.setBitsLocation(segment, 16);
+		filter.reset();
+		for (int i = 0; i < codes.length; i++) {
+			codes[i] = rnd.nextInt() & 0x7fffffff;
+			filter.addHash(codes[i]);
+		}
+		filter.setBitsLocation(segment, 16 + NUM_BYTES);
+		filter.reset();
+		filter.addHash(42);
+		
+		filter.setBitsLocation(segment, 16);
+		for (int i = 0; i < codes.length; i++) {
+			Assert.assertTrue(filter.testHash(codes[i]));
+		}
+		filter.setBitsLocation(segment, 16 + NUM_BYTES);
+		Assert.assertTrue(filter.testHash(42));
+	}
+	
+	@Test
+	public void testFalsePositiveRate() {
+		final MemorySegment segment = new MemorySegment(new byte[NUM_BYTES]);
+		final BloomFilter filter = new BloomFilter(NUM_BYTES, 4);
+		filter.setBitsLocation(segment, 0);
+		
+		// the hash codes agree in their lower bits, as all hash codes in one hash table bucket do
+		for (int i = 0; i < 50; i++) {
+			filter.addHash(i << 12 | 0x123);
+		}
+		
+		int numFalsePositives = 0;
+		for (int i = 50; i < 100050; i++) {
+			if (filter.testHash(i << 12 | 0x123)) {
+				numFalsePositives++;
+			}
+		}
+		Assert.assertTrue("False positive rate too high: " + numFalsePositives, numFalsePositives < 1000);
+		
+		filter.reset();
+		for (int i = 0; i < 50; i++) {
+			Assert.assertFalse(filter.testHash(i << 12 | 0x123));
+		}
+	}
+}
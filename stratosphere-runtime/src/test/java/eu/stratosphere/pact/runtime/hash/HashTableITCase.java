@@ -723,6 +723,80 @@ public class HashTableITCase {
 		this.memManager.release(join.getFreedMemory());
 	}
 	
+	/*
+	 * Spills build records and probes with keys that have no match. The bloom filters of the spilled
+	 * partitions must drop almost all probe records before they are spilled.
+	 */
+	@Test
+	public void testSpilledPartitionsBloomFilters() throws IOException, MemoryAllocationException
+	{
+		final int NUM_BUILD_KEYS = 500000;
+		final int NUM_PROBE_KEYS = 500000;
+		
+		MutableObjectIterator<Record> buildInput = new UniformRecordGenerator(NUM_BUILD_KEYS, 1, false);
+		
+		// the probe side has the keys after the build side keys, so no probe record has a match
+		MutableObjectIterator<Record> probeInput = new MutableObjectIterator<Record>() {
+			private final IntValue key = new IntValue();
+			private int next = NUM_BUILD_KEYS;
+			
+			@Override
+			public Record next(Record reuse) {
+				if (this.next >= NUM_BUILD_KEYS + NUM_PROBE_KEYS) {
+					return null;
+				}
+				this.key.setValue(this.next++);
+				reuse.clear();
+				reuse.setField(0, this.key);
+				reuse.setField(1, this.key);
+				return reuse;
+			}
+		};
+		
+		List<MemorySegment> memSegments = this.memManager.allocatePages(MEM_OWNER, 128);
+		
+		final MutableHashTable<Record, Record> join = new MutableHashTable<Record, Record>(
+				this.recordBuildSideAccesssor, this.recordProbeSideAccesssor, 
+				this.recordBuildSideComparator, this.recordProbeSideComparator, this.pactRecordComparator,
+				memSegments, ioManager);
+		join.open(buildInput, probeInput);
+		
+		final Record recordReuse = new Record();
+		int numRecordsInJoinResult = 0;
+		
+		// consume the probe side of the initial table and check how many records were spilled
+		while (join.processProbeIter()) {
+			HashBucketIterator<Record, Record> buildSide = join.getBuildSideIterator();
+			while (buildSide.next(recordReuse) != null) {
+				numRecordsInJoinResult++;
+			}
+		}
+		
+		int numSpilledPartitions = 0;
+		long numSpilledProbeRecords = 0;
+		for (HashPartition<Record, Record> p : join.partitionsBeingBuilt) {
+			if (!p.isInMemory()) {
+				numSpilledPartitions++;
+				numSpilledProbeRecords += p.getProbeSideRecordCount();
+			}
+		}
+		Assert.assertTrue("Test did not spill any partition.", numSpilledPartitions > 0);
+		Assert.assertTrue("Bloom filters let too many probe records pass: " + numSpilledProbeRecords,
+			numSpilledProbeRecords < NUM_PROBE_KEYS / 20);
+		
+		while (join.nextRecord()) {
+			HashBucketIterator<Record, Record> buildSide = join.getBuildSideIterator();
+			while (buildSide.next(recordReuse) != null) {
+				numRecordsInJoinResult++;
+			}
+		}
+		Assert.assertEquals("Wrong number of records in join result.", 0, numRecordsInJoinResult);
+		
+		join.close();
+		
+		this.memManager.release(join.getFreedMemory());
+	}
+	
 	// ============================================================================================
 	//                                 Integer Pairs based Tests
 	// ============================================================================================
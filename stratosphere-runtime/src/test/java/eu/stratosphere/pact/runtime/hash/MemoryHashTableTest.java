@@ -31,6 +31,7 @@ import eu.stratosphere.api.common.typeutils.TypeComparator;
 import eu.stratosphere.api.common.typeutils.TypePairComparator;
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.pact.runtime.test.util.UniformStringPairGenerator;
 import eu.stratosphere.pact.runtime.test.util.types.IntList;
 import eu.stratosphere.pact.runtime.test.util.types.IntListComparator;
@@ -419,6 +420,83 @@ public class MemoryHashTableTest {
 	}
 	
 	
+	@Test
+	public void testSpillingBuildAndRetrieve() {
+		final IOManager ioManager = new IOManager();
+		try {
+			final int NUM_LISTS = 20000;
+			final int PAGE_SIZE = 4 * 1024;
+			// a third of the memory the records need, the table structure still fits
+			final int NUM_MEM_PAGES = SIZE * NUM_LISTS / PAGE_SIZE / 3;
+			
+			final IntList[] lists = getRandomizedIntLists(NUM_LISTS, rnd);
+			
+			CompactingHashTable<IntList> table = new CompactingHashTable<IntList>(serializerV, comparatorV, getMemory(NUM_MEM_PAGES, PAGE_SIZE), ioManager);
+			table.open();
+			
+			int result = 0;
+			for (int i = 0; i < NUM_LISTS; i++) {
+				table.insert(lists[i]);
+				result += lists[i].getKey();
+			}
+			assertTrue("No partition was spilled", table.getNumSpilledPartitions() > 0);
+			
+			AbstractHashTableProber<IntList, IntList> prober = table.getProber(comparatorV, pairComparatorV);
+			IntList target = new IntList();
+			
+			for (int i = 0; i < NUM_LISTS; i++) {
+				assertTrue(prober.getMatchFor(lists[i], target));
+				assertArrayEquals(lists[i].getValue(), target.getValue());
+			}
+			
+			final IntList[] overwriteLists = getRandomizedIntLists(NUM_LISTS, rnd);
+			
+			// test replacing
+			IntList tempHolder = new IntList();
+			for (int i = 0; i < NUM_LISTS; i++) {
+				table.insertOrReplaceRecord(overwriteLists[i], tempHolder);
+			}
+			
+			for (int i = 0; i < NUM_LISTS; i++) {
+				assertTrue(prober.getMatchFor(overwriteLists[i], target));
+				assertArrayEquals(overwriteLists[i].getValue(), target.getValue());
+			}
+			
+			// test updating through the prober
+			for (int i = 0; i < NUM_LISTS; i += 7) {
+				assertTrue(prober.getMatchFor(lists[i], target));
+				prober.updateMatch(lists[i]);
+				overwriteLists[i] = lists[i];
+			}
+			
+			MutableObjectIterator<IntList> iter = table.getEntryIterator();
+			int sum = 0;
+			int count = 0;
+			while((target = iter.next(target)) != null) {
+				sum += target.getKey();
+				count++;
+			}
+			assertEquals(NUM_LISTS, count);
+			assertEquals(result, sum);
+			
+			target = new IntList();
+			for (int i = 0; i < NUM_LISTS; i++) {
+				assertTrue(prober.getMatchFor(overwriteLists[i], target));
+				assertArrayEquals(overwriteLists[i].getValue(), target.getValue());
+			}
+			
+			table.close();
+			assertEquals("Memory lost", NUM_MEM_PAGES, table.getFreeMemory().size());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail("Error: " + e.getMessage());
+		}
+		finally {
+			ioManager.shutdown();
+		}
+	}
+	
 	private static IntPair[] getRandomizedIntPairs(int num, Random rnd) {
 		IntPair[] pairs = new IntPair[num];
 		
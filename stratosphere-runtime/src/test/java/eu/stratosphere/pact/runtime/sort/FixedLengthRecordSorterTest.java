@@ -363,4 +363,47 @@ public class FixedLengthRecordSorterTest
 		// release the memory occupied by the buffers
 		this.memoryManager.release(sorter.dispose());
 	}
+	
+	@Test
+	public void testRadixSort() throws Exception {
+		final int NUM_RECORDS = 559273;
+		final int numSegments = MEMORY_SIZE / MEMORY_PAGE_SIZE;
+		final List<MemorySegment> memory = this.memoryManager.allocatePages(new DummyInvokable(), numSegments);
+		
+		FixedLengthRecordSorter<IntPair> sorter = newSortBuffer(memory);
+		RandomIntPairGenerator generator = new RandomIntPairGenerator(SEED);
+		
+		// write the records
+		IntPair record = new IntPair();
+		int num = -1;
+		do {
+			generator.next(record);
+			num++;
+		}
+		while (sorter.write(record) && num < NUM_RECORDS);
+		
+		Assert.assertTrue(RadixSort.isApplicable(sorter));
+		new RadixSort().sort(sorter);
+		
+		MutableObjectIterator<IntPair> iter = sorter.getIterator();
+		IntPair readTarget = new IntPair();
+		
+		iter.next(readTarget);
+		int last = readTarget.getKey();
+		int count = 1;
+		
+		while ((readTarget = iter.next(readTarget)) != null) {
+			final int current = readTarget.getKey();
+			count++;
+			
+			if (last > current) {
+				Assert.fail("Next key is not larger or equal to previous key.");
+			}
+			last = current;
+		}
+		Assert.assertEquals("Records were lost during sorting.", sorter.size(), count);
+		
+		// release the memory occupied by the buffers
+		this.memoryManager.release(sorter.dispose());
+	}
 }
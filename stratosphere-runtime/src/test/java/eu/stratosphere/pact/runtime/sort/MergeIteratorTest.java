@@ -16,6 +16,7 @@ package eu.stratosphere.pact.runtime.sort;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -206,4 +207,43 @@ public class MergeIteratorTest
 		
 		Assert.assertTrue("Merge must have returned a wrong result", violationFound);
 	}
+	
+	@Test
+	public void testMergeOfStreamsWithDifferentLengths() throws Exception
+	{
+		final Random rnd = new Random(3487562938475L);
+		final int numStreams = 23;
+		
+		// iterators, some of which run out early, to exercise an unbalanced tree with exhausted leaves
+		List<MutableObjectIterator<Record>> iterators = new ArrayList<MutableObjectIterator<Record>>();
+		int numElements = 0;
+		for (int i = 0; i < numStreams; i++) {
+			final int[] keys = new int[1 + rnd.nextInt(100)];
+			final String[] values = new String[keys.length];
+			for (int k = 0, key = 0; k < keys.length; k++) {
+				key += rnd.nextInt(5);
+				keys[k] = key;
+				values[k] = String.valueOf(i);
+			}
+			iterators.add(newIterator(keys, values));
+			numElements += keys.length;
+		}
+
+		// merge iterator
+		MutableObjectIterator<Record> iterator = new MergeIterator<Record>(iterators, this.serializer, this.comparator);
+
+		int elementsFound = 1;
+		Record rec = new Record();
+		Assert.assertTrue((rec = iterator.next(rec)) != null);
+		int last = rec.getField(0, TestData.Key.class).getKey();
+		
+		while ((rec = iterator.next(rec)) != null) {
+			elementsFound++;
+			final int current = rec.getField(0, TestData.Key.class).getKey();
+			Assert.assertTrue(last <= current);
+			last = current;
+		}
+		
+		Assert.assertEquals("Wrong number of elements returned from stream.", numElements, elementsFound);
+	}
 }
@@ -0,0 +1,90 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.pact.runtime.sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.pact.runtime.sort.UnilateralSortMerger.ChannelWithBlockCount;
+
+public class MergePlannerTest {
+	
+	@Test
+	public void testNoMergeWithinFanIn() {
+		final MergePlanner planner = new MergePlanner(runs(5, 3, 9), 3);
+		Assert.assertNull(planner.nextMerge());
+		Assert.assertEquals(3, planner.getRuns().size());
+	}
+	
+	@Test
+	public void testFirstMergeTakesSmallestRemainder() {
+		// 6 runs with a fan-in of 4: merging the three smallest runs leaves exactly 4 runs for the final merge
+		final MergePlanner planner = new MergePlanner(runs(40, 10, 30, 1, 50, 2), 4);
+		
+		final List<ChannelWithBlockCount> first = planner.nextMerge();
+		Assert.assertEquals(3, first.size());
+		Assert.assertEquals(1, first.get(0).getBlockCount());
+		Assert.assertEquals(2, first.get(1).getBlockCount());
+		Assert.assertEquals(10, first.get(2).getBlockCount());
+		
+		planner.addRun(new ChannelWithBlockCount(null, 13));
+		Assert.assertNull(planner.nextMerge());
+		Assert.assertEquals(4, planner.getRuns().size());
+	}
+	
+	@Test
+	public void testCascadingMerges() {
+		final int fanIn = 8;
+		final List<ChannelWithBlockCount> runs = new ArrayList<ChannelWithBlockCount>();
+		for (int i = 0; i < 100; i++) {
+			runs.add(new ChannelWithBlockCount(null, 1 + (i * 7) % 13));
+		}
+		
+		final MergePlanner planner = new MergePlanner(runs, fanIn);
+		int numMerges = 0;
+		List<ChannelWithBlockCount> toMerge;
+		while ((toMerge = planner.nextMerge()) != null) {
+			Assert.assertTrue(toMerge.size() >= 2 && toMerge.size() <= fanIn);
+			if (numMerges > 0) {
+				Assert.assertEquals(fanIn, toMerge.size());
+			}
+			
+			int blocks = 0;
+			for (ChannelWithBlockCount run : toMerge) {
+				blocks += run.getBlockCount();
+			}
+			planner.addRun(new ChannelWithBlockCount(null, blocks));
+			numMerges++;
+		}
+		
+		// every merge removes fanIn - 1 runs, the final merge must have a full fan-in
+		Assert.assertEquals(fanIn, planner.getRuns().size());
+		Assert.assertEquals((100 - fanIn) / (fanIn - 1) + 1, numMerges);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testFanInTooSmall() {
+		new MergePlanner(runs(1, 2, 3), 1);
+	}
+	
+	private static List<ChannelWithBlockCount> runs(int... blockCounts) {
+		final List<ChannelWithBlockCount> runs = new ArrayList<ChannelWithBlockCount>(blockCounts.length);
+		for (int blockCount : blockCounts) {
+			runs.add(new ChannelWithBlockCount(null, blockCount));
+		}
+		return runs;
+	}
+}
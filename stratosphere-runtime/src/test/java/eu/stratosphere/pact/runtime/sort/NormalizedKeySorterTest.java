@@ -458,4 +458,155 @@ public class NormalizedKeySorterTest
 		// release the memory occupied by the buffers
 		this.memoryManager.release(sorter.dispose());
 	}
+	
+	@Test
+	public void testRadixSort() throws Exception
+	{
+		final int NUM_RECORDS = 559273;
+		
+		final int numSegments = MEMORY_SIZE / MEMORY_PAGE_SIZE;
+		final List<MemorySegment> memory = this.memoryManager.allocatePages(new DummyInvokable(), numSegments);
+		
+		NormalizedKeySorter<Record> sorter = newSortBuffer(memory);
+		TestData.Generator generator = new TestData.Generator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM,
+			ValueMode.RANDOM_LENGTH);
+		
+		// write the records
+		Record record = new Record();
+		int num = 0;
+		do {
+			generator.next(record);
+			num++;
+		}
+		while (sorter.write(record) && num < NUM_RECORDS);
+		
+		Assert.assertTrue("Integer keys should be radix sortable.", RadixSort.isApplicable(sorter));
+		new RadixSort().sort(sorter);
+		
+		MutableObjectIterator<Record> iter = sorter.getIterator();
+		Record readTarget = new Record();
+		
+		Key current = new Key();
+		Key last = new Key();
+		
+		iter.next(readTarget);
+		readTarget.getFieldInto(0, last);
+		
+		int count = 1;
+		while ((readTarget = iter.next(readTarget)) != null) {
+			readTarget.getFieldInto(0, current);
+			count++;
+			
+			final int cmp = last.compareTo(current);
+			if (cmp > 0) {
+				Assert.fail("Next key is not larger or equal to previous key.");
+			}
+			
+			Key tmp = current;
+			current = last;
+			last = tmp;
+		}
+		Assert.assertEquals("Records were lost during sorting.", sorter.size(), count);
+		
+		// release the memory occupied by the buffers
+		this.memoryManager.release(sorter.dispose());
+	}
+	
+	@Test
+	public void testRadixSortDescending() throws Exception
+	{
+		final int numSegments = MEMORY_SIZE / MEMORY_PAGE_SIZE;
+		final List<MemorySegment> memory = this.memoryManager.allocatePages(new DummyInvokable(), numSegments);
+		
+		@SuppressWarnings("unchecked")
+		RecordComparator accessors = new RecordComparator(new int[] {0}, new Class[]{Key.class}, new boolean[] {false});
+		NormalizedKeySorter<Record> sorter = new NormalizedKeySorter<Record>(RecordSerializer.get(), accessors, memory);
+		
+		TestData.Generator generator = new TestData.Generator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM,
+			ValueMode.RANDOM_LENGTH);
+		
+		// write the records
+		Record record = new Record();
+		do {
+			generator.next(record);
+		}
+		while (sorter.write(record));
+		
+		new RadixSort().sort(sorter);
+		
+		MutableObjectIterator<Record> iter = sorter.getIterator();
+		Record readTarget = new Record();
+		
+		Key current = new Key();
+		Key last = new Key();
+		
+		iter.next(readTarget);
+		readTarget.getFieldInto(0, last);
+		
+		while ((readTarget = iter.next(readTarget)) != null) {
+			readTarget.getFieldInto(0, current);
+			
+			final int cmp = last.compareTo(current);
+			if (cmp < 0) {
+				Assert.fail("Next key is not smaller or equal to previous key.");
+			}
+			
+			Key tmp = current;
+			current = last;
+			last = tmp;
+		}
+		
+		// release the memory occupied by the buffers
+		this.memoryManager.release(sorter.dispose());
+	}
+	
+	@Test
+	public void testRadixSortPrefixStringKeys() throws Exception
+	{
+		final int numSegments = MEMORY_SIZE / MEMORY_PAGE_SIZE;
+		final List<MemorySegment> memory = this.memoryManager.allocatePages(new DummyInvokable(), numSegments);
+		
+		@SuppressWarnings("unchecked")
+		RecordComparator accessors = new RecordComparator(new int[] {1}, new Class[]{Value.class});
+		NormalizedKeySorter<Record> sorter = new NormalizedKeySorter<Record>(RecordSerializer.get(), accessors, memory);
+		
+		TestData.Generator generator = new TestData.Generator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM,
+			ValueMode.FIX_LENGTH);
+		
+		// write the records
+		Record record = new Record();
+		do {
+			generator.next(record);
+		}
+		while (sorter.write(record));
+		
+		// the string keys are only a prefix, so the radix sort must resolve equal prefixes by comparison
+		Assert.assertFalse("Prefix keys must not be picked for radix sorting.", RadixSort.isApplicable(sorter));
+		new RadixSort().sort(sorter);
+		
+		MutableObjectIterator<Record> iter = sorter.getIterator();
+		Record readTarget = new Record();
+		
+		Value current = new Value();
+		Value last = new Value();
+		
+		iter.next(readTarget);
+		readTarget.getFieldInto(1, last);
+		
+		while ((readTarget = iter.next(readTarget)) != null) {
+			readTarget.getFieldInto(1, current);
+			
+			final int cmp = last.compareTo(current);
+			if (cmp > 0) {
+				Assert.fail("Next value is not larger or equal to previous value.");
+			}
+			
+			Value tmp = current;
+			current = last;
+			last = tmp;
+		}
+		
+		// release the memory occupied by the buffers
+		this.memoryManager.release(sorter.dispose());
+	}
 }
@@ -0,0 +1,222 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.pact.runtime.task.drivers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.functions.GenericCoGrouper;
+import eu.stratosphere.api.java.functions.CoGroupFunction;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.api.java.typeutils.TypeExtractor;
+import eu.stratosphere.api.java.typeutils.runtime.RuntimePairComparatorFactory;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.pact.runtime.task.BuildFirstCachedCoGroupDriver;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.util.RegularToMutableObjectIterator;
+import eu.stratosphere.util.Collector;
+
+@SuppressWarnings("serial")
+public class BuildFirstCachedCoGroupDriverTest {
+	
+	private static final long TOTAL_MEMORY = 3 * 1024 * 1024;
+	
+	private static final long DRIVER_MEMORY = 2 * 1024 * 1024;
+	
+	@Test
+	public void testCachedCoGroupOverSupersteps() {
+		IOManager ioManager = new IOManager();
+		try {
+			TestTaskContext<GenericCoGrouper<Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+					new TestTaskContext<GenericCoGrouper<Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>>, Tuple2<String, Integer>>(TOTAL_MEMORY);
+			context.getTaskConfig().setMemoryDriver(DRIVER_MEMORY);
+			context.getTaskConfig().setDriverPairComparator(new RuntimePairComparatorFactory<Tuple2<String, Integer>, Tuple2<String, Integer>>());
+			context.setDriverStrategy(DriverStrategy.CO_GROUP_HASH_BUILD_FIRST_CACHED);
+			context.setIOManager(ioManager);
+			
+			List<Tuple2<String, Integer>> edges = new ArrayList<Tuple2<String, Integer>>();
+			edges.add(new Tuple2<String, Integer>("a", 1));
+			edges.add(new Tuple2<String, Integer>("a", 2));
+			edges.add(new Tuple2<String, Integer>("b", 4));
+			edges.add(new Tuple2<String, Integer>("c", 8));
+			edges.add(new Tuple2<String, Integer>("a", 16));
+			
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(edges.get(0));
+			
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+			
+			context.setInput1(new RegularToMutableObjectIterator<Tuple2<String, Integer>>(edges.iterator(), typeInfo.createSerializer()), typeInfo.createSerializer());
+			context.setComparator1(typeInfo.createComparator(new int[] {0}, new boolean[] {true}));
+			context.setComparator2(typeInfo.createComparator(new int[] {0}, new boolean[] {true}));
+			context.setCollector(result);
+			context.setUdf(new SumCoGroup());
+			
+			BuildFirstCachedCoGroupDriver<Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>> driver =
+					new BuildFirstCachedCoGroupDriver<Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>>();
+			driver.setup(context);
+			
+			Assert.assertTrue(driver.isInputResettable(0));
+			Assert.assertFalse(driver.isInputResettable(1));
+			
+			// first superstep: the table is built and probed
+			List<Tuple2<String, Integer>> workset = new ArrayList<Tuple2<String, Integer>>();
+			workset.add(new Tuple2<String, Integer>("a", 100));
+			workset.add(new Tuple2<String, Integer>("a", 200));
+			workset.add(new Tuple2<String, Integer>("d", 300));
+			context.setInput2(new RegularToMutableObjectIterator<Tuple2<String, Integer>>(workset.iterator(), typeInfo.createSerializer()), typeInfo.createSerializer());
+			
+			driver.initialize();
+			driver.prepare();
+			driver.run();
+			
+			List<Tuple2<String, Integer>> expected = new ArrayList<Tuple2<String, Integer>>();
+			expected.add(new Tuple2<String, Integer>("a", 319));
+			expected.add(new Tuple2<String, Integer>("d", 300));
+			assertResult(expected, result.getList());
+			
+			// second superstep: the first input is not read again
+			result.getList().clear();
+			context.setInput1(null, typeInfo.createSerializer());
+			workset.clear();
+			workset.add(new Tuple2<String, Integer>("c", 1000));
+			workset.add(new Tuple2<String, Integer>("b", 2000));
+			context.setInput2(new RegularToMutableObjectIterator<Tuple2<String, Integer>>(workset.iterator(), typeInfo.createSerializer()), typeInfo.createSerializer());
+			
+			driver.reset();
+			driver.prepare();
+			driver.run();
+			
+			expected.clear();
+			expected.add(new Tuple2<String, Integer>("b", 2004));
+			expected.add(new Tuple2<String, Integer>("c", 1008));
+			assertResult(expected, result.getList());
+			
+			driver.cleanup();
+			driver.teardown();
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+		finally {
+			ioManager.shutdown();
+		}
+	}
+	
+	@Test
+	public void testCachedCoGroupWithFirstInputExceedingMemory() {
+		IOManager ioManager = new IOManager();
+		try {
+			TestTaskContext<GenericCoGrouper<Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+					new TestTaskContext<GenericCoGrouper<Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>>, Tuple2<String, Integer>>(TOTAL_MEMORY);
+			context.getTaskConfig().setMemoryDriver(DRIVER_MEMORY);
+			context.getTaskConfig().setDriverPairComparator(new RuntimePairComparatorFactory<Tuple2<String, Integer>, Tuple2<String, Integer>>());
+			context.setDriverStrategy(DriverStrategy.CO_GROUP_HASH_BUILD_FIRST_CACHED);
+			context.setIOManager(ioManager);
+			
+			// far more edges than fit into the driver memory
+			final int numEdges = 200000;
+			Iterator<Tuple2<String, Integer>> edges = new Iterator<Tuple2<String, Integer>>() {
+				private int num;
+				
+				@Override
+				public boolean hasNext() {
+					return this.num < numEdges;
+				}
+				
+				@Override
+				public Tuple2<String, Integer> next() {
+					this.num++;
+					return new Tuple2<String, Integer>("vertex-with-a-long-name-" + this.num, this.num);
+				}
+				
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+			
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(new Tuple2<String, Integer>("", 0));
+			
+			context.setInput1(new RegularToMutableObjectIterator<Tuple2<String, Integer>>(edges, typeInfo.createSerializer()), typeInfo.createSerializer());
+			context.setInput2(new RegularToMutableObjectIterator<Tuple2<String, Integer>>(new ArrayList<Tuple2<String, Integer>>().iterator(), typeInfo.createSerializer()), typeInfo.createSerializer());
+			context.setComparator1(typeInfo.createComparator(new int[] {0}, new boolean[] {true}));
+			context.setComparator2(typeInfo.createComparator(new int[] {0}, new boolean[] {true}));
+			context.setCollector(new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer()));
+			context.setUdf(new SumCoGroup());
+			
+			BuildFirstCachedCoGroupDriver<Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>> driver =
+					new BuildFirstCachedCoGroupDriver<Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>>();
+			driver.setup(context);
+			
+			try {
+				driver.initialize();
+				Assert.fail("Building the cached table over a spilling first input should fail.");
+			}
+			catch (RuntimeException rex) {
+				Assert.assertTrue(rex.getMessage().contains("exceeds the driver memory"));
+			}
+			driver.teardown();
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+		finally {
+			ioManager.shutdown();
+		}
+	}
+	
+	private static void assertResult(List<Tuple2<String, Integer>> expected, List<Tuple2<String, Integer>> found) {
+		Comparator<Tuple2<String, Integer>> byKey = new Comparator<Tuple2<String, Integer>>() {
+			@Override
+			public int compare(Tuple2<String, Integer> o1, Tuple2<String, Integer> o2) {
+				return o1.f0.compareTo(o2.f0);
+			}
+		};
+		Assert.assertEquals(expected.size(), found.size());
+		Collections.sort(found, byKey);
+		DriverTestData.compareTupleArrays(expected.toArray(), found.toArray());
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public static final class SumCoGroup extends CoGroupFunction<Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>> {
+		
+		@Override
+		public void coGroup(Iterator<Tuple2<String, Integer>> first, Iterator<Tuple2<String, Integer>> second,
+				Collector<Tuple2<String, Integer>> out)
+		{
+			String key = null;
+			int sum = 0;
+			while (first.hasNext()) {
+				sum += first.next().f1;
+			}
+			while (second.hasNext()) {
+				Tuple2<String, Integer> next = second.next();
+				key = next.f0;
+				sum += next.f1;
+			}
+			out.collect(new Tuple2<String, Integer>(key, sum));
+		}
+	}
+}
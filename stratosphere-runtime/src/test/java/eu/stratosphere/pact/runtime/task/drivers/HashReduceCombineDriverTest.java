@@ -0,0 +1,261 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task.drivers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.functions.GenericReduce;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.java.functions.ReduceFunction;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.api.java.typeutils.TypeExtractor;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.HashReduceCombineDriver;
+import eu.stratosphere.pact.runtime.util.EmptyMutableObjectIterator;
+import eu.stratosphere.pact.runtime.util.RegularToMutableObjectIterator;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.StringValue;
+import eu.stratosphere.util.MutableObjectIterator;
+
+@SuppressWarnings("serial")
+public class HashReduceCombineDriverTest {
+	
+	private static final long TOTAL_MEMORY = 3 * 1024 * 1024;
+	
+	private static final long DRIVER_MEMORY = 2 * 1024 * 1024;
+
+	@Test
+	public void testImmutableEmpty() {
+		try {
+			TestTaskContext<GenericReduce<Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+					new TestTaskContext<GenericReduce<Tuple2<String,Integer>>, Tuple2<String,Integer>>(TOTAL_MEMORY);
+			context.getTaskConfig().setMemoryDriver(DRIVER_MEMORY);
+			
+			List<Tuple2<String, Integer>> data = DriverTestData.createReduceImmutableData();
+			
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<String, Integer>> input = EmptyMutableObjectIterator.get();
+			
+			context.setDriverStrategy(DriverStrategy.HASHED_PARTIAL_REDUCE);
+			TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+			
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumReducer());
+			
+			HashReduceCombineDriver<Tuple2<String, Integer>> driver = new HashReduceCombineDriver<Tuple2<String,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			Assert.assertEquals(0, result.getList().size());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testReduceDriverImmutable() {
+		try {
+			TestTaskContext<GenericReduce<Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+					new TestTaskContext<GenericReduce<Tuple2<String,Integer>>, Tuple2<String,Integer>>(TOTAL_MEMORY);
+			context.getTaskConfig().setMemoryDriver(DRIVER_MEMORY);
+			
+			List<Tuple2<String, Integer>> data = DriverTestData.createReduceImmutableData();
+			Collections.shuffle(data);
+			
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<String, Integer>> input = new RegularToMutableObjectIterator<Tuple2<String, Integer>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+			
+			context.setDriverStrategy(DriverStrategy.HASHED_PARTIAL_REDUCE);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumReducer());
+			
+			HashReduceCombineDriver<Tuple2<String, Integer>> driver = new HashReduceCombineDriver<Tuple2<String,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			List<Tuple2<String, Integer>> res = result.getList();
+			Collections.sort(res, new Comparator<Tuple2<String, Integer>>() {
+				@Override
+				public int compare(Tuple2<String, Integer> o1, Tuple2<String, Integer> o2) {
+					return o1.f0.compareTo(o2.f0);
+				}
+			});
+			
+			Object[] expected = new Object[] {
+				new Tuple2<String, Integer>("a", 1), new Tuple2<String, Integer>("b", 2),
+				new Tuple2<String, Integer>("c", 3), new Tuple2<String, Integer>("d", 9),
+				new Tuple2<String, Integer>("e", 21), new Tuple2<String, Integer>("f", 42)
+			};
+			
+			DriverTestData.compareTupleArrays(expected, res.toArray());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testReduceDriverMutable() {
+		try {
+			TestTaskContext<GenericReduce<Tuple2<StringValue, IntValue>>, Tuple2<StringValue, IntValue>> context =
+					new TestTaskContext<GenericReduce<Tuple2<StringValue, IntValue>>, Tuple2<StringValue, IntValue>>(TOTAL_MEMORY);
+			context.getTaskConfig().setMemoryDriver(DRIVER_MEMORY);
+			
+			List<Tuple2<StringValue, IntValue>> data = DriverTestData.createReduceMutableData();
+			TupleTypeInfo<Tuple2<StringValue, IntValue>> typeInfo = (TupleTypeInfo<Tuple2<StringValue, IntValue>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<StringValue, IntValue>> input = new RegularToMutableObjectIterator<Tuple2<StringValue, IntValue>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<StringValue, IntValue>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<StringValue, IntValue>> result = new GatheringCollector<Tuple2<StringValue, IntValue>>(typeInfo.createSerializer());
+			
+			context.setDriverStrategy(DriverStrategy.HASHED_PARTIAL_REDUCE);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumMutableReducer());
+			
+			HashReduceCombineDriver<Tuple2<StringValue, IntValue>> driver = new HashReduceCombineDriver<Tuple2<StringValue, IntValue>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			Map<String, Integer> sums = new HashMap<String, Integer>();
+			for (Tuple2<StringValue, IntValue> t : result.getList()) {
+				Assert.assertNull("Key was emitted twice.", sums.put(t.f0.getValue(), t.f1.getValue()));
+			}
+			
+			Assert.assertEquals(6, sums.size());
+			Assert.assertEquals(Integer.valueOf(9), sums.get("d"));
+			Assert.assertEquals(Integer.valueOf(21), sums.get("e"));
+			Assert.assertEquals(Integer.valueOf(42), sums.get("f"));
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testReduceDriverTableOverflow() {
+		try {
+			final int numKeys = 200000;
+			final int numRounds = 3;
+			
+			TestTaskContext<GenericReduce<Tuple2<Integer, Integer>>, Tuple2<Integer, Integer>> context =
+					new TestTaskContext<GenericReduce<Tuple2<Integer, Integer>>, Tuple2<Integer, Integer>>(TOTAL_MEMORY);
+			context.getTaskConfig().setMemoryDriver(DRIVER_MEMORY);
+			
+			// more distinct keys than fit into the table
+			List<Tuple2<Integer, Integer>> data = new ArrayList<Tuple2<Integer, Integer>>(numKeys * numRounds);
+			for (int round = 0; round < numRounds; round++) {
+				for (int key = 0; key < numKeys; key++) {
+					data.add(new Tuple2<Integer, Integer>(key, 1));
+				}
+			}
+			
+			TupleTypeInfo<Tuple2<Integer, Integer>> typeInfo = (TupleTypeInfo<Tuple2<Integer, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<Integer, Integer>> input = new RegularToMutableObjectIterator<Tuple2<Integer, Integer>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<Integer, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<Integer, Integer>> result = new GatheringCollector<Tuple2<Integer, Integer>>(typeInfo.createSerializer());
+			
+			context.setDriverStrategy(DriverStrategy.HASHED_PARTIAL_REDUCE);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new IntSumReducer());
+			
+			HashReduceCombineDriver<Tuple2<Integer, Integer>> driver = new HashReduceCombineDriver<Tuple2<Integer, Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			// the table had to be emitted in between, so some keys are emitted multiple times
+			Assert.assertTrue(result.getList().size() > numKeys);
+			
+			int[] counts = new int[numKeys];
+			for (Tuple2<Integer, Integer> t : result.getList()) {
+				counts[t.f0] += t.f1;
+			}
+			for (int key = 0; key < numKeys; key++) {
+				Assert.assertEquals("Wrong count for key " + key, numRounds, counts[key]);
+			}
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//  Test UDFs
+	// --------------------------------------------------------------------------------------------
+	
+	public static final class SumReducer extends ReduceFunction<Tuple2<String, Integer>> {
+
+		@Override
+		public Tuple2<String, Integer> reduce(Tuple2<String, Integer> value1, Tuple2<String, Integer> value2) {
+			value1.f1 = value1.f1 + value2.f1;
+			return value1;
+		}
+	}
+	
+	public static final class SumMutableReducer extends ReduceFunction<Tuple2<StringValue, IntValue>> {
+
+		@Override
+		public Tuple2<StringValue, IntValue> reduce(Tuple2<StringValue, IntValue> value1, Tuple2<StringValue, IntValue> value2) {
+			value2.f1.setValue(value1.f1.getValue() + value2.f1.getValue());
+			return value2;
+		}
+	}
+	
+	public static final class IntSumReducer extends ReduceFunction<Tuple2<Integer, Integer>> {
+
+		@Override
+		public Tuple2<Integer, Integer> reduce(Tuple2<Integer, Integer> value1, Tuple2<Integer, Integer> value2) {
+			return new Tuple2<Integer, Integer>(value1.f0, value1.f1 + value2.f1);
+		}
+	}
+}
@@ -0,0 +1,168 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task.drivers;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.functions.GenericReduce;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.api.java.typeutils.TypeExtractor;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.HashReduceDriver;
+import eu.stratosphere.pact.runtime.task.drivers.HashReduceCombineDriverTest.SumMutableReducer;
+import eu.stratosphere.pact.runtime.task.drivers.HashReduceCombineDriverTest.SumReducer;
+import eu.stratosphere.pact.runtime.util.EmptyMutableObjectIterator;
+import eu.stratosphere.pact.runtime.util.RegularToMutableObjectIterator;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.StringValue;
+import eu.stratosphere.util.MutableObjectIterator;
+
+public class HashReduceDriverTest {
+	
+	private static final long TOTAL_MEMORY = 3 * 1024 * 1024;
+	
+	private static final long DRIVER_MEMORY = 2 * 1024 * 1024;
+
+	@Test
+	public void testReduceDriverImmutableEmpty() {
+		try {
+			TestTaskContext<GenericReduce<Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+					new TestTaskContext<GenericReduce<Tuple2<String,Integer>>, Tuple2<String,Integer>>(TOTAL_MEMORY);
+			context.getTaskConfig().setMemoryDriver(DRIVER_MEMORY);
+			
+			List<Tuple2<String, Integer>> data = DriverTestData.createReduceImmutableData();
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<String, Integer>> input = EmptyMutableObjectIterator.get();
+			context.setDriverStrategy(DriverStrategy.HASHED_REDUCE);
+			TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+			
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumReducer());
+			
+			HashReduceDriver<Tuple2<String, Integer>> driver = new HashReduceDriver<Tuple2<String,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			Assert.assertEquals(0, result.getList().size());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testReduceDriverImmutable() {
+		try {
+			TestTaskContext<GenericReduce<Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+					new TestTaskContext<GenericReduce<Tuple2<String,Integer>>, Tuple2<String,Integer>>(TOTAL_MEMORY);
+			context.getTaskConfig().setMemoryDriver(DRIVER_MEMORY);
+			
+			List<Tuple2<String, Integer>> data = DriverTestData.createReduceImmutableData();
+			Collections.shuffle(data);
+			
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<String, Integer>> input = new RegularToMutableObjectIterator<Tuple2<String, Integer>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+			
+			context.setDriverStrategy(DriverStrategy.HASHED_REDUCE);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumReducer());
+			
+			HashReduceDriver<Tuple2<String, Integer>> driver = new HashReduceDriver<Tuple2<String,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			Map<String, Integer> sums = new HashMap<String, Integer>();
+			for (Tuple2<String, Integer> t : result.getList()) {
+				Assert.assertNull("Key was emitted twice.", sums.put(t.f0, t.f1));
+			}
+			
+			Assert.assertEquals(6, sums.size());
+			Assert.assertEquals(Integer.valueOf(1), sums.get("a"));
+			Assert.assertEquals(Integer.valueOf(9), sums.get("d"));
+			Assert.assertEquals(Integer.valueOf(21), sums.get("e"));
+			Assert.assertEquals(Integer.valueOf(42), sums.get("f"));
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testReduceDriverMutable() {
+		try {
+			TestTaskContext<GenericReduce<Tuple2<StringValue, IntValue>>, Tuple2<StringValue, IntValue>> context =
+					new TestTaskContext<GenericReduce<Tuple2<StringValue, IntValue>>, Tuple2<StringValue, IntValue>>(TOTAL_MEMORY);
+			context.getTaskConfig().setMemoryDriver(DRIVER_MEMORY);
+			
+			List<Tuple2<StringValue, IntValue>> data = DriverTestData.createReduceMutableData();
+			TupleTypeInfo<Tuple2<StringValue, IntValue>> typeInfo = (TupleTypeInfo<Tuple2<StringValue, IntValue>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<StringValue, IntValue>> input = new RegularToMutableObjectIterator<Tuple2<StringValue, IntValue>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<StringValue, IntValue>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<StringValue, IntValue>> result = new GatheringCollector<Tuple2<StringValue, IntValue>>(typeInfo.createSerializer());
+			
+			context.setDriverStrategy(DriverStrategy.HASHED_REDUCE);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			context.setUdf(new SumMutableReducer());
+			
+			HashReduceDriver<Tuple2<StringValue, IntValue>> driver = new HashReduceDriver<Tuple2<StringValue, IntValue>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			Map<String, Integer> sums = new HashMap<String, Integer>();
+			for (Tuple2<StringValue, IntValue> t : result.getList()) {
+				Assert.assertNull("Key was emitted twice.", sums.put(t.f0.getValue(), t.f1.getValue()));
+			}
+			
+			Assert.assertEquals(6, sums.size());
+			Assert.assertEquals(Integer.valueOf(3), sums.get("c"));
+			Assert.assertEquals(Integer.valueOf(9), sums.get("d"));
+			Assert.assertEquals(Integer.valueOf(21), sums.get("e"));
+			Assert.assertEquals(Integer.valueOf(42), sums.get("f"));
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+}
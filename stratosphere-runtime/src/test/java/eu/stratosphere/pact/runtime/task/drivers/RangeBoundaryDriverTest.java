@@ -0,0 +1,153 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task.drivers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.functions.AbstractFunction;
+import eu.stratosphere.api.common.typeutils.base.IntComparator;
+import eu.stratosphere.api.common.typeutils.base.IntSerializer;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.RangeBoundaryDriver;
+import eu.stratosphere.pact.runtime.task.util.WeightedSample;
+import eu.stratosphere.pact.runtime.task.util.WeightedSampleSerializer;
+import eu.stratosphere.pact.runtime.util.RegularToMutableObjectIterator;
+
+public class RangeBoundaryDriverTest {
+	
+	@Test
+	public void testAscendingBoundaries() {
+		try {
+			List<Integer> result = getBoundaries(weighted(shuffledRange(1000), 1.0), 4, true);
+			Assert.assertEquals(3, result.size());
+			Assert.assertEquals(249, result.get(0).intValue());
+			Assert.assertEquals(499, result.get(1).intValue());
+			Assert.assertEquals(749, result.get(2).intValue());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testDescendingBoundaries() {
+		try {
+			List<Integer> result = getBoundaries(weighted(shuffledRange(1000), 1.0), 4, false);
+			Assert.assertEquals(3, result.size());
+			Assert.assertEquals(750, result.get(0).intValue());
+			Assert.assertEquals(500, result.get(1).intValue());
+			Assert.assertEquals(250, result.get(2).intValue());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testFewerSamplesThanPartitions() {
+		try {
+			List<Integer> result = getBoundaries(weighted(shuffledRange(2), 1.0), 4, true);
+			Assert.assertEquals(3, result.size());
+			for (Integer boundary : result) {
+				Assert.assertEquals(0, boundary.intValue());
+			}
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testWeightedBoundaries() {
+		try {
+			// the first sample stands for 900 records with the values 0 to 99, the second one for 100 records
+			// with the values 100 to 199, so half of the data is below 55
+			List<WeightedSample<Integer>> samples = weighted(shuffledRange(100), 9.0);
+			for (WeightedSample<Integer> sample : weighted(shuffledRange(100), 1.0)) {
+				sample.setRecord(sample.getRecord() + 100);
+				samples.add(sample);
+			}
+			Collections.shuffle(samples, new Random(42));
+			
+			List<Integer> result = getBoundaries(samples, 2, true);
+			Assert.assertEquals(1, result.size());
+			Assert.assertEquals(54, result.get(0).intValue());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testNoSamples() {
+		try {
+			Assert.assertTrue(getBoundaries(new ArrayList<WeightedSample<Integer>>(), 4, true).isEmpty());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	private static List<Integer> shuffledRange(int num) {
+		List<Integer> data = new ArrayList<Integer>(num);
+		for (int i = 0; i < num; i++) {
+			data.add(i);
+		}
+		Collections.shuffle(data, new Random(42));
+		return data;
+	}
+	
+	private static List<WeightedSample<Integer>> weighted(List<Integer> records, double weight) {
+		List<WeightedSample<Integer>> samples = new ArrayList<WeightedSample<Integer>>(records.size());
+		for (Integer record : records) {
+			samples.add(new WeightedSample<Integer>(record, weight));
+		}
+		return samples;
+	}
+	
+	private static List<Integer> getBoundaries(List<WeightedSample<Integer>> samples, int numPartitions, boolean ascending) throws Exception {
+		TestTaskContext<AbstractFunction, Integer> context = new TestTaskContext<AbstractFunction, Integer>();
+		GatheringCollector<Integer> result = new GatheringCollector<Integer>(IntSerializer.INSTANCE);
+		
+		context.setDriverStrategy(DriverStrategy.RANGE_BOUNDARIES);
+		context.getTaskConfig().setNumberOfRangePartitions(numPartitions);
+		WeightedSampleSerializer<Integer> serializer = new WeightedSampleSerializer<Integer>(IntSerializer.INSTANCE);
+		context.setInput1(new RegularToMutableObjectIterator<WeightedSample<Integer>>(samples.iterator(), serializer), serializer);
+		context.setComparator1(new IntComparator(ascending));
+		context.setCollector(result);
+		
+		RangeBoundaryDriver<Integer> driver = new RangeBoundaryDriver<Integer>();
+		driver.setup(context);
+		driver.prepare();
+		driver.run();
+		
+		return result.getList();
+	}
+}
@@ -0,0 +1,120 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task.drivers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.functions.AbstractFunction;
+import eu.stratosphere.api.common.typeutils.base.IntSerializer;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.SampleDriver;
+import eu.stratosphere.pact.runtime.task.util.WeightedSample;
+import eu.stratosphere.pact.runtime.task.util.WeightedSampleSerializer;
+import eu.stratosphere.pact.runtime.util.RegularToMutableObjectIterator;
+
+public class SampleDriverTest {
+	
+	@Test
+	public void testSampleFromLargerInput() {
+		try {
+			final int numRecords = 100000;
+			final int sampleSize = 1000;
+			
+			List<WeightedSample<Integer>> samples = sample(numRecords, sampleSize);
+			Assert.assertEquals(sampleSize, samples.size());
+			
+			// every record of the sample stands for the same share of the input
+			List<Integer> result = new ArrayList<Integer>(sampleSize);
+			for (WeightedSample<Integer> sample : samples) {
+				Assert.assertEquals(numRecords / (double) sampleSize, sample.getWeight(), 0.0);
+				result.add(sample.getRecord());
+			}
+			
+			// the input is distinct, so must be the sample
+			Assert.assertEquals(sampleSize, new HashSet<Integer>(result).size());
+			
+			long sum = 0;
+			for (Integer i : result) {
+				Assert.assertTrue(i >= 0 && i < numRecords);
+				sum += i;
+			}
+			
+			// the sample is drawn uniformly from the input, not just from its beginning
+			final double mean = sum / (double) sampleSize;
+			Assert.assertEquals(numRecords / 2.0, mean, numRecords / 20.0);
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testSampleFromSmallerInput() {
+		try {
+			List<WeightedSample<Integer>> result = sample(50, 100);
+			Assert.assertEquals(50, result.size());
+			for (int i = 0; i < 50; i++) {
+				Assert.assertEquals(i, result.get(i).getRecord().intValue());
+				Assert.assertEquals(1.0, result.get(i).getWeight(), 0.0);
+			}
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testSampleFromEmptyInput() {
+		try {
+			Assert.assertTrue(sample(0, 100).isEmpty());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	private static List<WeightedSample<Integer>> sample(int numRecords, int sampleSize) throws Exception {
+		List<Integer> data = new ArrayList<Integer>(numRecords);
+		for (int i = 0; i < numRecords; i++) {
+			data.add(i);
+		}
+		
+		TestTaskContext<AbstractFunction, WeightedSample<Integer>> context = new TestTaskContext<AbstractFunction, WeightedSample<Integer>>();
+		GatheringCollector<WeightedSample<Integer>> result = new GatheringCollector<WeightedSample<Integer>>(
+			new WeightedSampleSerializer<Integer>(IntSerializer.INSTANCE));
+		
+		context.setDriverStrategy(DriverStrategy.SAMPLE);
+		context.getTaskConfig().setSampleSize(sampleSize);
+		context.setInput1(new RegularToMutableObjectIterator<Integer>(data.iterator(), IntSerializer.INSTANCE), IntSerializer.INSTANCE);
+		context.setCollector(result);
+		
+		SampleDriver<Integer> driver = new SampleDriver<Integer>();
+		driver.setup(context);
+		driver.prepare();
+		driver.run();
+		
+		return result.getList();
+	}
+}
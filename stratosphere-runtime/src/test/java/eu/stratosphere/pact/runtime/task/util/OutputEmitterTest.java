@@ -18,6 +18,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.util.Arrays;
 
 import junit.framework.Assert;
 import junit.framework.TestCase;
@@ -27,6 +28,7 @@ import org.junit.Test;
 
 import eu.stratosphere.api.common.typeutils.TypeComparator;
 import eu.stratosphere.runtime.io.api.ChannelSelector;
+import eu.stratosphere.api.common.typeutils.base.IntComparator;
 import eu.stratosphere.api.common.typeutils.base.IntSerializer;
 import eu.stratosphere.api.java.typeutils.runtime.record.RecordComparatorFactory;
 import eu.stratosphere.api.java.typeutils.runtime.record.RecordSerializerFactory;
@@ -35,6 +37,7 @@ import eu.stratosphere.core.memory.DataOutputView;
 import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.pact.runtime.plugable.SerializationDelegate;
 import eu.stratosphere.pact.runtime.shipping.OutputEmitter;
+import eu.stratosphere.pact.runtime.shipping.RangeBoundaries;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
 import eu.stratosphere.types.DeserializationException;
 import eu.stratosphere.types.DoubleValue;
@@ -435,6 +438,57 @@ public class OutputEmitterTest extends TestCase {
 		
 	}
 	
+	@Test
+	public void testPartitionRangeBySampledBoundaries() {
+		final SerializationDelegate<Integer> delegate = new SerializationDelegate<Integer>(new IntSerializer());
+		
+		// ascending order
+		{
+			final RangeBoundaries<Integer> boundaries = new RangeBoundaries<Integer>("boundaries", new IntComparator(true));
+			boundaries.setBoundaries(Arrays.asList(10, 20, 30));
+			final ChannelSelector<SerializationDelegate<Integer>> oe = new OutputEmitter<Integer>(new IntComparator(true), boundaries);
+			
+			final int[] values = {Integer.MIN_VALUE, 5, 10, 11, 20, 25, 30, 31, Integer.MAX_VALUE};
+			final int[] expected = {0, 0, 0, 1, 1, 2, 2, 3, 3};
+			for (int i = 0; i < values.length; i++) {
+				delegate.setInstance(values[i]);
+				int[] chans = oe.selectChannels(delegate, 4);
+				assertEquals(1, chans.length);
+				assertEquals(expected[i], chans[0]);
+			}
+		}
+		
+		// descending order
+		{
+			final RangeBoundaries<Integer> boundaries = new RangeBoundaries<Integer>("boundaries", new IntComparator(false));
+			boundaries.setBoundaries(Arrays.asList(30, 20, 10));
+			final ChannelSelector<SerializationDelegate<Integer>> oe = new OutputEmitter<Integer>(new IntComparator(false), boundaries);
+			
+			final int[] values = {Integer.MAX_VALUE, 35, 30, 25, 20, 15, 10, 5, Integer.MIN_VALUE};
+			final int[] expected = {0, 0, 0, 1, 1, 2, 2, 3, 3};
+			for (int i = 0; i < values.length; i++) {
+				delegate.setInstance(values[i]);
+				int[] chans = oe.selectChannels(delegate, 4);
+				assertEquals(1, chans.length);
+				assertEquals(expected[i], chans[0]);
+			}
+		}
+		
+		// the number of channels must match the boundaries
+		{
+			final RangeBoundaries<Integer> boundaries = new RangeBoundaries<Integer>("boundaries", new IntComparator(true));
+			boundaries.setBoundaries(Arrays.asList(10, 20, 30));
+			final ChannelSelector<SerializationDelegate<Integer>> oe = new OutputEmitter<Integer>(new IntComparator(true), boundaries);
+			delegate.setInstance(15);
+			try {
+				oe.selectChannels(delegate, 3);
+				Assert.fail("Expected an exception for an inconsistent number of channels.");
+			} catch (IllegalStateException e) {
+				// expected
+			}
+		}
+	}
+	
 //	@Test
 //	public void testPartitionRange() {
 //		final Random rnd = new Random(SEED);
@@ -18,6 +18,8 @@ import eu.stratosphere.core.fs.Path;
 import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.nephele.execution.Environment;
+import eu.stratosphere.pact.runtime.broadcast.BroadcastVariableManager;
+import eu.stratosphere.runtime.io.api.OutputFlusher;
 import eu.stratosphere.runtime.io.gates.InputChannelResult;
 import eu.stratosphere.runtime.io.gates.RecordAvailabilityListener;
 import eu.stratosphere.runtime.io.serialization.AdaptiveSpanningRecordDeserializer;
@@ -341,6 +343,16 @@ public class MockEnvironment implements Environment, BufferProvider, LocalBuffer
 		return this;
 	}
 
+	@Override
+	public OutputFlusher getOutputFlusher() {
+		return null;
+	}
+
+	@Override
+	public BroadcastVariableManager getBroadcastVariableManager() {
+		return null;
+	}
+
 	@Override
 	public Map<String, FutureTask<Path>> getCopyTask() {
 		return null;
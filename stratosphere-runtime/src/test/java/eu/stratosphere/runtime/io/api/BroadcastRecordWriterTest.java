@@ -0,0 +1,202 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.runtime.io.api;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.event.task.AbstractEvent;
+import eu.stratosphere.nephele.execution.Environment;
+import eu.stratosphere.nephele.template.AbstractTask;
+import eu.stratosphere.runtime.io.Buffer;
+import eu.stratosphere.runtime.io.BufferRecycler;
+import eu.stratosphere.runtime.io.channels.EndOfSuperstepEvent;
+import eu.stratosphere.runtime.io.gates.OutputGate;
+import eu.stratosphere.runtime.io.gates.OutputGateStatistics;
+import eu.stratosphere.runtime.io.network.bufferprovider.BufferProvider;
+import eu.stratosphere.runtime.io.serialization.AdaptiveSpanningRecordDeserializer;
+import eu.stratosphere.runtime.io.serialization.RecordDeserializer;
+
+public class BroadcastRecordWriterTest {
+
+	private static final int NUM_CHANNELS = 4;
+
+	private static final int BUFFER_SIZE = 64;
+
+	@Test
+	public void testSerializeOnceAndShareBuffers() throws Exception {
+		final int numRecords = 1000;
+
+		final List<MemorySegment> recycled = new ArrayList<MemorySegment>();
+		final BufferRecycler recycler = new BufferRecycler() {
+			@Override
+			public void recycle(MemorySegment buffer) {
+				recycled.add(buffer);
+			}
+		};
+
+		final List<byte[]> broadcastBuffers = new ArrayList<byte[]>();
+		final OutputGate gate = mock(OutputGate.class);
+		when(gate.getNumChannels()).thenReturn(NUM_CHANNELS);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				Buffer buffer = (Buffer) invocation.getArguments()[0];
+				byte[] bytes = new byte[buffer.size()];
+				buffer.getMemorySegment().get(0, bytes);
+				broadcastBuffers.add(bytes);
+
+				// every channel holds a reference to the buffer and releases it after sending
+				for (int i = 1; i < NUM_CHANNELS; i++) {
+					buffer.duplicate().recycleBuffer();
+				}
+				buffer.recycleBuffer();
+				return null;
+			}
+		}).when(gate).broadcastBuffer(any(Buffer.class));
+
+		final BroadcastRecordWriter<CountingRecord> writer = createWriter(gate, recycler, null);
+		writer.initializeSerializers();
+
+		CountingRecord.numWrites = 0;
+		for (int i = 0; i < numRecords; i++) {
+			writer.emit(new CountingRecord(i));
+		}
+		writer.flush();
+
+		Assert.assertEquals("Records were serialized more than once.", numRecords, CountingRecord.numWrites);
+		Assert.assertEquals("Not all buffers were recycled exactly once.", broadcastBuffers.size(), recycled.size());
+
+		// the broadcast buffers contain all records in order
+		final RecordDeserializer<CountingRecord> deserializer = new AdaptiveSpanningRecordDeserializer<CountingRecord>();
+		final CountingRecord target = new CountingRecord(-1);
+		int expected = 0;
+		for (byte[] bytes : broadcastBuffers) {
+			deserializer.setNextMemorySegment(new MemorySegment(bytes), bytes.length);
+			while (deserializer.getNextRecord(target).isFullRecord()) {
+				Assert.assertEquals(expected++, target.value);
+			}
+		}
+		Assert.assertEquals(numRecords, expected);
+	}
+
+	@Test
+	public void testEndOfSuperstepWithPendingBuffer() throws Exception {
+		final OutputGate gate = mock(OutputGate.class);
+		when(gate.getNumChannels()).thenReturn(NUM_CHANNELS);
+
+		final BroadcastRecordWriter<CountingRecord> writer = createWriter(gate, mock(BufferRecycler.class), null);
+		writer.initializeSerializers();
+
+		writer.emit(new CountingRecord(42));
+		writer.sendEndOfSuperstep();
+
+		for (int i = 0; i < NUM_CHANNELS; i++) {
+			verify(gate).sendBufferAndEvent(any(Buffer.class), eq((AbstractEvent) EndOfSuperstepEvent.INSTANCE), eq(i));
+		}
+		verify(gate, times(0)).broadcastBuffer(any(Buffer.class));
+	}
+
+	@Test
+	public void testTimeoutFlushWaitsForStalledReceiver() throws Exception {
+		final OutputGate gate = mock(OutputGate.class);
+		when(gate.getNumChannels()).thenReturn(NUM_CHANNELS);
+		when(gate.canSendWithoutBlocking(anyInt())).thenReturn(true);
+
+		// the last receiver does not grant credits
+		when(gate.canSendWithoutBlocking(NUM_CHANNELS - 1)).thenReturn(false);
+
+		final BroadcastRecordWriter<CountingRecord> writer = createWriter(gate, mock(BufferRecycler.class), new OutputFlusher(1000));
+		writer.initializeSerializers();
+
+		writer.emit(new CountingRecord(42));
+		writer.flushOnTimeout();
+		verify(gate, times(0)).broadcastBuffer(any(Buffer.class));
+
+		// the buffer is flushed once the receiver catches up
+		when(gate.canSendWithoutBlocking(NUM_CHANNELS - 1)).thenReturn(true);
+		writer.flushOnTimeout();
+		verify(gate, times(1)).broadcastBuffer(any(Buffer.class));
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static BroadcastRecordWriter<CountingRecord> createWriter(OutputGate gate, final BufferRecycler recycler,
+			OutputFlusher flusher) throws Exception
+	{
+		final BufferProvider bufferProvider = mock(BufferProvider.class);
+		when(bufferProvider.getBufferSize()).thenReturn(BUFFER_SIZE);
+		when(bufferProvider.requestBufferBlocking(anyInt())).thenAnswer(new Answer<Buffer>() {
+			@Override
+			public Buffer answer(InvocationOnMock invocation) {
+				return new Buffer(new MemorySegment(new byte[BUFFER_SIZE]), BUFFER_SIZE, recycler);
+			}
+		});
+
+		when(gate.getStatistics()).thenReturn(new OutputGateStatistics());
+
+		final Environment env = mock(Environment.class);
+		when(env.getOutputBufferProvider()).thenReturn(bufferProvider);
+		when(env.getOutputFlusher()).thenReturn(flusher);
+		when(env.createAndRegisterOutputGate()).thenReturn(gate);
+
+		final AbstractTask task = mock(AbstractTask.class);
+		when(task.getEnvironment()).thenReturn(env);
+
+		return new BroadcastRecordWriter<CountingRecord>(task);
+	}
+
+	/**
+	 * A record that counts how often records are serialized.
+	 */
+	public static final class CountingRecord implements IOReadableWritable {
+
+		private static int numWrites;
+
+		private int value;
+
+		public CountingRecord(int value) {
+			this.value = value;
+		}
+
+		@Override
+		public void write(DataOutput out) throws IOException {
+			numWrites++;
+			out.writeInt(this.value);
+		}
+
+		@Override
+		public void read(DataInput in) throws IOException {
+			this.value = in.readInt();
+		}
+	}
+}
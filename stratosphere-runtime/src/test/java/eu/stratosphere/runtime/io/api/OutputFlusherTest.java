@@ -0,0 +1,186 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.runtime.io.api;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.execution.Environment;
+import eu.stratosphere.nephele.template.AbstractTask;
+import eu.stratosphere.runtime.io.Buffer;
+import eu.stratosphere.runtime.io.BufferRecycler;
+import eu.stratosphere.runtime.io.api.BroadcastRecordWriterTest.CountingRecord;
+import eu.stratosphere.runtime.io.gates.OutputGate;
+import eu.stratosphere.runtime.io.gates.OutputGateStatistics;
+import eu.stratosphere.runtime.io.network.bufferprovider.BufferProvider;
+
+public class OutputFlusherTest {
+
+	private static final int NUM_CHANNELS = 2;
+
+	private static final int BUFFER_SIZE = 1024;
+
+	@Test
+	public void testFlushPartialBuffersOnTimeout() throws Exception {
+		final OutputGateStatistics statistics = new OutputGateStatistics();
+		final List<Integer> sentSizes = new ArrayList<Integer>();
+
+		final OutputGate gate = createGate(statistics, sentSizes, null);
+		final OutputFlusher flusher = new OutputFlusher(1000);
+		final RecordWriter<CountingRecord> writer = createWriter(gate, flusher);
+		writer.initializeSerializers();
+
+		// round robin puts one record into each channel
+		writer.emit(new CountingRecord(1));
+		writer.emit(new CountingRecord(2));
+		Assert.assertTrue(sentSizes.isEmpty());
+
+		writer.flushOnTimeout();
+		Assert.assertEquals(NUM_CHANNELS, sentSizes.size());
+		for (int size : sentSizes) {
+			Assert.assertEquals(8, size);
+		}
+
+		// nothing is pending, so nothing is sent
+		writer.flushOnTimeout();
+		Assert.assertEquals(NUM_CHANNELS, sentSizes.size());
+
+		// the writer continues with new buffers after a timeout flush
+		writer.emit(new CountingRecord(3));
+		writer.flush();
+		Assert.assertEquals(NUM_CHANNELS + 1, sentSizes.size());
+
+		Assert.assertEquals(NUM_CHANNELS + 1, statistics.getNumBuffers());
+		Assert.assertEquals(NUM_CHANNELS, statistics.getNumTimeoutFlushes());
+		Assert.assertEquals(3 * 8, statistics.getSentBytes());
+		Assert.assertEquals(3 * 8 / (3.0 * BUFFER_SIZE), statistics.getFillRatio(), 0.0001);
+	}
+
+	@Test
+	public void testSkipChannelsThatWouldBlock() throws Exception {
+		final OutputGateStatistics statistics = new OutputGateStatistics();
+		final List<Integer> sentSizes = new ArrayList<Integer>();
+
+		final OutputGate gate = createGate(statistics, sentSizes, null);
+		final OutputFlusher flusher = new OutputFlusher(1000);
+		final RecordWriter<CountingRecord> writer = createWriter(gate, flusher);
+		writer.initializeSerializers();
+
+		// the receiver of the second channel has not granted a credit
+		when(gate.canSendWithoutBlocking(1)).thenReturn(false);
+
+		writer.emit(new CountingRecord(1));
+		writer.emit(new CountingRecord(2));
+
+		writer.flushOnTimeout();
+		Assert.assertEquals(1, sentSizes.size());
+
+		// the pending buffer is flushed on a later timeout
+		when(gate.canSendWithoutBlocking(1)).thenReturn(true);
+		writer.flushOnTimeout();
+		Assert.assertEquals(2, sentSizes.size());
+		Assert.assertEquals(2, statistics.getNumTimeoutFlushes());
+	}
+
+	@Test
+	public void testFlusherThread() throws Exception {
+		final OutputGateStatistics statistics = new OutputGateStatistics();
+		final List<Integer> sentSizes = new ArrayList<Integer>();
+		final CountDownLatch sent = new CountDownLatch(1);
+
+		final OutputGate gate = createGate(statistics, sentSizes, sent);
+		final OutputFlusher flusher = new OutputFlusher(10);
+		final RecordWriter<CountingRecord> writer = createWriter(gate, flusher);
+		writer.initializeSerializers();
+
+		flusher.start();
+		try {
+			writer.emit(new CountingRecord(1));
+			Assert.assertTrue("Buffer was not flushed on timeout.", sent.await(10, TimeUnit.SECONDS));
+
+			synchronized (sentSizes) {
+				Assert.assertEquals(1, sentSizes.size());
+			}
+			Assert.assertEquals(1, statistics.getNumTimeoutFlushes());
+			Assert.assertTrue(statistics.getMaxLatencyMillis() > 0.0);
+		} finally {
+			flusher.shutdown();
+			flusher.join();
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static OutputGate createGate(OutputGateStatistics statistics, final List<Integer> sentSizes,
+			final CountDownLatch sent) throws Exception
+	{
+		final OutputGate gate = mock(OutputGate.class);
+		when(gate.getNumChannels()).thenReturn(NUM_CHANNELS);
+		when(gate.getStatistics()).thenReturn(statistics);
+		when(gate.canSendWithoutBlocking(anyInt())).thenReturn(true);
+
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) {
+				Buffer buffer = (Buffer) invocation.getArguments()[0];
+				synchronized (sentSizes) {
+					sentSizes.add(buffer.size());
+				}
+				buffer.recycleBuffer();
+				if (sent != null) {
+					sent.countDown();
+				}
+				return null;
+			}
+		}).when(gate).sendBuffer(any(Buffer.class), anyInt());
+
+		return gate;
+	}
+
+	private static RecordWriter<CountingRecord> createWriter(OutputGate gate, OutputFlusher flusher) throws Exception {
+		final BufferRecycler recycler = mock(BufferRecycler.class);
+
+		final BufferProvider bufferProvider = mock(BufferProvider.class);
+		when(bufferProvider.getBufferSize()).thenReturn(BUFFER_SIZE);
+		when(bufferProvider.requestBufferBlocking(anyInt())).thenAnswer(new Answer<Buffer>() {
+			@Override
+			public Buffer answer(InvocationOnMock invocation) {
+				return new Buffer(new MemorySegment(new byte[BUFFER_SIZE]), BUFFER_SIZE, recycler);
+			}
+		});
+
+		final Environment env = mock(Environment.class);
+		when(env.getOutputBufferProvider()).thenReturn(bufferProvider);
+		when(env.getOutputFlusher()).thenReturn(flusher);
+		when(env.createAndRegisterOutputGate()).thenReturn(gate);
+
+		final AbstractTask task = mock(AbstractTask.class);
+		when(task.getEnvironment()).thenReturn(env);
+
+		return new RecordWriter<CountingRecord>(task);
+	}
+}
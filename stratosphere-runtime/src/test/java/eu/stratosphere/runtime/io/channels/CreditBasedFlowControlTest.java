@@ -0,0 +1,487 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.runtime.io.channels;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.deployment.ChannelDeploymentDescriptor;
+import eu.stratosphere.nephele.deployment.GateDeploymentDescriptor;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.runtime.io.Buffer;
+import eu.stratosphere.runtime.io.BufferRecycler;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
+import eu.stratosphere.runtime.io.gates.GateID;
+import eu.stratosphere.runtime.io.gates.InputChannelResult;
+import eu.stratosphere.runtime.io.gates.InputGate;
+import eu.stratosphere.runtime.io.gates.OutputGate;
+import eu.stratosphere.runtime.io.network.Envelope;
+import eu.stratosphere.runtime.io.network.EnvelopeDispatcher;
+import eu.stratosphere.runtime.io.network.bufferprovider.GlobalBufferPool;
+import eu.stratosphere.runtime.io.serialization.SpanningRecordSerializer;
+import eu.stratosphere.types.IntValue;
+
+public class CreditBasedFlowControlTest {
+
+	private static final int BUFFER_SIZE = 1024;
+
+	private static final int NUM_CHANNELS = 2;
+
+	private static final int CREDITS_PER_CHANNEL = 2;
+
+	private static final long TIMEOUT = 10000;
+
+	private GlobalBufferPool globalBufferPool;
+
+	private InputGate<IntValue> inputGate;
+
+	private OutputChannel[] outputChannels;
+
+	private AtomicInteger[] numSentBuffers;
+
+	private TestDispatcher[] dispatchers;
+
+	@Before
+	public void setup() {
+		JobID jobId = new JobID();
+
+		List<ChannelDeploymentDescriptor> channels = new ArrayList<ChannelDeploymentDescriptor>();
+		for (int i = 0; i < NUM_CHANNELS; i++) {
+			channels.add(new ChannelDeploymentDescriptor());
+		}
+
+		this.globalBufferPool = new GlobalBufferPool(16, BUFFER_SIZE);
+
+		// the gate holds two buffers per channel
+		this.inputGate = new InputGate<IntValue>(jobId, new GateID(), 0);
+		this.inputGate.initializeChannels(new GateDeploymentDescriptor(new GateID(), ChannelType.NETWORK, channels));
+		this.inputGate.registerGlobalBufferPool(this.globalBufferPool);
+		this.inputGate.setDesignatedNumberOfBuffers(NUM_CHANNELS * CREDITS_PER_CHANNEL);
+
+		OutputGate outputGate = mock(OutputGate.class);
+		when(outputGate.getJobID()).thenReturn(jobId);
+		when(outputGate.getCompressionCodec()).thenReturn(CompressionCodec.NONE);
+
+		this.outputChannels = new OutputChannel[NUM_CHANNELS];
+		this.numSentBuffers = new AtomicInteger[NUM_CHANNELS];
+		this.dispatchers = new TestDispatcher[NUM_CHANNELS];
+
+		for (int i = 0; i < NUM_CHANNELS; i++) {
+			InputChannel<IntValue> inputChannel = this.inputGate.getInputChannel(i);
+			OutputChannel outputChannel = new OutputChannel(outputGate, i, inputChannel.getConnectedId(),
+					inputChannel.getID(), ChannelType.NETWORK);
+
+			this.numSentBuffers[i] = new AtomicInteger();
+
+			TestDispatcher dispatcher = new TestDispatcher(outputChannel, inputChannel, this.numSentBuffers[i]);
+			this.dispatchers[i] = dispatcher;
+			outputChannel.registerEnvelopeDispatcher(dispatcher);
+			inputChannel.registerEnvelopeDispatcher(dispatcher);
+
+			outputChannel.enableCreditBasedFlowControl();
+			inputChannel.enableCreditBasedFlowControl(CREDITS_PER_CHANNEL);
+
+			this.outputChannels[i] = outputChannel;
+		}
+	}
+
+	@Test
+	public void testSenderWaitsForCredits() throws Exception {
+		final InputChannel<IntValue> inputChannel = this.inputGate.getInputChannel(0);
+		final int numBuffers = 5;
+
+		SenderThread sender = new SenderThread(this.outputChannels[0], numBuffers);
+		sender.start();
+
+		try {
+			// the sender uses up the initial credits and waits for more
+			waitForSentBuffers(0, CREDITS_PER_CHANNEL);
+			Thread.sleep(100);
+			Assert.assertEquals(CREDITS_PER_CHANNEL, this.numSentBuffers[0].get());
+			Assert.assertEquals(0, this.outputChannels[0].getCredits());
+			Assert.assertEquals(0, inputChannel.getNumberOfReservedBuffers());
+
+			// every consumed buffer grants a new credit
+			IntValue record = new IntValue();
+			for (int i = 0; i < numBuffers; i++) {
+				waitForSentBuffers(0, i + 1);
+				Assert.assertEquals(InputChannelResult.LAST_RECORD_FROM_BUFFER, inputChannel.readRecord(record));
+				Assert.assertEquals(i, record.getValue());
+			}
+
+			sender.join(TIMEOUT);
+			Assert.assertFalse(sender.isAlive());
+			Assert.assertNull(sender.error);
+			Assert.assertEquals(numBuffers, this.numSentBuffers[0].get());
+
+			// the credits of the sender are backed by reserved buffers
+			Assert.assertEquals(CREDITS_PER_CHANNEL, this.outputChannels[0].getCredits());
+			Assert.assertEquals(CREDITS_PER_CHANNEL, inputChannel.getNumberOfReservedBuffers());
+		} finally {
+			sender.interrupt();
+		}
+	}
+
+	@Test
+	public void testSlowChannelDoesNotBlockOtherChannels() throws Exception {
+		// nobody consumes the data of the first channel
+		SenderThread slowSender = new SenderThread(this.outputChannels[0], 10);
+		slowSender.start();
+
+		try {
+			waitForSentBuffers(0, CREDITS_PER_CHANNEL);
+			Thread.sleep(100);
+			Assert.assertEquals(CREDITS_PER_CHANNEL, this.numSentBuffers[0].get());
+
+			// the second channel still gets its share of the gate's buffers
+			SenderThread sender = new SenderThread(this.outputChannels[1], CREDITS_PER_CHANNEL);
+			sender.start();
+			sender.join(TIMEOUT);
+
+			Assert.assertFalse(sender.isAlive());
+			Assert.assertNull(sender.error);
+			Assert.assertEquals(CREDITS_PER_CHANNEL, this.numSentBuffers[1].get());
+		} finally {
+			slowSender.interrupt();
+		}
+	}
+
+	@Test
+	public void testReleaseReservedBuffersOnClose() throws Exception {
+		InputChannel<IntValue> inputChannel = this.inputGate.getInputChannel(0);
+
+		this.outputChannels[0].hasCredit();
+		Assert.assertEquals(CREDITS_PER_CHANNEL, this.outputChannels[0].getCredits());
+		Assert.assertEquals(CREDITS_PER_CHANNEL, inputChannel.getNumberOfReservedBuffers());
+
+		this.outputChannels[0].requestClose();
+		Assert.assertEquals(InputChannelResult.END_OF_STREAM, inputChannel.readRecord(new IntValue()));
+		Assert.assertEquals(0, inputChannel.getNumberOfReservedBuffers());
+
+		// all designated buffers of the gate are available again
+		List<Buffer> buffers = new ArrayList<Buffer>();
+		for (int i = 0; i < this.inputGate.getNumberOfDesignatedBuffers(); i++) {
+			Buffer buffer = this.inputGate.requestBuffer(BUFFER_SIZE);
+			Assert.assertNotNull(buffer);
+			buffers.add(buffer);
+		}
+
+		for (Buffer buffer : buffers) {
+			buffer.recycleBuffer();
+		}
+	}
+
+	@Test
+	public void testCanSendWithoutBlockingDoesNotRequestCredits() throws Exception {
+		OutputChannel channel = this.outputChannels[0];
+
+		// the check does not ask the receiver for credits, so it fails until the sender did
+		Assert.assertFalse(channel.canSendWithoutBlocking());
+		Assert.assertEquals(0, channel.getCredits());
+
+		Assert.assertTrue(channel.hasCredit());
+		Assert.assertTrue(channel.canSendWithoutBlocking());
+
+		// without credits, the check fails again
+		SenderThread sender = new SenderThread(channel, CREDITS_PER_CHANNEL);
+		sender.start();
+		sender.join(TIMEOUT);
+		Assert.assertNull(sender.error);
+		Assert.assertFalse(channel.canSendWithoutBlocking());
+	}
+
+	@Test
+	public void testCreditsAreAnnouncedByExecutor() throws Exception {
+		InputChannel<IntValue> inputChannel = this.inputGate.getInputChannel(0);
+
+		final List<Runnable> announcements = new ArrayList<Runnable>();
+		inputChannel.enableCreditBasedFlowControl(CREDITS_PER_CHANNEL, new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				announcements.add(command);
+			}
+		});
+
+		// the request reserves the buffers right away, but leaves the answer to the executor
+		Assert.assertFalse(this.outputChannels[0].hasCredit());
+		Assert.assertEquals(CREDITS_PER_CHANNEL, inputChannel.getNumberOfReservedBuffers());
+		Assert.assertEquals(1, announcements.size());
+		Assert.assertEquals(0, this.outputChannels[0].getCredits());
+
+		announcements.remove(0).run();
+		Assert.assertEquals(CREDITS_PER_CHANNEL, this.outputChannels[0].getCredits());
+		Assert.assertTrue(this.outputChannels[0].hasCredit());
+
+		// the credits of consumed buffers are announced together
+		SenderThread sender = new SenderThread(this.outputChannels[0], CREDITS_PER_CHANNEL);
+		sender.start();
+		sender.join(TIMEOUT);
+		Assert.assertNull(sender.error);
+
+		IntValue record = new IntValue();
+		for (int i = 0; i < CREDITS_PER_CHANNEL; i++) {
+			Assert.assertEquals(InputChannelResult.LAST_RECORD_FROM_BUFFER, inputChannel.readRecord(record));
+		}
+		Assert.assertEquals(1, announcements.size());
+		Assert.assertEquals(0, this.outputChannels[0].getCredits());
+
+		announcements.remove(0).run();
+		Assert.assertEquals(CREDITS_PER_CHANNEL, this.outputChannels[0].getCredits());
+	}
+
+	@Test
+	public void testSpillingSenderDoesNotWaitForCredits() throws Exception {
+		final InputChannel<IntValue> inputChannel = this.inputGate.getInputChannel(0);
+		final int numBuffers = 10;
+
+		IOManager ioManager = new IOManager();
+		ExecutorService replayExecutor = Executors.newSingleThreadExecutor();
+
+		try {
+			this.outputChannels[0].enableSpilling(ioManager, replayExecutor);
+
+			// nobody consumes, but the sender finishes nevertheless
+			SenderThread sender = new SenderThread(this.outputChannels[0], numBuffers);
+			sender.start();
+			sender.join(TIMEOUT);
+
+			Assert.assertFalse(sender.isAlive());
+			Assert.assertNull(sender.error);
+			Assert.assertEquals(CREDITS_PER_CHANNEL, this.numSentBuffers[0].get());
+			Assert.assertEquals(numBuffers - CREDITS_PER_CHANNEL, this.outputChannels[0].getNumberOfSpilledEnvelopes());
+
+			// the close event is queued behind the spilled buffers
+			this.outputChannels[0].requestClose();
+			Assert.assertEquals(numBuffers - CREDITS_PER_CHANNEL + 1,
+					this.outputChannels[0].getNumberOfSpilledEnvelopes());
+
+			// the spilled buffers are replayed in order as the receiver grants credits
+			IntValue record = new IntValue();
+			for (int i = 0; i < numBuffers; i++) {
+				waitForSentBuffers(0, i + 1);
+				Assert.assertEquals(InputChannelResult.LAST_RECORD_FROM_BUFFER, inputChannel.readRecord(record));
+				Assert.assertEquals(i, record.getValue());
+			}
+
+			long deadline = System.currentTimeMillis() + TIMEOUT;
+			while (this.outputChannels[0].getNumberOfSpilledEnvelopes() > 0) {
+				Assert.assertTrue("Close event was not replayed in time.", System.currentTimeMillis() < deadline);
+				Thread.sleep(10);
+			}
+
+			Assert.assertEquals(InputChannelResult.END_OF_STREAM, inputChannel.readRecord(record));
+		} finally {
+			this.outputChannels[0].destroy();
+			replayExecutor.shutdownNow();
+			ioManager.shutdown();
+		}
+	}
+
+	@Test
+	public void testSenderSpillsWhileReplayIsBlocked() throws Exception {
+		final InputChannel<IntValue> inputChannel = this.inputGate.getInputChannel(0);
+		final int numBuffers = CREDITS_PER_CHANNEL + 2;
+
+		IOManager ioManager = new IOManager();
+		ExecutorService replayExecutor = Executors.newSingleThreadExecutor();
+
+		try {
+			this.outputChannels[0].enableSpilling(ioManager, replayExecutor);
+
+			SenderThread sender = new SenderThread(this.outputChannels[0], 0, numBuffers);
+			sender.start();
+			sender.join(TIMEOUT);
+			Assert.assertNull(sender.error);
+			Assert.assertEquals(numBuffers - CREDITS_PER_CHANNEL, this.outputChannels[0].getNumberOfSpilledEnvelopes());
+
+			// the replayed buffer gets stuck in the network stack
+			this.dispatchers[0].blockNextBuffer();
+
+			IntValue record = new IntValue();
+			Assert.assertEquals(InputChannelResult.LAST_RECORD_FROM_BUFFER, inputChannel.readRecord(record));
+			Assert.assertTrue("Spilled buffer was not replayed.", this.dispatchers[0].awaitBlockedBuffer());
+
+			// the sender is not held up by the replay, but queues its buffer behind the replayed one
+			sender = new SenderThread(this.outputChannels[0], numBuffers, 1);
+			sender.start();
+			sender.join(TIMEOUT);
+			Assert.assertFalse("Sender was blocked by the replay.", sender.isAlive());
+			Assert.assertNull(sender.error);
+			Assert.assertEquals(numBuffers - CREDITS_PER_CHANNEL + 1, this.outputChannels[0].getNumberOfSpilledEnvelopes());
+
+			// all buffers arrive in order once the network stack moves on
+			this.dispatchers[0].unblockBuffer();
+			for (int i = 1; i <= numBuffers; i++) {
+				waitForSentBuffers(0, i + 1);
+				Assert.assertEquals(InputChannelResult.LAST_RECORD_FROM_BUFFER, inputChannel.readRecord(record));
+				Assert.assertEquals(i, record.getValue());
+			}
+		} finally {
+			this.dispatchers[0].unblockBuffer();
+			this.outputChannels[0].destroy();
+			replayExecutor.shutdownNow();
+			ioManager.shutdown();
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private void waitForSentBuffers(int channel, int numBuffers) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (this.numSentBuffers[channel].get() < numBuffers) {
+			Assert.assertTrue("Buffers were not sent in time.", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private static Buffer createBuffer(int value) throws IOException {
+		Buffer buffer = new Buffer(new MemorySegment(new byte[BUFFER_SIZE]), BUFFER_SIZE, new BufferRecycler() {
+			@Override
+			public void recycle(MemorySegment buffer) {}
+		});
+
+		SpanningRecordSerializer<IntValue> serializer = new SpanningRecordSerializer<IntValue>();
+		serializer.setNextBuffer(buffer);
+		serializer.addRecord(new IntValue(value));
+
+		return serializer.getCurrentBuffer();
+	}
+
+	private static final class SenderThread extends Thread {
+
+		private final OutputChannel channel;
+
+		private final int firstValue;
+
+		private final int numBuffers;
+
+		private volatile Throwable error;
+
+		private SenderThread(OutputChannel channel, int numBuffers) {
+			this(channel, 0, numBuffers);
+		}
+
+		private SenderThread(OutputChannel channel, int firstValue, int numBuffers) {
+			this.channel = channel;
+			this.firstValue = firstValue;
+			this.numBuffers = numBuffers;
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int i = 0; i < this.numBuffers; i++) {
+					this.channel.sendBuffer(createBuffer(this.firstValue + i));
+				}
+			} catch (InterruptedException e) {
+				// test is done
+			} catch (Throwable t) {
+				this.error = t;
+			}
+		}
+	}
+
+	/**
+	 * Connects an output channel with its input channel like the network stack, i.e. incoming data is copied into a
+	 * buffer the input channel provides without blocking.
+	 */
+	private static final class TestDispatcher implements EnvelopeDispatcher {
+
+		private final OutputChannel outputChannel;
+
+		private final InputChannel<IntValue> inputChannel;
+
+		private final AtomicInteger numSentBuffers;
+
+		private final CountDownLatch blockedBuffer = new CountDownLatch(1);
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		private volatile boolean blockNextBuffer;
+
+		private TestDispatcher(OutputChannel outputChannel, InputChannel<IntValue> inputChannel,
+				AtomicInteger numSentBuffers) {
+			this.outputChannel = outputChannel;
+			this.inputChannel = inputChannel;
+			this.numSentBuffers = numSentBuffers;
+		}
+
+		/**
+		 * Lets the next buffer wait in the dispatcher until {@link #unblockBuffer()} is called.
+		 */
+		private void blockNextBuffer() {
+			this.blockNextBuffer = true;
+		}
+
+		private void unblockBuffer() {
+			this.release.countDown();
+		}
+
+		private boolean awaitBlockedBuffer() throws InterruptedException {
+			return this.blockedBuffer.await(TIMEOUT, TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public void dispatchFromOutputChannel(Envelope envelope) throws IOException {
+			Buffer srcBuffer = envelope.getBuffer();
+			if (srcBuffer != null) {
+				if (this.blockNextBuffer) {
+					this.blockNextBuffer = false;
+					this.blockedBuffer.countDown();
+					try {
+						this.release.await();
+					} catch (InterruptedException e) {
+						throw new IOException(e);
+					}
+				}
+
+				Buffer destBuffer = this.inputChannel.requestBuffer(srcBuffer.size());
+				Assert.assertNotNull("Buffer was sent without credit.", destBuffer);
+
+				srcBuffer.copyToBuffer(destBuffer);
+				envelope.setBuffer(destBuffer);
+				srcBuffer.recycleBuffer();
+
+				this.numSentBuffers.incrementAndGet();
+			}
+
+			this.inputChannel.queueEnvelope(envelope);
+		}
+
+		@Override
+		public void dispatchFromInputChannel(Envelope envelope) {
+			this.outputChannel.queueEnvelope(envelope);
+		}
+
+		@Override
+		public void dispatchFromNetwork(Envelope envelope) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
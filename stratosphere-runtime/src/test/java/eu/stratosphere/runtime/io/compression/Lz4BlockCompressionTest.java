@@ -0,0 +1,156 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.runtime.io.compression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the round trip through the {@link Lz4BlockCompressor} and the {@link Lz4BlockDecompressor}.
+ */
+public class Lz4BlockCompressionTest {
+
+	private static final long SEED = 0x3f8a6c1d7e5b2094L;
+
+	@Test
+	public void testEmptyAndTinyInputs() throws IOException {
+		for (int len = 0; len < 32; len++) {
+			byte[] data = new byte[len];
+			new Random(SEED + len).nextBytes(data);
+			roundTrip(data, 0);
+		}
+	}
+
+	@Test
+	public void testRandomInput() throws IOException {
+		final Random rnd = new Random(SEED);
+		for (int len : new int[] { 100, 4096, 32768, 65537 }) {
+			byte[] data = new byte[len];
+			rnd.nextBytes(data);
+			int compressedLen = roundTrip(data, 7);
+			assertTrue(compressedLen <= new Lz4BlockCompressor().getMaxCompressedSize(len));
+		}
+	}
+
+	@Test
+	public void testCompressibleInput() throws IOException {
+		final Random rnd = new Random(SEED);
+
+		// long runs of a single byte, exceeding the run mask of the token
+		byte[] zeros = new byte[100000];
+		assertTrue(roundTrip(zeros, 0) < zeros.length / 100);
+
+		// repeating patterns with noise and matches beyond the maximal offset
+		byte[] text = new byte[200000];
+		for (int i = 0; i < text.length; i++) {
+			text[i] = rnd.nextInt(32) == 0 ? (byte) rnd.nextInt() : (byte) ('a' + (i % 23));
+		}
+		assertTrue(roundTrip(text, 3) < text.length / 2);
+
+		// few distinct symbols
+		byte[] symbols = new byte[50000];
+		for (int i = 0; i < symbols.length; i++) {
+			symbols[i] = (byte) rnd.nextInt(3);
+		}
+		roundTrip(symbols, 11);
+	}
+
+	@Test
+	public void testCompressorReuse() throws IOException {
+		final Lz4BlockCompressor compressor = new Lz4BlockCompressor();
+		final Lz4BlockDecompressor decompressor = new Lz4BlockDecompressor();
+		final Random rnd = new Random(SEED);
+
+		for (int i = 0; i < 50; i++) {
+			byte[] data = new byte[rnd.nextInt(10000)];
+			for (int k = 0; k < data.length; k++) {
+				data[k] = (byte) (rnd.nextBoolean() ? k % 17 : rnd.nextInt(4));
+			}
+
+			byte[] compressed = new byte[compressor.getMaxCompressedSize(data.length)];
+			int compressedLen = compressor.compress(data, 0, data.length, compressed, 0);
+
+			byte[] restored = new byte[data.length];
+			assertEquals(data.length, decompressor.decompress(compressed, 0, compressedLen, restored, 0, data.length));
+			assertArrayEquals(data, restored);
+		}
+	}
+
+	@Test
+	public void testCorruptInput() throws IOException {
+		final Random rnd = new Random(SEED);
+		byte[] data = new byte[20000];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i % 100);
+		}
+
+		final Lz4BlockCompressor compressor = new Lz4BlockCompressor();
+		byte[] compressed = new byte[compressor.getMaxCompressedSize(data.length)];
+		int compressedLen = compressor.compress(data, 0, data.length, compressed, 0);
+
+		// a too small target
+		try {
+			new Lz4BlockDecompressor().decompress(compressed, 0, compressedLen, new byte[data.length / 2], 0, data.length / 2);
+			fail("Decompression into a too small target succeeded.");
+		} catch (IOException e) {
+			// expected
+		}
+
+		// truncated input
+		try {
+			new Lz4BlockDecompressor().decompress(compressed, 0, compressedLen / 2, new byte[data.length], 0, data.length);
+			fail("Decompression of truncated input succeeded.");
+		} catch (IOException e) {
+			// expected
+		}
+
+		// random garbage must never read or write out of bounds
+		for (int i = 0; i < 1000; i++) {
+			byte[] garbage = Arrays.copyOf(compressed, compressedLen);
+			for (int k = 0; k < 5; k++) {
+				garbage[rnd.nextInt(garbage.length)] = (byte) rnd.nextInt();
+			}
+			try {
+				new Lz4BlockDecompressor().decompress(garbage, 0, garbage.length, new byte[data.length], 0, data.length);
+			} catch (IOException e) {
+				// expected for most of the garbage
+			}
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static int roundTrip(byte[] data, int offset) throws IOException {
+		final Lz4BlockCompressor compressor = new Lz4BlockCompressor();
+
+		byte[] compressed = new byte[offset + compressor.getMaxCompressedSize(data.length)];
+		int compressedLen = compressor.compress(data, 0, data.length, compressed, offset);
+
+		byte[] restored = new byte[offset + data.length];
+		int restoredLen = new Lz4BlockDecompressor().decompress(compressed, offset, compressedLen,
+			restored, offset, data.length);
+
+		assertEquals(data.length, restoredLen);
+		assertArrayEquals(data, Arrays.copyOfRange(restored, offset, offset + data.length));
+		return compressedLen;
+	}
+}
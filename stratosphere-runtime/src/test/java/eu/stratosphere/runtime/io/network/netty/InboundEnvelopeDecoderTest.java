@@ -19,6 +19,8 @@ import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.runtime.io.Buffer;
 import eu.stratosphere.runtime.io.BufferRecycler;
 import eu.stratosphere.runtime.io.channels.ChannelID;
+import eu.stratosphere.runtime.io.compression.CompressionCodec;
+import eu.stratosphere.runtime.io.compression.CompressionStatistics;
 import eu.stratosphere.runtime.io.network.bufferprovider.BufferAvailabilityListener;
 import eu.stratosphere.runtime.io.network.bufferprovider.BufferProvider;
 import eu.stratosphere.runtime.io.network.bufferprovider.BufferProvider.BufferAvailabilityRegistration;
@@ -431,6 +433,117 @@ public class InboundEnvelopeDecoderTest {
 		buf.release();
 	}
 
+	@Test
+	public void testEncodeDecodeCompressed() throws Exception {
+		final EmbeddedChannel ch = new EmbeddedChannel(
+				new OutboundEnvelopeEncoder(), new InboundEnvelopeDecoder(this.bufferProviderBroker));
+
+		when(this.bufferProviderBroker.getBufferProvider(anyJobId(), anyChannelId()))
+				.thenReturn(this.bufferProvider);
+
+		when(this.bufferProvider.requestBuffer(anyInt())).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				// fulfill the buffer request
+				return allocBuffer((Integer) invocation.getArguments()[0]);
+			}
+		});
+
+		// --------------------------------------------------------------------
+
+		final CompressionStatistics statistics = new CompressionStatistics(CompressionCodec.LZ4);
+
+		// the random buffer does not compress and is sent uncompressed
+		Envelope[] envelopes = new Envelope[]{
+				nextCompressibleEnvelope(32768),
+				nextEnvelope(8192),
+				nextCompressibleEnvelope(100, new TestEvent1(34872527)),
+				nextEnvelope(0, new TestEvent2(34563456)),
+				nextCompressibleEnvelope(4000)
+		};
+
+		for (Envelope env : envelopes) {
+			env.setCompression(statistics);
+		}
+
+		ByteBuf buf = encode(ch, envelopes);
+
+		Assert.assertEquals(4, statistics.getNumBuffers());
+		Assert.assertEquals(32768 + 8192 + 100 + 4000, statistics.getUncompressedBytes());
+		Assert.assertTrue(statistics.getSentBytes() < statistics.getUncompressedBytes());
+
+		// 1. complete ByteBuf as input
+		int refCount = buf.retain().refCnt();
+
+		decodeAndVerify(ch, buf, envelopes);
+		Assert.assertEquals(refCount - 1, buf.refCnt());
+
+		// 2. random slices
+		buf.readerIndex(0);
+		ByteBuf[] slices = randomSlices(buf);
+
+		ch.writeInbound(slices);
+
+		for (ByteBuf slice : slices) {
+			Assert.assertEquals(1, slice.refCnt());
+		}
+
+		decodeAndVerify(ch, envelopes);
+
+		buf.release();
+	}
+
+	@Test
+	public void testCompressedBufferStagingAndSkipping() throws Exception {
+		final InboundEnvelopeDecoder decoder = new InboundEnvelopeDecoder(this.bufferProviderBroker);
+		final EmbeddedChannel ch = new EmbeddedChannel(
+				new OutboundEnvelopeEncoder(),
+				decoder);
+
+		when(this.bufferProviderBroker.getBufferProvider(anyJobId(), anyChannelId()))
+				.thenReturn(this.bufferProvider);
+
+		// --------------------------------------------------------------------
+
+		final CompressionStatistics statistics = new CompressionStatistics(CompressionCodec.LZ4);
+
+		Envelope[] envelopes = new Envelope[]{
+				nextCompressibleEnvelope(16384),
+				nextCompressibleEnvelope(8192),
+				nextCompressibleEnvelope(32768)
+		};
+
+		for (Envelope env : envelopes) {
+			env.setCompression(statistics);
+		}
+
+		ByteBuf buf = encode(ch, envelopes);
+
+		// first envelope: staged until a buffer becomes available, second envelope: skipped
+		Buffer buffer = allocBuffer(envelopes[2].getBuffer().size());
+
+		when(this.bufferProvider.requestBuffer(anyInt()))
+				.thenReturn(null, null, buffer);
+
+		when(this.bufferProvider.registerBufferAvailabilityListener(Matchers.<BufferAvailabilityListener>anyObject()))
+				.thenReturn(BufferAvailabilityRegistration.SUCCEEDED_REGISTERED,
+						BufferAvailabilityRegistration.FAILED_BUFFER_POOL_DESTROYED);
+
+		// --------------------------------------------------------------------
+
+		decodeAndVerify(ch, buf);
+		Assert.assertFalse(ch.config().isAutoRead());
+
+		// the decoder needs to limit the available buffer to the uncompressed size
+		decoder.bufferAvailable(allocBuffer(MAX_BUFFER_SIZE));
+		ch.runPendingTasks();
+
+		Assert.assertTrue(ch.config().isAutoRead());
+		decodeAndVerify(ch, envelopes[0], envelopes[2]);
+
+		Assert.assertEquals(0, buf.refCnt());
+	}
+
 	// ========================================================================
 	// helpers
 	// ========================================================================
@@ -487,6 +600,19 @@ public class InboundEnvelopeDecoderTest {
 		return env;
 	}
 
+	private Envelope nextCompressibleEnvelope(int bufferSize, AbstractEvent... events) {
+		Envelope env = nextEnvelope(0, events);
+
+		// a repeating pattern with some noise
+		byte[] data = new byte[bufferSize];
+		for (int i = 0; i < bufferSize; i++) {
+			data[i] = random.nextInt(64) == 0 ? (byte) random.nextInt() : (byte) (i % 61);
+		}
+
+		env.setBuffer(spy(new Buffer(new MemorySegment(data), bufferSize, RECYCLER)));
+		return env;
+	}
+
 	private Envelope nextEnvelope(boolean withBuffer, boolean withEvents) {
 		int bufferSize = 0;
 		AbstractEvent[] events = null;
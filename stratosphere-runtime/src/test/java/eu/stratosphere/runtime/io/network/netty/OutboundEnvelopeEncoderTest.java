@@ -94,4 +94,29 @@ public class OutboundEnvelopeEncoderTest {
 		// --------------------------------------------------------------------
 		verify(buffer, times(numBuffers)).recycleBuffer();
 	}
+
+	@Test
+	public void testOffHeapBufferIsNotCopied() {
+		final MemorySegment segment = new MemorySegment(ByteBuffer.allocateDirect(MAX_BUFFER_SIZE));
+
+		final Buffer buffer = mock(Buffer.class);
+		when(buffer.getMemorySegment()).thenReturn(segment);
+		when(buffer.size()).thenReturn(MAX_BUFFER_SIZE);
+
+		final Envelope env = new Envelope(0, new JobID(), new ChannelID());
+		env.setBuffer(buffer);
+
+		final EmbeddedChannel channel = new EmbeddedChannel(new OutboundEnvelopeEncoder());
+		Assert.assertTrue(channel.writeOutbound(env));
+
+		ByteBuf encodedMsg = (ByteBuf) channel.readOutbound();
+		Assert.assertEquals(OutboundEnvelopeEncoder.HEADER_SIZE + MAX_BUFFER_SIZE, encodedMsg.readableBytes());
+
+		// the encoded message wraps the memory segment
+		segment.put(0, (byte) 42);
+		Assert.assertEquals(42, encodedMsg.getByte(encodedMsg.readerIndex() + OutboundEnvelopeEncoder.HEADER_SIZE));
+
+		encodedMsg.release();
+		verify(buffer, times(1)).recycleBuffer();
+	}
 }